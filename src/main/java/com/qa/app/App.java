@@ -10,6 +10,8 @@ import javafx.scene.image.Image;
 import java.io.IOException;
 
 import com.qa.app.dao.util.DBUtil;
+import com.qa.app.service.runner.GatlingWorkerPool;
+import com.qa.app.service.runner.ScenarioScheduler;
 import com.qa.app.util.AppConfig;
 
 public class App extends Application {
@@ -21,6 +23,9 @@ public class App extends Application {
         
         // Force load configuration before UI initialization
         AppConfig.reload();
+
+        // Start warm Gatling worker JVM(s) in the background so the first run does not pay JVM startup
+        GatlingWorkerPool.warmUp();
         
         // Load the FXML file for the main view
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/qa/app/ui/view/main_view.fxml"));
@@ -31,6 +36,16 @@ public class App extends Application {
         primaryStage.getIcons().add(new Image(getClass().getResourceAsStream("/static/icon/favicon.png")));
         primaryStage.setMaximized(true);
         primaryStage.show();
+
+        // Fire scheduled scenario runs (and runs missed while the application was down)
+        ScenarioScheduler.start();
+    }
+
+    @Override
+    public void stop() {
+        ScenarioScheduler.shutdown();
+        GatlingWorkerPool.shutdown();
+        DBUtil.shutdown();
     }
 
     public static void main(String[] args) {
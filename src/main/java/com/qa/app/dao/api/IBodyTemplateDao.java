@@ -1,6 +1,8 @@
 package com.qa.app.dao.api;
 
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 
 import com.qa.app.model.BodyTemplate;
@@ -8,6 +10,7 @@ import com.qa.app.model.BodyTemplate;
 public interface IBodyTemplateDao {
     void addBodyTemplate(BodyTemplate template) throws SQLException;
     BodyTemplate getBodyTemplateById(int id) throws SQLException;
+    List<BodyTemplate> getBodyTemplatesByIds(Connection conn, Collection<Integer> ids) throws SQLException;
     BodyTemplate getBodyTemplateByName(String name) throws SQLException;
     List<BodyTemplate> getAllBodyTemplates() throws SQLException;
     void updateBodyTemplate(BodyTemplate template) throws SQLException;
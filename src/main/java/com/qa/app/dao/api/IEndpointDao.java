@@ -1,6 +1,8 @@
 package com.qa.app.dao.api;
 
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 
 import com.qa.app.model.Endpoint;
@@ -13,6 +15,8 @@ public interface IEndpointDao {
     Endpoint getEndpointByName(String name) throws SQLException;
     List<Endpoint> getEndpointsByName(String name) throws SQLException;
     Endpoint getEndpointByNameAndEnv(String name, Integer environmentId) throws SQLException;
+    // Bulk lookup on a connection owned by the caller; the first endpoint (lowest id) per name wins, as above
+    List<Endpoint> getEndpointsByNamesAndEnv(Connection conn, Collection<String> names, Integer environmentId) throws SQLException;
     List<Endpoint> getAllEndpoints() throws SQLException;
     List<Endpoint> getEndpointsByProjectId(Integer projectId) throws SQLException;
 
@@ -23,4 +23,6 @@ public interface IGatlingScenarioDao {
     // Schedule
     void upsertSchedule(int scenarioId, String cronExpr, boolean enabled) throws SQLException;
     com.qa.app.model.ScenarioSchedule getSchedule(int scenarioId) throws SQLException;
+    List<com.qa.app.model.ScenarioSchedule> getEnabledSchedules() throws SQLException;
+    void updateScheduleRun(int scenarioId, String nextRunAt, String lastRunAt, boolean enabled) throws SQLException;
 } 
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.qa.app.dao.api;
 
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 
 import com.qa.app.model.GatlingTest;
@@ -9,6 +11,8 @@ public interface IGatlingTestDao {
     void addTest(GatlingTest test) throws SQLException;
     GatlingTest getTestById(int id) throws SQLException;
     GatlingTest getTestByTcid(String tcid) throws SQLException;
+    // Bulk lookup on a connection owned by the caller (one read transaction for a whole run)
+    List<GatlingTest> getTestsByTcids(Connection conn, Collection<String> tcids) throws SQLException;
     List<GatlingTest> getAllTests() throws SQLException;
     List<GatlingTest> getTestsBySuite(String suite) throws SQLException;
     void updateTest(GatlingTest test) throws SQLException;
@@ -1,6 +1,8 @@
 package com.qa.app.dao.api;
 
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 
 import com.qa.app.model.HeadersTemplate;
@@ -10,6 +12,7 @@ public interface IHeadersTemplateDao {
     void updateHeadersTemplate(HeadersTemplate template) throws SQLException;
     void deleteHeadersTemplate(int id) throws SQLException;
     HeadersTemplate getHeadersTemplateById(int id) throws SQLException;
+    List<HeadersTemplate> getHeadersTemplatesByIds(Connection conn, Collection<Integer> ids) throws SQLException;
     HeadersTemplate getHeadersTemplateByName(String name) throws SQLException;
     List<HeadersTemplate> getAllHeadersTemplates() throws SQLException;
     List<HeadersTemplate> getHeadersTemplatesByProjectId(Integer projectId) throws SQLException;
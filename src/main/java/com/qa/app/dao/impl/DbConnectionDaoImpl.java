@@ -17,7 +17,7 @@ public class DbConnectionDaoImpl implements IDbConnectionDao {
     @Override
     public void add(DbConnection connection) {
         String sql = "INSERT INTO db_connections(alias, db_type, host, port, db_name, schema_name, service_name, username, password, pool_size, project_id, environment_id, description) VALUES(?,?,?,?,?,?,?,?,?,?,?,?,?)";
-        try (Connection conn = DBUtil.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DBUtil.getWriteConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             mapDbConnectionToStatement(connection, pstmt);
             pstmt.executeUpdate();
         } catch (SQLException e) {
@@ -28,7 +28,7 @@ public class DbConnectionDaoImpl implements IDbConnectionDao {
     @Override
     public void update(DbConnection connection) {
         String sql = "UPDATE db_connections SET alias = ?, db_type = ?, host = ?, port = ?, db_name = ?, schema_name = ?, service_name = ?, username = ?, password = ?, pool_size = ?, project_id = ?, environment_id = ?, description = ? WHERE id = ?";
-        try (Connection conn = DBUtil.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DBUtil.getWriteConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             mapDbConnectionToStatement(connection, pstmt);
             pstmt.setLong(14, connection.getId());
             pstmt.executeUpdate();
@@ -40,7 +40,7 @@ public class DbConnectionDaoImpl implements IDbConnectionDao {
     @Override
     public void delete(DbConnection connection) {
         String sql = "DELETE FROM db_connections WHERE id = ?";
-        try (Connection conn = DBUtil.getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DBUtil.getWriteConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setLong(1, connection.getId());
             pstmt.executeUpdate();
         } catch (SQLException e) {
@@ -2,6 +2,7 @@ package com.qa.app.dao.impl;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import com.qa.app.dao.api.IEndpointDao;
@@ -13,7 +14,7 @@ public class EndpointDaoImpl implements IEndpointDao {
     public void addEndpoint(Endpoint endpoint) throws SQLException {
         // Determine next display order
         int nextOrder = 1;
-        try (Connection conn = DBUtil.getConnection();
+        try (Connection conn = DBUtil.getWriteConnection();
              Statement stmt = conn.createStatement()) {
             ResultSet rs = stmt.executeQuery("SELECT MAX(display_order) FROM endpoints");
             if (rs.next()) {
@@ -22,7 +23,7 @@ public class EndpointDaoImpl implements IEndpointDao {
         }
 
         String sql = "INSERT INTO endpoints (name, method, url, environment_id, project_id, display_order) VALUES (?, ?, ?, ?, ?, ?)";
-        try (Connection conn = DBUtil.getConnection();
+        try (Connection conn = DBUtil.getWriteConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             pstmt.setString(1, endpoint.getName());
             pstmt.setString(2, endpoint.getMethod());
@@ -50,7 +51,7 @@ public class EndpointDaoImpl implements IEndpointDao {
     @Override
     public void updateEndpoint(Endpoint endpoint) throws SQLException {
         String sql = "UPDATE endpoints SET name = ?, method = ?, url = ?, environment_id = ?, project_id = ?, display_order = ? WHERE id = ?";
-        try (Connection conn = DBUtil.getConnection();
+        try (Connection conn = DBUtil.getWriteConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, endpoint.getName());
             pstmt.setString(2, endpoint.getMethod());
@@ -74,7 +75,7 @@ public class EndpointDaoImpl implements IEndpointDao {
     @Override
     public void deleteEndpoint(int id) throws SQLException {
         String sql = "DELETE FROM endpoints WHERE id = ?";
-        try (Connection conn = DBUtil.getConnection();
+        try (Connection conn = DBUtil.getWriteConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, id);
             pstmt.executeUpdate();
@@ -154,6 +155,29 @@ public class EndpointDaoImpl implements IEndpointDao {
         return null;
     }
 
+    @Override
+    public List<Endpoint> getEndpointsByNamesAndEnv(Connection conn, Collection<String> names, Integer environmentId) throws SQLException {
+        List<Endpoint> list = new ArrayList<>();
+        for (List<String> chunk : DBUtil.inChunks(names)) {
+            String sql = "SELECT * FROM endpoints WHERE name IN (" + DBUtil.placeholders(chunk.size()) + ") AND environment_id "
+                    + (environmentId == null ? "IS NULL" : "= ?") + " ORDER BY id";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setString(i + 1, chunk.get(i));
+                }
+                if (environmentId != null) {
+                    pstmt.setInt(chunk.size() + 1, environmentId);
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        list.add(createFromResultSet(rs));
+                    }
+                }
+            }
+        }
+        return list;
+    }
+
     @Override
     public List<Endpoint> getAllEndpoints() throws SQLException {
         String sql = "SELECT * FROM endpoints ORDER BY display_order";
@@ -199,7 +223,7 @@ public class EndpointDaoImpl implements IEndpointDao {
     // --- New method to batch update order ---
     public void updateOrder(List<Endpoint> endpoints) throws SQLException {
         String sql = "UPDATE endpoints SET display_order = ? WHERE id = ?";
-        try (Connection conn = DBUtil.getConnection();
+        try (Connection conn = DBUtil.getWriteConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             conn.setAutoCommit(false);
             for (Endpoint e : endpoints) {
@@ -12,7 +12,7 @@ public class EnvironmentDaoImpl implements IEnvironmentDao {
     @Override
     public void addEnvironment(Environment environment) throws SQLException {
         String sql = "INSERT INTO environments (name, description, project_id) VALUES (?, ?, ?)";
-        try (Connection conn = DBUtil.getConnection();
+        try (Connection conn = DBUtil.getWriteConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             pstmt.setString(1, environment.getName());
             pstmt.setString(2, environment.getDescription());
@@ -33,7 +33,7 @@ public class EnvironmentDaoImpl implements IEnvironmentDao {
     @Override
     public void updateEnvironment(Environment environment) throws SQLException {
         String sql = "UPDATE environments SET name = ?, description = ?, project_id = ? WHERE id = ?";
-        try (Connection conn = DBUtil.getConnection();
+        try (Connection conn = DBUtil.getWriteConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, environment.getName());
             pstmt.setString(2, environment.getDescription());
@@ -50,7 +50,7 @@ public class EnvironmentDaoImpl implements IEnvironmentDao {
     @Override
     public void deleteEnvironment(int id) throws SQLException {
         String sql = "DELETE FROM environments WHERE id = ?";
-        try (Connection conn = DBUtil.getConnection();
+        try (Connection conn = DBUtil.getWriteConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, id);
             pstmt.executeUpdate();
@@ -14,7 +14,7 @@ public class GatlingScenarioDaoImpl implements IGatlingScenarioDao {
     @Override
     public void addScenario(Scenario scenario) throws SQLException {
         String sql = "INSERT INTO scenario(name, desc, thread_group_json, schedule_json, project_id, display_order, is_functional_test) VALUES(?,?,?,?,?,?,?)";
-        try (Connection conn = DBUtil.getConnection()) {
+        try (Connection conn = DBUtil.getWriteConnection()) {
             conn.setAutoCommit(false);
             try {
                 int maxOrder = 0;
@@ -52,7 +52,7 @@ public class GatlingScenarioDaoImpl implements IGatlingScenarioDao {
     @Override
     public void updateScenario(Scenario scenario) throws SQLException {
         String sql = "UPDATE scenario SET name=?, desc=?, thread_group_json=?, schedule_json=?, project_id=?, display_order=?, is_functional_test=? WHERE id=?";
-        try (Connection conn = DBUtil.getConnection();
+        try (Connection conn = DBUtil.getWriteConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, scenario.getName());
             ps.setString(2, scenario.getDescription());
@@ -68,7 +68,7 @@ public class GatlingScenarioDaoImpl implements IGatlingScenarioDao {
 
     @Override
     public void deleteScenario(int scenarioId) throws SQLException {
-        try (Connection conn = DBUtil.getConnection()) {
+        try (Connection conn = DBUtil.getWriteConnection()) {
             conn.setAutoCommit(false);
             try (PreparedStatement delSteps = conn.prepareStatement("DELETE FROM scenario_step WHERE scenario_id=?")) {
                 delSteps.setInt(1, scenarioId);
@@ -120,7 +120,7 @@ public class GatlingScenarioDaoImpl implements IGatlingScenarioDao {
     @Override
     public void updateOrder(List<Scenario> scenarios) throws SQLException {
         String sql = "UPDATE scenario SET display_order = ? WHERE id = ?";
-        try (Connection conn = DBUtil.getConnection()) {
+        try (Connection conn = DBUtil.getWriteConnection()) {
             conn.setAutoCommit(false);
             try (PreparedStatement ps = conn.prepareStatement(sql)) {
                 for (Scenario scenario : scenarios) {
@@ -158,7 +158,7 @@ public class GatlingScenarioDaoImpl implements IGatlingScenarioDao {
     @Override
     public void deleteStepsByScenarioId(int scenarioId) throws SQLException {
         String sql = "DELETE FROM scenario_step WHERE scenario_id=?";
-        try (Connection conn = DBUtil.getConnection();
+        try (Connection conn = DBUtil.getWriteConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, scenarioId);
             ps.executeUpdate();
@@ -168,7 +168,7 @@ public class GatlingScenarioDaoImpl implements IGatlingScenarioDao {
     @Override
     public void addStep(int scenarioId, ScenarioStep step) throws SQLException {
         String sql = "INSERT INTO scenario_step(scenario_id, order_index, test_tcid, wait_time, tags) VALUES(?,?,?,?,?)";
-        try (Connection conn = DBUtil.getConnection();
+        try (Connection conn = DBUtil.getWriteConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, scenarioId);
             ps.setInt(2, step.getOrder());
@@ -202,9 +202,10 @@ public class GatlingScenarioDaoImpl implements IGatlingScenarioDao {
 
     @Override
     public void upsertSchedule(int scenarioId, String cronExpr, boolean enabled) throws SQLException {
+        // A changed schedule starts over: the scheduler computes next_run_at again from the new cron
         String sql = "INSERT INTO scenario_schedule(scenario_id, cron_expr, enabled) VALUES(?,?,?) " +
-                     "ON CONFLICT(scenario_id) DO UPDATE SET cron_expr=excluded.cron_expr, enabled=excluded.enabled";
-        try (Connection conn = DBUtil.getConnection();
+                     "ON CONFLICT(scenario_id) DO UPDATE SET cron_expr=excluded.cron_expr, enabled=excluded.enabled, next_run_at=NULL";
+        try (Connection conn = DBUtil.getWriteConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, scenarioId);
             ps.setString(2, cronExpr);
@@ -215,21 +216,55 @@ public class GatlingScenarioDaoImpl implements IGatlingScenarioDao {
 
     @Override
     public com.qa.app.model.ScenarioSchedule getSchedule(int scenarioId) throws SQLException {
-        String sql = "SELECT scenario_id, cron_expr, next_run_at, enabled FROM scenario_schedule WHERE scenario_id=?";
+        String sql = "SELECT scenario_id, cron_expr, next_run_at, enabled, misfire_policy, last_run_at FROM scenario_schedule WHERE scenario_id=?";
         try (Connection conn = DBUtil.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, scenarioId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
-                    com.qa.app.model.ScenarioSchedule s = new com.qa.app.model.ScenarioSchedule();
-                    s.setScenarioId(rs.getInt("scenario_id"));
-                    s.setCronExpr(rs.getString("cron_expr"));
-                    s.setNextRunAt(rs.getString("next_run_at"));
-                    s.setEnabled(rs.getBoolean("enabled"));
-                    return s;
+                    return createScheduleFromResultSet(rs);
                 }
             }
         }
         return null;
     }
+
+    @Override
+    public List<com.qa.app.model.ScenarioSchedule> getEnabledSchedules() throws SQLException {
+        String sql = "SELECT scenario_id, cron_expr, next_run_at, enabled, misfire_policy, last_run_at FROM scenario_schedule WHERE enabled=1";
+        List<com.qa.app.model.ScenarioSchedule> list = new ArrayList<>();
+        try (Connection conn = DBUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                list.add(createScheduleFromResultSet(rs));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void updateScheduleRun(int scenarioId, String nextRunAt, String lastRunAt, boolean enabled) throws SQLException {
+        // last_run_at is only overwritten when the schedule fired
+        String sql = "UPDATE scenario_schedule SET next_run_at=?, last_run_at=COALESCE(?, last_run_at), enabled=? WHERE scenario_id=?";
+        try (Connection conn = DBUtil.getWriteConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, nextRunAt);
+            ps.setString(2, lastRunAt);
+            ps.setBoolean(3, enabled);
+            ps.setInt(4, scenarioId);
+            ps.executeUpdate();
+        }
+    }
+
+    private com.qa.app.model.ScenarioSchedule createScheduleFromResultSet(ResultSet rs) throws SQLException {
+        com.qa.app.model.ScenarioSchedule s = new com.qa.app.model.ScenarioSchedule();
+        s.setScenarioId(rs.getInt("scenario_id"));
+        s.setCronExpr(rs.getString("cron_expr"));
+        s.setNextRunAt(rs.getString("next_run_at"));
+        s.setEnabled(rs.getBoolean("enabled"));
+        s.setMisfirePolicy(rs.getString("misfire_policy"));
+        s.setLastRunAt(rs.getString("last_run_at"));
+        return s;
+    }
 } 
\ No newline at end of file
@@ -10,6 +10,7 @@ import org.json.JSONException;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,10 +21,11 @@ public class GatlingTestDaoImpl implements IGatlingTestDao {
     public void addTest(GatlingTest test) throws SQLException {
         String sql = "INSERT INTO gatling_tests(is_enabled, suite, tcid, descriptions, conditions, response_checks, " +
                 "endpoint_name, tags, wait_time, body_template_id, headers_template_id, project_id, " +
-                "body_dynamic_variables, headers_dynamic_variables, endpoint_dynamic_variables, display_order) " +
-                "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+                "body_dynamic_variables, headers_dynamic_variables, endpoint_dynamic_variables, display_order, " +
+                "response_capture) " +
+                "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
-        try (Connection conn = DBUtil.getConnection();
+        try (Connection conn = DBUtil.getWriteConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
                     pstmt.setBoolean(1, test.isEnabled());
@@ -46,6 +48,7 @@ public class GatlingTestDaoImpl implements IGatlingTestDao {
             pstmt.setString(14, convertMapToJson(test.getHeadersDynamicVariables()));
             pstmt.setString(15, convertMapToJson(test.getEndpointDynamicVariables()));
             pstmt.setInt(16, test.getDisplayOrder());
+            pstmt.setString(17, test.getResponseCapture());
 
                     pstmt.executeUpdate();
 
@@ -89,6 +92,25 @@ public class GatlingTestDaoImpl implements IGatlingTestDao {
         return test;
     }
 
+    @Override
+    public List<GatlingTest> getTestsByTcids(Connection conn, Collection<String> tcids) throws SQLException {
+        List<GatlingTest> tests = new ArrayList<>();
+        for (List<String> chunk : DBUtil.inChunks(tcids)) {
+            String sql = "SELECT * FROM gatling_tests WHERE tcid IN (" + DBUtil.placeholders(chunk.size()) + ") ORDER BY id";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setString(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        tests.add(createTestFromResultSet(rs));
+                    }
+                }
+            }
+        }
+        return tests;
+    }
+
     @Override
     public List<GatlingTest> getAllTests() throws SQLException {
         String sql = "SELECT * FROM gatling_tests ORDER BY display_order";
@@ -125,8 +147,8 @@ public class GatlingTestDaoImpl implements IGatlingTestDao {
                 "conditions = ?, response_checks = ?, endpoint_name = ?, " +
                 "tags = ?, wait_time = ?, body_template_id = ?, headers_template_id = ?, project_id = ?, " +
                 "body_dynamic_variables = ?, headers_dynamic_variables = ?, endpoint_dynamic_variables = ?, " +
-                "display_order = ? WHERE id = ?";
-        try (Connection conn = DBUtil.getConnection();
+                "display_order = ?, response_capture = ? WHERE id = ?";
+        try (Connection conn = DBUtil.getWriteConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setBoolean(1, test.isEnabled());
             pstmt.setString(2, test.getSuite());
@@ -148,7 +170,8 @@ public class GatlingTestDaoImpl implements IGatlingTestDao {
             pstmt.setString(14, convertMapToJson(test.getHeadersDynamicVariables()));
             pstmt.setString(15, convertMapToJson(test.getEndpointDynamicVariables()));
             pstmt.setInt(16, test.getDisplayOrder());
-            pstmt.setInt(17, test.getId());
+            pstmt.setString(17, test.getResponseCapture());
+            pstmt.setInt(18, test.getId());
             pstmt.executeUpdate();
         }
     }
@@ -156,7 +179,7 @@ public class GatlingTestDaoImpl implements IGatlingTestDao {
     @Override
     public void deleteTest(int id) throws SQLException {
         String sql = "DELETE FROM gatling_tests WHERE id = ?";
-        try (Connection conn = DBUtil.getConnection();
+        try (Connection conn = DBUtil.getWriteConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, id);
             pstmt.executeUpdate();
@@ -166,7 +189,7 @@ public class GatlingTestDaoImpl implements IGatlingTestDao {
     @Override
     public void updateTestRunStatus(int id, boolean isEnabled) throws SQLException {
         String sql = "UPDATE gatling_tests SET is_enabled = ? WHERE id = ?";
-        try (Connection conn = DBUtil.getConnection();
+        try (Connection conn = DBUtil.getWriteConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setBoolean(1, isEnabled);
             pstmt.setInt(2, id);
@@ -218,6 +241,7 @@ public class GatlingTestDaoImpl implements IGatlingTestDao {
             test.setLastRunPassed(null);
         }
         test.setDisplayOrder(rs.getInt("display_order"));
+        test.setResponseCapture(rs.getString("response_capture"));
         return test;
     }
 
@@ -248,7 +272,7 @@ public class GatlingTestDaoImpl implements IGatlingTestDao {
     @Override
     public void updateOrder(List<GatlingTest> tests) throws SQLException {
         String sql = "UPDATE gatling_tests SET display_order = ? WHERE id = ?";
-        try (Connection conn = DBUtil.getConnection()) {
+        try (Connection conn = DBUtil.getWriteConnection()) {
             conn.setAutoCommit(false);
             try (PreparedStatement ps = conn.prepareStatement(sql)) {
                 for (GatlingTest test : tests) {
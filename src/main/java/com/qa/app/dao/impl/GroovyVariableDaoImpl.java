@@ -13,7 +13,7 @@ public class GroovyVariableDaoImpl implements IGroovyVariableDao {
     @Override
     public void add(GroovyVariable variable) throws SQLException {
         String sql = "INSERT INTO groovy_variables (name, value, description, environment_id, project_id) VALUES (?, ?, ?, ?, ?)";
-        try (Connection conn = DBUtil.getConnection();
+        try (Connection conn = DBUtil.getWriteConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             pstmt.setString(1, variable.getName());
             pstmt.setString(2, variable.getValue());
@@ -40,7 +40,7 @@ public class GroovyVariableDaoImpl implements IGroovyVariableDao {
     @Override
     public void update(GroovyVariable variable) throws SQLException {
         String sql = "UPDATE groovy_variables SET name = ?, value = ?, description = ?, environment_id = ?, project_id = ? WHERE id = ?";
-        try (Connection conn = DBUtil.getConnection();
+        try (Connection conn = DBUtil.getWriteConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, variable.getName());
             pstmt.setString(2, variable.getValue());
@@ -63,7 +63,7 @@ public class GroovyVariableDaoImpl implements IGroovyVariableDao {
     @Override
     public void delete(int id) throws SQLException {
         String sql = "DELETE FROM groovy_variables WHERE id = ?";
-        try (Connection conn = DBUtil.getConnection();
+        try (Connection conn = DBUtil.getWriteConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, id);
             pstmt.executeUpdate();
@@ -73,7 +73,7 @@ public class GroovyVariableDaoImpl implements IGroovyVariableDao {
     @Override
     public void deleteAll() throws SQLException {
         String sql = "DELETE FROM groovy_variables";
-        try (Connection conn = DBUtil.getConnection();
+        try (Connection conn = DBUtil.getWriteConnection();
              Statement stmt = conn.createStatement()) {
             stmt.executeUpdate(sql);
         }
@@ -2,6 +2,7 @@ package com.qa.app.dao.impl;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import com.qa.app.dao.api.IHeadersTemplateDao;
@@ -12,7 +13,7 @@ public class HeadersTemplateDaoImpl implements IHeadersTemplateDao {
     @Override
     public void addHeadersTemplate(HeadersTemplate template) throws SQLException {
         String sql = "INSERT INTO headers_templates (name, content, description, project_id) VALUES (?, ?, ?, ?)";
-        try (Connection conn = DBUtil.getConnection();
+        try (Connection conn = DBUtil.getWriteConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             pstmt.setString(1, template.getName());
             pstmt.setString(2, template.getContent());
@@ -34,7 +35,7 @@ public class HeadersTemplateDaoImpl implements IHeadersTemplateDao {
     @Override
     public void updateHeadersTemplate(HeadersTemplate template) throws SQLException {
         String sql = "UPDATE headers_templates SET name = ?, content = ?, description = ?, project_id = ? WHERE id = ?";
-        try (Connection conn = DBUtil.getConnection();
+        try (Connection conn = DBUtil.getWriteConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, template.getName());
             pstmt.setString(2, template.getContent());
@@ -52,7 +53,7 @@ public class HeadersTemplateDaoImpl implements IHeadersTemplateDao {
     @Override
     public void deleteHeadersTemplate(int id) throws SQLException {
         String sql = "DELETE FROM headers_templates WHERE id = ?";
-        try (Connection conn = DBUtil.getConnection();
+        try (Connection conn = DBUtil.getWriteConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, id);
             pstmt.executeUpdate();
@@ -74,6 +75,25 @@ public class HeadersTemplateDaoImpl implements IHeadersTemplateDao {
         return null;
     }
 
+    @Override
+    public List<HeadersTemplate> getHeadersTemplatesByIds(Connection conn, Collection<Integer> ids) throws SQLException {
+        List<HeadersTemplate> list = new ArrayList<>();
+        for (List<Integer> chunk : DBUtil.inChunks(ids)) {
+            String sql = "SELECT * FROM headers_templates WHERE id IN (" + DBUtil.placeholders(chunk.size()) + ")";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    pstmt.setInt(i + 1, chunk.get(i));
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        list.add(createFromResultSet(rs));
+                    }
+                }
+            }
+        }
+        return list;
+    }
+
     @Override
     public HeadersTemplate getHeadersTemplateByName(String name) throws SQLException {
         String sql = "SELECT * FROM headers_templates WHERE name = ?";
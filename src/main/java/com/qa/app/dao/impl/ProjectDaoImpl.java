@@ -12,7 +12,7 @@ public class ProjectDaoImpl implements IProjectDao {
     @Override
     public void addProject(Project project) throws SQLException {
         String sql = "INSERT INTO project (name, description) VALUES (?, ?)";
-        try (Connection conn = DBUtil.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = DBUtil.getWriteConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, project.getName());
             ps.setString(2, project.getDescription());
             ps.executeUpdate();
@@ -24,7 +24,7 @@ public class ProjectDaoImpl implements IProjectDao {
     @Override
     public void updateProject(Project project) throws SQLException {
         String sql = "UPDATE project SET name = ?, description = ? WHERE id = ?";
-        try (Connection conn = DBUtil.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = DBUtil.getWriteConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, project.getName());
             ps.setString(2, project.getDescription());
             ps.setInt(3, project.getId());
@@ -37,7 +37,7 @@ public class ProjectDaoImpl implements IProjectDao {
     @Override
     public void deleteProject(Integer id) throws SQLException {
         String sql = "DELETE FROM project WHERE id = ?";
-        try (Connection conn = DBUtil.getConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = DBUtil.getWriteConnection(); PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
             ps.executeUpdate();
         } catch (SQLException e) {
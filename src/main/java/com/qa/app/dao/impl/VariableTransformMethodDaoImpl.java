@@ -19,7 +19,7 @@ public class VariableTransformMethodDaoImpl implements IVariableTransformMethodD
         String sql = "INSERT INTO variable_transform_methods " +
                 "(name, description, script, enabled, param_spec, sample_usage, create_time, update_time) " +
                 "VALUES (?,?,?,?,?,?,?,?)";
-        try (Connection conn = DBUtil.getConnection();
+        try (Connection conn = DBUtil.getWriteConnection();
              PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setString(1, method.getName());
             ps.setString(2, method.getDescription());
@@ -41,7 +41,7 @@ public class VariableTransformMethodDaoImpl implements IVariableTransformMethodD
     @Override
     public void updateMethod(VariableTransformMethod method) throws SQLException {
         String sql = "UPDATE variable_transform_methods SET description=?, script=?, enabled=?, param_spec=?, sample_usage=?, update_time=? WHERE name=?";
-        try (Connection conn = DBUtil.getConnection();
+        try (Connection conn = DBUtil.getWriteConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, method.getDescription());
             ps.setString(2, method.getScript());
@@ -57,7 +57,7 @@ public class VariableTransformMethodDaoImpl implements IVariableTransformMethodD
     @Override
     public void deleteMethod(int id) throws SQLException {
         String sql = "DELETE FROM variable_transform_methods WHERE id = ?";
-        try (Connection conn = DBUtil.getConnection();
+        try (Connection conn = DBUtil.getWriteConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
             ps.executeUpdate();
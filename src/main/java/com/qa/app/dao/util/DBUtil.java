@@ -1,28 +1,139 @@
 package com.qa.app.dao.util;
 
+import com.qa.app.util.AppConfig;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteDataSource;
+
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.Statement;
-
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Access to the application database (SQLite).
+ * <p>
+ * Connections are pooled and opened in WAL journal mode, so readers never wait for a writer and a writer never
+ * waits for readers. All writes go through a single pooled writer connection ({@link #getWriteConnection()}):
+ * SQLite allows one writer at a time anyway, and queuing in the pool is cheaper than retrying on a busy database
+ * file. Reads use a small reader pool ({@link #getConnection()}, size {@code db.reader.pool.size}, default 4), so
+ * the UI keeps loading the catalog while a run persists its results. Reader connections are opened read-only, so a
+ * write sent through {@link #getConnection()} by mistake fails instead of getting around the single writer.
+ * {@code synchronous=NORMAL} is safe in WAL mode (an application crash loses nothing, a power loss at most the last
+ * transactions). Foreign keys and the busy timeout ({@code db.busy.timeout.ms}, default 5000, for other processes such
+ * as a Gatling run using the same file) are set once per physical connection.
+ */
 public class DBUtil {
     private static final String URL = "jdbc:sqlite:gatling_testing_system.db";
+    /** Values bound per {@code IN (...)} query, see {@link #inChunks}. */
+    public static final int MAX_IN_PARAMETERS = 500;
 
+    private static HikariDataSource writer;
+    private static HikariDataSource readers;
+
+    /**
+     * A pooled connection for reads. Closing it returns it to the pool.
+     */
     public static Connection getConnection() throws SQLException {
+        return readers().getConnection();
+    }
+
+    /**
+     * The writer connection, for INSERT / UPDATE / DELETE and transactions. Callers wait while another thread holds
+     * it; close it as soon as the write is done.
+     */
+    public static Connection getWriteConnection() throws SQLException {
+        return writer().getConnection();
+    }
+
+    private static synchronized HikariDataSource writer() {
+        if (writer == null) {
+            writer = createPool("sqlite-writer", 1, false);
+        }
+        return writer;
+    }
+
+    private static synchronized HikariDataSource readers() {
+        if (readers == null) {
+            // the writer switches the database file to WAL before any reader opens it
+            writer();
+            readers = createPool("sqlite-readers", Math.max(1, intProperty("db.reader.pool.size", 4)), true);
+        }
+        return readers;
+    }
+
+    private static HikariDataSource createPool(String name, int size, boolean readOnly) {
+        SQLiteConfig config = new SQLiteConfig();
+        config.enforceForeignKeys(true);
+        if (readOnly) {
+            // SQLITE_OPEN_READONLY; the journal mode is stored in the file, the writer has already set it to WAL
+            config.setReadOnly(true);
+        } else {
+            config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        }
+        config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+        config.setBusyTimeout(intProperty("db.busy.timeout.ms", 5000));
+        SQLiteDataSource sqlite = new SQLiteDataSource(config);
+        sqlite.setUrl(URL);
+
+        HikariConfig hc = new HikariConfig();
+        hc.setPoolName(name);
+        hc.setDataSource(sqlite);
+        hc.setMaximumPoolSize(size);
+        hc.setMinimumIdle(1);
+        // must match the open mode: the driver cannot switch an open connection to read-only
+        hc.setReadOnly(readOnly);
+        return new HikariDataSource(hc);
+    }
+
+    /**
+     * Closes the pools; the next call opens them again.
+     */
+    public static synchronized void shutdown() {
+        if (readers != null) {
+            readers.close();
+            readers = null;
+        }
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private static int intProperty(String key, int defaultValue) {
         try {
-            Class.forName("org.sqlite.JDBC");
-            Connection conn = DriverManager.getConnection(URL);
-            // enable SQLite foreign key constraints
-            try (Statement stmt = conn.createStatement()) {
-                stmt.execute("PRAGMA foreign_keys = ON");
-            }
-            return conn;
-        } catch (ClassNotFoundException e) {
-            System.err.println("SQLite JDBC driver not found: " + e.getMessage());
-            throw new SQLException("SQLite JDBC driver not found", e);
+            return Integer.parseInt(AppConfig.getProperty(key, String.valueOf(defaultValue)).trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
         }
     }
 
+    /**
+     * Splits the values of an {@code IN (...)} query into chunks of at most {@value #MAX_IN_PARAMETERS}, below the
+     * bound parameter limit of older SQLite builds (999).
+     */
+    public static <T> List<List<T>> inChunks(Collection<T> values) {
+        if (values.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<T> all = new ArrayList<>(values);
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += MAX_IN_PARAMETERS) {
+            chunks.add(all.subList(from, Math.min(all.size(), from + MAX_IN_PARAMETERS)));
+        }
+        return chunks;
+    }
+
+    /**
+     * {@code "?,?,?"} with {@code count} placeholders.
+     */
+    public static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+
     public static void closeConnection(Connection connection) {
         if (connection != null) {
             try {
@@ -34,181 +145,10 @@ public class DBUtil {
     }
 
     public static void initializeDatabase() {
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement()) {
-            
-            // Create gatling_tests table if it doesn't exist with the new schema
-            String testsSql = "CREATE TABLE IF NOT EXISTS gatling_tests ("
-                    + " id INTEGER PRIMARY KEY AUTOINCREMENT,"
-                    + " is_enabled BOOLEAN NOT NULL DEFAULT 0,"
-                    + " suite TEXT NOT NULL,"
-                    + " tcid TEXT NOT NULL UNIQUE,"
-                    + " tags TEXT,"
-                    + " wait_time INTEGER DEFAULT 0,"
-                    + " conditions TEXT,"
-                    + " descriptions TEXT,"
-                    + " endpoint_name TEXT,"
-                    + " headers_template_id INTEGER,"
-                    + " body_template_id INTEGER,"
-                    + " endpoint_dynamic_variables TEXT,"
-                    + " headers_dynamic_variables TEXT,"
-                    + " body_dynamic_variables TEXT,"
-                    + " response_checks TEXT,"
-                    + " project_id INTEGER,"
-                    + " report_path TEXT,"
-                    + " last_run_passed BOOLEAN,"
-                    + " display_order INT,"
-                    + " FOREIGN KEY(project_id) REFERENCES project(id) ON DELETE SET NULL ON UPDATE CASCADE,"
-                    + " FOREIGN KEY(headers_template_id) REFERENCES headers_templates(id) ON DELETE SET NULL ON UPDATE CASCADE,"
-                    + " FOREIGN KEY(body_template_id) REFERENCES body_templates(id) ON DELETE SET NULL ON UPDATE CASCADE"
-                    + ");";
-            stmt.execute(testsSql);
-
-            
-            // Create body_templates table if it doesn't exist
-            String bodyTemplateSql = "CREATE TABLE IF NOT EXISTS body_templates ("
-                    + " id INTEGER PRIMARY KEY AUTOINCREMENT,"
-                    + " name TEXT NOT NULL UNIQUE,"
-                    + " content TEXT NOT NULL,"
-                    + " description TEXT,"
-                    + " project_id INTEGER,"
-                    + " FOREIGN KEY(project_id) REFERENCES project(id) ON DELETE SET NULL ON UPDATE CASCADE"
-                    + ");";
-            stmt.execute(bodyTemplateSql);
-
-            // Create headers_templates table if it doesn't exist
-            String headersTemplateSql = "CREATE TABLE IF NOT EXISTS headers_templates ("
-                    + " id INTEGER PRIMARY KEY AUTOINCREMENT,"
-                    + " name TEXT NOT NULL UNIQUE,"
-                    + " content TEXT NOT NULL,"
-                    + " description TEXT,"
-                    + " project_id INTEGER,"
-                    + " FOREIGN KEY(project_id) REFERENCES project(id) ON DELETE SET NULL ON UPDATE CASCADE"
-                    + ");";
-            stmt.execute(headersTemplateSql);
-
-            // Create environments table if it doesn't exist
-            String environmentSql = "CREATE TABLE IF NOT EXISTS environments ("
-                    + " id INTEGER PRIMARY KEY AUTOINCREMENT,"
-                    + " name TEXT NOT NULL UNIQUE,"
-                    + " description TEXT,"
-                    + " project_id INTEGER,"
-                    + " FOREIGN KEY(project_id) REFERENCES project(id) ON DELETE SET NULL ON UPDATE CASCADE"
-                    + ");";
-            stmt.execute(environmentSql);
-
-            // Create endpoints table if it doesn't exist
-            String endpointSql = "CREATE TABLE IF NOT EXISTS endpoints ("
-                    + " id INTEGER PRIMARY KEY AUTOINCREMENT,"
-                    + " name TEXT NOT NULL,"
-                    + " method TEXT NOT NULL,"
-                    + " url TEXT NOT NULL,"
-                    + " environment_id INTEGER,"
-                    + " project_id INTEGER,"
-                    + " display_order INT,"
-                    + " FOREIGN KEY(environment_id) REFERENCES environments(id) ON DELETE RESTRICT ON UPDATE CASCADE,"
-                    + " FOREIGN KEY(project_id) REFERENCES project(id) ON DELETE SET NULL ON UPDATE CASCADE,"
-                    + " UNIQUE(name, environment_id)"
-                    + ");";
-            stmt.execute(endpointSql);
-
-            // Create groovy_variables table if it doesn't exist
-            String groovyVariableSql = "CREATE TABLE IF NOT EXISTS groovy_variables ("
-                    + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
-                    + "name TEXT NOT NULL, "
-                    + "value TEXT, "
-                    + "description TEXT, "
-                    + "environment_id INTEGER, "
-                    + "project_id INTEGER, "
-                    + "FOREIGN KEY (environment_id) REFERENCES environments(id) ON DELETE RESTRICT ON UPDATE CASCADE,"
-                    + "FOREIGN KEY (project_id) REFERENCES project(id) ON DELETE SET NULL ON UPDATE CASCADE,"
-                    + " UNIQUE(name, environment_id)"
-                    + ");";
-            stmt.execute(groovyVariableSql);
-
-            // Create variable_transform_methods table if it doesn't exist
-            String transformSql = "CREATE TABLE IF NOT EXISTS variable_transform_methods ("
-                    + " id INTEGER PRIMARY KEY AUTOINCREMENT,"
-                    + " name TEXT NOT NULL UNIQUE,"
-                    + " description TEXT,"
-                    + " script TEXT NOT NULL,"
-                    + " enabled INTEGER NOT NULL DEFAULT 1,"
-                    + " param_spec TEXT,"
-                    + " sample_usage TEXT,"
-                    + " create_time DATETIME,"
-                    + " update_time DATETIME"
-                    + ");";
-            stmt.execute(transformSql);
-
-            // Create project table if it doesn't exist
-            String projectSql = "CREATE TABLE IF NOT EXISTS project ("
-                    + " id INTEGER PRIMARY KEY AUTOINCREMENT,"
-                    + " name TEXT NOT NULL UNIQUE,"
-                    + " description TEXT"
-                    + ");";
-            stmt.execute(projectSql);
-            
-            // Create scenarios table
-            String scenarioSql = "CREATE TABLE IF NOT EXISTS scenario (" +
-                    " id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                    " name TEXT NOT NULL UNIQUE," +
-                    " desc TEXT," +
-                    " thread_group_json TEXT," +
-                    " schedule_json TEXT," +
-                    " project_id INTEGER," +
-                    " display_order INT," +
-                    " is_functional_test BOOLEAN NOT NULL DEFAULT 0," +
-                    " FOREIGN KEY(project_id) REFERENCES project(id) ON DELETE SET NULL ON UPDATE CASCADE" +
-                    ");";
-            stmt.execute(scenarioSql);
-
-            // Create scenario_step table
-            String stepSql = "CREATE TABLE IF NOT EXISTS scenario_step (" +
-                    " id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                    " scenario_id INTEGER NOT NULL," +
-                    " order_index INTEGER NOT NULL," +
-                    " test_tcid TEXT NOT NULL," +
-                    " wait_time INTEGER DEFAULT 0," +
-                    " tags TEXT," +
-                    " FOREIGN KEY(scenario_id) REFERENCES scenario(id) ON DELETE CASCADE ON UPDATE CASCADE" +
-                    ");";
-            stmt.execute(stepSql);
-
-            // Create scenario_schedule table
-            String schedSql = "CREATE TABLE IF NOT EXISTS scenario_schedule (" +
-                    " id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                    " scenario_id INTEGER NOT NULL," +
-                    " cron_expr TEXT NOT NULL," +
-                    " next_run_at TEXT," +
-                    " enabled BOOLEAN DEFAULT 1," +
-                    " FOREIGN KEY(scenario_id) REFERENCES scenario(id) ON DELETE CASCADE ON UPDATE CASCADE" +
-                    ");";
-            stmt.execute(schedSql);
-
-            // Create db_connections table if it doesn't exist
-            String dbConnectionsSql = "CREATE TABLE IF NOT EXISTS db_connections("
-                    + " id INTEGER PRIMARY KEY AUTOINCREMENT,"
-                    + " alias TEXT NOT NULL,"
-                    + " description TEXT,"
-                    + " db_type TEXT,"
-                    + " host TEXT,"
-                    + " port INTEGER,"
-                    + " db_name TEXT,"
-                    + " schema_name TEXT,"
-                    + " service_name TEXT,"
-                    + " username TEXT,"
-                    + " password TEXT,"
-                    + " pool_size INTEGER DEFAULT 5,"
-                    + " project_id INTEGER,"
-                    + " environment_id INTEGER,"
-                    + " FOREIGN KEY(project_id) REFERENCES project(id) ON DELETE SET NULL ON UPDATE CASCADE,"
-                    + " FOREIGN KEY(environment_id) REFERENCES environments(id) ON DELETE RESTRICT ON UPDATE CASCADE,"
-                    + " UNIQUE(alias, environment_id)"
-                    + ");";
-            stmt.execute(dbConnectionsSql);
-
-            
-            System.out.println("Database schema initialized. All tables are up to date.");
+        try (Connection conn = getWriteConnection()) {
+            int applied = SchemaMigrations.migrate(conn);
+            System.out.println("Database schema initialized (version " + SchemaMigrations.currentVersion(conn)
+                    + (applied > 0 ? ", " + applied + " migration(s) applied" : "") + ").");
         } catch (SQLException e) {
             System.err.println("Error initializing database: " + e.getMessage());
         }
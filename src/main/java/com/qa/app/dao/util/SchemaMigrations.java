@@ -0,0 +1,324 @@
+package com.qa.app.dao.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Versioned schema migrations of the application database.
+ * <p>
+ * The applied versions are recorded in the {@code schema_version} table. {@link #migrate} runs every migration above
+ * the current version, in order, each in its own transaction together with its {@code schema_version} row. To change
+ * the schema, append a migration with the next version number; never edit one that has been released.
+ * <p>
+ * Databases created before this table existed start at version 0: the baseline only uses
+ * {@code CREATE TABLE IF NOT EXISTS} and later migrations check what is already there, so they upgrade cleanly.
+ */
+public final class SchemaMigrations {
+
+    @FunctionalInterface
+    interface MigrationStep {
+        void apply(Statement stmt) throws SQLException;
+    }
+
+    record Migration(int version, String description, MigrationStep step) {
+    }
+
+    static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Baseline schema", SchemaMigrations::baseline),
+            new Migration(2, "Response capture policy per test",
+                    stmt -> addColumnIfMissing(stmt, "gatling_tests", "response_capture", "TEXT")),
+            new Migration(3, "Indexes for catalog lookups", SchemaMigrations::lookupIndexes),
+            new Migration(4, "One schedule per scenario", SchemaMigrations::uniqueSchedule),
+            new Migration(5, "Scheduler run state", SchemaMigrations::scheduleRunState)
+    );
+
+    private SchemaMigrations() {
+    }
+
+    /**
+     * Applies all pending migrations.
+     *
+     * @return the number of migrations applied
+     */
+    public static int migrate(Connection conn) throws SQLException {
+        return migrate(conn, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Applies the pending migrations up to and including {@code targetVersion}.
+     */
+    static int migrate(Connection conn, int targetVersion) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_version ("
+                    + " version INTEGER PRIMARY KEY,"
+                    + " description TEXT,"
+                    + " applied_at TEXT"
+                    + ");");
+        }
+        int current = currentVersion(conn);
+        int applied = 0;
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            for (Migration migration : MIGRATIONS) {
+                if (migration.version() <= current || migration.version() > targetVersion) {
+                    continue;
+                }
+                try (Statement stmt = conn.createStatement();
+                     PreparedStatement record = conn.prepareStatement(
+                             "INSERT INTO schema_version(version, description, applied_at) VALUES(?,?,?)")) {
+                    migration.step().apply(stmt);
+                    record.setInt(1, migration.version());
+                    record.setString(2, migration.description());
+                    record.setString(3, ZonedDateTime.now().format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
+                    record.executeUpdate();
+                    conn.commit();
+                    applied++;
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw new SQLException("Migration " + migration.version() + " (" + migration.description()
+                            + ") failed: " + e.getMessage(), e);
+                }
+            }
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+        return applied;
+    }
+
+    /**
+     * @return the highest applied version, 0 for a database without migrations
+     */
+    public static int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // ============================ Migrations ============================
+
+    private static void baseline(Statement stmt) throws SQLException {
+        // Create gatling_tests table if it doesn't exist
+        String testsSql = "CREATE TABLE IF NOT EXISTS gatling_tests ("
+                + " id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + " is_enabled BOOLEAN NOT NULL DEFAULT 0,"
+                + " suite TEXT NOT NULL,"
+                + " tcid TEXT NOT NULL UNIQUE,"
+                + " tags TEXT,"
+                + " wait_time INTEGER DEFAULT 0,"
+                + " conditions TEXT,"
+                + " descriptions TEXT,"
+                + " endpoint_name TEXT,"
+                + " headers_template_id INTEGER,"
+                + " body_template_id INTEGER,"
+                + " endpoint_dynamic_variables TEXT,"
+                + " headers_dynamic_variables TEXT,"
+                + " body_dynamic_variables TEXT,"
+                + " response_checks TEXT,"
+                + " project_id INTEGER,"
+                + " report_path TEXT,"
+                + " last_run_passed BOOLEAN,"
+                + " display_order INT,"
+                + " FOREIGN KEY(project_id) REFERENCES project(id) ON DELETE SET NULL ON UPDATE CASCADE,"
+                + " FOREIGN KEY(headers_template_id) REFERENCES headers_templates(id) ON DELETE SET NULL ON UPDATE CASCADE,"
+                + " FOREIGN KEY(body_template_id) REFERENCES body_templates(id) ON DELETE SET NULL ON UPDATE CASCADE"
+                + ");";
+        stmt.execute(testsSql);
+
+        // Create body_templates table if it doesn't exist
+        String bodyTemplateSql = "CREATE TABLE IF NOT EXISTS body_templates ("
+                + " id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + " name TEXT NOT NULL UNIQUE,"
+                + " content TEXT NOT NULL,"
+                + " description TEXT,"
+                + " project_id INTEGER,"
+                + " FOREIGN KEY(project_id) REFERENCES project(id) ON DELETE SET NULL ON UPDATE CASCADE"
+                + ");";
+        stmt.execute(bodyTemplateSql);
+
+        // Create headers_templates table if it doesn't exist
+        String headersTemplateSql = "CREATE TABLE IF NOT EXISTS headers_templates ("
+                + " id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + " name TEXT NOT NULL UNIQUE,"
+                + " content TEXT NOT NULL,"
+                + " description TEXT,"
+                + " project_id INTEGER,"
+                + " FOREIGN KEY(project_id) REFERENCES project(id) ON DELETE SET NULL ON UPDATE CASCADE"
+                + ");";
+        stmt.execute(headersTemplateSql);
+
+        // Create environments table if it doesn't exist
+        String environmentSql = "CREATE TABLE IF NOT EXISTS environments ("
+                + " id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + " name TEXT NOT NULL UNIQUE,"
+                + " description TEXT,"
+                + " project_id INTEGER,"
+                + " FOREIGN KEY(project_id) REFERENCES project(id) ON DELETE SET NULL ON UPDATE CASCADE"
+                + ");";
+        stmt.execute(environmentSql);
+
+        // Create endpoints table if it doesn't exist
+        String endpointSql = "CREATE TABLE IF NOT EXISTS endpoints ("
+                + " id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + " name TEXT NOT NULL,"
+                + " method TEXT NOT NULL,"
+                + " url TEXT NOT NULL,"
+                + " environment_id INTEGER,"
+                + " project_id INTEGER,"
+                + " display_order INT,"
+                + " FOREIGN KEY(environment_id) REFERENCES environments(id) ON DELETE RESTRICT ON UPDATE CASCADE,"
+                + " FOREIGN KEY(project_id) REFERENCES project(id) ON DELETE SET NULL ON UPDATE CASCADE,"
+                + " UNIQUE(name, environment_id)"
+                + ");";
+        stmt.execute(endpointSql);
+
+        // Create groovy_variables table if it doesn't exist
+        String groovyVariableSql = "CREATE TABLE IF NOT EXISTS groovy_variables ("
+                + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "name TEXT NOT NULL, "
+                + "value TEXT, "
+                + "description TEXT, "
+                + "environment_id INTEGER, "
+                + "project_id INTEGER, "
+                + "FOREIGN KEY (environment_id) REFERENCES environments(id) ON DELETE RESTRICT ON UPDATE CASCADE,"
+                + "FOREIGN KEY (project_id) REFERENCES project(id) ON DELETE SET NULL ON UPDATE CASCADE,"
+                + " UNIQUE(name, environment_id)"
+                + ");";
+        stmt.execute(groovyVariableSql);
+
+        // Create variable_transform_methods table if it doesn't exist
+        String transformSql = "CREATE TABLE IF NOT EXISTS variable_transform_methods ("
+                + " id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + " name TEXT NOT NULL UNIQUE,"
+                + " description TEXT,"
+                + " script TEXT NOT NULL,"
+                + " enabled INTEGER NOT NULL DEFAULT 1,"
+                + " param_spec TEXT,"
+                + " sample_usage TEXT,"
+                + " create_time DATETIME,"
+                + " update_time DATETIME"
+                + ");";
+        stmt.execute(transformSql);
+
+        // Create project table if it doesn't exist
+        String projectSql = "CREATE TABLE IF NOT EXISTS project ("
+                + " id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + " name TEXT NOT NULL UNIQUE,"
+                + " description TEXT"
+                + ");";
+        stmt.execute(projectSql);
+
+        // Create scenarios table
+        String scenarioSql = "CREATE TABLE IF NOT EXISTS scenario (" +
+                " id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                " name TEXT NOT NULL UNIQUE," +
+                " desc TEXT," +
+                " thread_group_json TEXT," +
+                " schedule_json TEXT," +
+                " project_id INTEGER," +
+                " display_order INT," +
+                " is_functional_test BOOLEAN NOT NULL DEFAULT 0," +
+                " FOREIGN KEY(project_id) REFERENCES project(id) ON DELETE SET NULL ON UPDATE CASCADE" +
+                ");";
+        stmt.execute(scenarioSql);
+
+        // Create scenario_step table
+        String stepSql = "CREATE TABLE IF NOT EXISTS scenario_step (" +
+                " id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                " scenario_id INTEGER NOT NULL," +
+                " order_index INTEGER NOT NULL," +
+                " test_tcid TEXT NOT NULL," +
+                " wait_time INTEGER DEFAULT 0," +
+                " tags TEXT," +
+                " FOREIGN KEY(scenario_id) REFERENCES scenario(id) ON DELETE CASCADE ON UPDATE CASCADE" +
+                ");";
+        stmt.execute(stepSql);
+
+        // Create scenario_schedule table
+        String schedSql = "CREATE TABLE IF NOT EXISTS scenario_schedule (" +
+                " id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                " scenario_id INTEGER NOT NULL," +
+                " cron_expr TEXT NOT NULL," +
+                " next_run_at TEXT," +
+                " enabled BOOLEAN DEFAULT 1," +
+                " FOREIGN KEY(scenario_id) REFERENCES scenario(id) ON DELETE CASCADE ON UPDATE CASCADE" +
+                ");";
+        stmt.execute(schedSql);
+
+        // Create db_connections table if it doesn't exist
+        String dbConnectionsSql = "CREATE TABLE IF NOT EXISTS db_connections("
+                + " id INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + " alias TEXT NOT NULL,"
+                + " description TEXT,"
+                + " db_type TEXT,"
+                + " host TEXT,"
+                + " port INTEGER,"
+                + " db_name TEXT,"
+                + " schema_name TEXT,"
+                + " service_name TEXT,"
+                + " username TEXT,"
+                + " password TEXT,"
+                + " pool_size INTEGER DEFAULT 5,"
+                + " project_id INTEGER,"
+                + " environment_id INTEGER,"
+                + " FOREIGN KEY(project_id) REFERENCES project(id) ON DELETE SET NULL ON UPDATE CASCADE,"
+                + " FOREIGN KEY(environment_id) REFERENCES environments(id) ON DELETE RESTRICT ON UPDATE CASCADE,"
+                + " UNIQUE(alias, environment_id)"
+                + ");";
+        stmt.execute(dbConnectionsSql);
+    }
+
+    /**
+     * Indexes for the lookups done on every run and every catalog refresh. Lookups by TCID, by endpoint name and
+     * environment and by DB alias and environment are served by the indexes of their UNIQUE constraints.
+     */
+    private static void lookupIndexes(Statement stmt) throws SQLException {
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_gatling_tests_project_order ON gatling_tests(project_id, display_order)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_gatling_tests_suite_order ON gatling_tests(suite, display_order)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_endpoints_project_order ON endpoints(project_id, display_order)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_scenario_step_scenario_order ON scenario_step(scenario_id, order_index)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_scenario_project_order ON scenario(project_id, display_order)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_db_connections_project ON db_connections(project_id)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_groovy_variables_project ON groovy_variables(project_id)");
+        // Without statistics SQLite may prefer a scan over the new indexes
+        stmt.execute("ANALYZE");
+    }
+
+    /**
+     * {@code upsertSchedule} relies on {@code ON CONFLICT(scenario_id)}, which needs a unique index; keeps the latest
+     * schedule of scenarios that have several.
+     */
+    private static void uniqueSchedule(Statement stmt) throws SQLException {
+        stmt.execute("DELETE FROM scenario_schedule WHERE id NOT IN (SELECT MAX(id) FROM scenario_schedule GROUP BY scenario_id)");
+        stmt.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_scenario_schedule_scenario ON scenario_schedule(scenario_id)");
+    }
+
+    /**
+     * Misfire policy and last fire time of a schedule, used by {@code ScenarioScheduler}.
+     */
+    private static void scheduleRunState(Statement stmt) throws SQLException {
+        addColumnIfMissing(stmt, "scenario_schedule", "misfire_policy", "TEXT");
+        addColumnIfMissing(stmt, "scenario_schedule", "last_run_at", "TEXT");
+    }
+
+    /**
+     * Adds a column to a table created by an older version of the schema.
+     */
+    private static void addColumnIfMissing(Statement stmt, String table, String column, String type) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return;
+                }
+            }
+        }
+        stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + type);
+    }
+}
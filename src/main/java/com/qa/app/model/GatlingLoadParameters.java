@@ -11,6 +11,10 @@ public class GatlingLoadParameters implements Serializable {
     private StandardThreadGroup standardThreadGroup;
     private SteppingThreadGroup steppingThreadGroup;
     private UltimateThreadGroup ultimateThreadGroup;
+    private ConcurrencyThreadGroup concurrencyThreadGroup;
+    private ThroughputShapingThreadGroup throughputShapingThreadGroup;
+    // Run-wide response capture policy spec (see ResponseCapturePolicy); blank = default of the run mode
+    private String responseCapture;
 
     public ThreadGroupType getType() {
         return type;
@@ -43,4 +47,28 @@ public class GatlingLoadParameters implements Serializable {
     public void setUltimateThreadGroup(UltimateThreadGroup ultimateThreadGroup) {
         this.ultimateThreadGroup = ultimateThreadGroup;
     }
-} 
\ No newline at end of file
+
+    public ConcurrencyThreadGroup getConcurrencyThreadGroup() {
+        return concurrencyThreadGroup;
+    }
+
+    public void setConcurrencyThreadGroup(ConcurrencyThreadGroup concurrencyThreadGroup) {
+        this.concurrencyThreadGroup = concurrencyThreadGroup;
+    }
+
+    public ThroughputShapingThreadGroup getThroughputShapingThreadGroup() {
+        return throughputShapingThreadGroup;
+    }
+
+    public void setThroughputShapingThreadGroup(ThroughputShapingThreadGroup throughputShapingThreadGroup) {
+        this.throughputShapingThreadGroup = throughputShapingThreadGroup;
+    }
+
+    public String getResponseCapture() {
+        return responseCapture;
+    }
+
+    public void setResponseCapture(String responseCapture) {
+        this.responseCapture = responseCapture;
+    }
+}
@@ -22,6 +22,8 @@ public class GatlingTest {
     private final IntegerProperty headersTemplateId = new SimpleIntegerProperty();
     private final StringProperty endpointName = new SimpleStringProperty();
     private final IntegerProperty projectId = new SimpleIntegerProperty();
+    // Response capture policy spec (see ResponseCapturePolicy); blank = use the run policy
+    private final StringProperty responseCapture = new SimpleStringProperty();
     private int displayOrder;
     private Map<String, String> dynamicVariables = new HashMap<>();
     private Map<String, String> headersDynamicVariables = new HashMap<>();
@@ -86,6 +88,7 @@ public class GatlingTest {
         this.body.set(other.getBody());
         this.tags.set(other.getTags());
         this.waitTime.set(other.getWaitTime());
+        this.responseCapture.set(other.getResponseCapture());
         this.bodyTemplateId.set(other.getBodyTemplateId());
         this.headersTemplateId.set(other.getHeadersTemplateId());
         this.endpointName.set(other.getEndpointName());
@@ -164,6 +167,10 @@ public class GatlingTest {
     public Map<String, String> getEndpointDynamicVariables() { return endpointDynamicVariables; }
     public void setEndpointDynamicVariables(Map<String, String> endpointDynamicVariables) { this.endpointDynamicVariables = endpointDynamicVariables; }
 
+    public String getResponseCapture() { return responseCapture.get(); }
+    public void setResponseCapture(String responseCapture) { this.responseCapture.set(responseCapture); }
+    public StringProperty responseCaptureProperty() { return responseCapture; }
+
     public String getEndpointName() { return endpointName.get(); }
     public void setEndpointName(String endpointName) { this.endpointName.set(endpointName); }
     public StringProperty endpointNameProperty() { return endpointName; }
@@ -0,0 +1,116 @@
+package com.qa.app.model;
+
+/**
+ * Which part of a response is copied into the report.
+ * <p>
+ * Stored as a short text spec on {@link GatlingTest} (per test) and {@link GatlingLoadParameters} (per run):
+ * <ul>
+ *     <li>{@code full} – body and captured headers of every response</li>
+ *     <li>{@code none} – neither body nor headers; only status, latency and size</li>
+ *     <li>{@code on_failure} – body and headers only when the HTTP status is 4xx / 5xx</li>
+ *     <li>{@code first:N} – the first N bytes of every body (the rest is never copied) and all headers</li>
+ *     <li>{@code sample:K} – body and headers of one request in K</li>
+ * </ul>
+ * A blank spec means "not set": the test falls back to the run policy, the run to its mode default.
+ */
+public final class ResponseCapturePolicy {
+
+    public enum Mode { FULL, NONE, ON_FAILURE, FIRST_BYTES, SAMPLED }
+
+    public static final ResponseCapturePolicy FULL = new ResponseCapturePolicy(Mode.FULL, 0);
+    public static final ResponseCapturePolicy NONE = new ResponseCapturePolicy(Mode.NONE, 0);
+
+    /** Specs offered by the editors; any {@code first:N} / {@code sample:K} value is accepted as well. */
+    public static final String[] COMMON_SPECS = {"full", "none", "on_failure", "first:4096", "sample:100"};
+
+    private final Mode mode;
+    // FIRST_BYTES: byte limit, SAMPLED: 1-in-K
+    private final int limit;
+
+    private ResponseCapturePolicy(Mode mode, int limit) {
+        this.mode = mode;
+        this.limit = limit;
+    }
+
+    /**
+     * Parses a spec; returns {@code null} for a blank spec and throws {@link IllegalArgumentException} for an
+     * invalid one.
+     */
+    public static ResponseCapturePolicy parse(String spec) {
+        if (spec == null || spec.isBlank()) {
+            return null;
+        }
+        String s = spec.trim().toLowerCase();
+        int colon = s.indexOf(':');
+        String name = colon < 0 ? s : s.substring(0, colon).trim();
+        String arg = colon < 0 ? null : s.substring(colon + 1).trim();
+        switch (name) {
+            case "full":
+                return FULL;
+            case "none":
+                return NONE;
+            case "on_failure":
+            case "onfailure":
+                return new ResponseCapturePolicy(Mode.ON_FAILURE, 0);
+            case "first":
+                return new ResponseCapturePolicy(Mode.FIRST_BYTES, positive(arg, spec));
+            case "sample":
+                return new ResponseCapturePolicy(Mode.SAMPLED, positive(arg, spec));
+            default:
+                throw new IllegalArgumentException("Unknown response capture policy: " + spec);
+        }
+    }
+
+    private static int positive(String arg, String spec) {
+        try {
+            int value = Integer.parseInt(arg);
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException | NullPointerException ignored) {
+        }
+        throw new IllegalArgumentException("Response capture policy '" + spec + "' needs a positive number, e.g. first:4096");
+    }
+
+    /**
+     * Resolves the effective policy: test spec, else run spec, else {@code modeDefault}. Invalid specs are
+     * reported and skipped.
+     */
+    public static ResponseCapturePolicy resolve(String testSpec, String runSpec, ResponseCapturePolicy modeDefault) {
+        for (String spec : new String[]{testSpec, runSpec}) {
+            try {
+                ResponseCapturePolicy policy = parse(spec);
+                if (policy != null) {
+                    return policy;
+                }
+            } catch (IllegalArgumentException e) {
+                System.err.println("[WARN] " + e.getMessage());
+            }
+        }
+        return modeDefault;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /** Whether the response body is captured at all (possibly conditionally or truncated). */
+    public boolean capturesBody() {
+        return mode != Mode.NONE;
+    }
+
+    @Override
+    public String toString() {
+        return switch (mode) {
+            case FULL -> "full";
+            case NONE -> "none";
+            case ON_FAILURE -> "on_failure";
+            case FIRST_BYTES -> "first:" + limit;
+            case SAMPLED -> "sample:" + limit;
+        };
+    }
+}
@@ -8,6 +8,8 @@ public class ScenarioSchedule {
     private String cronExpr;    // Cron 表达式
     private String nextRunAt;   // 下次执行时间（ISO 字符串，便于展示）
     private boolean enabled;
+    private String misfirePolicy; // 应用停机错过执行时的处理：FIRE_ONCE（默认）/ SKIP
+    private String lastRunAt;     // 上次触发时间（ISO 字符串）
 
     public ScenarioSchedule() {}
 
@@ -28,4 +30,10 @@ public class ScenarioSchedule {
 
     public boolean isEnabled() { return enabled; }
     public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public String getMisfirePolicy() { return misfirePolicy; }
+    public void setMisfirePolicy(String misfirePolicy) { this.misfirePolicy = misfirePolicy; }
+
+    public String getLastRunAt() { return lastRunAt; }
+    public void setLastRunAt(String lastRunAt) { this.lastRunAt = lastRunAt; }
 } 
\ No newline at end of file
@@ -10,6 +10,9 @@ public class CheckReport {
     private String expect;
     private String actual;
     private boolean passed;
+    // DB checks only: time waiting for a connection slot and time running the query, in ms
+    private Long queueWaitMs;
+    private Long executionMs;
 
     // Getters and Setters
     public CheckType getType() {
@@ -59,4 +62,20 @@ public class CheckReport {
     public void setPassed(boolean passed) {
         this.passed = passed;
     }
+
+    public Long getQueueWaitMs() {
+        return queueWaitMs;
+    }
+
+    public void setQueueWaitMs(Long queueWaitMs) {
+        this.queueWaitMs = queueWaitMs;
+    }
+
+    public Long getExecutionMs() {
+        return executionMs;
+    }
+
+    public void setExecutionMs(Long executionMs) {
+        this.executionMs = executionMs;
+    }
 } 
\ No newline at end of file
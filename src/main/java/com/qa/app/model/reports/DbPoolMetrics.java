@@ -0,0 +1,111 @@
+package com.qa.app.model.reports;
+
+/**
+ * Connection pool of one DB check connection during a run (see {@link com.qa.app.service.runner.DataSourceRegistry}).
+ * Peaks are sampled whenever a connection is acquired.
+ */
+public class DbPoolMetrics {
+    // Registry key of the pool: alias@environment
+    private String name;
+    private int maxPoolSize;
+    private long acquisitions;
+    private long timeouts;
+    private int peakActive;
+    private int peakPending;
+    // Pool state when the run ended
+    private int active;
+    private int idle;
+    private int pending;
+    // Time to obtain a connection from the pool
+    private long acquireP99Us;
+    private long acquireMaxUs;
+
+    // Getters and Setters
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public void setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public long getAcquisitions() {
+        return acquisitions;
+    }
+
+    public void setAcquisitions(long acquisitions) {
+        this.acquisitions = acquisitions;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    public void setTimeouts(long timeouts) {
+        this.timeouts = timeouts;
+    }
+
+    public int getPeakActive() {
+        return peakActive;
+    }
+
+    public void setPeakActive(int peakActive) {
+        this.peakActive = peakActive;
+    }
+
+    public int getPeakPending() {
+        return peakPending;
+    }
+
+    public void setPeakPending(int peakPending) {
+        this.peakPending = peakPending;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public void setActive(int active) {
+        this.active = active;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public void setIdle(int idle) {
+        this.idle = idle;
+    }
+
+    public int getPending() {
+        return pending;
+    }
+
+    public void setPending(int pending) {
+        this.pending = pending;
+    }
+
+    public long getAcquireP99Us() {
+        return acquireP99Us;
+    }
+
+    public void setAcquireP99Us(long acquireP99Us) {
+        this.acquireP99Us = acquireP99Us;
+    }
+
+    public long getAcquireMaxUs() {
+        return acquireMaxUs;
+    }
+
+    public void setAcquireMaxUs(long acquireMaxUs) {
+        this.acquireMaxUs = acquireMaxUs;
+    }
+}
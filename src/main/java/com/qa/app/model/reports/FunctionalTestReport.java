@@ -8,6 +8,9 @@ public class FunctionalTestReport {
     private String executedAt;
     private List<ModeGroup> groups = new java.util.ArrayList<>();
     private boolean passed;
+    private RunMetrics runMetrics;
+    // One latency histogram per TCID and mode of this report's cases
+    private List<LatencyHistogram> latencyHistograms = new java.util.ArrayList<>();
 
     // Getters and Setters
     public String getOriginTcid() {
@@ -49,4 +52,20 @@ public class FunctionalTestReport {
     public void setPassed(boolean passed) {
         this.passed = passed;
     }
+
+    public RunMetrics getRunMetrics() {
+        return runMetrics;
+    }
+
+    public void setRunMetrics(RunMetrics runMetrics) {
+        this.runMetrics = runMetrics;
+    }
+
+    public List<LatencyHistogram> getLatencyHistograms() {
+        return latencyHistograms;
+    }
+
+    public void setLatencyHistograms(List<LatencyHistogram> latencyHistograms) {
+        this.latencyHistograms = latencyHistograms;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.qa.app.model.reports;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Time the load generator itself spent on one TCID in session functions (Gatling's shared threads), next to the
+ * time its requests spent on the wire. A generator total close to or above the HTTP total means the tool, not the
+ * system under test, limits the run (see {@link com.qa.app.service.util.HotPathProbes}).
+ */
+public class GeneratorOverhead {
+    private String tcid;
+    // Instrumented session functions run for this TCID
+    private long sessionFunctions;
+    // Session functions slower than budgetMs
+    private long overBudget;
+    private long budgetMs;
+    private double totalMs;
+    // Sum of the response times of this TCID's requests; null when unknown (e.g. scenario runs)
+    private Long httpTotalMs;
+    // Stage name -> timing
+    private Map<String, StageTiming> stages = new LinkedHashMap<>();
+
+    // Getters and Setters
+    public String getTcid() {
+        return tcid;
+    }
+
+    public void setTcid(String tcid) {
+        this.tcid = tcid;
+    }
+
+    public long getSessionFunctions() {
+        return sessionFunctions;
+    }
+
+    public void setSessionFunctions(long sessionFunctions) {
+        this.sessionFunctions = sessionFunctions;
+    }
+
+    public long getOverBudget() {
+        return overBudget;
+    }
+
+    public void setOverBudget(long overBudget) {
+        this.overBudget = overBudget;
+    }
+
+    public long getBudgetMs() {
+        return budgetMs;
+    }
+
+    public void setBudgetMs(long budgetMs) {
+        this.budgetMs = budgetMs;
+    }
+
+    public double getTotalMs() {
+        return totalMs;
+    }
+
+    public void setTotalMs(double totalMs) {
+        this.totalMs = totalMs;
+    }
+
+    public Long getHttpTotalMs() {
+        return httpTotalMs;
+    }
+
+    public void setHttpTotalMs(Long httpTotalMs) {
+        this.httpTotalMs = httpTotalMs;
+    }
+
+    public Map<String, StageTiming> getStages() {
+        return stages;
+    }
+
+    public void setStages(Map<String, StageTiming> stages) {
+        this.stages = stages;
+    }
+}
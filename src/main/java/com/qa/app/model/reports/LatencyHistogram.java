@@ -0,0 +1,93 @@
+package com.qa.app.model.reports;
+
+/**
+ * Latency distribution of all requests of one TCID in one {@link TestMode} of a run.
+ * <p>
+ * The percentiles are precomputed for display; {@code histogram} holds the full distribution as a base64 encoded,
+ * compressed HdrHistogram so that runs can be merged later without the individual samples
+ * (see {@link com.qa.app.service.reports.LatencyHistograms}).
+ */
+public class LatencyHistogram {
+    private String tcid;
+    private String mode;
+    private long count;
+    private long p50Ms;
+    private long p90Ms;
+    private long p99Ms;
+    private long maxMs;
+    private double meanMs;
+    private String histogram;
+
+    // Getters and Setters
+    public String getTcid() {
+        return tcid;
+    }
+
+    public void setTcid(String tcid) {
+        this.tcid = tcid;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public long getP50Ms() {
+        return p50Ms;
+    }
+
+    public void setP50Ms(long p50Ms) {
+        this.p50Ms = p50Ms;
+    }
+
+    public long getP90Ms() {
+        return p90Ms;
+    }
+
+    public void setP90Ms(long p90Ms) {
+        this.p90Ms = p90Ms;
+    }
+
+    public long getP99Ms() {
+        return p99Ms;
+    }
+
+    public void setP99Ms(long p99Ms) {
+        this.p99Ms = p99Ms;
+    }
+
+    public long getMaxMs() {
+        return maxMs;
+    }
+
+    public void setMaxMs(long maxMs) {
+        this.maxMs = maxMs;
+    }
+
+    public double getMeanMs() {
+        return meanMs;
+    }
+
+    public void setMeanMs(double meanMs) {
+        this.meanMs = meanMs;
+    }
+
+    public String getHistogram() {
+        return histogram;
+    }
+
+    public void setHistogram(String histogram) {
+        this.histogram = histogram;
+    }
+}
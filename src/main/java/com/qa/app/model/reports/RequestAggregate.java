@@ -0,0 +1,120 @@
+package com.qa.app.model.reports;
+
+/**
+ * Fixed-size summary of all requests recorded for one case (origin, TCID and mode) of a run.
+ */
+public class RequestAggregate {
+    private String origin;
+    private String tcid;
+    private String mode;
+    private long count;
+    private long failed;
+    private long totalLatencyMs;
+    private long minLatencyMs;
+    private long maxLatencyMs;
+    // Requests whose request/response payloads were kept in the detailed report
+    private long payloadsRetained;
+    // Requests whose payloads were dropped because the payload budget was exhausted
+    private long payloadsDropped;
+    // STREAMING mode: requests written to the detailed report as part of the case's sample
+    private long itemsSampled;
+    // STREAMING mode: sampled requests dropped because the report writer was behind
+    private long itemsDropped;
+
+    // Getters and Setters
+    public String getOrigin() {
+        return origin;
+    }
+
+    public void setOrigin(String origin) {
+        this.origin = origin;
+    }
+
+    public String getTcid() {
+        return tcid;
+    }
+
+    public void setTcid(String tcid) {
+        this.tcid = tcid;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public long getTotalLatencyMs() {
+        return totalLatencyMs;
+    }
+
+    public void setTotalLatencyMs(long totalLatencyMs) {
+        this.totalLatencyMs = totalLatencyMs;
+    }
+
+    public long getMinLatencyMs() {
+        return minLatencyMs;
+    }
+
+    public void setMinLatencyMs(long minLatencyMs) {
+        this.minLatencyMs = minLatencyMs;
+    }
+
+    public long getMaxLatencyMs() {
+        return maxLatencyMs;
+    }
+
+    public void setMaxLatencyMs(long maxLatencyMs) {
+        this.maxLatencyMs = maxLatencyMs;
+    }
+
+    public long getPayloadsRetained() {
+        return payloadsRetained;
+    }
+
+    public void setPayloadsRetained(long payloadsRetained) {
+        this.payloadsRetained = payloadsRetained;
+    }
+
+    public long getPayloadsDropped() {
+        return payloadsDropped;
+    }
+
+    public void setPayloadsDropped(long payloadsDropped) {
+        this.payloadsDropped = payloadsDropped;
+    }
+
+    public long getItemsSampled() {
+        return itemsSampled;
+    }
+
+    public void setItemsSampled(long itemsSampled) {
+        this.itemsSampled = itemsSampled;
+    }
+
+    public long getItemsDropped() {
+        return itemsDropped;
+    }
+
+    public void setItemsDropped(long itemsDropped) {
+        this.itemsDropped = itemsDropped;
+    }
+}
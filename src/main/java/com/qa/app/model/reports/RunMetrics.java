@@ -0,0 +1,71 @@
+package com.qa.app.model.reports;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Run-wide statistics collected by the simulation process and attached to every report of the batch.
+ */
+public class RunMetrics {
+    // Cache name -> counter name (hits, misses, evictions, ...) -> value
+    private Map<String, Map<String, Long>> templateCaches = new LinkedHashMap<>();
+    // Report mode of the run: FULL (every request kept in memory) or STREAMING (aggregates + background NDJSON)
+    private String reportMode;
+    // "origin|tcid|mode" -> per-case request aggregate
+    private Map<String, RequestAggregate> requestAggregates = new LinkedHashMap<>();
+    // tcid -> time spent by the load generator in session functions
+    private Map<String, GeneratorOverhead> generatorOverhead = new LinkedHashMap<>();
+    // alias@environment -> connection pool of the DB checks
+    private Map<String, DbPoolMetrics> dbPools = new LinkedHashMap<>();
+    // STREAMING mode: report lines dropped because the report writer queue was full
+    private long reportLinesDropped;
+
+    // Getters and Setters
+    public Map<String, Map<String, Long>> getTemplateCaches() {
+        return templateCaches;
+    }
+
+    public void setTemplateCaches(Map<String, Map<String, Long>> templateCaches) {
+        this.templateCaches = templateCaches;
+    }
+
+    public String getReportMode() {
+        return reportMode;
+    }
+
+    public void setReportMode(String reportMode) {
+        this.reportMode = reportMode;
+    }
+
+    public Map<String, RequestAggregate> getRequestAggregates() {
+        return requestAggregates;
+    }
+
+    public void setRequestAggregates(Map<String, RequestAggregate> requestAggregates) {
+        this.requestAggregates = requestAggregates;
+    }
+
+    public Map<String, GeneratorOverhead> getGeneratorOverhead() {
+        return generatorOverhead;
+    }
+
+    public void setGeneratorOverhead(Map<String, GeneratorOverhead> generatorOverhead) {
+        this.generatorOverhead = generatorOverhead;
+    }
+
+    public Map<String, DbPoolMetrics> getDbPools() {
+        return dbPools;
+    }
+
+    public void setDbPools(Map<String, DbPoolMetrics> dbPools) {
+        this.dbPools = dbPools;
+    }
+
+    public long getReportLinesDropped() {
+        return reportLinesDropped;
+    }
+
+    public void setReportLinesDropped(long reportLinesDropped) {
+        this.reportLinesDropped = reportLinesDropped;
+    }
+}
@@ -0,0 +1,54 @@
+package com.qa.app.model.reports;
+
+/**
+ * Time spent in one stage of the load generator (template rendering, Groovy variables, ...) for one TCID, see
+ * {@link GeneratorOverhead}. Durations are self time: nested stages are counted in their own stage only.
+ */
+public class StageTiming {
+    private long count;
+    private double totalMs;
+    private double meanUs;
+    private long p99Us;
+    private long maxUs;
+
+    // Getters and Setters
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public double getTotalMs() {
+        return totalMs;
+    }
+
+    public void setTotalMs(double totalMs) {
+        this.totalMs = totalMs;
+    }
+
+    public double getMeanUs() {
+        return meanUs;
+    }
+
+    public void setMeanUs(double meanUs) {
+        this.meanUs = meanUs;
+    }
+
+    public long getP99Us() {
+        return p99Us;
+    }
+
+    public void setP99Us(long p99Us) {
+        this.p99Us = p99Us;
+    }
+
+    public long getMaxUs() {
+        return maxUs;
+    }
+
+    public void setMaxUs(long maxUs) {
+        this.maxUs = maxUs;
+    }
+}
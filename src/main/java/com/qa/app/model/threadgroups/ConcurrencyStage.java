@@ -0,0 +1,65 @@
+package com.qa.app.model.threadgroups;
+
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+
+import java.io.Serializable;
+
+/**
+ * Stage of a {@link ConcurrencyThreadGroup}: ramp to {@code targetUsers} concurrent users in {@code rampTime}
+ * seconds, then hold them for {@code holdTime} seconds.
+ */
+public class ConcurrencyStage implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final IntegerProperty targetUsers = new SimpleIntegerProperty();
+    private final IntegerProperty rampTime = new SimpleIntegerProperty();
+    private final IntegerProperty holdTime = new SimpleIntegerProperty();
+
+    public ConcurrencyStage(int targetUsers, int rampTime, int holdTime) {
+        setTargetUsers(targetUsers);
+        setRampTime(rampTime);
+        setHoldTime(holdTime);
+    }
+
+    // Default constructor for UI
+    public ConcurrencyStage() {
+        this(10, 10, 60);
+    }
+
+    public int getTargetUsers() {
+        return targetUsers.get();
+    }
+
+    public void setTargetUsers(int targetUsers) {
+        this.targetUsers.set(targetUsers);
+    }
+
+    public IntegerProperty targetUsersProperty() {
+        return targetUsers;
+    }
+
+    public int getRampTime() {
+        return rampTime.get();
+    }
+
+    public void setRampTime(int rampTime) {
+        this.rampTime.set(rampTime);
+    }
+
+    public IntegerProperty rampTimeProperty() {
+        return rampTime;
+    }
+
+    public int getHoldTime() {
+        return holdTime.get();
+    }
+
+    public void setHoldTime(int holdTime) {
+        this.holdTime.set(holdTime);
+    }
+
+    public IntegerProperty holdTimeProperty() {
+        return holdTime;
+    }
+}
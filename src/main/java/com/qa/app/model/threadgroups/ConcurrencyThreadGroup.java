@@ -0,0 +1,59 @@
+package com.qa.app.model.threadgroups;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Closed workload: holds a number of concurrent users, each user that finishes its iteration is replaced by a new
+ * one (like JMeter's Concurrency Thread Group). The stages run one after the other; each ramps the concurrency from
+ * the level of the previous stage (0 for the first) to its target and then holds it.
+ */
+public class ConcurrencyThreadGroup implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private int initialDelay = 0;
+    private List<ConcurrencyStage> stages = new ArrayList<>();
+
+    public int getInitialDelay() {
+        return initialDelay;
+    }
+
+    public void setInitialDelay(int initialDelay) {
+        this.initialDelay = initialDelay;
+    }
+
+    public List<ConcurrencyStage> getStages() {
+        return stages;
+    }
+
+    public void setStages(List<ConcurrencyStage> stages) {
+        this.stages = stages;
+    }
+
+    /**
+     * Length of the whole profile in seconds: initial delay plus ramp and hold time of every stage.
+     */
+    public long totalDurationSeconds() {
+        long total = Math.max(0, initialDelay);
+        if (stages != null) {
+            for (ConcurrencyStage stage : stages) {
+                total += Math.max(0, stage.getRampTime()) + Math.max(0, stage.getHoldTime());
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Highest concurrency of any stage.
+     */
+    public int peakUsers() {
+        int peak = 0;
+        if (stages != null) {
+            for (ConcurrencyStage stage : stages) {
+                peak = Math.max(peak, stage.getTargetUsers());
+            }
+        }
+        return peak;
+    }
+}
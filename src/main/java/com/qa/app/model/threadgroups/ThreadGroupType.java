@@ -3,5 +3,7 @@ package com.qa.app.model.threadgroups;
 public enum ThreadGroupType {
     STANDARD,
     STEPPING,
-    ULTIMATE
+    ULTIMATE,
+    CONCURRENCY,
+    THROUGHPUT
 } 
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.qa.app.model.threadgroups;
+
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+
+import java.io.Serializable;
+
+/**
+ * Segment of a {@link ThroughputShapingThreadGroup}: the target throughput goes linearly from {@code startRps} to
+ * {@code endRps} requests per second within {@code duration} seconds.
+ */
+public class ThroughputSegment implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final IntegerProperty startRps = new SimpleIntegerProperty();
+    private final IntegerProperty endRps = new SimpleIntegerProperty();
+    private final IntegerProperty duration = new SimpleIntegerProperty();
+
+    public ThroughputSegment(int startRps, int endRps, int duration) {
+        setStartRps(startRps);
+        setEndRps(endRps);
+        setDuration(duration);
+    }
+
+    // Default constructor for UI
+    public ThroughputSegment() {
+        this(10, 10, 60);
+    }
+
+    public int getStartRps() {
+        return startRps.get();
+    }
+
+    public void setStartRps(int startRps) {
+        this.startRps.set(startRps);
+    }
+
+    public IntegerProperty startRpsProperty() {
+        return startRps;
+    }
+
+    public int getEndRps() {
+        return endRps.get();
+    }
+
+    public void setEndRps(int endRps) {
+        this.endRps.set(endRps);
+    }
+
+    public IntegerProperty endRpsProperty() {
+        return endRps;
+    }
+
+    public int getDuration() {
+        return duration.get();
+    }
+
+    public void setDuration(int duration) {
+        this.duration.set(duration);
+    }
+
+    public IntegerProperty durationProperty() {
+        return duration;
+    }
+}
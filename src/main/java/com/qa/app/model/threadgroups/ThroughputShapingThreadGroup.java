@@ -0,0 +1,71 @@
+package com.qa.app.model.threadgroups;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Throughput shaping: the load is given in requests per second over time, as consecutive {@link ThroughputSegment}s
+ * (e.g. 0→500 RPS in 120 s, 500 RPS for 600 s, 1500 RPS for 60 s). Virtual users loop over the requests and Gatling's
+ * throttle holds them to the target; the number of users is sized from the peak target and
+ * {@code expectedResponseMs}, unless {@code maxUsers} is set.
+ */
+public class ThroughputShapingThreadGroup implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private List<ThroughputSegment> segments = new ArrayList<>();
+    // Expected response time of one request, used to size the user pool
+    private int expectedResponseMs = 1000;
+    // 0 = size the user pool automatically
+    private int maxUsers = 0;
+
+    public List<ThroughputSegment> getSegments() {
+        return segments;
+    }
+
+    public void setSegments(List<ThroughputSegment> segments) {
+        this.segments = segments;
+    }
+
+    public int getExpectedResponseMs() {
+        return expectedResponseMs;
+    }
+
+    public void setExpectedResponseMs(int expectedResponseMs) {
+        this.expectedResponseMs = expectedResponseMs;
+    }
+
+    public int getMaxUsers() {
+        return maxUsers;
+    }
+
+    public void setMaxUsers(int maxUsers) {
+        this.maxUsers = maxUsers;
+    }
+
+    /**
+     * Length of the whole profile in seconds.
+     */
+    public long totalDurationSeconds() {
+        long total = 0;
+        if (segments != null) {
+            for (ThroughputSegment segment : segments) {
+                total += Math.max(0, segment.getDuration());
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Highest target throughput of any segment.
+     */
+    public int peakRps() {
+        int peak = 0;
+        if (segments != null) {
+            for (ThroughputSegment segment : segments) {
+                peak = Math.max(peak, Math.max(segment.getStartRps(), segment.getEndRps()));
+            }
+        }
+        return peak;
+    }
+}
@@ -3,10 +3,22 @@ package com.qa.app.model.threadgroups;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.TreeSet;
 
+/**
+ * JMeter-style Ultimate Thread Group: every step starts after its start time, ramps its users up over the startup
+ * time, holds them for the hold time and ramps them down over the shutdown time. Steps overlap, so the concurrency at
+ * any time is the sum of the users of all steps (see {@link #concurrencyCurve()}).
+ */
 public class UltimateThreadGroup implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Point of the concurrency curve: {@code users} concurrent users at {@code time} seconds.
+     */
+    public record CurvePoint(long time, int users) {
+    }
+
     private List<UltimateThreadGroupStep> steps = new ArrayList<>();
 
     public List<UltimateThreadGroupStep> getSteps() {
@@ -16,4 +28,93 @@ public class UltimateThreadGroup implements Serializable {
     public void setSteps(List<UltimateThreadGroupStep> steps) {
         this.steps = steps;
     }
-} 
\ No newline at end of file
+
+    /**
+     * Concurrent users over time, from 0 to the end of the last step. The curve is linear between the points; a step
+     * without startup or shutdown time changes the level at once, which shows as two points at the same time.
+     */
+    public List<CurvePoint> concurrencyCurve() {
+        List<CurvePoint> curve = new ArrayList<>();
+        if (steps == null || steps.isEmpty()) {
+            return curve;
+        }
+        // The sum of the step ramps only changes slope at a step boundary
+        TreeSet<Long> times = new TreeSet<>();
+        times.add(0L);
+        for (UltimateThreadGroupStep step : steps) {
+            long start = Math.max(0, step.getStartTime());
+            long up = start + Math.max(0, step.getStartupTime());
+            long hold = up + Math.max(0, step.getHoldTime());
+            times.add(start);
+            times.add(up);
+            times.add(hold);
+            times.add(hold + Math.max(0, step.getShutdownTime()));
+        }
+        for (long t : times) {
+            int before = (int) Math.round(usersAt(t, true));
+            int after = (int) Math.round(usersAt(t, false));
+            if (t > 0 && before != after) {
+                curve.add(new CurvePoint(t, before));
+            }
+            curve.add(new CurvePoint(t, after));
+        }
+        return curve;
+    }
+
+    /**
+     * End of the last step in seconds.
+     */
+    public long totalDurationSeconds() {
+        long end = 0;
+        if (steps != null) {
+            for (UltimateThreadGroupStep step : steps) {
+                end = Math.max(end, (long) Math.max(0, step.getStartTime()) + Math.max(0, step.getStartupTime())
+                        + Math.max(0, step.getHoldTime()) + Math.max(0, step.getShutdownTime()));
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Highest concurrency of the overlapping steps.
+     */
+    public int peakUsers() {
+        int peak = 0;
+        for (CurvePoint point : concurrencyCurve()) {
+            peak = Math.max(peak, point.users());
+        }
+        return peak;
+    }
+
+    /**
+     * Sum of the users of all steps at {@code t}; {@code leftLimit} gives the level just before {@code t}.
+     */
+    private double usersAt(long t, boolean leftLimit) {
+        double users = 0;
+        for (UltimateThreadGroupStep step : steps) {
+            double load = Math.max(0, step.getInitialLoad());
+            long start = Math.max(0, step.getStartTime());
+            long startup = Math.max(0, step.getStartupTime());
+            long up = start + startup;
+            long hold = up + Math.max(0, step.getHoldTime());
+            long shutdown = Math.max(0, step.getShutdownTime());
+            long end = hold + shutdown;
+            // "after(x)": t is past boundary x, seen from the side the limit is taken
+            if (!after(t, start, leftLimit) || after(t, end, leftLimit)) {
+                continue;
+            }
+            if (!after(t, up, leftLimit)) {
+                users += load * (t - start) / startup;
+            } else if (!after(t, hold, leftLimit)) {
+                users += load;
+            } else {
+                users += load * (end - t) / shutdown;
+            }
+        }
+        return users;
+    }
+
+    private static boolean after(long t, long boundary, boolean leftLimit) {
+        return leftLimit ? t > boundary : t >= boundary;
+    }
+}
@@ -16,6 +16,12 @@ public interface IGatlingScenarioService {
     void updateOrder(List<Scenario> scenarios) throws ServiceException;
     void runScenarios(java.util.List<com.qa.app.model.Scenario> scenarios,
                       java.lang.Runnable onComplete) throws ServiceException;
+    void runScenarios(java.util.List<com.qa.app.model.Scenario> scenarios,
+                      com.qa.app.service.runner.RunQueue.Priority priority,
+                      java.lang.Runnable onComplete) throws ServiceException;
     void upsertSchedule(int scenarioId, String cronExpr, boolean enabled) throws ServiceException;
     com.qa.app.model.ScenarioSchedule getSchedule(int scenarioId) throws ServiceException;
+    Scenario findScenarioById(int scenarioId) throws ServiceException;
+    List<com.qa.app.model.ScenarioSchedule> findEnabledSchedules() throws ServiceException;
+    void updateScheduleRun(int scenarioId, String nextRunAt, String lastRunAt, boolean enabled) throws ServiceException;
 } 
\ No newline at end of file
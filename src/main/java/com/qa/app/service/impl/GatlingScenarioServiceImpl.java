@@ -6,10 +6,14 @@ import com.qa.app.dao.impl.GatlingScenarioDaoImpl;
 import com.qa.app.model.*;
 import com.qa.app.service.ServiceException;
 import com.qa.app.service.api.IGatlingScenarioService;
-import com.qa.app.service.api.IGatlingTestService;
-import com.qa.app.service.api.IEndpointService;
-import com.qa.app.service.EnvironmentContext;
+import com.qa.app.service.runner.DistributedLoadCoordinator;
 import com.qa.app.service.runner.GatlingRunnerUtils;
+import com.qa.app.service.runner.LiveMetrics;
+import com.qa.app.service.runner.RunEventChannel;
+import com.qa.app.service.runner.RunPlan;
+import com.qa.app.service.runner.RunQueue;
+import com.qa.app.service.runner.ScenarioScheduler;
+import com.qa.app.service.runner.TestBatchResolver;
 
 import java.util.List;
 import java.util.Map;
@@ -19,7 +23,6 @@ import java.nio.file.Paths;
 public class GatlingScenarioServiceImpl implements IGatlingScenarioService {
 
     private final IGatlingScenarioDao scenarioDao = new GatlingScenarioDaoImpl();
-    private final IGatlingTestService testService = new GatlingTestServiceImpl();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Override
@@ -118,14 +121,14 @@ public class GatlingScenarioServiceImpl implements IGatlingScenarioService {
 
     @Override
     public void runScenarios(java.util.List<com.qa.app.model.Scenario> scenarios, java.lang.Runnable onComplete) throws ServiceException {
+        runScenarios(scenarios, RunQueue.Priority.NORMAL, onComplete);
+    }
+
+    @Override
+    public void runScenarios(java.util.List<com.qa.app.model.Scenario> scenarios, RunQueue.Priority priority,
+                             java.lang.Runnable onComplete) throws ServiceException {
         if (scenarios == null || scenarios.isEmpty()) {
-            if (onComplete != null) {
-                if (javafx.application.Platform.isFxApplicationThread()) {
-                    onComplete.run();
-                } else {
-                    javafx.application.Platform.runLater(onComplete);
-                }
-            }
+            complete(onComplete);
             return;
         }
 
@@ -133,7 +136,7 @@ public class GatlingScenarioServiceImpl implements IGatlingScenarioService {
         if (scenarios.size() == 1 && scenarios.get(0).isFunctionalTest()) {
             com.qa.app.model.Scenario funcScn = scenarios.get(0);
             try {
-                com.qa.app.service.runner.FunctionalScenarioRunner.run(funcScn, onComplete);
+                com.qa.app.service.runner.FunctionalScenarioRunner.run(funcScn, priority, onComplete);
             } catch (ServiceException se) {
                 throw se;
             } catch (Exception ex) {
@@ -145,8 +148,10 @@ public class GatlingScenarioServiceImpl implements IGatlingScenarioService {
         try {
             // ===== 1. 准备数据 =====
             java.util.List<ScenarioRunItem> runItems = new java.util.ArrayList<>();
+            java.util.List<GatlingTest> executedTests = new java.util.ArrayList<>();
 
-            IEndpointService endpointService = new EndpointServiceImpl();
+            // One resolver for all scenarios: tests, endpoints and templates they share are read once
+            TestBatchResolver resolver = new TestBatchResolver();
 
             for (com.qa.app.model.Scenario sc : scenarios) {
                 GatlingLoadParameters params = objectMapper.readValue(sc.getThreadGroupJson(), GatlingLoadParameters.class);
@@ -156,76 +161,14 @@ public class GatlingScenarioServiceImpl implements IGatlingScenarioService {
                     throw new ServiceException("Scenario '" + sc.getName() + "' has no steps defined – cannot run.");
                 }
                 
-                // This list will contain all tests in the correct order: setup, main, teardown
-                List<GatlingTest> allTestsWithDeps = new java.util.ArrayList<>();
-                for (ScenarioStep step : steps) {
-                    GatlingTest mainTest = testService.findTestByTcid(step.getTestTcid());
-                    if (mainTest == null) {
-                        throw new ServiceException("Test not found for tcid: " + step.getTestTcid());
-                    }
-                    mainTest.setWaitTime(step.getWaitTime());
-
-                    Map<String, List<String>> condMap = parseConditionString(mainTest.getConditions());
-
-                    // 1) Add Setup tests
-                    List<String> setups = condMap.getOrDefault("Setup", java.util.Collections.emptyList());
-                    for (String tcid : setups) {
-                        GatlingTest setupTest = testService.findTestByTcid(tcid);
-                        if (setupTest == null) {
-                            throw new ServiceException("Setup test not found: " + tcid + " (required by " + mainTest.getTcid() + ")");
-                        }
-                        allTestsWithDeps.add(setupTest);
-                    }
-
-                    // 2) Add Main test
-                    allTestsWithDeps.add(mainTest);
-
-                    // 3) Add Teardown tests
-                    List<String> teardowns = condMap.getOrDefault("Teardown", java.util.Collections.emptyList());
-                    for (String tcid : teardowns) {
-                        GatlingTest teardownTest = testService.findTestByTcid(tcid);
-                        if (teardownTest == null) {
-                            throw new ServiceException("Teardown test not found: " + tcid + " (required by " + mainTest.getTcid() + ")");
-                        }
-                        allTestsWithDeps.add(teardownTest);
-                    }
-                }
-
+                // All tests in the correct order (setup, main, teardown) with their endpoints
                 java.util.List<java.util.Map<String, Object>> batchItems = new java.util.ArrayList<>();
-                for (GatlingTest gt : allTestsWithDeps) {
-                    // enrich templates (same logic as GatlingTestServiceImpl)
-                    try {
-                        if ((gt.getBody() == null || gt.getBody().isEmpty()) && gt.getBodyTemplateId() > 0) {
-                            com.qa.app.model.BodyTemplate bt = new com.qa.app.service.impl.BodyTemplateServiceImpl().findBodyTemplateById(gt.getBodyTemplateId());
-                            if (bt != null) gt.setBody(bt.getContent());
-                        }
-                    } catch (Exception ignored) { }
-
-                    try {
-                        if ((gt.getHeaders() == null || gt.getHeaders().isEmpty()) && gt.getHeadersTemplateId() > 0) {
-                            com.qa.app.model.HeadersTemplate ht = new com.qa.app.service.impl.HeadersTemplateServiceImpl().getHeadersTemplateById(gt.getHeadersTemplateId());
-                            if (ht != null) gt.setHeaders(ht.getContent());
-                        }
-                    } catch (Exception ignored) { }
-
+                for (TestBatchResolver.Item item : resolver.resolveSteps(steps)) {
                     java.util.Map<String, Object> map = new java.util.HashMap<>();
-                    map.put("test", gt);
-                    // Resolve endpoint by name and current environment
-                    com.qa.app.model.Endpoint endpoint = null;
-                    try {
-                        Integer envId = EnvironmentContext.getCurrentEnvironmentId();
-                        endpoint = endpointService.getEndpointByNameAndEnv(gt.getEndpointName(), envId);
-
-                    } catch (Exception ex) {
-                        throw new ServiceException("Error retrieving endpoint for test: " + gt.getTcid() + ": " + ex.getMessage(), ex);
-                    }
-
-                    if (endpoint == null) {
-                        throw new ServiceException("Endpoint '" + gt.getEndpointName() + "' not found in current environment for test: " + gt.getTcid());
-                    }
-
-                    map.put("endpoint", endpoint);
+                    map.put("test", item.test());
+                    map.put("endpoint", item.endpoint());
                     batchItems.add(map);
+                    executedTests.add(item.test());
                 }
                 if (batchItems.isEmpty()) {
                     throw new ServiceException("Scenario '" + sc.getName() + "' has no executable steps (tests/endpoints not found).");
@@ -233,38 +176,97 @@ public class GatlingScenarioServiceImpl implements IGatlingScenarioService {
                 runItems.add(new ScenarioRunItem(sc, params, batchItems));
             }
 
-            // ===== 2. 序列化到临时文件 =====
-            java.io.File multiFile = java.io.File.createTempFile("gatling_multiscenario_", ".json");
-            multiFile.deleteOnExit();
+            // ===== 2. 组装 run plan（含 DB 连接与自定义变量，子进程不访问数据库）；文件在运行开始时才写出 =====
             if (runItems.isEmpty()) {
                 throw new ServiceException("No valid scenario steps found to execute.");
             }
-            new com.fasterxml.jackson.databind.ObjectMapper().writeValue(multiFile, runItems);
+            RunPlan plan = new RunPlan();
+            plan.setScenarios(runItems);
+            resolver.snapshotCatalog(plan, executedTests);
 
             // ===== 3. 启动 Gatling =====
             String resultsPath = Paths.get(System.getProperty("user.dir"), "target", "gatling").toString();
             Map<String, String> sysProps = new HashMap<>();
-            sysProps.put("gatling.multiscenario.file", multiFile.getAbsolutePath());
-            List<String> command = GatlingRunnerUtils.buildGatlingCommand(com.qa.app.service.runner.GatlingScenarioSimulation.class.getName(), sysProps, resultsPath);
-
-            ProcessBuilder pb = new ProcessBuilder(command);
-            pb.inheritIO();
-
-            // 在独立线程中启动并等待 Gatling 进程，避免阻塞调用线程
-            new Thread(() -> {
+            // With load agents configured the plan is partitioned across them instead of running in one local JVM
+            final boolean distributed = DistributedLoadCoordinator.isConfigured();
+
+            // Remote agents load their own hosts; local agents (local:N) are N Gatling JVMs sharing the users on this one
+            int localAgents = distributed ? DistributedLoadCoordinator.localAgentCount() : 0;
+            RunQueue.Cost cost = RunQueue.Cost.light();
+            if (!distributed || localAgents > 0) {
+                // All scenarios share one Gatling JVM (or are partitioned across the local agents)
+                int peakUsers = 0;
+                for (ScenarioRunItem item : runItems) {
+                    peakUsers += GatlingRunnerUtils.peakUsers(item.params(), item.items().size(),
+                            GatlingRunnerUtils.iterationPauseSeconds(item.items()));
+                }
+                cost = RunQueue.estimate(peakUsers, Math.max(1, localAgents));
+            }
+            String runName = scenarios.size() == 1 ? "Scenario " + scenarios.get(0).getName() : scenarios.size() + " scenarios";
+
+            // 排队等待准入后在独立线程中启动并等待 Gatling 进程，避免阻塞调用线程
+            RunQueue.submit(runName, priority, cost, "scenario-runner", run -> {
+                // Progress and live metrics of a local run arrive over the run event channel
+                RunEventChannel.Server events = null;
+                // The plan holds credentials: it exists only while the run does
+                java.io.File planFile = null;
                 try {
-                    int exitCode;
-                    java.lang.Process p = null;
-                    try {
-                        p = pb.start();
-                    } catch (Exception ex) {
-                        System.err.println("Failed to start Gatling process: " + ex.getMessage());
-                        throw ex;
+                    planFile = plan.write();
+                    sysProps.put(RunPlan.FILE_PROPERTY, planFile.getAbsolutePath());
+                    if (!distributed) {
+                        try {
+                            events = RunEventChannel.Server.open(new RunEventChannel.Listener() {
+                                @Override
+                                public void onProgress(long requests, long failedRequests, long droppedEvents) {
+                                    if (requests > 0) {
+                                        com.qa.app.ui.vm.MainViewModel.showGlobalStatus(String.format("Running %d scenario(s): %d request(s), %d failed",
+                                                scenarios.size(), requests, failedRequests), com.qa.app.ui.vm.MainViewModel.StatusType.INFO);
+                                    }
+                                }
+
+                                @Override
+                                public void onMetrics(List<LiveMetrics.Window> windows) {
+                                    com.qa.app.ui.vm.MainViewModel.showLiveMetrics(windows);
+                                }
+
+                                @Override
+                                public void onRunStats(Map<String, String> stats) {
+                                    stats.forEach((name, value) -> System.out.println("Run stats | " + name + ": " + value));
+                                }
+                            });
+                            sysProps.put(RunEventChannel.ADDRESS_PROPERTY, events.getAddress());
+                            com.qa.app.ui.vm.MainViewModel.startLiveMetrics();
+                        } catch (java.io.IOException e) {
+                            System.err.println("[WARN] Unable to open run event channel, live metrics disabled: " + e.getMessage());
+                        }
                     }
-                    com.qa.app.ui.vm.MainViewModel.showGlobalStatus("Running " + scenarios.size() + " Gatling scenario(s)", com.qa.app.ui.vm.MainViewModel.StatusType.INFO);
+                    int exitCode;
+                    if (distributed) {
+                        com.qa.app.ui.vm.MainViewModel.showGlobalStatus("Running " + scenarios.size() + " Gatling scenario(s) on load agents", com.qa.app.ui.vm.MainViewModel.StatusType.INFO);
+                        exitCode = DistributedLoadCoordinator.run(planFile.toPath(), resultsPath);
+                    } else {
+                        List<String> command = GatlingRunnerUtils.buildGatlingCommand(com.qa.app.service.runner.GatlingScenarioSimulation.class.getName(), sysProps, resultsPath);
+                        ProcessBuilder pb = new ProcessBuilder(command);
+                        pb.inheritIO();
+                        java.lang.Process p = null;
+                        try {
+                            p = pb.start();
+                        } catch (Exception ex) {
+                            System.err.println("Failed to start Gatling process: " + ex.getMessage());
+                            throw ex;
+                        }
+                        run.attach(p);
+                        com.qa.app.ui.vm.MainViewModel.showGlobalStatus("Running " + scenarios.size() + " Gatling scenario(s)", com.qa.app.ui.vm.MainViewModel.StatusType.INFO);
 
-                    exitCode = p.waitFor();
-                    if (exitCode != 0) {
+                        exitCode = p.waitFor();
+                        if (events != null) {
+                            events.awaitCompletion(5000);
+                        }
+                    }
+                    if (run.isCancelled()) {
+                        System.out.println("Gatling scenario(s) cancelled.");
+                        com.qa.app.ui.vm.MainViewModel.showGlobalStatus("Gatling scenario(s) cancelled", com.qa.app.ui.vm.MainViewModel.StatusType.WARNING);
+                    } else if (exitCode != 0) {
                         System.err.println("Gatling scenario(s) Failed, exit code: " + exitCode);
                         com.qa.app.ui.vm.MainViewModel.showGlobalStatus("Gatling scenario(s) Failed, exit code: " + exitCode, com.qa.app.ui.vm.MainViewModel.StatusType.ERROR);
                     } else {
@@ -276,15 +278,13 @@ public class GatlingScenarioServiceImpl implements IGatlingScenarioService {
                     ex.printStackTrace();
                     com.qa.app.ui.vm.MainViewModel.showGlobalStatus("Gatling Scenario(s) Exception: " + ex.getMessage(), com.qa.app.ui.vm.MainViewModel.StatusType.ERROR);
                 } finally {
-                    if (onComplete != null) {
-                        if (javafx.application.Platform.isFxApplicationThread()) {
-                            onComplete.run();
-                        } else {
-                            javafx.application.Platform.runLater(onComplete);
-                        }
+                    if (events != null) {
+                        events.close();
                     }
+                    RunPlan.delete(planFile);
+                    complete(onComplete);
                 }
-            }, "scenario-runner").start();
+            }, () -> complete(onComplete));
 
         } catch(ServiceException se){
             throw se;
@@ -294,6 +294,16 @@ public class GatlingScenarioServiceImpl implements IGatlingScenarioService {
     }
 
 
+    private static void complete(java.lang.Runnable onComplete) {
+        if (onComplete != null) {
+            if (javafx.application.Platform.isFxApplicationThread()) {
+                onComplete.run();
+            } else {
+                javafx.application.Platform.runLater(onComplete);
+            }
+        }
+    }
+
     @Override
     public void upsertSchedule(int scenarioId, String cronExpr, boolean enabled) throws ServiceException {
         try {
@@ -301,6 +311,7 @@ public class GatlingScenarioServiceImpl implements IGatlingScenarioService {
         } catch (Exception e) {
             throw new ServiceException("Failed to update schedule", e);
         }
+        ScenarioScheduler.reload();
     }
 
     @Override
@@ -312,25 +323,30 @@ public class GatlingScenarioServiceImpl implements IGatlingScenarioService {
         }
     }
 
-    /**
-     * Parse the Condition string, e.g. "[Setup]TC001,TC002;[Teardown]TC003" -> Map
-     * Copied from GatlingTestServiceImpl for standalone use.
-     */
-    private Map<String, java.util.List<String>> parseConditionString(String cond) {
-        java.util.Map<String, java.util.List<String>> map = new java.util.HashMap<>();
-        if (cond == null || cond.isBlank()) return map;
-        java.util.regex.Pattern p = java.util.regex.Pattern.compile("\\[(\\w+)\\]([^\\[]*)");
-        java.util.regex.Matcher m = p.matcher(cond);
-        while (m.find()) {
-            String prefix = m.group(1);
-            String body = m.group(2).trim().replace(";", ""); // remove stray semicolons
-            if (body.isBlank()) continue;
-            java.util.List<String> tcids = java.util.Arrays.stream(body.split(","))
-                    .map(String::trim)
-                    .filter(s -> !s.isBlank())
-                    .toList();
-            map.put(prefix, tcids);
+    @Override
+    public Scenario findScenarioById(int scenarioId) throws ServiceException {
+        try {
+            return scenarioDao.getScenarioById(scenarioId);
+        } catch (Exception e) {
+            throw new ServiceException("Failed to load scenario", e);
+        }
+    }
+
+    @Override
+    public List<com.qa.app.model.ScenarioSchedule> findEnabledSchedules() throws ServiceException {
+        try {
+            return scenarioDao.getEnabledSchedules();
+        } catch (Exception e) {
+            throw new ServiceException("Failed to load schedules", e);
+        }
+    }
+
+    @Override
+    public void updateScheduleRun(int scenarioId, String nextRunAt, String lastRunAt, boolean enabled) throws ServiceException {
+        try {
+            scenarioDao.updateScheduleRun(scenarioId, nextRunAt, lastRunAt, enabled);
+        } catch (Exception e) {
+            throw new ServiceException("Failed to update schedule run", e);
         }
-        return map;
     }
-} 
\ No newline at end of file
+}
@@ -2,28 +2,19 @@ package com.qa.app.service.impl;
 
 import java.sql.SQLException;
 import java.util.List;
-import java.util.Map;
 import com.qa.app.dao.api.IGatlingTestDao;
 import com.qa.app.dao.impl.GatlingTestDaoImpl;
 import com.qa.app.model.GatlingTest;
 import com.qa.app.model.GatlingLoadParameters;
 import com.qa.app.service.ServiceException;
 import com.qa.app.service.api.IGatlingTestService;
-import com.qa.app.service.api.IEndpointService;
 import com.qa.app.model.Endpoint;
 import com.qa.app.service.runner.GatlingTestRunner;
-import com.qa.app.model.BodyTemplate;
-import com.qa.app.model.HeadersTemplate;
-import com.qa.app.service.api.IBodyTemplateService;
-import com.qa.app.service.api.IHeadersTemplateService;
-import com.qa.app.service.EnvironmentContext;
+import com.qa.app.service.runner.TestBatchResolver;
 
 public class GatlingTestServiceImpl implements IGatlingTestService {
 
     private final IGatlingTestDao testDao = new GatlingTestDaoImpl(); // In a real app, use dependency injection
-    private final IEndpointService endpointService = new EndpointServiceImpl();
-    private final IBodyTemplateService bodyTemplateService = new BodyTemplateServiceImpl();
-    private final IHeadersTemplateService headersTemplateService = new HeadersTemplateServiceImpl();
 
     /* -------------------------------------------------
      *  Helper functional interfaces & utility wrappers
@@ -157,33 +148,22 @@ public class GatlingTestServiceImpl implements IGatlingTestService {
             throw new ServiceException("Test list cannot be null or empty.");
         }
 
-        // ① Expand dependencies and capture extra meta (origin, mode)
-        ExpandedResult expanded = expandTestsWithDependenciesForRun(tests);
-        List<GatlingTest> executionList = expanded.tests;
-
-        java.util.List<Endpoint> endpoints = new java.util.ArrayList<>();
-        for (GatlingTest test : executionList) {
-            enrichTemplates(test);
-
-            Endpoint endpoint = null;
-            try {
-                Integer envId = EnvironmentContext.getCurrentEnvironmentId();
-                endpoint = endpointService.getEndpointByNameAndEnv(test.getEndpointName(), envId);
-
-            } catch (Exception ex) {
-                throw new ServiceException("Error retrieving endpoint for test: " + test.getTcid() + ": " + ex.getMessage(), ex);
-            }
-
-            if (endpoint == null) {
-                throw new ServiceException("Endpoint '" + test.getEndpointName() + "' not found in current environment for test: " + test.getTcid());
-            }
-
-            endpoints.add(endpoint);
+        // ① Expand dependencies and resolve endpoints / templates in bulk (origin, mode kept per entry)
+        List<TestBatchResolver.Item> items = new TestBatchResolver().resolveTests(tests);
+        List<GatlingTest> executionList = new java.util.ArrayList<>(items.size());
+        List<Endpoint> endpoints = new java.util.ArrayList<>(items.size());
+        List<String> origins = new java.util.ArrayList<>(items.size());
+        List<String> modes = new java.util.ArrayList<>(items.size());
+        for (TestBatchResolver.Item item : items) {
+            executionList.add(item.test());
+            endpoints.add(item.endpoint());
+            origins.add(item.origin());
+            modes.add(item.mode());
         }
 
         try {
             GatlingTestRunner.executeGatlingTests(executionList, params, endpoints,
-                    expanded.origins, expanded.modes, onComplete);
+                    origins, modes, onComplete);
 
         } catch (Exception e) {
             throw new ServiceException("Failed to run Gatling tests: " + e.getMessage(), e);
@@ -211,86 +191,4 @@ public class GatlingTestServiceImpl implements IGatlingTestService {
         }
     }
 
-    private void enrichTemplates(GatlingTest test) {
-        try {
-            if ((test.getBody() == null || test.getBody().isEmpty()) && test.getBodyTemplateId() > 0) {
-                BodyTemplate bt = bodyTemplateService.findBodyTemplateById(test.getBodyTemplateId());
-                if (bt != null) test.setBody(bt.getContent());
-            }
-        } catch (Exception ignored) { }
-
-        try {
-            if ((test.getHeaders() == null || test.getHeaders().isEmpty()) && test.getHeadersTemplateId() > 0) {
-                HeadersTemplate ht = headersTemplateService.getHeadersTemplateById(test.getHeadersTemplateId());
-                if (ht != null) test.setHeaders(ht.getContent());
-            }
-        } catch (Exception ignored) { }
-    }
-
-
-    /**
-     * Parse the Condition string, e.g. "[Setup]TC001,TC002;[Teardown]TC003" -> Map
-     */
-    private Map<String, java.util.List<String>> parseConditionString(String cond) {
-        java.util.Map<String, java.util.List<String>> map = new java.util.HashMap<>();
-        if (cond == null || cond.isBlank()) return map;
-        java.util.regex.Pattern p = java.util.regex.Pattern.compile("\\[(\\w+)]([^;]*)");
-        java.util.regex.Matcher m = p.matcher(cond);
-        while (m.find()) {
-            String prefix = m.group(1);
-            String body = m.group(2).trim();
-            if (body.isBlank()) continue;
-            java.util.List<String> tcids = java.util.Arrays.stream(body.split(","))
-                    .map(String::trim)
-                    .filter(s -> !s.isBlank())
-                    .toList();
-            map.put(prefix, tcids);
-        }
-        return map;
-    }
-
-    private static class ExpandedResult {
-        List<GatlingTest> tests = new java.util.ArrayList<>();
-        List<String> origins = new java.util.ArrayList<>();
-        List<String> modes = new java.util.ArrayList<>();
-    }
-
-    private ExpandedResult expandTestsWithDependenciesForRun(List<GatlingTest> selected) throws ServiceException {
-        ExpandedResult res = new ExpandedResult();
-
-        for (GatlingTest main : selected) {
-            Map<String, List<String>> condMap = parseConditionString(main.getConditions());
-
-            // 1) Setup
-            List<String> setups = condMap.getOrDefault("Setup", java.util.Collections.emptyList());
-            for (String tcid : setups) {
-                GatlingTest setupTest = findTestByTcid(tcid);
-                if (setupTest == null) {
-                    throw new ServiceException("Setup test not found: " + tcid + " (required by " + main.getTcid() + ")");
-                }
-                res.tests.add(setupTest);
-                res.origins.add(main.getTcid());
-                res.modes.add("SETUP");
-            }
-
-            // 2) Main test
-            res.tests.add(main);
-            res.origins.add(main.getTcid());
-            res.modes.add("MAIN");
-
-            // 3) Teardown
-            List<String> teardowns = condMap.getOrDefault("Teardown", java.util.Collections.emptyList());
-            for (String tcid : teardowns) {
-                GatlingTest teardownTest = findTestByTcid(tcid);
-                if (teardownTest == null) {
-                    throw new ServiceException("Teardown test not found: " + tcid + " (required by " + main.getTcid() + ")");
-                }
-                res.tests.add(teardownTest);
-                res.origins.add(main.getTcid());
-                res.modes.add("TEARDOWN");
-            }
-        }
-        return res;
-    }
-
-}
\ No newline at end of file
+}
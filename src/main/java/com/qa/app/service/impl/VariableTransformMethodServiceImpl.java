@@ -6,11 +6,10 @@ import com.qa.app.model.VariableTransformMethod;
 import com.qa.app.service.ServiceException;
 import com.qa.app.service.api.IVariableTransformMethodService;
 import com.qa.app.service.util.BuiltInVariableConverter;
+import com.qa.app.service.util.GroovyScriptRunner;
 import com.qa.app.service.util.VariableConverter;
 
-import groovy.lang.Binding;
 import groovy.lang.GroovyClassLoader;
-import groovy.lang.Script;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -147,16 +146,8 @@ public class VariableTransformMethodServiceImpl implements IVariableTransformMet
     // ------------------------------------------------------------------------
     private VariableConverter wrapScript(VariableTransformMethod m) {
         try {
-            @SuppressWarnings("unchecked")
-            Class<? extends Script> cls = (Class<? extends Script>) GROOVY_CLASS_LOADER.parseClass(m.getScript()).asSubclass(Script.class);
-            return (value, params) -> {
-                Script script = cls.getDeclaredConstructor().newInstance();
-                Binding binding = new Binding();
-                binding.setVariable("value", value);
-                binding.setVariable("params", params);
-                script.setBinding(binding);
-                return script.run();
-            };
+            GroovyScriptRunner runner = GroovyScriptRunner.compile(GROOVY_CLASS_LOADER, m.getName(), m.getScript(), "value", "params");
+            return (value, params) -> runner.run(value, params);
         } catch (Exception e) {
             System.err.println("[VariableTransform] Failed to compile script '" + m.getName() + "': " + e.getMessage());
             // fallback converter which returns original value
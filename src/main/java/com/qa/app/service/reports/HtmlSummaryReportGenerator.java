@@ -86,7 +86,8 @@ public final class HtmlSummaryReportGenerator {
         double suitePassRate = suiteTotal == 0 ? 0 : ((double) suitePassed / suiteTotal) * 100.0;
         double testPassRate  = testTotal  == 0 ? 0 : ((double) testPassed  / testTotal ) * 100.0;
 
-        String detailsSection = generateDetailsSectionHtml(reports);
+        String detailsSection = generateOverheadSectionHtml(reports) + generateDbPoolSectionHtml(reports)
+                + generateMergedLatencySectionHtml(reports) + generateDetailsSectionHtml(reports);
 
         // Build HTML ------------------------------------------------------
         String html = """
@@ -399,6 +400,8 @@ public final class HtmlSummaryReportGenerator {
                     <div class="case-body">
             """, escapeHtml(report.getOriginTcid()), caseStatus, report.isPassed() ? "PASS" : "FAIL"));
 
+            detailsHtml.append(generateLatencyTableHtml(report.getLatencyHistograms()));
+
             detailsHtml.append("""
                 <table class="request-table">
                     <thead>
@@ -435,6 +438,241 @@ public final class HtmlSummaryReportGenerator {
         return detailsHtml.toString();
     }
     
+    /**
+     * Time the load generator spent in session functions per TCID, next to the response time of its requests.
+     * The run metrics are shared by all reports of a batch, so the first report carrying them is used.
+     */
+    private static String generateOverheadSectionHtml(List<FunctionalTestReport> reports) {
+        java.util.Map<String, com.qa.app.model.reports.GeneratorOverhead> overhead = null;
+        for (FunctionalTestReport report : reports) {
+            if (report.getRunMetrics() != null && report.getRunMetrics().getGeneratorOverhead() != null
+                    && !report.getRunMetrics().getGeneratorOverhead().isEmpty()) {
+                overhead = report.getRunMetrics().getGeneratorOverhead();
+                break;
+            }
+        }
+        if (overhead == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("""
+            <div class="details-card">
+                <div class="details-header">
+                    <h3>Generator Overhead</h3>
+                </div>
+                <div class="details-body">
+                <table class="request-table">
+                    <thead>
+                        <tr>
+                            <th>Name</th>
+                            <th>Session Functions</th>
+                            <th>Generator (ms)</th>
+                            <th>HTTP (ms)</th>
+                            <th>Generator Share</th>
+                            <th>Over Budget</th>
+                            <th>Stages (total, p99)</th>
+                        </tr>
+                    </thead>
+                    <tbody>
+        """);
+        for (com.qa.app.model.reports.GeneratorOverhead o : overhead.values()) {
+            StringBuilder stages = new StringBuilder();
+            o.getStages().forEach((stage, timing) -> {
+                if (!stages.isEmpty()) stages.append("\n");
+                stages.append(String.format("%s: %.1f ms, p99 %d us", stage, timing.getTotalMs(), timing.getP99Us()));
+            });
+            String share = "-";
+            if (o.getHttpTotalMs() != null && o.getTotalMs() + o.getHttpTotalMs() > 0) {
+                share = String.format("%.1f%%", o.getTotalMs() * 100.0 / (o.getTotalMs() + o.getHttpTotalMs()));
+            }
+            sb.append(String.format("""
+                <tr class="%s">
+                    <td>%s</td>
+                    <td>%d</td>
+                    <td>%.1f</td>
+                    <td>%s</td>
+                    <td>%s</td>
+                    <td>%d (&gt; %d ms)</td>
+                    <td class="pre-cell"><pre>%s</pre></td>
+                </tr>
+            """,
+                    o.getOverBudget() > 0 ? "fail" : "",
+                    escapeHtml(o.getTcid()),
+                    o.getSessionFunctions(),
+                    o.getTotalMs(),
+                    o.getHttpTotalMs() != null ? o.getHttpTotalMs() : "-",
+                    share,
+                    o.getOverBudget(), o.getBudgetMs(),
+                    escapeHtml(stages.toString())));
+        }
+        sb.append("</tbody></table></div></div>");
+        return sb.toString();
+    }
+
+    /**
+     * Usage of the DB check connection pools of the run, from the run metrics shared by the reports of a batch.
+     */
+    private static String generateDbPoolSectionHtml(List<FunctionalTestReport> reports) {
+        java.util.Map<String, com.qa.app.model.reports.DbPoolMetrics> pools = null;
+        for (FunctionalTestReport report : reports) {
+            if (report.getRunMetrics() != null && report.getRunMetrics().getDbPools() != null
+                    && !report.getRunMetrics().getDbPools().isEmpty()) {
+                pools = report.getRunMetrics().getDbPools();
+                break;
+            }
+        }
+        if (pools == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("""
+            <div class="details-card">
+                <div class="details-header">
+                    <h3>DB Connection Pools</h3>
+                </div>
+                <div class="details-body">
+                <table class="request-table">
+                    <thead>
+                        <tr>
+                            <th>Connection</th>
+                            <th>Max Size</th>
+                            <th>Peak Active</th>
+                            <th>Peak Pending</th>
+                            <th>Active / Idle / Pending at End</th>
+                            <th>Acquisitions</th>
+                            <th>Acquire p99 (us)</th>
+                            <th>Acquire Max (us)</th>
+                            <th>Timeouts</th>
+                        </tr>
+                    </thead>
+                    <tbody>
+        """);
+        for (com.qa.app.model.reports.DbPoolMetrics pool : pools.values()) {
+            sb.append(String.format("""
+                <tr class="%s">
+                    <td>%s</td>
+                    <td>%d</td>
+                    <td>%d</td>
+                    <td>%d</td>
+                    <td>%d / %d / %d</td>
+                    <td>%d</td>
+                    <td>%d</td>
+                    <td>%d</td>
+                    <td>%d</td>
+                </tr>
+            """,
+                    pool.getTimeouts() > 0 ? "fail" : "",
+                    escapeHtml(pool.getName()),
+                    pool.getMaxPoolSize(),
+                    pool.getPeakActive(),
+                    pool.getPeakPending(),
+                    pool.getActive(), pool.getIdle(), pool.getPending(),
+                    pool.getAcquisitions(),
+                    pool.getAcquireP99Us(),
+                    pool.getAcquireMaxUs(),
+                    pool.getTimeouts()));
+        }
+        sb.append("</tbody></table></div></div>");
+        return sb.toString();
+    }
+
+    /**
+     * Latency percentiles of all reports together: the histograms of a TCID and phase are merged across the reports
+     * (a reference test is often run by several cases), plus one row of all requests per phase. Only shown for more
+     * than one report; reports without histograms are left out.
+     */
+    private static String generateMergedLatencySectionHtml(List<FunctionalTestReport> reports) {
+        if (reports.size() < 2) {
+            return "";
+        }
+        Map<String, List<com.qa.app.model.reports.LatencyHistogram>> byTcid = new java.util.LinkedHashMap<>();
+        Map<String, List<com.qa.app.model.reports.LatencyHistogram>> byMode = new java.util.LinkedHashMap<>();
+        for (FunctionalTestReport report : reports) {
+            if (report.getLatencyHistograms() == null) {
+                continue;
+            }
+            for (com.qa.app.model.reports.LatencyHistogram latency : report.getLatencyHistograms()) {
+                if (latency.getHistogram() == null || latency.getHistogram().isEmpty()) {
+                    continue;
+                }
+                byTcid.computeIfAbsent(latency.getMode() + "|" + latency.getTcid(), k -> new java.util.ArrayList<>()).add(latency);
+                byMode.computeIfAbsent(latency.getMode(), k -> new java.util.ArrayList<>()).add(latency);
+            }
+        }
+        if (byTcid.isEmpty()) {
+            return "";
+        }
+        List<com.qa.app.model.reports.LatencyHistogram> merged = new java.util.ArrayList<>();
+        try {
+            for (List<com.qa.app.model.reports.LatencyHistogram> latencies : byTcid.values()) {
+                merged.add(LatencyHistograms.merge(latencies.get(0).getTcid(), latencies.get(0).getMode(), latencies));
+            }
+            for (Map.Entry<String, List<com.qa.app.model.reports.LatencyHistogram>> entry : byMode.entrySet()) {
+                merged.add(LatencyHistograms.merge("All requests", entry.getKey(), entry.getValue()));
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("[WARN] Latency histograms not merged: " + e.getMessage());
+            return "";
+        }
+        return """
+            <div class="details-card">
+                <div class="details-header">
+                    <h3>Latency (all reports)</h3>
+                </div>
+                <div class="details-body">
+            """ + generateLatencyTableHtml(merged) + "</div></div>";
+    }
+
+    /**
+     * Latency percentiles per TCID and phase; empty for reports written before latency histograms existed.
+     */
+    private static String generateLatencyTableHtml(List<com.qa.app.model.reports.LatencyHistogram> latencies) {
+        if (latencies == null || latencies.isEmpty()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("""
+            <table class="request-table">
+                <thead>
+                    <tr>
+                        <th>Phase</th>
+                        <th>Name</th>
+                        <th>Requests</th>
+                        <th>Mean (ms)</th>
+                        <th>p50 (ms)</th>
+                        <th>p90 (ms)</th>
+                        <th>p99 (ms)</th>
+                        <th>Max (ms)</th>
+                    </tr>
+                </thead>
+                <tbody>
+        """);
+        for (com.qa.app.model.reports.LatencyHistogram latency : latencies) {
+            sb.append(String.format("""
+                <tr>
+                    <td class="phase-cell">%s</td>
+                    <td>%s</td>
+                    <td>%d</td>
+                    <td>%.1f</td>
+                    <td>%d</td>
+                    <td>%d</td>
+                    <td>%d</td>
+                    <td>%d</td>
+                </tr>
+            """,
+                    escapeHtml(latency.getMode()),
+                    escapeHtml(latency.getTcid()),
+                    latency.getCount(),
+                    latency.getMeanMs(),
+                    latency.getP50Ms(),
+                    latency.getP90Ms(),
+                    latency.getP99Ms(),
+                    latency.getMaxMs()));
+        }
+        sb.append("</tbody></table>");
+        return sb.toString();
+    }
+
     private static String generateRequestRowHtml(com.qa.app.model.reports.RequestReport item, int counter, String phaseName) {
         StringBuilder sb = new StringBuilder();
         String itemStatusClass = item.isPassed() ? "pass" : "fail";
@@ -506,7 +744,7 @@ public final class HtmlSummaryReportGenerator {
         sb.append(String.format("<div id=\"%s\" class=\"tab-content\" style=\"display:none;\">", checksTabId));
         sb.append("""
             <table class="checks-table">
-                <thead><tr><th>Type</th><th>Expression</th><th>Operator</th><th>Expected</th><th>Actual</th><th>Result</th></tr></thead>
+                <thead><tr><th>Type</th><th>Expression</th><th>Operator</th><th>Expected</th><th>Actual</th><th>Result</th><th>Timing</th></tr></thead>
                 <tbody>
         """);
         if (item.getChecks() != null) {
@@ -519,6 +757,7 @@ public final class HtmlSummaryReportGenerator {
                         <td class="pre-cell"><pre>%s</pre></td>
                         <td class="pre-cell"><pre class="%s">%s</pre></td>
                         <td class="pre-cell"><pre class="%s">%s</pre></td>
+                        <td class="pre-cell"><pre>%s</pre></td>
                     </tr>
                 """, check.isPassed() ? "pass" : "fail",
                         check.getType(), 
@@ -526,7 +765,8 @@ public final class HtmlSummaryReportGenerator {
                         check.getOperator(),
                         escapeHtml(check.getExpect()),
                         check.isPassed() ? "pass" : "fail", escapeHtml(check.getActual()),
-                        check.isPassed() ? "pass" : "fail", check.isPassed() ? "PASS" : "FAIL"
+                        check.isPassed() ? "pass" : "fail", check.isPassed() ? "PASS" : "FAIL",
+                        formatCheckTiming(check)
                 ));
             }
         }
@@ -536,6 +776,16 @@ public final class HtmlSummaryReportGenerator {
         return sb.toString();
     }
     
+    /**
+     * Queue wait and execution time of a DB check; empty for other checks.
+     */
+    private static String formatCheckTiming(com.qa.app.model.reports.CheckReport check) {
+        if (check.getQueueWaitMs() == null && check.getExecutionMs() == null) return "";
+        return String.format("queue %s ms / exec %s ms",
+                check.getQueueWaitMs() != null ? check.getQueueWaitMs() : "-",
+                check.getExecutionMs() != null ? check.getExecutionMs() : "-");
+    }
+
     private static String mapToString(java.util.Map<String, String> map) {
         if (map == null || map.isEmpty()) return "";
         StringBuilder sb = new StringBuilder();
@@ -0,0 +1,96 @@
+package com.qa.app.service.reports;
+
+import com.qa.app.model.reports.LatencyHistogram;
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.zip.DataFormatException;
+
+/**
+ * Creates, encodes and merges the HdrHistograms behind {@link LatencyHistogram}.
+ * <p>
+ * Latencies are recorded in milliseconds with two significant digits (percentiles exact to 1%), up to one hour;
+ * slower responses count as one hour. A histogram has a fixed size whatever the number of requests, so a soak run
+ * is summarized without keeping its samples.
+ */
+public final class LatencyHistograms {
+
+    static final long HIGHEST_TRACKABLE_MS = 3_600_000L;
+    static final int SIGNIFICANT_DIGITS = 2;
+
+    private LatencyHistograms() {
+        // utility class – hide constructor
+    }
+
+    /**
+     * A histogram that may be recorded into from several threads.
+     */
+    public static ConcurrentHistogram newConcurrent() {
+        return new ConcurrentHistogram(HIGHEST_TRACKABLE_MS, SIGNIFICANT_DIGITS);
+    }
+
+    /**
+     * Records one latency, clamped to the trackable range.
+     */
+    public static void record(AbstractHistogram histogram, long latencyMs) {
+        histogram.recordValue(Math.max(0, Math.min(latencyMs, HIGHEST_TRACKABLE_MS)));
+    }
+
+    /**
+     * Summary of {@code histogram} with its percentiles and the compressed encoding of the distribution.
+     */
+    public static LatencyHistogram summarize(String tcid, String mode, AbstractHistogram histogram) {
+        LatencyHistogram result = new LatencyHistogram();
+        result.setTcid(tcid);
+        result.setMode(mode);
+        result.setCount(histogram.getTotalCount());
+        if (histogram.getTotalCount() > 0) {
+            result.setP50Ms(histogram.getValueAtPercentile(50));
+            result.setP90Ms(histogram.getValueAtPercentile(90));
+            result.setP99Ms(histogram.getValueAtPercentile(99));
+            result.setMaxMs(histogram.getMaxValue());
+            result.setMeanMs(Math.round(histogram.getMean() * 10) / 10.0);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        byte[] bytes = new byte[length];
+        buffer.flip();
+        buffer.get(bytes);
+        result.setHistogram(Base64.getEncoder().encodeToString(bytes));
+        return result;
+    }
+
+    /**
+     * Decodes the distribution of {@code latency}; an empty histogram when it carries none.
+     */
+    public static Histogram decode(LatencyHistogram latency) {
+        if (latency == null || latency.getHistogram() == null || latency.getHistogram().isEmpty()) {
+            return new Histogram(HIGHEST_TRACKABLE_MS, SIGNIFICANT_DIGITS);
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(latency.getHistogram()));
+            return Histogram.decodeFromCompressedByteBuffer(buffer, HIGHEST_TRACKABLE_MS);
+        } catch (DataFormatException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid latency histogram of " + latency.getTcid() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Merges the distributions of several runs (or of several TCIDs / modes) into one summary.
+     *
+     * @param tcid TCID of the merged summary, e.g. the common TCID of the inputs
+     * @param mode mode of the merged summary
+     */
+    public static LatencyHistogram merge(String tcid, String mode, Collection<LatencyHistogram> latencies) {
+        Histogram merged = new Histogram(HIGHEST_TRACKABLE_MS, SIGNIFICANT_DIGITS);
+        merged.setAutoResize(true);
+        for (LatencyHistogram latency : latencies) {
+            merged.add(decode(latency));
+        }
+        return summarize(tcid, mode, merged);
+    }
+}
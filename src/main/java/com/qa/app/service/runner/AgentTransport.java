@@ -0,0 +1,148 @@
+package com.qa.app.service.runner;
+
+import com.qa.app.util.AppConfig;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+
+/**
+ * Connections between {@link DistributedLoadCoordinator} and {@link LoadAgent}s.
+ * <p>
+ * A job carries the run plan (environment variables, credentials, ...) and the agent token, so it never travels in
+ * clear text over the network. With {@code load.agent.tls=true} (default) agents serve TLS with the key store
+ * {@code load.agent.tls.keystore} / {@code load.agent.tls.keystore.password}, and the coordinator verifies them
+ * against {@code load.agent.tls.truststore} / {@code load.agent.tls.truststore.password} (the JVM trust store when
+ * not set). With {@code load.agent.tls=false} the connection is plain TCP and only allowed on the loopback interface:
+ * the agent must bind to 127.0.0.1 and the coordinator reaches it through an SSH tunnel, e.g.
+ * {@code ssh -N -L 7790:127.0.0.1:7790 loadhost} with {@code load.agents=127.0.0.1:7790}. Agents started by the
+ * coordinator itself ({@code local:N}) always use loopback TCP.
+ * <p>
+ * Settings are read from system properties first, then from application.properties.
+ */
+final class AgentTransport {
+
+    static final String TLS_PROPERTY = "load.agent.tls";
+
+    private AgentTransport() {
+        // utility class – hide constructor
+    }
+
+    static String setting(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        return value != null ? value : AppConfig.getProperty(key, defaultValue);
+    }
+
+    static int intSetting(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(setting(key, String.valueOf(defaultValue)).trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    static boolean tlsEnabled() {
+        return Boolean.parseBoolean(setting(TLS_PROPERTY, "true").trim());
+    }
+
+    /** Constant-time token comparison, so response timing does not reveal how much of a guess was right. */
+    static boolean tokenMatches(String expected, String actual) {
+        return actual != null && MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+                actual.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Server socket of an agent: TLS when enabled, otherwise plain TCP restricted to a loopback address.
+     */
+    static ServerSocket serverSocket(String bind, int port) throws Exception {
+        InetSocketAddress address = bind.isBlank() ? new InetSocketAddress(port)
+                : new InetSocketAddress(InetAddress.getByName(bind), port);
+        if (!tlsEnabled()) {
+            if (address.getAddress() == null || !address.getAddress().isLoopbackAddress()) {
+                throw new IllegalStateException("load.agent.tls=false is only allowed with load.agent.bind=127.0.0.1 "
+                        + "(reach the agent through an SSH tunnel)");
+            }
+            ServerSocket server = new ServerSocket();
+            server.bind(address);
+            return server;
+        }
+        String keyStore = setting("load.agent.tls.keystore", "");
+        if (keyStore.isBlank()) {
+            throw new IllegalStateException("load.agent.tls.keystore is not set: configure a key store, or bind the "
+                    + "agent to 127.0.0.1 with load.agent.tls=false and reach it through an SSH tunnel");
+        }
+        char[] password = setting("load.agent.tls.keystore.password", "").toCharArray();
+        KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(KeyStore.getInstance(new File(keyStore), password), password);
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(keyManagers.getKeyManagers(), null, null);
+        SSLServerSocket server = (SSLServerSocket) context.getServerSocketFactory().createServerSocket();
+        server.bind(address);
+        return server;
+    }
+
+    /**
+     * Connects to an agent, TLS unless it is a loopback address reached without TLS (local agent or SSH tunnel).
+     * The TLS handshake happens here, so a silent or wrong peer fails within {@code readTimeoutMs}.
+     */
+    static Socket connect(InetSocketAddress agent, boolean tls, int connectTimeoutMs, int readTimeoutMs)
+            throws Exception {
+        if (!tls && (agent.getAddress() == null || !agent.getAddress().isLoopbackAddress())) {
+            throw new IllegalStateException("Load agent " + agent + " is not on loopback: enable load.agent.tls or "
+                    + "reach it through an SSH tunnel");
+        }
+        Socket socket = new Socket();
+        try {
+            socket.setKeepAlive(true);
+            socket.connect(agent, connectTimeoutMs);
+            socket.setSoTimeout(readTimeoutMs);
+            if (!tls) {
+                return socket;
+            }
+            SSLSocket ssl = (SSLSocket) clientContext().getSocketFactory()
+                    .createSocket(socket, agent.getHostString(), agent.getPort(), true);
+            SSLParameters parameters = ssl.getSSLParameters();
+            parameters.setEndpointIdentificationAlgorithm("HTTPS");
+            ssl.setSSLParameters(parameters);
+            ssl.setSoTimeout(readTimeoutMs);
+            ssl.startHandshake();
+            return ssl;
+        } catch (Exception e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    private static SSLContext clientContext() throws Exception {
+        String trustStore = setting("load.agent.tls.truststore", "");
+        if (trustStore.isBlank()) {
+            return SSLContext.getDefault();
+        }
+        char[] password = setting("load.agent.tls.truststore.password", "").toCharArray();
+        TrustManagerFactory trustManagers = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagers.init(KeyStore.getInstance(new File(trustStore), password));
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, trustManagers.getTrustManagers(), null);
+        return context;
+    }
+
+    static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // already closed
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.qa.app.service.runner;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qa.app.model.CheckType;
+import com.qa.app.model.DbConnection;
+import com.qa.app.model.Operator;
+import com.qa.app.model.ResponseCheck;
+import com.qa.app.model.reports.CheckReport;
+import com.qa.app.util.OperatorUtil;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * The response checks of one test, compiled once when the simulation is built.
+ * <p>
+ * Compiling parses the {@code responseChecks} JSON, precompiles the {@link Pattern} of MATCHES / NOT_MATCHES
+ * checks and the number of GREATER_THAN / LESS_THAN checks, normalizes DIFF expectations, resolves DB check
+ * aliases to their {@link DbConnection} and collects the {@code saveAs} keys. The session functions of the
+ * simulations then only execute the plan.
+ */
+final class CheckPlan {
+
+    static final CheckPlan EMPTY = new CheckPlan(Collections.emptyList());
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** One compiled check. */
+    static final class Check {
+        private final int index;
+        private final CheckType type;
+        private final String expression;
+        private final Operator operator;
+        private final String expect;
+        private final String saveAs;
+        private final boolean optional;
+        private final Pattern expectPattern;
+        private final BigDecimal expectNumber;
+
+        // DB checks only
+        private final String dbAlias;
+        private final String dbSql;
+        private final String dbColumn;
+        private final DbConnection dbConnection;
+        private final String dbReportExpression;
+
+        private Check(int index, ResponseCheck rc, Function<String, DbConnection> dbResolver) {
+            this.index = index;
+            this.type = rc.getType();
+            this.expression = rc.getExpression();
+            this.operator = rc.getOperator();
+            this.saveAs = rc.getSaveAs() != null && !rc.getSaveAs().isBlank() ? rc.getSaveAs() : null;
+            this.optional = rc.isOptional();
+            this.expect = type == CheckType.DIFF ? normalizeDiffExpect(rc.getExpect()) : rc.getExpect();
+
+            Pattern pattern = null;
+            if ((operator == Operator.MATCHES || operator == Operator.NOT_MATCHES) && expect != null) {
+                try {
+                    pattern = Pattern.compile(expect);
+                } catch (PatternSyntaxException e) {
+                    System.err.println("[WARN] Invalid regular expression in check '" + expression + "': " + e.getMessage());
+                }
+            }
+            this.expectPattern = pattern;
+
+            BigDecimal number = null;
+            if ((operator == Operator.GREATER_THAN || operator == Operator.LESS_THAN) && expect != null) {
+                try {
+                    number = new BigDecimal(expect.trim());
+                } catch (NumberFormatException ignored) {
+                    // Not numeric: the comparison is always false
+                }
+            }
+            this.expectNumber = number;
+
+            if (type == CheckType.DB) {
+                String alias = rc.getDbAlias();
+                String sql = rc.getDbSql();
+                String column = rc.getDbColumn();
+                // Prioritize the dedicated fields, but fall back to parsing the old expression field
+                if ((alias == null || alias.isBlank()) && expression != null && !expression.isBlank()) {
+                    try {
+                        GatlingScenarioSimulation.DbCheckInfo info =
+                                MAPPER.readValue(expression, GatlingScenarioSimulation.DbCheckInfo.class);
+                        alias = info.getAlias();
+                        sql = info.getSql();
+                        column = info.getColumn();
+                    } catch (Exception e) {
+                        System.err.println("[WARN] Invalid DB check expression: " + e.getMessage());
+                    }
+                }
+                this.dbAlias = alias;
+                this.dbSql = sql;
+                this.dbColumn = column;
+                this.dbConnection = alias != null && dbResolver != null ? dbResolver.apply(alias) : null;
+
+                // For reporting purposes, a unified JSON expression of the DB details
+                Map<String, String> dbInfoForReport = new LinkedHashMap<>();
+                dbInfoForReport.put("alias", alias);
+                dbInfoForReport.put("sql", sql);
+                dbInfoForReport.put("column", column);
+                String reportExpression;
+                try {
+                    reportExpression = MAPPER.writeValueAsString(dbInfoForReport);
+                } catch (Exception e) {
+                    reportExpression = expression;
+                }
+                this.dbReportExpression = reportExpression;
+            } else {
+                this.dbAlias = null;
+                this.dbSql = null;
+                this.dbColumn = null;
+                this.dbConnection = null;
+                this.dbReportExpression = null;
+            }
+        }
+
+        /** Formats a numeric DIFF expectation with an explicit sign ("5" -> "+5.0"), as the actual diff is. */
+        private static String normalizeDiffExpect(String expect) {
+            if (expect == null) {
+                return null;
+            }
+            try {
+                double expectNum = Double.parseDouble(expect.replaceFirst("^\\+", ""));
+                return (expectNum >= 0 ? "+" : "-") + Math.abs(expectNum);
+            } catch (NumberFormatException e) {
+                // Keep original if not numeric
+                return expect;
+            }
+        }
+
+        /**
+         * Evaluates the operator of this check against {@code actual} using the precompiled expectation.
+         */
+        boolean matches(String actual) {
+            if (operator == null) {
+                return false;
+            }
+            if ((operator == Operator.MATCHES || operator == Operator.NOT_MATCHES) && expect != null && expectPattern == null) {
+                return false; // invalid regular expression
+            }
+            try {
+                return OperatorUtil.compare(actual, operator, expect, expectPattern, expectNumber);
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+
+        /**
+         * A new report of this check for one execution.
+         */
+        CheckReport report(String actual) {
+            CheckReport cr = new CheckReport();
+            cr.setType(type);
+            cr.setExpression(type == CheckType.DB ? dbReportExpression : expression);
+            cr.setOperator(operator);
+            cr.setExpect(expect);
+            cr.setActual(actual);
+            cr.setPassed(matches(actual));
+            return cr;
+        }
+
+        /** Position of the check in the test's check list; stable, usable in session keys. */
+        int getIndex() {
+            return index;
+        }
+
+        CheckType getType() {
+            return type;
+        }
+
+        String getExpression() {
+            return expression;
+        }
+
+        Operator getOperator() {
+            return operator;
+        }
+
+        String getExpect() {
+            return expect;
+        }
+
+        /** The {@code saveAs} name, {@code null} when the value is not saved. */
+        String getSaveAs() {
+            return saveAs;
+        }
+
+        boolean isOptional() {
+            return optional;
+        }
+
+        String getDbAlias() {
+            return dbAlias;
+        }
+
+        String getDbSql() {
+            return dbSql;
+        }
+
+        String getDbColumn() {
+            return dbColumn;
+        }
+
+        /** The connection of the DB alias, resolved at build time; {@code null} when the alias is unknown. */
+        DbConnection getDbConnection() {
+            return dbConnection;
+        }
+
+        String getDbReportExpression() {
+            return dbReportExpression;
+        }
+    }
+
+    private final List<Check> checks;
+    private final List<String> saveAsKeys;
+    private final Integer expectedStatus;
+
+    private CheckPlan(List<Check> checks) {
+        this.checks = Collections.unmodifiableList(checks);
+        List<String> keys = new ArrayList<>();
+        Integer status = null;
+        for (Check check : checks) {
+            if (check.type != CheckType.DB && check.saveAs != null) {
+                keys.add(check.saveAs);
+            }
+            if (check.type == CheckType.STATUS && check.expect != null) {
+                try {
+                    status = Integer.parseInt(check.expect.trim());
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+        this.saveAsKeys = Collections.unmodifiableList(keys);
+        this.expectedStatus = status;
+    }
+
+    /**
+     * Compiles the {@code responseChecks} JSON of a test. Invalid JSON is reported and yields an empty plan.
+     *
+     * @param dbResolver resolves a DB alias to its connection; may be {@code null} when DB checks are not executed
+     */
+    static CheckPlan compile(String tcid, String responseChecksJson, Function<String, DbConnection> dbResolver) {
+        if (responseChecksJson == null || responseChecksJson.isBlank()) {
+            return EMPTY;
+        }
+        List<ResponseCheck> parsed;
+        try {
+            parsed = MAPPER.readValue(responseChecksJson, new TypeReference<List<ResponseCheck>>() {});
+        } catch (Exception e) {
+            System.err.println("Failed to parse responseChecks of " + tcid + ": " + e.getMessage());
+            return EMPTY;
+        }
+        if (parsed == null || parsed.isEmpty()) {
+            return EMPTY;
+        }
+        List<Check> compiled = new ArrayList<>(parsed.size());
+        for (int i = 0; i < parsed.size(); i++) {
+            ResponseCheck rc = parsed.get(i);
+            if (rc == null || rc.getType() == null) {
+                continue;
+            }
+            compiled.add(new Check(i, rc, dbResolver));
+        }
+        return new CheckPlan(compiled);
+    }
+
+    boolean isEmpty() {
+        return checks.isEmpty();
+    }
+
+    List<Check> getChecks() {
+        return checks;
+    }
+
+    List<Check> getChecks(CheckType type) {
+        List<Check> result = new ArrayList<>();
+        for (Check check : checks) {
+            if (check.type == type) {
+                result.add(check);
+            }
+        }
+        return result;
+    }
+
+    /** Checks evaluated on the HTTP response itself: STATUS, JSON_PATH, XPATH and REGEX. */
+    List<Check> getResponseChecks() {
+        List<Check> result = new ArrayList<>();
+        for (Check check : checks) {
+            switch (check.type) {
+                case STATUS, JSON_PATH, XPATH, REGEX -> result.add(check);
+                default -> {
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * TCIDs of the reference tests requested by the DIFF, PRE_CHECK and PST_CHECK checks ({@code <TCID>.<jsonPath>}).
+     */
+    Set<String> getReferenceTcids() {
+        Set<String> tcids = new LinkedHashSet<>();
+        for (Check check : checks) {
+            if ((check.type == CheckType.DIFF || check.type == CheckType.PRE_CHECK || check.type == CheckType.PST_CHECK)
+                    && check.expression != null && check.expression.contains(".")) {
+                tcids.add(check.expression.substring(0, check.expression.indexOf('.')));
+            }
+        }
+        return tcids;
+    }
+
+    /** Aliases of the DB checks. */
+    Set<String> getDbAliases() {
+        Set<String> aliases = new LinkedHashSet<>();
+        for (Check check : checks) {
+            if (check.type == CheckType.DB && check.dbAlias != null) {
+                aliases.add(check.dbAlias);
+            }
+        }
+        return aliases;
+    }
+
+    /** {@code saveAs} names of all non-DB checks. */
+    List<String> getSaveAsKeys() {
+        return saveAsKeys;
+    }
+
+    /** Expected HTTP status of the last STATUS check, or {@code defaultStatus} when there is none. */
+    int getExpectedStatus(int defaultStatus) {
+        return expectedStatus != null ? expectedStatus : defaultStatus;
+    }
+}
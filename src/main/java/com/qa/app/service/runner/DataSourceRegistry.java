@@ -1,27 +1,86 @@
 package com.qa.app.service.runner;
 
 import com.qa.app.model.DbConnection;
+import com.qa.app.model.reports.DbPoolMetrics;
+import com.qa.app.util.AppConfig;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.IMetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.HdrHistogram.ConcurrentHistogram;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Connection pools of the DB check connections, one per alias and environment ({@link #cacheKey}).
+ * <p>
+ * A run sizes its pools from its load profile with {@link #prepare} before the injection starts: one connection per
+ * concurrent virtual user, at most {@code db.pool.max.size} (default 50, or the connection's own pool size when that
+ * is larger), and opens them so the first checks do not pay for the connection setup. Pools not prepared use
+ * {@link DbConnection#getPoolSize()}. Every pool records its acquire times and usage peaks, see {@link #snapshotMetrics()}.
+ */
 public class DataSourceRegistry {
     private static final ConcurrentMap<String, DataSource> CACHE = new ConcurrentHashMap<>();
+    // Pool sizes chosen by prepare(), by cache key
+    private static final ConcurrentMap<String, Integer> PLANNED_SIZES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, PoolTelemetry> TELEMETRY = new ConcurrentHashMap<>();
+    // Acquire times in microseconds, up to one minute
+    private static final long HIGHEST_TRACKABLE_US = 60_000_000L;
 
+    /**
+     * Closes and forgets a pool, by cache key ({@code alias@env}) or, when unambiguous, by bare alias.
+     */
     public static void evict(String alias) {
-        DataSource ds = CACHE.remove(alias);
+        String key = resolveKey(alias);
+        DataSource ds = key != null ? CACHE.remove(key) : null;
+        if (key != null) {
+            PLANNED_SIZES.remove(key);
+            TELEMETRY.remove(key);
+        }
         if (ds instanceof HikariDataSource) {
             ((HikariDataSource) ds).close();
         }
     }
 
+    /**
+     * Cache key of {@code alias}: the alias itself when it already is a key, otherwise the only pool opened for the
+     * alias in any environment; {@code null} when there is none or several.
+     */
+    private static String resolveKey(String alias) {
+        if (alias == null) {
+            return null;
+        }
+        if (CACHE.containsKey(alias)) {
+            return alias;
+        }
+        String found = null;
+        for (String key : CACHE.keySet()) {
+            if (key.startsWith(alias + "@")) {
+                if (found != null) {
+                    return null;
+                }
+                found = key;
+            }
+        }
+        return found;
+    }
+
     private static final java.util.Map<String, String> DRIVER_MAP = java.util.Map.ofEntries(
             java.util.Map.entry("postgres", "org.postgresql.Driver"),
             java.util.Map.entry("postgresql", "org.postgresql.Driver"),
@@ -46,12 +105,18 @@ public class DataSourceRegistry {
         };
     }
 
+    /**
+     * Key of a connection in the registry: its alias in its environment.
+     */
+    static String cacheKey(DbConnection cfg) {
+        return cfg.getAlias() + "@" + (cfg.getEnvironmentId() == null ? "null" : cfg.getEnvironmentId());
+    }
+
     public static DataSource get(DbConnection cfg) {
         if (cfg == null) {
             throw new IllegalArgumentException("DbConnection configuration cannot be null.");
         }
-        String cacheKey = cfg.getAlias() + "@" + (cfg.getEnvironmentId()==null ? "null" : cfg.getEnvironmentId());
-        return CACHE.computeIfAbsent(cacheKey, k -> {
+        return CACHE.computeIfAbsent(cacheKey(cfg), k -> {
             if (cfg.getDbType() == null) {
                 throw new IllegalStateException("Database Type is not configured for connection: " + cfg.getAlias());
             }
@@ -67,21 +132,179 @@ public class DataSourceRegistry {
             }
             HikariConfig hc = new HikariConfig();
             String url = buildJdbcUrl(cfg);
+            hc.setPoolName("db-check-" + k);
             hc.setJdbcUrl(url);
             hc.setUsername(cfg.getUsername());
             hc.setPassword(cfg.getPassword());
-            hc.setMaximumPoolSize(cfg.getPoolSize());
+            hc.setMaximumPoolSize(poolSize(cfg));
             hc.setDriverClassName(driverClass);
+            hc.setMetricsTrackerFactory(TELEMETRY_FACTORY);
             return new HikariDataSource(hc);
         });
     }
+
+    /**
+     * Maximum size of the pool of {@code cfg}: the size chosen by {@link #prepare}, otherwise the configured one.
+     */
+    public static int poolSize(DbConnection cfg) {
+        Integer planned = PLANNED_SIZES.get(cacheKey(cfg));
+        return Math.max(1, planned != null ? planned : cfg.getPoolSize());
+    }
+
+    /**
+     * Pool size for a run with {@code peakUsers} concurrent virtual users: one connection per user, bounded by
+     * {@code db.pool.max.size} or the configured size of the connection, whichever is larger.
+     */
+    static int sizeFor(DbConnection cfg, int peakUsers) {
+        int bound = 50;
+        try {
+            bound = Math.max(1, Integer.parseInt(AppConfig.getProperty("db.pool.max.size", "50").trim()));
+        } catch (NumberFormatException e) {
+            System.err.println("[WARN] Invalid db.pool.max.size, using 50: " + e.getMessage());
+        }
+        return Math.max(1, Math.min(peakUsers, Math.max(bound, cfg.getPoolSize())));
+    }
+
+    /**
+     * Sizes the pools of a run's DB check connections for {@code peakUsers} concurrent virtual users and opens their
+     * connections. Called before the injection starts; a connection that cannot be opened is only logged, its checks
+     * fail with the actual error later.
+     */
+    public static void prepare(Collection<DbConnection> connections, int peakUsers) {
+        for (DbConnection cfg : connections) {
+            if (cfg == null) {
+                continue;
+            }
+            int size = sizeFor(cfg, peakUsers);
+            String key = cacheKey(cfg);
+            if (!Integer.valueOf(size).equals(PLANNED_SIZES.put(key, size))) {
+                // a pool opened with another size is replaced
+                DataSource previous = CACHE.remove(key);
+                if (previous instanceof HikariDataSource) {
+                    ((HikariDataSource) previous).close();
+                }
+            }
+            long start = System.nanoTime();
+            List<Connection> opened = new ArrayList<>(size);
+            try {
+                DataSource ds = get(cfg);
+                // Borrow every connection once; closing them leaves the pool full and idle
+                for (int i = 0; i < size; i++) {
+                    opened.add(ds.getConnection());
+                }
+                System.out.println("DB pool " + key + ": " + size + " connection(s) opened for " + peakUsers
+                        + " user(s) in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+            } catch (Exception e) {
+                System.err.println("[WARN] Failed to pre-warm DB pool " + key + " (" + opened.size() + "/" + size
+                        + " connections): " + e.getMessage());
+            } finally {
+                for (Connection conn : opened) {
+                    try {
+                        conn.close();
+                    } catch (Exception ignored) {
+                    }
+                }
+            }
+            // the warm-up is not part of the run's pool usage
+            PoolTelemetry telemetry = TELEMETRY.get(key);
+            if (telemetry != null) {
+                telemetry.reset();
+            }
+        }
+    }
+
+    /**
+     * Usage of every pool opened in this process, ordered by cache key.
+     */
+    public static Map<String, DbPoolMetrics> snapshotMetrics() {
+        Map<String, DbPoolMetrics> result = new LinkedHashMap<>();
+        for (Map.Entry<String, PoolTelemetry> entry : new TreeMap<>(TELEMETRY).entrySet()) {
+            result.put(entry.getKey(), entry.getValue().snapshot(entry.getKey()));
+        }
+        return result;
+    }
+
+    /**
+     * Acquire times and usage peaks of one pool, fed by Hikari on every connection checkout.
+     */
+    private static final class PoolTelemetry implements IMetricsTracker {
+        private final PoolStats stats;
+        private final ConcurrentHistogram acquireMicros = new ConcurrentHistogram(HIGHEST_TRACKABLE_US, 2);
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAccumulator peakActive = new LongAccumulator(Long::max, 0);
+        private final LongAccumulator peakPending = new LongAccumulator(Long::max, 0);
+
+        PoolTelemetry(PoolStats stats) {
+            this.stats = stats;
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquisitions.increment();
+            acquireMicros.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(elapsedAcquiredNanos), HIGHEST_TRACKABLE_US));
+            // PoolStats refreshes its values at most once per second, cheap enough for every checkout
+            peakActive.accumulate(stats.getActiveConnections());
+            peakPending.accumulate(stats.getPendingThreads());
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+            peakPending.accumulate(stats.getPendingThreads());
+        }
+
+        void reset() {
+            acquireMicros.reset();
+            acquisitions.reset();
+            timeouts.reset();
+            peakActive.reset();
+            peakPending.reset();
+        }
+
+        DbPoolMetrics snapshot(String name) {
+            DbPoolMetrics metrics = new DbPoolMetrics();
+            metrics.setName(name);
+            metrics.setMaxPoolSize(stats.getMaxConnections());
+            metrics.setAcquisitions(acquisitions.sum());
+            metrics.setTimeouts(timeouts.sum());
+            metrics.setPeakActive((int) peakActive.get());
+            metrics.setPeakPending((int) peakPending.get());
+            metrics.setActive(stats.getActiveConnections());
+            metrics.setIdle(stats.getIdleConnections());
+            metrics.setPending(stats.getPendingThreads());
+            metrics.setAcquireP99Us(acquireMicros.getTotalCount() > 0 ? acquireMicros.getValueAtPercentile(99) : 0);
+            metrics.setAcquireMaxUs(acquireMicros.getMaxValue());
+            return metrics;
+        }
+    }
+
+    private static final IMetricsTrackerFactory TELEMETRY_FACTORY = (poolName, poolStats) -> {
+        PoolTelemetry telemetry = new PoolTelemetry(poolStats);
+        TELEMETRY.put(poolName.substring("db-check-".length()), telemetry);
+        return telemetry;
+    };
+
+    /**
+     * Runs {@code sql} on the pool of {@code cfg}, see {@link #executeQuery(String, String)}.
+     */
+    public static String executeQuery(DbConnection cfg, String sql) throws Exception {
+        return executeQuery(get(cfg), sql);
+    }
+
     
+    /**
+     * Runs {@code sql} on an open pool, by cache key ({@code alias@env}) or, when unambiguous, by bare alias.
+     */
     public static String executeQuery(String connectionAlias, String sql) throws Exception {
-        if (!CACHE.containsKey(connectionAlias)) {
+        String key = resolveKey(connectionAlias);
+        if (key == null) {
             throw new IllegalArgumentException("Database connection not found: " + connectionAlias);
         }
-        
-        DataSource ds = CACHE.get(connectionAlias);
+        return executeQuery(CACHE.get(key), sql);
+    }
+
+    private static String executeQuery(DataSource ds, String sql) throws Exception {
         try (Connection conn = ds.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
@@ -140,5 +363,7 @@ public class DataSourceRegistry {
             }
         });
         CACHE.clear();
+        PLANNED_SIZES.clear();
+        TELEMETRY.clear();
     }
 } 
\ No newline at end of file
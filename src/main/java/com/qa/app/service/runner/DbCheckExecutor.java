@@ -0,0 +1,216 @@
+package com.qa.app.service.runner;
+
+import com.qa.app.model.DbConnection;
+import com.qa.app.util.AppConfig;
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.Session;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.gatling.javaapi.core.CoreDsl.asLongAs;
+import static io.gatling.javaapi.core.CoreDsl.pause;
+
+/**
+ * Runs the SQL of DB checks off the Gatling event loop.
+ * <p>
+ * Session functions run on Gatling's actor / Netty threads, so a blocking JDBC call there stalls the HTTP traffic of
+ * every virtual user sharing the thread. A DB check is therefore split in three steps: {@link #submit} hands the query
+ * to a virtual thread and the future is stored in the session, {@link #await(String)} polls it with short
+ * non-blocking pauses and {@link #take(Session, String)} picks up the result.
+ * <p>
+ * At most {@link DataSourceRegistry#poolSize pool size} queries of one connection run at a time; the others wait
+ * for a permit on their virtual thread, so a slow database only delays the users checking it. Checks in flight are bounded by
+ * {@code db.check.max.pending} (default 10000) and each one by {@code db.check.timeout.ms} (default 30000); a check
+ * beyond either limit fails. Every result carries its queue wait (submit until a permit is held) and its execution
+ * time (connection, query and read).
+ */
+public final class DbCheckExecutor {
+
+    // Gatling's Java DSL cannot resume a virtual user from a future callback, so await() polls: it starts at 1 ms
+    // and doubles up to 5 ms, so a check resumes at most 5 ms (a quick one about 1 ms) after its query completed.
+    // The check timings of a Result are taken on the query thread and do not include this delay; the user's next
+    // request does.
+    private static final long MIN_POLL_MS = 1;
+    private static final long MAX_POLL_MS = 5;
+
+    /**
+     * Outcome of one DB check; {@code error} is set when the query could not be run. Timings are -1 when unknown
+     * (check rejected or timed out).
+     */
+    public record Result(String value, Throwable error, long queueWaitMs, long executionMs) {
+        public boolean failed() {
+            return error != null;
+        }
+    }
+
+    private static final ConcurrentMap<String, Semaphore> LIMITS = new ConcurrentHashMap<>();
+    private static final AtomicInteger PENDING = new AtomicInteger();
+    private static final int MAX_PENDING = intProperty("db.check.max.pending", 10_000);
+    private static final long TIMEOUT_MS = intProperty("db.check.timeout.ms", 30_000);
+
+    // Run-wide statistics, printed at the end of a simulation
+    private static final LongAdder COMPLETED = new LongAdder();
+    private static final LongAdder QUEUE_WAIT_MS = new LongAdder();
+    private static final LongAdder EXECUTION_MS = new LongAdder();
+    private static final LongAccumulator MAX_QUEUE_WAIT_MS = new LongAccumulator(Long::max, 0);
+
+    private static ExecutorService executor;
+
+    private DbCheckExecutor() {
+        // utility class – hide constructor
+    }
+
+    private static int intProperty(String key, int defaultValue) {
+        try {
+            return Math.max(1, Integer.parseInt(AppConfig.getProperty(key, String.valueOf(defaultValue)).trim()));
+        } catch (NumberFormatException e) {
+            System.err.println("[WARN] Invalid " + key + ", using " + defaultValue + ": " + e.getMessage());
+            return defaultValue;
+        }
+    }
+
+    private static synchronized ExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newVirtualThreadPerTaskExecutor();
+        }
+        return executor;
+    }
+
+    /**
+     * Runs {@code sql} on {@code cfg} and reads {@code column} of the first row ({@code null} without rows).
+     * The returned future never completes exceptionally except on rejection or timeout, see {@link #take}.
+     */
+    public static CompletableFuture<Result> submit(DbConnection cfg, String sql, String column) {
+        if (PENDING.incrementAndGet() > MAX_PENDING) {
+            PENDING.decrementAndGet();
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                    "Too many pending DB checks (db.check.max.pending=" + MAX_PENDING + ")"));
+        }
+        final long submitted = System.nanoTime();
+        final Semaphore limit = LIMITS.computeIfAbsent(DataSourceRegistry.cacheKey(cfg),
+                k -> new Semaphore(DataSourceRegistry.poolSize(cfg), true));
+        CompletableFuture<Result> future;
+        try {
+            future = CompletableFuture.supplyAsync(() -> execute(cfg, sql, column, limit, submitted), executor());
+        } catch (RejectedExecutionException e) {
+            PENDING.decrementAndGet();
+            return CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete((r, e) -> PENDING.decrementAndGet())
+                .orTimeout(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private static Result execute(DbConnection cfg, String sql, String column, Semaphore limit, long submitted) {
+        try {
+            limit.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Result(null, e, -1, -1);
+        }
+        long started = System.nanoTime();
+        String value = null;
+        Throwable error = null;
+        try (Connection conn = DataSourceRegistry.get(cfg).getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setQueryTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(TIMEOUT_MS)));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    value = rs.getString(column);
+                }
+            }
+        } catch (Exception e) {
+            error = e;
+        } finally {
+            limit.release();
+        }
+        long queueWaitMs = TimeUnit.NANOSECONDS.toMillis(started - submitted);
+        long executionMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        COMPLETED.increment();
+        QUEUE_WAIT_MS.add(queueWaitMs);
+        EXECUTION_MS.add(executionMs);
+        MAX_QUEUE_WAIT_MS.accumulate(queueWaitMs);
+        return new Result(value, error, queueWaitMs, executionMs);
+    }
+
+    /**
+     * Pauses the virtual user (without holding a thread) until the future stored under {@code futureKey} is done;
+     * an already completed future costs no pause.
+     */
+    public static ChainBuilder await(String futureKey) {
+        String polls = futureKey + "_polls";
+        return asLongAs(session -> {
+            CompletableFuture<?> future = session.contains(futureKey) ? session.get(futureKey) : null;
+            return future != null && !future.isDone();
+        }, polls).on(pause(session -> pollInterval(session.getInt(polls))));
+    }
+
+    /**
+     * Pause before poll {@code poll} (0-based) of {@link #await}: 1, 2, 4, 5, 5, ... ms.
+     */
+    static Duration pollInterval(int poll) {
+        return Duration.ofMillis(Math.min(MAX_POLL_MS, MIN_POLL_MS << Math.min(poll, 8)));
+    }
+
+    /**
+     * Result of the future stored under {@code futureKey}; a failed result when it was rejected, timed out or is
+     * missing. Never blocks.
+     */
+    public static Result take(Session session, String futureKey) {
+        CompletableFuture<Result> future = session.contains(futureKey) ? session.get(futureKey) : null;
+        if (future == null || !future.isDone()) {
+            return new Result(null, new IllegalStateException("DB check not completed"), -1, -1);
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof java.util.concurrent.TimeoutException) {
+                cause = new java.util.concurrent.TimeoutException("DB check timed out after " + TIMEOUT_MS + " ms");
+            }
+            return new Result(null, cause, -1, -1);
+        }
+    }
+
+    /**
+     * Summary of the DB checks run so far, e.g. for the simulation log.
+     */
+    public static String stats() {
+        long count = COMPLETED.sum();
+        if (count == 0) {
+            return "no DB checks";
+        }
+        return String.format("%d DB checks, avg queue wait %d ms (max %d ms), avg execution %d ms",
+                count, QUEUE_WAIT_MS.sum() / count, MAX_QUEUE_WAIT_MS.get(), EXECUTION_MS.sum() / count);
+    }
+
+    /**
+     * Stops the virtual threads of the run and resets the statistics (a warm worker runs several simulations).
+     */
+    public static synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        LIMITS.clear();
+        PENDING.set(0);
+        COMPLETED.reset();
+        QUEUE_WAIT_MS.reset();
+        EXECUTION_MS.reset();
+        MAX_QUEUE_WAIT_MS.reset();
+    }
+}
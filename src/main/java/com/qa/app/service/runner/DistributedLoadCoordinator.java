@@ -0,0 +1,358 @@
+package com.qa.app.service.runner;
+
+import com.qa.app.util.AppConfig;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs a load scenario plan on several {@link LoadAgent}s and collects their results into one run directory.
+ * <p>
+ * Every agent receives the same serialized {@link RunPlan} of {@link GatlingScenarioSimulation} (self-contained, the
+ * agent needs no application database) plus its partition: the simulation then injects only its share of the users of
+ * each injection step (Standard users, Stepping batches, Ultimate steps), so together the agents produce the
+ * configured profile. All agents wait for the same start instant before injecting. When every agent is done their
+ * {@code simulation.log} files are collected into the run directory and Gatling generates the reports from them
+ * ({@code -ro}). Gatling reads exactly one {@code simulation.log} per run directory and its binary log format is not a
+ * public contract, so with several agents every log gets a sub-directory and a report of its own, and the run
+ * directory's {@code index.html} links them; a single agent's log becomes the run's own report.
+ * <p>
+ * Agents send a heartbeat while their run is quiet. An agent that sends nothing for
+ * {@code load.agents.read.timeout.sec} (default 60), or whose connection breaks, fails the whole run: the other agents
+ * are disconnected (which stops their Gatling processes) and no report is generated. Connections are secured as
+ * described in {@link AgentTransport}.
+ * <p>
+ * Agents are configured with {@code load.agents} in application.properties: a comma separated list of
+ * {@code host:port}, or {@code local:N} to start N agents on this machine (useful to spread load over more JVMs or to
+ * try a distributed run). {@code load.agent.token} must match the agents' token; {@code load.agents.start.delay.sec}
+ * (default 10) is the time given to agents to build the simulation before the coordinated start. Agent clocks are
+ * expected to be synchronized (NTP).
+ */
+public final class DistributedLoadCoordinator {
+
+    static final String PARTITION_INDEX_PROPERTY = "gatling.partition.index";
+    static final String PARTITION_COUNT_PROPERTY = "gatling.partition.count";
+    static final String START_AT_PROPERTY = "gatling.start.at";
+
+    private DistributedLoadCoordinator() {
+    }
+
+    /**
+     * @return true when {@code load.agents} is set and scenario runs should be distributed
+     */
+    public static boolean isConfigured() {
+        return !AppConfig.getProperty("load.agents", "").isBlank();
+    }
+
+    /**
+     * @return N when {@code load.agents} is {@code local:N} (agents started on this machine), otherwise 0
+     */
+    public static int localAgentCount() {
+        String agentsSetting = AppConfig.getProperty("load.agents", "").trim();
+        if (!agentsSetting.startsWith("local:")) {
+            return 0;
+        }
+        return Integer.parseInt(agentsSetting.substring("local:".length()).trim());
+    }
+
+    /**
+     * Runs the plan on the configured agents and generates the run's reports under {@code resultsPath}.
+     *
+     * @param planFile    the run plan written for {@link GatlingScenarioSimulation}
+     * @param resultsPath the Gatling results folder
+     * @return 0 when every agent and the report generation succeeded, otherwise the first non-zero exit code
+     */
+    public static int run(Path planFile, String resultsPath) throws Exception {
+        String agentsSetting = AppConfig.getProperty("load.agents", "").trim();
+        String token = AppConfig.getProperty("load.agent.token", "");
+        boolean tls = AgentTransport.tlsEnabled();
+        List<Process> localAgents = new ArrayList<>();
+        try {
+            List<InetSocketAddress> agents = new ArrayList<>();
+            if (agentsSetting.startsWith("local:")) {
+                // Local agents listen on loopback only
+                tls = false;
+                // Local agents get a token of their own
+                token = UUID.randomUUID().toString();
+                int count = localAgentCount();
+                for (int i = 0; i < count; i++) {
+                    Process agent = startLocalAgent(token);
+                    localAgents.add(agent);
+                    agents.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), awaitLocalAgent(agent, i)));
+                }
+            } else {
+                for (String entry : agentsSetting.split(",")) {
+                    String hostPort = entry.trim();
+                    if (hostPort.isEmpty()) {
+                        continue;
+                    }
+                    int colon = hostPort.lastIndexOf(':');
+                    if (colon < 0) {
+                        throw new IllegalArgumentException("Invalid load agent address (host:port expected): " + hostPort);
+                    }
+                    agents.add(new InetSocketAddress(hostPort.substring(0, colon), Integer.parseInt(hostPort.substring(colon + 1))));
+                }
+            }
+            if (agents.isEmpty()) {
+                throw new IllegalStateException("No load agents configured");
+            }
+            if (token.isBlank()) {
+                throw new IllegalStateException("load.agent.token is not set");
+            }
+            return runOnAgents(agents, tls, token, Files.readAllBytes(planFile), resultsPath);
+        } finally {
+            for (Process agent : localAgents) {
+                // closing stdin stops a local agent
+                agent.getOutputStream().close();
+                if (!agent.waitFor(10, TimeUnit.SECONDS)) {
+                    agent.destroyForcibly();
+                }
+            }
+        }
+    }
+
+    private static int runOnAgents(List<InetSocketAddress> agents, boolean tls, String token, byte[] plan,
+                                   String resultsPath) throws Exception {
+        String runId = "distributed-" + new SimpleDateFormat("yyyyMMddHHmmssSSS").format(new Date());
+        Path runDir = Files.createDirectories(Paths.get(resultsPath, runId));
+        int readTimeoutMs = (int) TimeUnit.SECONDS.toMillis(intProperty("load.agents.read.timeout.sec", 60));
+
+        // Connect to every agent before anything starts, so an unreachable agent fails the run up front
+        List<Socket> sockets = new ArrayList<>();
+        try {
+            for (InetSocketAddress agent : agents) {
+                sockets.add(AgentTransport.connect(agent, tls, 10_000, readTimeoutMs));
+            }
+
+            long startDelayMs = TimeUnit.SECONDS.toMillis(intProperty("load.agents.start.delay.sec", 10));
+            long startAt = System.currentTimeMillis() + startDelayMs;
+            System.out.println("Distributed run " + runId + " on " + agents.size() + " agent(s), start at "
+                    + new Date(startAt));
+
+            int[] exitCodes = new int[agents.size()];
+            AtomicBoolean aborted = new AtomicBoolean();
+            CountDownLatch done = new CountDownLatch(agents.size());
+            for (int i = 0; i < agents.size(); i++) {
+                final int index = i;
+                Thread t = new Thread(() -> {
+                    try {
+                        exitCodes[index] = runAgent(sockets.get(index), index, agents.size(), token, runId, startAt,
+                                plan, agentLog(runDir, index, agents.size()));
+                    } catch (Exception e) {
+                        exitCodes[index] = 1;
+                        if (!aborted.getAndSet(true)) {
+                            String reason = e instanceof SocketTimeoutException
+                                    ? "no data for " + TimeUnit.MILLISECONDS.toSeconds(readTimeoutMs) + "s" : e.getMessage();
+                            System.err.println("[agent " + (index + 1) + "] failed: " + reason + ", aborting the distributed run");
+                            // A partial load profile is meaningless: disconnecting stops the other agents' runs
+                            sockets.forEach(AgentTransport::closeQuietly);
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                }, "load-agent-" + (index + 1));
+                t.setDaemon(true);
+                t.start();
+            }
+            done.await();
+            if (aborted.get()) {
+                return 1;
+            }
+
+            int exitCode = 0;
+            for (int code : exitCodes) {
+                if (code != 0 && exitCode == 0) {
+                    exitCode = code;
+                }
+            }
+            int reportExit = generateReports(runId, runDir, resultsPath, exitCodes);
+            return exitCode != 0 ? exitCode : reportExit;
+        } finally {
+            sockets.forEach(AgentTransport::closeQuietly);
+        }
+    }
+
+    /** Where the agent's {@code simulation.log} goes: the run directory itself, or one sub-directory per agent. */
+    private static Path agentLog(Path runDir, int index, int count) throws IOException {
+        Path dir = count == 1 ? runDir : Files.createDirectories(runDir.resolve(agentDirectory(index)));
+        return dir.resolve("simulation.log");
+    }
+
+    private static String agentDirectory(int index) {
+        return "agent-" + (index + 1);
+    }
+
+    private static int runAgent(Socket socket, int index, int count, String token, String runId, long startAt,
+                                byte[] plan, Path logTarget) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        out.writeUTF(token);
+        out.writeUTF(runId);
+        out.writeInt(index);
+        out.writeInt(count);
+        out.writeLong(startAt);
+        out.writeInt(plan.length);
+        out.write(plan);
+        out.flush();
+
+        String prefix = "[agent " + (index + 1) + "] ";
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+        while (true) {
+            // soTimeout is set: an agent that stops sending (not even heartbeats) ends here with a timeout
+            byte frame = in.readByte();
+            if (frame == LoadAgent.FRAME_HEARTBEAT) {
+                continue;
+            }
+            if (frame == LoadAgent.FRAME_OUTPUT) {
+                System.out.println(prefix + LoadAgent.readString(in));
+            } else if (frame == LoadAgent.FRAME_RESULT) {
+                int exitCode = in.readInt();
+                long logLength = in.readLong();
+                if (logLength >= 0) {
+                    try (OutputStream log = Files.newOutputStream(logTarget)) {
+                        copy(in, log, logLength);
+                    }
+                } else {
+                    System.err.println(prefix + "no simulation.log produced");
+                }
+                System.out.println(prefix + "finished, exit code: " + exitCode);
+                return exitCode;
+            } else {
+                throw new IOException("Unexpected frame from load agent: " + frame);
+            }
+        }
+    }
+
+    private static void copy(DataInputStream in, OutputStream out, long length) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long remaining = length;
+        while (remaining > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                throw new IOException("Load agent closed the connection while sending simulation.log");
+            }
+            out.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+
+    /**
+     * Generates the report of a single agent run in the run directory, or one report per agent log plus an
+     * {@code index.html} linking them.
+     */
+    private static int generateReports(String runId, Path runDir, String resultsPath, int[] exitCodes) throws Exception {
+        if (exitCodes.length == 1) {
+            return Files.isRegularFile(runDir.resolve("simulation.log")) ? generateReport(runId, resultsPath) : 1;
+        }
+        int result = 0;
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < exitCodes.length; i++) {
+            String dir = agentDirectory(i);
+            String status;
+            if (!Files.isRegularFile(runDir.resolve(dir).resolve("simulation.log"))) {
+                status = "no simulation.log";
+                result = result != 0 ? result : 1;
+            } else {
+                // -ro takes a directory relative to the results folder
+                int reportExit = generateReport(runId + "/" + dir, resultsPath);
+                status = reportExit == 0 ? "<a href=\"" + dir + "/index.html\">report</a>" : "report failed";
+                result = result != 0 ? result : reportExit;
+            }
+            rows.append("<tr><td>Agent ").append(i + 1).append("</td><td>").append(exitCodes[i])
+                    .append("</td><td>").append(status).append("</td></tr>\n");
+        }
+        Files.writeString(runDir.resolve("index.html"), "<html><head><meta charset=\"UTF-8\"><title>" + runId
+                + "</title></head><body><h1>Distributed run " + runId + "</h1>\n"
+                + "<table border=\"1\" cellpadding=\"4\"><tr><th>Agent</th><th>Exit code</th><th>Report</th></tr>\n"
+                + rows + "</table></body></html>\n", StandardCharsets.UTF_8);
+        return result;
+    }
+
+    private static int generateReport(String runId, String resultsPath) throws Exception {
+        List<String> command = GatlingRunnerUtils.buildJavaCommand("io.gatling.app.Gatling", new HashMap<>());
+        command.add("-ro");
+        command.add(runId);
+        command.add("-rf");
+        command.add(resultsPath);
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                System.out.println(line);
+            }
+        }
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            System.err.println("Failed to generate the merged report of " + runId + ", exit code: " + exitCode);
+        }
+        return exitCode;
+    }
+
+    private static Process startLocalAgent(String token) throws Exception {
+        Map<String, String> sysProps = new HashMap<>();
+        sysProps.put("load.agent.port", "0");
+        sysProps.put("load.agent.bind", InetAddress.getLoopbackAddress().getHostAddress());
+        sysProps.put("load.agent.token", token);
+        sysProps.put("load.agent.local", "true");
+        sysProps.put(AgentTransport.TLS_PROPERTY, "false");
+        List<String> command = GatlingRunnerUtils.buildJavaCommand(LoadAgent.class.getName(), sysProps);
+        return new ProcessBuilder(command).redirectErrorStream(true).start();
+    }
+
+    /** Waits for the port announced by a local agent; its later output is forwarded to the console. */
+    private static int awaitLocalAgent(Process agent, int index) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(agent.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith(LoadAgent.READY_PREFIX)) {
+                int port = Integer.parseInt(line.substring(LoadAgent.READY_PREFIX.length()).trim());
+                Thread pump = new Thread(() -> {
+                    try {
+                        String l;
+                        while ((l = reader.readLine()) != null) {
+                            System.out.println("[local agent " + (index + 1) + "] " + l);
+                        }
+                    } catch (IOException ignored) {
+                        // agent exited
+                    }
+                }, "local-agent-output-" + (index + 1));
+                pump.setDaemon(true);
+                pump.start();
+                return port;
+            }
+            System.out.println("[local agent " + (index + 1) + "] " + line);
+        }
+        throw new IOException("Local load agent " + (index + 1) + " exited before it was ready");
+    }
+
+    private static int intProperty(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(AppConfig.getProperty(key, String.valueOf(defaultValue)).trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
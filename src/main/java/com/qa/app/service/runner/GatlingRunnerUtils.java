@@ -1,5 +1,10 @@
 package com.qa.app.service.runner;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qa.app.model.GatlingLoadParameters;
+import com.qa.app.model.GatlingTest;
+import com.qa.app.model.threadgroups.ThroughputShapingThreadGroup;
+
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -15,6 +20,8 @@ import java.util.Map;
  */
 public class GatlingRunnerUtils {
 
+    private static final ObjectMapper PLAN_MAPPER = new ObjectMapper();
+
     /**
      * Assembles the classpath for Gatling execution.
      * Prefers Maven-provided classpath file if available, otherwise falls back to system classpath.
@@ -51,16 +58,33 @@ public class GatlingRunnerUtils {
      * Builds the command list to run Gatling with the specified simulation class and system properties.
      *
      * @param simulationClass the fully qualified name of the simulation class
-     * @param sysProps        map of system properties to set (e.g., "gatling.tests.file" -> path)
+     * @param sysProps        map of system properties to set (e.g., "gatling.runplan.file" -> path)
      * @param resultsPath     the path for Gatling results
      * @return the list of command arguments
      * @throws Exception if logback configuration fails
      */
     public static List<String> buildGatlingCommand(String simulationClass, Map<String, String> sysProps, String resultsPath) throws Exception {
+        List<String> command = buildJavaCommand("io.gatling.app.Gatling", sysProps);
+        command.add("-s");
+        command.add(simulationClass);
+        command.add("-rf");
+        command.add(resultsPath);
+        return command;
+    }
+
+    /**
+     * Builds the command list to start a JVM with the Gatling classpath, logback configuration and the specified
+     * main class and system properties. Used for Gatling itself and for the {@link GatlingWorker} JVMs.
+     *
+     * @param mainClass the fully qualified name of the main class
+     * @param sysProps  map of system properties to set
+     * @return the list of command arguments, ending with the main class
+     * @throws Exception if logback configuration fails
+     */
+    public static List<String> buildJavaCommand(String mainClass, Map<String, String> sysProps) throws Exception {
         String javaHome = System.getProperty("java.home");
         String javaBin = Paths.get(javaHome, "bin", "java").toString();
         String classpath = assembleClasspath();
-        String gatlingMain = "io.gatling.app.Gatling";
 
         URL logbackUrl = GatlingRunnerUtils.class.getClassLoader().getResource("logback.xml");
         String logbackPath = null;
@@ -91,11 +115,137 @@ public class GatlingRunnerUtils {
         for (Map.Entry<String, String> entry : sysProps.entrySet()) {
             command.add("-D" + entry.getKey() + "=" + entry.getValue());
         }
-        command.add(gatlingMain);
-        command.add("-s");
-        command.add(simulationClass);
-        command.add("-rf");
-        command.add(resultsPath);
+        command.add(mainClass);
         return command;
     }
-} 
\ No newline at end of file
+
+    /**
+     * Starts a Gatling run of the specified simulation class. The run goes to a warm worker JVM of
+     * {@link GatlingWorkerPool} when one is available, otherwise a new Gatling process is spawned. Either way the
+     * returned process has stderr merged into its input stream, which the caller must consume.
+     *
+     * @param simulationClass the fully qualified name of the simulation class
+     * @param sysProps        map of system properties to set (e.g., "gatling.runplan.file" -> path)
+     * @param resultsPath     the path for Gatling results
+     * @return the running process
+     * @throws Exception if the process cannot be started
+     */
+    public static Process startGatling(String simulationClass, Map<String, String> sysProps, String resultsPath) throws Exception {
+        Process workerRun = GatlingWorkerPool.start(simulationClass, sysProps, resultsPath);
+        if (workerRun != null) {
+            return workerRun;
+        }
+        ProcessBuilder processBuilder = new ProcessBuilder(buildGatlingCommand(simulationClass, sysProps, resultsPath));
+        processBuilder.redirectErrorStream(true);
+        return processBuilder.start();
+    }
+
+    /**
+     * Highest number of virtual users the thread group can have running at the same time, e.g. to size the pools
+     * the users share. Ultimate thread group steps count with the peak of their overlapping concurrency curve; a
+     * throughput shaping profile counts with its user pool, sized for the actual iteration (see
+     * {@link #throughputUsers}).
+     *
+     * @param requestsPerIteration     requests one user sends per iteration (batch items / scenario steps)
+     * @param pauseSecondsPerIteration pauses (wait times) of one iteration
+     */
+    public static int peakUsers(GatlingLoadParameters params, int requestsPerIteration, long pauseSecondsPerIteration) {
+        if (params == null || params.getType() == null) {
+            return 1;
+        }
+        return switch (params.getType()) {
+            case STANDARD -> params.getStandardThreadGroup() != null
+                    ? Math.max(1, params.getStandardThreadGroup().getNumThreads()) : 1;
+            case STEPPING -> params.getSteppingThreadGroup() != null
+                    ? Math.max(1, params.getSteppingThreadGroup().getNumThreads()) : 1;
+            case ULTIMATE -> params.getUltimateThreadGroup() != null
+                    ? Math.max(1, params.getUltimateThreadGroup().peakUsers()) : 1;
+            case CONCURRENCY -> params.getConcurrencyThreadGroup() != null
+                    ? Math.max(1, params.getConcurrencyThreadGroup().peakUsers()) : 1;
+            case THROUGHPUT -> params.getThroughputShapingThreadGroup() != null
+                    ? throughputUsers(params.getThroughputShapingThreadGroup(), requestsPerIteration, pauseSecondsPerIteration) : 1;
+        };
+    }
+
+    /**
+     * Size of the user pool of a throughput shaping profile: {@code maxUsers} when set, otherwise the users needed
+     * for the peak target (see {@link #requiredThroughputUsers}).
+     *
+     * @param requestsPerIteration     requests one user sends per iteration of the scenario
+     * @param pauseSecondsPerIteration pauses (wait times) of one iteration
+     */
+    public static int throughputUsers(ThroughputShapingThreadGroup tg, int requestsPerIteration, long pauseSecondsPerIteration) {
+        if (tg.getMaxUsers() > 0) {
+            return tg.getMaxUsers();
+        }
+        return requiredThroughputUsers(tg, requestsPerIteration, pauseSecondsPerIteration);
+    }
+
+    /**
+     * Users needed to reach the peak target of {@code tg} by Little's law, when every request takes
+     * {@code expectedResponseMs}, plus 20% headroom. Surplus users only wait for the throttle.
+     */
+    public static int requiredThroughputUsers(ThroughputShapingThreadGroup tg, int requestsPerIteration, long pauseSecondsPerIteration) {
+        double rpsPerUser = rpsPerUser(tg, requestsPerIteration, pauseSecondsPerIteration);
+        return Math.max(1, (int) Math.ceil(tg.peakRps() / rpsPerUser * 1.2));
+    }
+
+    /**
+     * Warning when the user pool of {@code tg} is too small to reach its peak target, {@code null} otherwise.
+     * Open-model users send at most one request at a time, so throttling cannot raise the throughput above what
+     * the pool can send.
+     */
+    public static String throughputWarning(ThroughputShapingThreadGroup tg, int requestsPerIteration, long pauseSecondsPerIteration) {
+        int users = throughputUsers(tg, requestsPerIteration, pauseSecondsPerIteration);
+        double reachable = users * rpsPerUser(tg, requestsPerIteration, pauseSecondsPerIteration);
+        if (reachable >= tg.peakRps()) {
+            return null;
+        }
+        return String.format("%d users reach about %.0f RPS at %d ms per request, below the peak target of %d RPS;"
+                        + " raise the max users or set it to 0 to size the pool automatically (%d users)",
+                users, reachable, Math.max(1, tg.getExpectedResponseMs()), tg.peakRps(),
+                requiredThroughputUsers(tg, requestsPerIteration, pauseSecondsPerIteration));
+    }
+
+    /**
+     * Sum of the wait times of the tests of one iteration; {@code items} are batch items holding a "test" (a
+     * {@link GatlingTest} or its JSON form as read from a run plan).
+     */
+    public static long iterationPauseSeconds(List<Map<String, Object>> items) {
+        long pause = 0;
+        if (items == null) {
+            return pause;
+        }
+        for (Map<String, Object> item : items) {
+            Object value = item.get("test");
+            GatlingTest test = value instanceof GatlingTest ? (GatlingTest) value
+                    : value != null ? PLAN_MAPPER.convertValue(value, GatlingTest.class) : null;
+            if (test != null && test.getWaitTime() > 0) {
+                pause += test.getWaitTime();
+            }
+        }
+        return pause;
+    }
+
+    /**
+     * Users of an injection step run by agent {@code partitionIndex} when the run is partitioned across
+     * {@code partitionCount} agents (see {@link DistributedLoadCoordinator}); the remainder goes to a different agent
+     * on every step, so the agents add up to {@code users} and none of them carries all remainders. Without
+     * partitioning all users are run by the one agent.
+     */
+    public static int partitionShare(int users, int step, int partitionIndex, int partitionCount) {
+        if (partitionCount <= 1) {
+            return users;
+        }
+        int remainder = users % partitionCount;
+        int offset = Math.floorMod(partitionIndex - step, partitionCount);
+        return users / partitionCount + (offset < remainder ? 1 : 0);
+    }
+
+    private static double rpsPerUser(ThroughputShapingThreadGroup tg, int requestsPerIteration, long pauseSecondsPerIteration) {
+        int requests = Math.max(1, requestsPerIteration);
+        double iterationSeconds = requests * Math.max(1, tg.getExpectedResponseMs()) / 1000.0
+                + Math.max(0, pauseSecondsPerIteration);
+        return requests / iterationSeconds;
+    }
+}
@@ -4,23 +4,16 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.qa.app.model.*;
 import com.qa.app.model.threadgroups.*;
-import com.qa.app.service.api.IDbConnectionService;
-import com.qa.app.service.impl.DbConnectionServiceImpl;
-import com.qa.app.util.OperatorUtil;
+import com.qa.app.service.util.HotPathProbes;
 
 import io.gatling.javaapi.core.*;
 import io.gatling.javaapi.http.HttpProtocolBuilder;
 import io.gatling.javaapi.http.HttpRequestActionBuilder;
 
-import javax.sql.DataSource;
-import java.io.File;
 import java.io.IOException;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 import static io.gatling.javaapi.core.CoreDsl.*;
 import static io.gatling.javaapi.http.HttpDsl.*;
@@ -28,11 +21,15 @@ import static io.gatling.javaapi.http.HttpDsl.status;
 
     /**
      * Dynamically generate Simulation for multiple scenarios and thread groups, for concurrent execution of multiple Scenarios in one process.
-     * System property: -Dgatling.multiscenario.file=/path/to/json
+     * System property: -Dgatling.runplan.file=/path/to/json (see {@link RunPlan})
      */
 public class GatlingScenarioSimulation extends Simulation {
 
     private static final String VARIABLES_PREFIX = "TEST_VARIABLES:";
+    // response time of the last request, read by the live metrics step
+    private static final String LATENCY_KEY = "__liveLatencyMs";
+    // Gatling's failed flag of the virtual user before the current request, restored after it
+    private static final String FAILED_BEFORE_KEY = "__liveFailedBefore";
 
     private static class ScenarioRunItem {
         public Scenario scenario;
@@ -59,23 +56,26 @@ public class GatlingScenarioSimulation extends Simulation {
     }
 
     private final List<ScenarioRunItem> runItems;
-    private final ObjectMapper mapper = new ObjectMapper();
-    private final IDbConnectionService dbConnectionService = new DbConnectionServiceImpl();
+    // DB connections and custom variables resolved by the parent
+    private final RunPlan plan;
+    // Live metrics only when a parent runner listens on the event channel
+    private final boolean liveMetrics = RunEventChannel.isConnected();
+    // Share of the injection profile run by this JVM (distributed runs, see DistributedLoadCoordinator)
+    private final int partitionIndex = Integer.getInteger(DistributedLoadCoordinator.PARTITION_INDEX_PROPERTY, 0);
+    private final int partitionCount = Math.max(1, Integer.getInteger(DistributedLoadCoordinator.PARTITION_COUNT_PROPERTY, 1));
 
     public GatlingScenarioSimulation() {
         // Clear test run context at the beginning of a simulation run
         TestRunContext.clear();
         
         try {
-            String filePath = System.getProperty("gatling.multiscenario.file");
-            if (filePath == null || filePath.isBlank()) {
-                throw new IllegalStateException("gatling.multiscenario.file system property not set");
-            }
-            ObjectMapper om = new ObjectMapper();
-            this.runItems = om.readValue(new File(filePath), new TypeReference<List<ScenarioRunItem>>(){});
+            this.plan = RunPlan.fromSystemProperty();
+            this.runItems = new ObjectMapper().convertValue(plan.getScenarios(), new TypeReference<List<ScenarioRunItem>>(){});
         } catch (IOException e) {
-            throw new RuntimeException("Failed to read multi-scenario json", e);
+            throw new RuntimeException("Failed to read the run plan", e);
         }
+        // Custom variables of the plan; the simulation does not open the application database
+        plan.installCustomVariables();
 
         if (runItems == null || runItems.isEmpty()) {
             throw new RuntimeException("No scenarios found in JSON");
@@ -92,7 +92,7 @@ public class GatlingScenarioSimulation extends Simulation {
 
         for (ScenarioRunItem item : runItems) {
             ScenarioBuilder scnBuilder = buildScenario(item);
-            PopulationBuilder pb = buildInjection(item.params, scnBuilder);
+            PopulationBuilder pb = buildInjection(item, scnBuilder);
             popBuilders.add(pb);
             maxDurationSec = Math.max(maxDurationSec, estimateMaxDuration(item.params));
         }
@@ -135,35 +135,30 @@ public class GatlingScenarioSimulation extends Simulation {
             GatlingTest test = (to instanceof GatlingTest) ? (GatlingTest) to : om.convertValue(to, GatlingTest.class);
             Object eo = m.get("endpoint");
             Endpoint ep = (eo instanceof Endpoint) ? (Endpoint) eo : om.convertValue(eo, Endpoint.class);
-            HttpRequestActionBuilder req = buildRequest(test, ep);
+            // Checks are compiled once per test; the session functions below only execute the plan
+            final CheckPlan plan = CheckPlan.compile(test.getTcid(), test.getResponseChecks(), this::resolveDbConnection);
+            HttpRequestActionBuilder req = buildRequest(test, ep, plan);
             
             // Create a chain that executes the request and then processes any saved variables
             final String tcid = test.getTcid();
-            ChainBuilder requestChain = exec(req).exec(session -> {
-                // Check for variables that need to be saved to TestRunContext from HTTP response
-                try {
-                    String json = test.getResponseChecks();
-                    if (json != null && !json.isBlank()) {
-                        List<ResponseCheck> checks = mapper.readValue(json, new TypeReference<List<ResponseCheck>>() {});
-                        for (ResponseCheck rc : checks) {
-                            if (rc.getType() != CheckType.DB && rc.getSaveAs() != null && !rc.getSaveAs().isBlank()) {
-                                String saveAsKey = rc.getSaveAs();
-                                if (session.contains(saveAsKey)) {
-                                    Object rawValue = session.get(saveAsKey);
-                                    String actualValue = convertToString(rawValue);
-                                    TestRunContext.saveVariable(tcid, saveAsKey, actualValue);
-                                }
-                            }
-                        }
+            final List<String> saveAsKeys = plan.getSaveAsKeys();
+            ChainBuilder requestChain = liveMetrics
+                    ? exec(GatlingScenarioSimulation::beginRequest).exec(req).exec(session -> recordLiveMetrics(session, tcid))
+                    : exec(req);
+            requestChain = saveAsKeys.isEmpty() ? requestChain : requestChain.exec(HotPathProbes.timed(tcid, HotPathProbes.Stage.CHECKS, session -> {
+                // Save variables extracted from the HTTP response to TestRunContext
+                for (String saveAsKey : saveAsKeys) {
+                    if (session.contains(saveAsKey)) {
+                        Object rawValue = session.get(saveAsKey);
+                        String actualValue = convertToString(rawValue);
+                        TestRunContext.saveVariable(session, tcid, saveAsKey, actualValue);
                     }
-                } catch (Exception e) {
-                    // Ignore parsing errors
                 }
                 return session;
-            });
+            }));
 
             // Append DB checks execution
-            ChainBuilder dbCheckChain = buildDbCheckChain(test);
+            ChainBuilder dbCheckChain = buildDbCheckChain(test, plan);
             ChainBuilder fullChain = requestChain.exec(dbCheckChain);
 
             if (chain == null) {
@@ -177,6 +172,8 @@ public class GatlingScenarioSimulation extends Simulation {
             }
         }
         if (chain == null) chain = exec(pause(1));
+        // 每个虚拟用户拥有独立的变量作用域，迭代开始时发布到运行级并重置迭代级数据
+        chain = exec(TestRunContext::beginIteration).exec(chain);
 
         // determine loop strategy based on thread group type
         StandardThreadGroup stdCfg = null;
@@ -184,102 +181,117 @@ public class GatlingScenarioSimulation extends Simulation {
             stdCfg = sri.params.getStandardThreadGroup();
         }
 
-        ScenarioBuilder base = scenario(Optional.ofNullable(sri.scenario.getName()).orElse("Scenario" + sri.scenario.getId()));
+        ScenarioBuilder base = scenario(Optional.ofNullable(sri.scenario.getName()).orElse("Scenario" + sri.scenario.getId()))
+                .exec(TestRunContext::initScope);
 
-        // for time-based thread groups (Scheduler/Stepping/Ultimate), use forever() to continuously send requests until maxDuration
+        // for time-based thread groups (Scheduler/Stepping/Throughput), use forever() to continuously send requests until maxDuration;
+        // Ultimate and Concurrency are closed models that replace every user after one iteration
         if ((stdCfg != null && stdCfg.isScheduler())
                 || sri.params.getType() == ThreadGroupType.STEPPING
-                || sri.params.getType() == ThreadGroupType.ULTIMATE) {
+                || sri.params.getType() == ThreadGroupType.THROUGHPUT) {
             return base.forever().on(chain);
         }
 
         // for Standard thread group with specified loop count
         if (stdCfg != null && !stdCfg.isScheduler() && stdCfg.getLoops() != -1) {
-            return base.exec(repeat(stdCfg.getLoops()).on(chain));
+            return base.exec(repeat(stdCfg.getLoops()).on(chain)).exec(TestRunContext::publishScope);
         }
 
         // default: each virtual user only executes once
-        return base.exec(chain);
+        return base.exec(chain).exec(TestRunContext::publishScope);
     }
 
-    private ChainBuilder buildDbCheckChain(GatlingTest test) {
-        final String tcid = test.getTcid();
-        List<ResponseCheck> dbChecks;
-        try {
-            String json = test.getResponseChecks();
-            if (json == null || json.isBlank()) return exec(session -> session); // No checks
+    /**
+     * Starts a request with a clear failed flag, so {@link #recordLiveMetrics} judges it on its own; Gatling keeps the
+     * flag set once any request of the virtual user failed. The flag is remembered and restored afterwards.
+     */
+    private static Session beginRequest(Session session) {
+        return session.set(FAILED_BEFORE_KEY, session.isFailed()).markAsSucceeded();
+    }
 
-            List<ResponseCheck> allChecks = mapper.readValue(json, new TypeReference<>() {});
-            dbChecks = allChecks.stream().filter(c -> c.getType() == CheckType.DB).collect(Collectors.toList());
+    /**
+     * Counts the request that just completed into the live metrics and restores the failed flag the virtual user had
+     * before it, which exitHereIfFailed, tryMax and the user status rely on.
+     */
+    private Session recordLiveMetrics(Session session, String requestName) {
+        long latencyMs = session.contains(LATENCY_KEY) ? session.getLong(LATENCY_KEY) : -1;
+        boolean requestFailed = session.isFailed();
+        boolean failedBefore = session.contains(FAILED_BEFORE_KEY) && session.getBoolean(FAILED_BEFORE_KEY);
+        RunEventChannel.requestCompleted(requestName, latencyMs, !requestFailed);
+        Session cleaned = session.remove(LATENCY_KEY).remove(FAILED_BEFORE_KEY);
+        return userFailed(failedBefore, requestFailed) ? cleaned.markAsFailed() : cleaned;
+    }
 
-            if (dbChecks.isEmpty()) return exec(session -> session); // No DB checks
-        } catch (Exception e) {
-            e.printStackTrace();
-            return exec(session -> session); // Error parsing checks
-        }
+    /**
+     * Failed flag of the virtual user after a request: set once any of its requests failed.
+     */
+    static boolean userFailed(boolean failedBefore, boolean requestFailed) {
+        return failedBefore || requestFailed;
+    }
 
-        return exec(session -> {
-            for (ResponseCheck check : dbChecks) {
+    private ChainBuilder buildDbCheckChain(GatlingTest test, CheckPlan plan) {
+        final String tcid = test.getTcid();
+        final List<CheckPlan.Check> dbChecks = plan.getChecks(CheckType.DB);
+        if (dbChecks.isEmpty()) return exec(session -> session); // No DB checks
+
+        final Map<String, String> allDynamicVars = new HashMap<>();
+        if (test.getEndpointDynamicVariables() != null) allDynamicVars.putAll(test.getEndpointDynamicVariables());
+        if (test.getHeadersDynamicVariables() != null) allDynamicVars.putAll(test.getHeadersDynamicVariables());
+        if (test.getBodyDynamicVariables() != null) allDynamicVars.putAll(test.getBodyDynamicVariables());
+
+        // Each query runs on the DB check executor; the virtual user waits for it with non-blocking pauses
+        ChainBuilder chain = exec(session -> session);
+        for (CheckPlan.Check check : dbChecks) {
+            final String futureKey = "db_check_" + check.getIndex();
+            final String sqlKey = "db_check_sql_" + check.getIndex();
+            chain = chain.exec(HotPathProbes.timed(tcid, HotPathProbes.Stage.DB_CHECK, session -> {
                 try {
-                    String alias = check.getDbAlias();
-                    String sql = check.getDbSql();
-                    String column = check.getDbColumn();
-
-                    // For backward compatibility, parse from expression if new fields are empty
-                    if (alias == null || alias.isBlank()) {
-                        DbCheckInfo checkInfo = mapper.readValue(check.getExpression(), DbCheckInfo.class);
-                        alias = checkInfo.getAlias();
-                        sql = checkInfo.getSql();
-                        column = checkInfo.getColumn();
-                    }
-
-                    Integer envIdForConn = com.qa.app.service.EnvironmentContext.getCurrentEnvironmentId();
-                    DbConnection connConfig = dbConnectionService.findByAliasAndEnv(alias, envIdForConn);
-                    if (connConfig == null) {
-                        connConfig = dbConnectionService.findByAlias(alias);
-                    }
+                    DbConnection connConfig = check.getDbConnection();
                     if (connConfig == null) {
-                        throw new RuntimeException("DB Connection alias not found: " + alias);
+                        throw new RuntimeException("DB Connection alias not found: " + check.getDbAlias());
                     }
 
                     // Process variables in SQL
-                    String processedSql = TestRunContext.processVariableReferences(sql);
-                    Map<String, String> allDynamicVars = new HashMap<>();
-                    if (test.getEndpointDynamicVariables() != null) allDynamicVars.putAll(test.getEndpointDynamicVariables());
-                    if (test.getHeadersDynamicVariables() != null) allDynamicVars.putAll(test.getHeadersDynamicVariables());
-                    if (test.getBodyDynamicVariables() != null) allDynamicVars.putAll(test.getBodyDynamicVariables());
-                    String finalSql = RuntimeTemplateProcessor.render(processedSql, allDynamicVars);
-
-                    DataSource ds = DataSourceRegistry.get(connConfig);
-                    String actualValue = null;
-
-                    try (Connection conn = ds.getConnection();
-                         PreparedStatement ps = conn.prepareStatement(finalSql)) {
-                        ResultSet rs = ps.executeQuery();
-                        if (rs.next()) {
-                            actualValue = rs.getString(column);
-                        }
-                    }
-
-                    if (!OperatorUtil.compare(actualValue, check.getOperator(), check.getExpect())) {
-                        if (!check.isOptional()) {
-                            throw new AssertionError(String.format("DB check failed for TCID %s. SQL: %s. Expected '%s' but got '%s'.", tcid, finalSql, check.getExpect(), actualValue));
-                        }
-                    }
-
-                    if (check.getSaveAs() != null && !check.getSaveAs().isBlank()) {
-                        TestRunContext.saveVariable(tcid, check.getSaveAs(), actualValue);
-                        return session.set(check.getSaveAs(), actualValue);
+                    String processedSql = TestRunContext.processVariableReferences(session, check.getDbSql());
+                    String finalSql = RuntimeTemplateProcessor.render(test.getTcid(), session, processedSql, allDynamicVars);
+                    return session.set(futureKey, DbCheckExecutor.submit(connConfig, finalSql, check.getDbColumn()))
+                            .set(sqlKey, finalSql);
+                } catch (Exception e) {
+                    return session.set(futureKey, CompletableFuture.failedFuture(e));
+                }
+            })).exec(DbCheckExecutor.await(futureKey)).exec(HotPathProbes.timed(tcid, HotPathProbes.Stage.DB_CHECK, session -> {
+                DbCheckExecutor.Result result = DbCheckExecutor.take(session, futureKey);
+                String finalSql = session.contains(sqlKey) ? session.getString(sqlKey) : null;
+                session = session.remove(futureKey).remove(sqlKey);
+                if (result.failed()) {
+                    if (!check.isOptional()) {
+                        throw new RuntimeException("DB Check execution failed for TCID " + tcid, result.error());
                     }
+                    return session;
+                }
 
-                } catch (Exception e) {
+                String actualValue = result.value();
+                if (!check.matches(actualValue)) {
                     if (!check.isOptional()) {
-                        throw new RuntimeException("DB Check execution failed for TCID " + tcid, e);
+                        throw new AssertionError(String.format("DB check failed for TCID %s. SQL: %s. Expected '%s' but got '%s'.", tcid, finalSql, check.getExpect(), actualValue));
                     }
                 }
-            }
-            return session;
-        });
+
+                if (check.getSaveAs() != null) {
+                    TestRunContext.saveVariable(session, tcid, check.getSaveAs(), actualValue);
+                    session = session.set(check.getSaveAs(), actualValue);
+                }
+                return session;
+            }));
+        }
+        return chain;
+    }
+
+    /**
+     * Connection of a DB check alias, resolved by the parent in the run's environment.
+     */
+    private DbConnection resolveDbConnection(String alias) {
+        return plan.dbConnection(alias);
     }
 
     private String convertToString(Object rawValue) {
@@ -296,7 +308,7 @@ public class GatlingScenarioSimulation extends Simulation {
         return actualValue;
     }
 
-    private HttpRequestActionBuilder buildRequest(GatlingTest test, Endpoint ep) {
+    private HttpRequestActionBuilder buildRequest(GatlingTest test, Endpoint ep, CheckPlan plan) {
         String reqName = test.getTcid();
         String method = ep.getMethod() == null ? "GET" : ep.getMethod().toUpperCase();
         
@@ -310,13 +322,13 @@ public class GatlingScenarioSimulation extends Simulation {
             case "POST" -> {
                 req = http(reqName).post(processedUrl);
                 if (test.getBody()!=null && !test.getBody().isBlank()) {
-                    req = req.body(StringBody(session -> RuntimeTemplateProcessor.render(test.getBody(), test.getBodyDynamicVariables())));
+                    req = req.body(StringBody(session -> RuntimeTemplateProcessor.render(test.getTcid(), session, test.getBody(), test.getBodyDynamicVariables())));
                 }
             }
             case "PUT" -> {
                 req = http(reqName).put(processedUrl);
                 if (test.getBody()!=null && !test.getBody().isBlank()) {
-                    req = req.body(StringBody(session -> RuntimeTemplateProcessor.render(test.getBody(), test.getBodyDynamicVariables())));
+                    req = req.body(StringBody(session -> RuntimeTemplateProcessor.render(test.getTcid(), session, test.getBody(), test.getBodyDynamicVariables())));
                 }
             }
             case "DELETE" -> req = http(reqName).delete(processedUrl);
@@ -326,55 +338,40 @@ public class GatlingScenarioSimulation extends Simulation {
         // headers
         Map<String,String> headers = parseHeaders(test.getHeaders());
         for (Map.Entry<String,String> entry:headers.entrySet()) {
-            req = req.header(entry.getKey(), session -> RuntimeTemplateProcessor.render(entry.getValue(), test.getHeadersDynamicVariables()));
+            req = req.header(entry.getKey(), session -> RuntimeTemplateProcessor.render(test.getTcid(), session, entry.getValue(), test.getHeadersDynamicVariables()));
         }
 
         // Add response checks and variable extraction
         List<CheckBuilder> checkBuilders = new ArrayList<>();
-        
-        try {
-            String json = test.getResponseChecks();
-            if(json!=null && !json.isBlank()){
-                List<ResponseCheck> list = new ObjectMapper().readValue(json, new TypeReference<List<ResponseCheck>>(){});
-                int expected = 200;
-                
-                for(ResponseCheck rc: list){
-                    if(rc.getType() == CheckType.STATUS){
-                        expected = Integer.parseInt(rc.getExpect());
-                    }
-                    
-                    // Add extractors for variables to be saved
-                    if (rc.getSaveAs() != null && !rc.getSaveAs().isBlank()) {
-                        String saveAsKey = rc.getSaveAs();
-                        
-                        // Create the extractor based on check type
-                        switch(rc.getType()) {
-                            case JSON_PATH:
-                                checkBuilders.add(jsonPath(rc.getExpression()).saveAs(saveAsKey));
-                                break;
-                            case XPATH:
-                                checkBuilders.add(xpath(rc.getExpression()).saveAs(saveAsKey));
-                                break;
-                            case REGEX:
-                                checkBuilders.add(regex(rc.getExpression()).saveAs(saveAsKey));
-                                break;
-                            default:
-                                // Status check is handled separately
-                                break;
-                        }
-                    }
+        if (liveMetrics) {
+            // First, so the response time is captured even when a later check fails
+            checkBuilders.add(responseTimeInMillis().saveAs(LATENCY_KEY));
+        }
+        for (CheckPlan.Check rc : plan.getResponseChecks()) {
+            // Add extractors for variables to be saved
+            if (rc.getSaveAs() != null) {
+                String saveAsKey = rc.getSaveAs();
+
+                // Create the extractor based on check type
+                switch(rc.getType()) {
+                    case JSON_PATH:
+                        checkBuilders.add(jsonPath(rc.getExpression()).saveAs(saveAsKey));
+                        break;
+                    case XPATH:
+                        checkBuilders.add(xpath(rc.getExpression()).saveAs(saveAsKey));
+                        break;
+                    case REGEX:
+                        checkBuilders.add(regex(rc.getExpression()).saveAs(saveAsKey));
+                        break;
+                    default:
+                        // Status check is handled separately
+                        break;
                 }
-                
-                // Add status check
-                checkBuilders.add(status().is(expected));
-            } else {
-                // Default status check
-                checkBuilders.add(status().is(200));
             }
-        } catch(Exception e) {
-            // Default status check on error
-            checkBuilders.add(status().is(200));
         }
+
+        // Add status check
+        checkBuilders.add(status().is(plan.getExpectedStatus(200)));
         
         // Apply all checks
         if (!checkBuilders.isEmpty()) {
@@ -417,49 +414,130 @@ public class GatlingScenarioSimulation extends Simulation {
         return map;
     }
 
-    private PopulationBuilder buildInjection(GatlingLoadParameters p, ScenarioBuilder scn){
+    private PopulationBuilder buildInjection(ScenarioRunItem item, ScenarioBuilder scn){
+        GatlingLoadParameters p=item.params;
+        // step counter for the partition share, so remainders are spread over the agents
+        int[] step={0};
         switch(p.getType()){
             case STEPPING -> {
                 SteppingThreadGroup st=p.getSteppingThreadGroup();
                 List<OpenInjectionStep> steps=new ArrayList<>();
                 if(st.getInitialDelay()>0) steps.add(nothingFor(Duration.ofSeconds(st.getInitialDelay())));
-                steps.add(rampUsers(st.getStartUsers()).during(Duration.ofSeconds(Math.max(1,st.getIncrementTime()))));
+                steps.add(ramp(st.getStartUsers(), step[0]++, Duration.ofSeconds(Math.max(1,st.getIncrementTime()))));
                 int remaining=st.getNumThreads()-st.getStartUsers();
                 if(remaining>0 && st.getIncrementUsers()>0){
                     int batches=(int)Math.ceil((double)remaining/st.getIncrementUsers());
                     for(int i=0;i<batches;i++){
                         int u=Math.min(st.getIncrementUsers(), remaining - i*st.getIncrementUsers());
-                        steps.add(rampUsers(u).during(Duration.ofSeconds(Math.max(1,st.getIncrementTime()))));
+                        steps.add(ramp(u, step[0]++, Duration.ofSeconds(Math.max(1,st.getIncrementTime()))));
                     }
                 }
                 return scn.injectOpen(steps.toArray(new OpenInjectionStep[0]));
             }
             case ULTIMATE -> {
+                // Closed model following the summed start/startup/hold/shutdown curve of the overlapping steps
                 UltimateThreadGroup ut=p.getUltimateThreadGroup();
-                List<UltimateThreadGroupStep> sorted=new ArrayList<>(ut.getSteps());
-                sorted.sort(Comparator.comparingInt(UltimateThreadGroupStep::getStartTime));
-                List<OpenInjectionStep> inj=new ArrayList<>();
-                long lastEnd=0;
-                for(UltimateThreadGroupStep step:sorted){
-                    long delay=step.getStartTime()-lastEnd; if(delay>0) inj.add(nothingFor(Duration.ofSeconds(delay)));
-                    inj.add(rampUsers(step.getInitialLoad()).during(Duration.ofSeconds(step.getStartupTime())));
-                    lastEnd=step.getStartTime()+step.getStartupTime();
+                List<ClosedInjectionStep> inj=ut!=null ? curveInjection(ut.concurrencyCurve()) : new ArrayList<>();
+                if(inj.isEmpty()) inj.add(constantConcurrentUsers(partitionShare(1, 0)).during(Duration.ofSeconds(1)));
+                return scn.injectClosed(inj.toArray(new ClosedInjectionStep[0]));
+            }
+            case CONCURRENCY -> {
+                // Closed model: Gatling replaces every user that finishes to hold the concurrency of the stage
+                ConcurrencyThreadGroup ct=p.getConcurrencyThreadGroup();
+                List<ClosedInjectionStep> inj=new ArrayList<>();
+                if(ct!=null){
+                    if(ct.getInitialDelay()>0) inj.add(constantConcurrentUsers(0).during(Duration.ofSeconds(ct.getInitialDelay())));
+                    int level=0;
+                    for(ConcurrencyStage cs:ct.getStages()){
+                        // same remainder agent on every stage, so the partitions add up to the target at all times
+                        int target=partitionShare(Math.max(0,cs.getTargetUsers()), 0);
+                        if(cs.getRampTime()>0){
+                            inj.add(target!=level
+                                    ? rampConcurrentUsers(level).to(target).during(Duration.ofSeconds(cs.getRampTime()))
+                                    : constantConcurrentUsers(target).during(Duration.ofSeconds(cs.getRampTime())));
+                        }
+                        if(cs.getHoldTime()>0) inj.add(constantConcurrentUsers(target).during(Duration.ofSeconds(cs.getHoldTime())));
+                        level=target;
+                    }
                 }
-                return scn.injectOpen(inj.toArray(new OpenInjectionStep[0]));
+                if(inj.isEmpty()) inj.add(constantConcurrentUsers(partitionShare(1, 0)).during(Duration.ofSeconds(1)));
+                return scn.injectClosed(inj.toArray(new ClosedInjectionStep[0]));
+            }
+            case THROUGHPUT -> {
+                // Open model capped by the throttle: a pool of looping users, sized to reach the peak target
+                ThroughputShapingThreadGroup tt=p.getThroughputShapingThreadGroup();
+                if(tt==null || tt.totalDurationSeconds()<=0) break;
+                long pause=GatlingRunnerUtils.iterationPauseSeconds(item.items);
+                String warning=GatlingRunnerUtils.throughputWarning(tt, item.items.size(), pause);
+                if(warning!=null) System.err.println("[WARN] Throughput shaping of '"+item.scenario.getName()+"': "+warning);
+                int users=GatlingRunnerUtils.throughputUsers(tt, item.items.size(), pause);
+                long rampSec=Math.max(1, Math.min(5, tt.totalDurationSeconds()));
+                return scn.injectOpen(ramp(users, 0, Duration.ofSeconds(rampSec)))
+                        .throttle(throttleSteps(tt).toArray(new ThrottleStep[0]));
             }
             case STANDARD -> {
                 StandardThreadGroup std=p.getStandardThreadGroup();
                 if(std.isScheduler()){
                     return scn.injectOpen(
                             nothingFor(Duration.ofSeconds(std.getDelay())),
-                            rampUsers(std.getNumThreads()).during(Duration.ofSeconds(std.getRampUp()))
+                            ramp(std.getNumThreads(), 0, Duration.ofSeconds(std.getRampUp()))
                     );
                 } else {
-                    return scn.injectOpen(rampUsers(std.getNumThreads()).during(Duration.ofSeconds(std.getRampUp())));
+                    return scn.injectOpen(ramp(std.getNumThreads(), 0, Duration.ofSeconds(std.getRampUp())));
                 }
             }
         }
-        return scn.injectOpen(atOnceUsers(1));
+        return partitionCount>1 && partitionIndex!=0 ? scn.injectOpen(nothingFor(Duration.ZERO)) : scn.injectOpen(atOnceUsers(1));
+    }
+
+    /**
+     * Closed injection of a concurrency curve: a ramp (or a constant level) between every two points; two points at
+     * the same time change the level at once. Levels are this agent's share of the curve.
+     */
+    private List<ClosedInjectionStep> curveInjection(List<UltimateThreadGroup.CurvePoint> curve){
+        List<ClosedInjectionStep> inj=new ArrayList<>();
+        for(int i=1;i<curve.size();i++){
+            UltimateThreadGroup.CurvePoint from=curve.get(i-1), to=curve.get(i);
+            long d=to.time()-from.time();
+            if(d<=0) continue;
+            int u0=partitionShare(from.users(), 0), u1=partitionShare(to.users(), 0);
+            inj.add(u0!=u1 ? rampConcurrentUsers(u0).to(u1).during(Duration.ofSeconds(d)) : constantConcurrentUsers(u0).during(Duration.ofSeconds(d)));
+        }
+        return inj;
+    }
+
+    /**
+     * Throttle of a throughput shaping profile: every segment jumps to its start rate when the previous segment ended
+     * elsewhere, then ramps to its end rate or holds it. Rates are this agent's share of the target.
+     */
+    private List<ThrottleStep> throttleSteps(ThroughputShapingThreadGroup tt){
+        List<ThrottleStep> steps=new ArrayList<>();
+        int current=-1;
+        for(ThroughputSegment seg:tt.getSegments()){
+            if(seg.getDuration()<=0) continue;
+            int start=partitionShare(Math.max(0,seg.getStartRps()), 0);
+            int end=partitionShare(Math.max(0,seg.getEndRps()), 0);
+            if(start!=current) steps.add(jumpToRps(start));
+            steps.add(end!=start ? reachRps(end).in(Duration.ofSeconds(seg.getDuration())) : holdFor(Duration.ofSeconds(seg.getDuration())));
+            current=end;
+        }
+        return steps;
+    }
+
+    /**
+     * Ramps this agent's share of {@code users}; an agent without users keeps the step's duration so that the
+     * injection profiles of all agents stay aligned.
+     */
+    private OpenInjectionStep ramp(int users, int step, Duration during){
+        int share=partitionShare(users, step);
+        return share>0 ? rampUsers(share).during(during) : nothingFor(during);
+    }
+
+    /**
+     * Users of an injection step run by this agent, see {@link GatlingRunnerUtils#partitionShare}.
+     */
+    private int partitionShare(int users, int step){
+        return GatlingRunnerUtils.partitionShare(users, step, partitionIndex, partitionCount);
     }
 
     private long estimateMaxDuration(GatlingLoadParameters p){
@@ -478,26 +556,68 @@ public class GatlingScenarioSimulation extends Simulation {
                 return total;
             }
             case ULTIMATE -> {
-                long max=0;
-                for(UltimateThreadGroupStep step:p.getUltimateThreadGroup().getSteps()){
-                    long end= step.getStartTime()+step.getStartupTime()+step.getHoldTime()+step.getShutdownTime();
-                    if(end>max) max=end;
-                }
-                return max;
+                return p.getUltimateThreadGroup()!=null ? p.getUltimateThreadGroup().totalDurationSeconds() : 0;
+            }
+            case CONCURRENCY -> {
+                return p.getConcurrencyThreadGroup()!=null ? p.getConcurrencyThreadGroup().totalDurationSeconds() : 0;
+            }
+            case THROUGHPUT -> {
+                // the users loop forever, so the run always needs an end
+                return p.getThroughputShapingThreadGroup()!=null ? Math.max(1, p.getThroughputShapingThreadGroup().totalDurationSeconds()) : 1;
             }
             default -> {return 0;}
         }
     }
     
+    @Override
+    public void before() {
+        // Size and open the DB check pools before the injection starts; all scenarios run at the same time
+        if (!plan.getDbConnections().isEmpty()) {
+            int peakUsers = 0;
+            for (ScenarioRunItem item : runItems) {
+                peakUsers += GatlingRunnerUtils.peakUsers(item.params, item.items.size(),
+                        GatlingRunnerUtils.iterationPauseSeconds(item.items));
+            }
+            DataSourceRegistry.prepare(plan.getDbConnections().values(), (peakUsers + partitionCount - 1) / partitionCount);
+        }
+
+        // Distributed runs: every agent starts injecting at the same instant
+        long startAt = Long.getLong(DistributedLoadCoordinator.START_AT_PROPERTY, 0L);
+        long waitMs = startAt - System.currentTimeMillis();
+        if (waitMs > 0) {
+            System.out.println("Waiting " + waitMs + " ms for the coordinated start");
+            try {
+                Thread.sleep(waitMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     @Override
     public void after() {
         try {
             // Output test variables information
             System.out.println(VARIABLES_PREFIX + new ObjectMapper().writeValueAsString(TestRunContext.getAllVariables()));
+            // Run statistics go to the parent's run log over the event channel, or to stdout without one
+            Map<String, String> stats = new LinkedHashMap<>();
+            stats.put("Template caches", String.valueOf(RuntimeTemplateProcessor.getCacheStats()));
+            stats.put("DB checks", DbCheckExecutor.stats());
+            stats.put("Generator overhead", HotPathProbes.summary());
+            DataSourceRegistry.snapshotMetrics().forEach((name, pool) -> stats.put("DB pool " + name, String.format(
+                    "max %d, peak active %d, peak pending %d, %d acquisitions (p99 %d us, %d timeouts)",
+                    pool.getMaxPoolSize(), pool.getPeakActive(), pool.getPeakPending(),
+                    pool.getAcquisitions(), pool.getAcquireP99Us(), pool.getTimeouts())));
+            if (!RunEventChannel.runStats(stats)) {
+                stats.forEach((name, value) -> System.out.println("Run stats | " + name + ": " + value));
+            }
         } catch (Exception ex) {
             System.err.println("Failed to output test variables: " + ex.getMessage());
             ex.printStackTrace();
         }
+        HotPathProbes.reset();
+        DbCheckExecutor.shutdown();
         DataSourceRegistry.shutdown();
+        RunEventChannel.close();
     }
 } 
\ No newline at end of file
@@ -8,9 +8,6 @@ import com.qa.app.dao.impl.GatlingTestDaoImpl;
 import com.qa.app.model.Endpoint;
 import com.qa.app.model.GatlingLoadParameters;
 import com.qa.app.model.GatlingTest;
-import com.qa.app.model.reports.CaseReport;
-import com.qa.app.model.reports.FunctionalTestReport;
-import com.qa.app.model.reports.ModeGroup;
 import com.qa.app.model.reports.TestMode;
 
 
@@ -25,8 +22,6 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.LinkedHashMap;
 import java.util.HashMap;
 
 public class GatlingTestRunner {
@@ -35,13 +30,15 @@ public class GatlingTestRunner {
      */
     private static final String VARIABLES_PREFIX = "TEST_VARIABLES:";
 
-    private static List<String> buildGatlingCommand(String testsFilePath, String paramsFilePath, String reportFilePath) throws Exception {
+    private static Process startGatling(String planFilePath, String reportFilePath, String eventsAddress) throws Exception {
         Map<String, String> sysProps = new HashMap<>();
-        sysProps.put("gatling.tests.file", testsFilePath);
-        sysProps.put("gatling.params.file", paramsFilePath);
+        sysProps.put(RunPlan.FILE_PROPERTY, planFilePath);
         sysProps.put("gatling.report.file", reportFilePath);
+        if (eventsAddress != null) {
+            sysProps.put(RunEventChannel.ADDRESS_PROPERTY, eventsAddress);
+        }
         String resultsPath = Paths.get(System.getProperty("user.dir"), "target", "gatling").toString();
-        return GatlingRunnerUtils.buildGatlingCommand(GatlingTestSimulation.class.getName(), sysProps, resultsPath);
+        return GatlingRunnerUtils.startGatling(GatlingTestSimulation.class.getName(), sysProps, resultsPath);
     }
 
     // Async execution with completion callback
@@ -50,7 +47,25 @@ public class GatlingTestRunner {
                                     java.util.List<String> origins,
                                     java.util.List<String> modes,
                                     java.lang.Runnable onComplete) {
-        new Thread(() -> {
+        executeGatlingTests(tests, params, endpoints, origins, modes, RunQueue.Priority.NORMAL, onComplete);
+    }
+
+    /**
+     * Queues the run in {@link RunQueue} with {@code priority}; {@code onComplete} is also called when the run is
+     * cancelled before it started.
+     */
+    public static void executeGatlingTests(java.util.List<GatlingTest> tests, GatlingLoadParameters params,
+                                    java.util.List<Endpoint> endpoints,
+                                    java.util.List<String> origins,
+                                    java.util.List<String> modes,
+                                    RunQueue.Priority priority,
+                                    java.lang.Runnable onComplete) {
+        String runName = tests == null || tests.isEmpty() ? "Test run"
+                : tests.size() == 1 ? "Test " + tests.get(0).getTcid() : tests.size() + " tests";
+        // One iteration sends every test of the batch
+        RunQueue.submit(runName, priority, RunQueue.estimate(params, tests == null ? 1 : tests.size()), "test-runner", run -> {
+            RunEventChannel.Server eventServer = null;
+            java.io.File planFile = null;
             try {
                 if (tests == null || endpoints == null || tests.size() != endpoints.size()) {
                     throw new IllegalArgumentException("Tests and Endpoints list size mismatch or null");
@@ -78,23 +93,60 @@ public class GatlingTestRunner {
                     batchItems.add(map);
                 }
 
-                java.io.File batchFile = java.io.File.createTempFile("gatling_tests_", ".json");
-                batchFile.deleteOnExit();
-                try (java.io.BufferedWriter writer = new java.io.BufferedWriter(new java.io.FileWriter(batchFile))) {
-                    writer.write(objectMapper.writeValueAsString(batchItems));
-                }
-
-                java.io.File paramsFile = java.io.File.createTempFile("gatling_params_", ".json");
-                paramsFile.deleteOnExit();
-                try (java.io.BufferedWriter writer = new java.io.BufferedWriter(new java.io.FileWriter(paramsFile))) {
-                    writer.write(objectMapper.writeValueAsString(params));
-                }
+                // The simulation runs from this plan only: reference tests, DB connections and custom variables included
+                RunPlan plan = new RunPlan();
+                plan.setParams(params);
+                plan.setItems(batchItems);
+                new TestBatchResolver().snapshotCatalog(plan, tests);
+                planFile = plan.write();
 
                 // Create temporary NDJSON file for report streaming
                 java.io.File reportFile = java.io.File.createTempFile("gatling_report_", ".ndjson");
                 reportFile.deleteOnExit();
 
-                List<String> command = buildGatlingCommand(batchFile.getAbsolutePath(), paramsFile.getAbsolutePath(), reportFile.getAbsolutePath());
+                // Typed events (variables, check results, progress) arrive over a dedicated channel; stdout is only logged
+                java.util.concurrent.atomic.AtomicReference<Map<String, String>> channelVariables = new java.util.concurrent.atomic.AtomicReference<>();
+                try {
+                    eventServer = RunEventChannel.Server.open(new RunEventChannel.Listener() {
+                        @Override
+                        public void onCheckResult(String tcid, String type, String expression, String operator,
+                                                  String expect, String actual, boolean passed) {
+                            if (!passed) {
+                                System.out.println(String.format("CHECK_FAIL|%s|%s|%s|%s|expected:%s|actual:%s",
+                                        tcid, type, expression, operator, expect, actual));
+                            }
+                        }
+
+                        @Override
+                        public void onProgress(long requests, long failedRequests, long droppedEvents) {
+                            if (requests > 0) {
+                                com.qa.app.ui.vm.MainViewModel.showGlobalStatus(String.format("Running: %d request(s), %d failed",
+                                        requests, failedRequests), com.qa.app.ui.vm.MainViewModel.StatusType.INFO);
+                            }
+                            if (droppedEvents > 0) {
+                                System.err.println("[WARN] " + droppedEvents + " run event(s) dropped by the test process");
+                            }
+                        }
+
+                        @Override
+                        public void onVariables(Map<String, String> variables) {
+                            channelVariables.set(variables);
+                        }
+
+                        @Override
+                        public void onMetrics(List<LiveMetrics.Window> windows) {
+                            com.qa.app.ui.vm.MainViewModel.showLiveMetrics(windows);
+                        }
+
+                        @Override
+                        public void onRunStats(Map<String, String> stats) {
+                            stats.forEach((name, value) -> System.out.println("Run stats | " + name + ": " + value));
+                        }
+                    });
+                    com.qa.app.ui.vm.MainViewModel.startLiveMetrics();
+                } catch (IOException e) {
+                    System.err.println("[WARN] Unable to open run event channel, falling back to stdout: " + e.getMessage());
+                }
 
                 System.out.println("========== Gatling Test(s) Execution (Async) ==========");
                 for (int i = 0; i < tests.size(); i++) {
@@ -105,10 +157,10 @@ public class GatlingTestRunner {
                 }
                 System.out.println("Starting Gatling test(s) in background (separate process)...");
 
-                java.lang.ProcessBuilder processBuilder = new java.lang.ProcessBuilder(command);
-                processBuilder.redirectErrorStream(true);
-
-                java.lang.Process process = processBuilder.start();
+                // Runs on a warm worker JVM when one is idle, otherwise in a new process
+                java.lang.Process process = startGatling(planFile.getAbsolutePath(),
+                        reportFile.getAbsolutePath(), eventServer != null ? eventServer.getAddress() : null);
+                run.attach(process);
 
                 Map<String, String> testVariables = null;
                 
@@ -129,6 +181,14 @@ public class GatlingTestRunner {
                 }
 
                 int exitCode = process.waitFor();
+                if (eventServer != null) {
+                    eventServer.awaitCompletion(5000);
+                    eventServer.close();
+                    if (channelVariables.get() != null) {
+                        testVariables = channelVariables.get();
+                        System.out.println("Received " + testVariables.size() + " test variables from execution");
+                    }
+                }
 
                 if (exitCode == 0) {
                     System.out.println("Gatling test(s) execution completed.");
@@ -144,6 +204,9 @@ public class GatlingTestRunner {
                             }
                         }
                     }
+                } else if (run.isCancelled()) {
+                    System.out.println("Gatling test(s) execution cancelled.");
+                    com.qa.app.ui.vm.MainViewModel.showGlobalStatus("Test(s) cancelled", com.qa.app.ui.vm.MainViewModel.StatusType.WARNING);
                 } else {
                     System.out.println("Gatling test(s) execution failed, exit code: " + exitCode);
                     com.qa.app.ui.vm.MainViewModel.showGlobalStatus("Test(s) Failed, exit code: " + exitCode, com.qa.app.ui.vm.MainViewModel.StatusType.ERROR);
@@ -154,165 +217,91 @@ public class GatlingTestRunner {
                 e.printStackTrace();
                 com.qa.app.ui.vm.MainViewModel.showGlobalStatus("Gatling Test(s) Exception: " + e.getMessage(), com.qa.app.ui.vm.MainViewModel.StatusType.ERROR);
             } finally {
-                if (onComplete != null) {
-                    if (javafx.application.Platform.isFxApplicationThread()) {
-                        onComplete.run();
-                    } else {
-                        javafx.application.Platform.runLater(onComplete);
-                    }
+                if (eventServer != null) {
+                    eventServer.close();
                 }
+                // The plan holds credentials: remove it as soon as the process has exited
+                RunPlan.delete(planFile);
+                complete(onComplete);
             }
-        }, "test-runner").start();
+        }, () -> complete(onComplete));
     }
 
-    private static void processAndSaveReports(String jsonContent, List<GatlingTest> executedTests) {
+    private static void complete(java.lang.Runnable onComplete) {
+        if (onComplete != null) {
+            if (javafx.application.Platform.isFxApplicationThread()) {
+                onComplete.run();
+            } else {
+                javafx.application.Platform.runLater(onComplete);
+            }
+        }
+    }
+
+    /**
+     * Streams the NDJSON report file written by the simulation, groups the cases by origin TCID and
+     * {@link TestMode}, writes the aggregated functional report and updates status / report path of the tests.
+     */
+    private static void processAndSaveReportsFromFile(String reportFilePath, List<GatlingTest> executedTests) {
         try {
+            File reportFile = new File(reportFilePath);
+            if (!reportFile.isFile() || reportFile.length() == 0) {
+                System.err.println("Report file is empty: " + reportFilePath);
+                return;
+            }
+
             ObjectMapper mapper = new ObjectMapper();
             mapper.enable(SerializationFeature.INDENT_OUTPUT);
 
-            TypeReference<List<Map<String, Object>>> typeRef = new TypeReference<>() {};
-            List<Map<String, Object>> reportItems = mapper.readValue(jsonContent, typeRef);
-
-            // Group reports by origin TCID and maintain the order in which tests were executed
-            Map<String, List<Map<String, Object>>> groupedByOrigin = reportItems.stream()
-            .collect(Collectors.groupingBy(item -> (String) item.get("origin")));
-
-            IGatlingTestDao testDao = new GatlingTestDaoImpl();
-
-            // Use LinkedHashMap to maintain execution order
-            Map<String, FunctionalTestReport> reportMap = new LinkedHashMap<>();
-
-            // Now process the grouped results
-            for (Map.Entry<String, List<Map<String, Object>>> entry : groupedByOrigin.entrySet()) {
-                String originTcid = entry.getKey();
-                List<Map<String, Object>> itemsForOrigin = entry.getValue();
-                
-                // If this TCID is not in our report mapping (possibly a dependency), add it
-                if (!reportMap.containsKey(originTcid)) {
-                    FunctionalTestReport report = new FunctionalTestReport();
-                    report.setOriginTcid(originTcid);
-                    report.setExecutedAt(ZonedDateTime.now().format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
-                    reportMap.put(originTcid, report);
-                }
-                
-                FunctionalTestReport finalReport = reportMap.get(originTcid);
-
-                // Group by mode directly based on each entry to accurately separate SETUP / MAIN / TEARDOWN
-                Map<TestMode, List<CaseReport>> casesByMode = new java.util.EnumMap<>(TestMode.class);
-                for (Map<String, Object> itemMap : itemsForOrigin) {
-                    String modeStr = (String) itemMap.getOrDefault("mode", "MAIN");
-                    TestMode mode;
-                    try {
-                        mode = TestMode.valueOf(modeStr);
-                    } catch (IllegalArgumentException ex) {
-                        // Treat unknown modes as MAIN
-                        mode = TestMode.MAIN;
-                    }
-                    CaseReport cr = mapper.convertValue(itemMap.get("report"), CaseReport.class);
-                    casesByMode.computeIfAbsent(mode, k -> new java.util.ArrayList<>()).add(cr);
-                }
-
-                List<ModeGroup> modeGroups = new ArrayList<>();
-                // Define display order including new modes
-                List<TestMode> displayOrder = java.util.Arrays.asList(
-                        TestMode.SETUP,
-                        TestMode.DIFF_PRE,
-                        TestMode.PRE_CHECK,
-                        TestMode.MAIN,
-                        TestMode.PST_CHECK,
-                        TestMode.DIFF_PST,
-                        TestMode.TEARDOWN
-                );
-                displayOrder.forEach(mode -> {
-                    if (casesByMode.containsKey(mode)) {
-                        ModeGroup group = new ModeGroup();
-                        group.setMode(mode);
-                        group.setCases(casesByMode.get(mode));
-                        modeGroups.add(group);
-                    }
-                });
-
-                finalReport.setGroups(modeGroups);
-                
-                // Set the passed status of the report
-                boolean allPassed = modeGroups.stream().allMatch(g -> g.getCases().stream().allMatch(CaseReport::isPassed));
-                finalReport.setPassed(allPassed);
-
-                // Update test status
-                for (GatlingTest test : executedTests) {
-                    if (test.getTcid().equals(originTcid)) {
-                        try {
-                            test.setLastRunPassed(allPassed);
-                            testDao.updateTest(test);
-                        } catch (Exception e) {
-                            System.err.println("Failed to update test status for " + test.getTcid() + ": " + e.getMessage());
-                        }
-                        break;
-                    }
-                }
+            StreamingReportAggregator aggregator = new StreamingReportAggregator(reportFile, mapper);
+            aggregator.scan();
+            if (aggregator.isEmpty()) {
+                return;
             }
-            
-            // Convert to list, then sort according to execution order (executedTests list)
-            List<FunctionalTestReport> aggregatedReports = new ArrayList<>(reportMap.values());
 
-            if (executedTests != null && !executedTests.isEmpty()) {
-                // Map TCID to its index in execution list for quick lookup
-                java.util.Map<String, Integer> execOrderMap = new java.util.HashMap<>();
-                for (int i = 0; i < executedTests.size(); i++) {
-                    execOrderMap.put(executedTests.get(i).getTcid(), i);
+            // Sort according to execution order (executedTests list)
+            List<String> executionOrder = new ArrayList<>();
+            if (executedTests != null) {
+                for (GatlingTest test : executedTests) {
+                    executionOrder.add(test.getTcid());
                 }
-
-                aggregatedReports.sort(java.util.Comparator.comparingInt(r ->
-                        execOrderMap.getOrDefault(r.getOriginTcid(), Integer.MAX_VALUE)));
             }
+            List<StreamingReportAggregator.OriginGroup> groups = aggregator.getGroups(executionOrder);
 
             // Generate an aggregated report
-            if (!aggregatedReports.isEmpty()) {
-                String batchTimestamp = new SimpleDateFormat("yyyyMMddHHmmss").format(new Date());
-                String batchFileName = String.format("functional_report_%s.json", batchTimestamp);
-                Path reportDir = Paths.get(System.getProperty("user.dir"), "target", "gatling", "reports");
-                Files.createDirectories(reportDir);
-                Path batchReportPath = reportDir.resolve(batchFileName);
+            String batchTimestamp = new SimpleDateFormat("yyyyMMddHHmmss").format(new Date());
+            String batchFileName = String.format("functional_report_%s.json", batchTimestamp);
+            Path reportDir = Paths.get(System.getProperty("user.dir"), "target", "gatling", "reports");
+            Files.createDirectories(reportDir);
+            Path batchReportPath = reportDir.resolve(batchFileName);
+
+            aggregator.write(batchReportPath.toFile(), groups,
+                    ZonedDateTime.now().format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
+            System.out.println("Aggregated report saved to: " + batchReportPath
+                    + " (" + aggregator.getCaseCount() + " case(s))");
+
+            if (executedTests == null) {
+                return;
+            }
 
-                try (Writer writer = new BufferedWriter(new FileWriter(batchReportPath.toFile()))) {
-                    mapper.writeValue(writer, aggregatedReports);
-                    System.out.println("Aggregated report saved to: " + batchReportPath);
+            // Update test status and set the report path to the aggregated report
+            IGatlingTestDao testDao = new GatlingTestDaoImpl();
+            Map<String, GatlingTest> testsByTcid = new HashMap<>();
+            for (GatlingTest test : executedTests) {
+                testsByTcid.putIfAbsent(test.getTcid(), test);
+            }
+            for (StreamingReportAggregator.OriginGroup group : groups) {
+                GatlingTest test = testsByTcid.get(group.getOriginTcid());
+                if (test == null) {
+                    continue;
                 }
-                
-                // Update each test, set the report path to the aggregated report
-                for (FunctionalTestReport report : aggregatedReports) {
-                    final String originTcid = report.getOriginTcid();
-                    executedTests.stream()
-                            .filter(t -> t.getTcid().equals(originTcid))
-                            .findFirst()
-                            .ifPresent(testToUpdate -> {
-                                try {
-                                    testToUpdate.setReportPath(batchReportPath.toString());
-                                    testDao.updateTest(testToUpdate);
-                                } catch (Exception e) {
-                                    System.err.println("Failed to update report path for test " + originTcid + ": " + e.getMessage());
-                                }
-                            });
+                try {
+                    test.setLastRunPassed(group.isPassed());
+                    test.setReportPath(batchReportPath.toString());
+                    testDao.updateTest(test);
+                } catch (Exception e) {
+                    System.err.println("Failed to update test status for " + test.getTcid() + ": " + e.getMessage());
                 }
             }
-
-        } catch (Exception e) {
-            System.err.println("Failed to process reports: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-
-    // New helper: read NDJSON report file and reuse existing aggregation logic
-    private static void processAndSaveReportsFromFile(String reportFilePath, List<GatlingTest> executedTests) {
-        try {
-            java.util.List<String> lines = java.nio.file.Files.readAllLines(java.nio.file.Paths.get(reportFilePath));
-            if (lines.isEmpty()) {
-                System.err.println("Report file is empty: " + reportFilePath);
-                return;
-            }
-            // Concatenate lines into JSON array for reuse of existing logic
-            String joined = "[" + String.join(",", lines) + "]";
-            processAndSaveReports(joined, executedTests);
         } catch (Exception e) {
             System.err.println("Failed to read/process report file: " + e.getMessage());
             e.printStackTrace();
@@ -6,33 +6,23 @@ import com.qa.app.model.Endpoint;
 import com.qa.app.model.GatlingLoadParameters;
 import com.qa.app.model.GatlingTest;
 import com.qa.app.model.ResponseCheck;
+import com.qa.app.model.ResponseCapturePolicy;
 import com.qa.app.model.CheckType;
 import com.qa.app.model.DbConnection;
 import com.qa.app.model.reports.*;
 import com.qa.app.model.threadgroups.*;
+import com.qa.app.service.util.HotPathProbes;
 import io.gatling.javaapi.core.*;
 import io.gatling.javaapi.http.HttpProtocolBuilder;
 import io.gatling.javaapi.http.HttpRequestActionBuilder;
-import com.qa.app.dao.impl.GatlingTestDaoImpl;
-import com.qa.app.dao.impl.EndpointDaoImpl;
-import com.qa.app.service.impl.BodyTemplateServiceImpl;
-import com.qa.app.service.impl.HeadersTemplateServiceImpl;
-import com.qa.app.model.BodyTemplate;
-import com.qa.app.model.HeadersTemplate;
-import com.qa.app.service.api.IDbConnectionService;
-import com.qa.app.service.impl.DbConnectionServiceImpl;
-import com.qa.app.model.Operator;
 import com.qa.app.util.AppConfig;
 
-import javax.sql.DataSource;
-import java.io.File;
 import java.io.IOException;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static io.gatling.javaapi.core.CoreDsl.*;
@@ -47,10 +37,21 @@ public class GatlingTestSimulation extends Simulation {
     private final GatlingLoadParameters params;
     private final List<BatchItem> batchItems;
     private final boolean isBatchMode;
-    private final Map<String, CaseReport> caseReports = new ConcurrentHashMap<>();
-    private final IDbConnectionService dbConnectionService = new DbConnectionServiceImpl();
+    private final RequestReportSink reportSink;
+    // Response capture policy used when neither the test nor the run sets one
+    private final ResponseCapturePolicy defaultCapture;
+    // Load runs send no check events on the event channel; one per check would crowd out the others
+    private final boolean loadRun;
+    // Reference tests, endpoints, DB connections and custom variables resolved by the parent
+    private final RunPlan plan;
     private static final String VARIABLES_PREFIX = "TEST_VARIABLES:";
     private static final String CHECK_REPORTS_KEY = "checkReports";
+    static final String RUN_METRICS_KEY = "runMetrics";
+    static final String LATENCY_KEY = "latencyHistograms";
+    // Main request report waiting for the DIFF / PRE_CHECK / PST_CHECK evaluation chain
+    private static final String MAIN_REPORT_KEY = "mainRequestReport";
+    // Set before each request of a sampled capture policy: whether this response is captured
+    private static final String CAPTURE_SAMPLE_KEY = "captureResponse";
     private static final List<String> RESPONSE_HEADERS_TO_CAPTURE;
 
     static {
@@ -101,25 +102,22 @@ public class GatlingTestSimulation extends Simulation {
         TestRunContext.clear();
         
         try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            this.params = objectMapper.readValue(new File(System.getProperty("gatling.params.file")), GatlingLoadParameters.class);
-
-            String batchFilePath = System.getProperty("gatling.tests.file");
-            if (batchFilePath != null && !batchFilePath.isEmpty()) {
-                // Batch mode
-                this.batchItems = objectMapper.readValue(new File(batchFilePath), new TypeReference<List<BatchItem>>(){});
-                this.isBatchMode = true;
-            } else {
-                // Single test mode (backward compatibility)
-                BatchItem item = new BatchItem();
-                item.test = objectMapper.readValue(new File(System.getProperty("gatling.test.file")), GatlingTest.class);
-                item.endpoint = objectMapper.readValue(new File(System.getProperty("gatling.endpoint.file")), Endpoint.class);
-                this.batchItems = java.util.Collections.singletonList(item);
-                this.isBatchMode = false;
-            }
+            this.plan = RunPlan.fromSystemProperty();
+            this.params = plan.getParams();
+            this.batchItems = new ObjectMapper().convertValue(plan.getItems(), new TypeReference<List<BatchItem>>(){});
+            this.isBatchMode = batchItems.size() > 1;
         } catch (IOException e) {
-            throw new RuntimeException("Failed to deserialize simulation parameters from file", e);
+            throw new RuntimeException("Failed to read the run plan", e);
         }
+        // Custom variables of the plan; the simulation does not open the application database
+        plan.installCustomVariables();
+
+        this.reportSink = new RequestReportSink(RequestReportSink.resolveMode(params), System.getProperty("gatling.report.file"));
+        System.out.println("DynamicJavaSimulation: Report mode " + reportSink.getMode());
+        this.defaultCapture = resolveDefaultCapture(params);
+        this.loadRun = RequestReportSink.isLoadRun(params);
+        System.out.println("DynamicJavaSimulation: Response capture " + ResponseCapturePolicy.resolve(
+                null, params.getResponseCapture(), defaultCapture));
 
         HttpProtocolBuilder httpProtocol = createHttpProtocol(batchItems.get(0).endpoint);
         ScenarioBuilder scn = createScenario();
@@ -164,15 +162,17 @@ public class GatlingTestSimulation extends Simulation {
             long totalDuration = (long) steppingConfig.getInitialDelay() + totalRampUp + steppingConfig.getHoldLoad();
 
             setup.maxDuration(Duration.ofSeconds(totalDuration));
-        } else if (params.getType() == ThreadGroupType.ULTIMATE) {
-            long maxDuration = 0;
-            for (UltimateThreadGroupStep step : params.getUltimateThreadGroup().getSteps()) {
-                long stepEndTime = (long) step.getStartTime() + step.getStartupTime() + step.getHoldTime() + step.getShutdownTime();
-                if (stepEndTime > maxDuration) {
-                    maxDuration = stepEndTime;
-                }
-            }
-            setup.maxDuration(Duration.ofSeconds(maxDuration));
+        } else if (params.getType() == ThreadGroupType.ULTIMATE && params.getUltimateThreadGroup() != null
+                && params.getUltimateThreadGroup().totalDurationSeconds() > 0) {
+            // End of the last shutdown ramp; users still in an iteration are cut here
+            setup.maxDuration(Duration.ofSeconds(params.getUltimateThreadGroup().totalDurationSeconds()));
+        } else if (params.getType() == ThreadGroupType.CONCURRENCY && params.getConcurrencyThreadGroup() != null) {
+            setup.maxDuration(Duration.ofSeconds(params.getConcurrencyThreadGroup().totalDurationSeconds()));
+        } else if (params.getType() == ThreadGroupType.THROUGHPUT) {
+            // the users loop forever, the profile length ends the run
+            long throughputDuration = params.getThroughputShapingThreadGroup() != null
+                    ? params.getThroughputShapingThreadGroup().totalDurationSeconds() : 0;
+            setup.maxDuration(Duration.ofSeconds(Math.max(1, throughputDuration)));
         }
 
         // No inline after hook here; see overridden after() method at class bottom.
@@ -222,41 +222,109 @@ public class GatlingTestSimulation extends Simulation {
 
             case ULTIMATE:
                 UltimateThreadGroup ultimateConfig = params.getUltimateThreadGroup();
-                System.out.println("- Load Profile: ULTIMATE");
-                if (ultimateConfig.getSteps().isEmpty()) {
+                System.out.println("- Load Profile: ULTIMATE (closed model)");
+                if (ultimateConfig == null || ultimateConfig.getSteps().isEmpty()) {
                     System.out.println("  - No steps defined, running with 1 user for 1 second.");
-                    return scn.injectOpen(atOnceUsers(1));
+                    return scn.injectClosed(constantConcurrentUsers(1).during(Duration.ofSeconds(1)));
                 }
-
-                // Sort steps by start time
-                List<UltimateThreadGroupStep> sortedSteps = new ArrayList<>(ultimateConfig.getSteps());
-                sortedSteps.sort(java.util.Comparator.comparingInt(UltimateThreadGroupStep::getStartTime));
-                
-                List<OpenInjectionStep> injectionSteps = new ArrayList<>();
-                long lastStepEndTime = 0;
-
-                for (UltimateThreadGroupStep step : sortedSteps) {
-                    System.out.println(String.format("  - Step: start at %ds, initial %d users, startup %ds, hold %ds, shutdown %ds",
+                for (UltimateThreadGroupStep step : ultimateConfig.getSteps()) {
+                    System.out.println(String.format("  - Step: start at %ds, %d users, startup %ds, hold %ds, shutdown %ds",
                             step.getStartTime(), step.getInitialLoad(), step.getStartupTime(), step.getHoldTime(), step.getShutdownTime()));
-                    
-                    // 1. Calculate delay from last step's end
-                    long delay = step.getStartTime() - lastStepEndTime;
-                    if (delay > 0) {
-                        injectionSteps.add(nothingFor(Duration.ofSeconds(delay)));
+                }
+
+                // The steps overlap: follow the summed concurrency curve, a ramp (or a constant level) between
+                // every two points. Two points at the same time change the level at once.
+                List<UltimateThreadGroup.CurvePoint> curve = ultimateConfig.concurrencyCurve();
+                List<ClosedInjectionStep> curveSteps = new ArrayList<>();
+                for (int i = 1; i < curve.size(); i++) {
+                    UltimateThreadGroup.CurvePoint from = curve.get(i - 1);
+                    UltimateThreadGroup.CurvePoint to = curve.get(i);
+                    long segmentSec = to.time() - from.time();
+                    if (segmentSec <= 0) {
+                        continue;
+                    }
+                    curveSteps.add(from.users() != to.users()
+                            ? rampConcurrentUsers(from.users()).to(to.users()).during(Duration.ofSeconds(segmentSec))
+                            : constantConcurrentUsers(from.users()).during(Duration.ofSeconds(segmentSec)));
+                }
+                System.out.println("  - Peak: " + ultimateConfig.peakUsers() + " concurrent users, "
+                        + ultimateConfig.totalDurationSeconds() + "s");
+                if (curveSteps.isEmpty()) {
+                    curveSteps.add(constantConcurrentUsers(1).during(Duration.ofSeconds(1)));
+                }
+                return scn.injectClosed(curveSteps.toArray(new ClosedInjectionStep[0]));
+
+
+            case CONCURRENCY:
+                ConcurrencyThreadGroup concurrencyConfig = params.getConcurrencyThreadGroup();
+                System.out.println("- Load Profile: CONCURRENCY (closed model)");
+                List<ClosedInjectionStep> closedSteps = new ArrayList<>();
+                if (concurrencyConfig != null) {
+                    System.out.println("  - Initial Delay: " + concurrencyConfig.getInitialDelay() + "s");
+                    if (concurrencyConfig.getInitialDelay() > 0) {
+                        closedSteps.add(constantConcurrentUsers(0).during(Duration.ofSeconds(concurrencyConfig.getInitialDelay())));
                     }
+                    // Each stage ramps from the concurrency of the previous one; finished users are replaced
+                    int level = 0;
+                    for (ConcurrencyStage stage : concurrencyConfig.getStages()) {
+                        int target = Math.max(0, stage.getTargetUsers());
+                        System.out.println(String.format("  - Stage: %d concurrent users, ramp %ds, hold %ds",
+                                target, stage.getRampTime(), stage.getHoldTime()));
+                        if (stage.getRampTime() > 0) {
+                            closedSteps.add(target != level
+                                    ? rampConcurrentUsers(level).to(target).during(Duration.ofSeconds(stage.getRampTime()))
+                                    : constantConcurrentUsers(target).during(Duration.ofSeconds(stage.getRampTime())));
+                        }
+                        if (stage.getHoldTime() > 0) {
+                            closedSteps.add(constantConcurrentUsers(target).during(Duration.ofSeconds(stage.getHoldTime())));
+                        }
+                        level = target;
+                    }
+                }
+                if (closedSteps.isEmpty()) {
+                    System.out.println("  - No stages defined, running with 1 user for 1 second.");
+                    closedSteps.add(constantConcurrentUsers(1).during(Duration.ofSeconds(1)));
+                }
+                return scn.injectClosed(closedSteps.toArray(new ClosedInjectionStep[0]));
 
-                    // 2. Add the ramp-up phase
-                    injectionSteps.add(rampUsers(step.getInitialLoad()).during(Duration.ofSeconds(step.getStartupTime())));
-                    
-                    // 3. Add hold time
-                    // In Gatling, users keep running. The hold is implicit until the next phase or test end.
-                    // We can add a pause if we want to model sequential phases rather than overlapping ones.
-                    // For now, we assume phases can overlap. The total duration will be controlled by maxDuration.
 
-                    // Update the end time for the next step's calculation
-                    lastStepEndTime = step.getStartTime() + step.getStartupTime();
+            case THROUGHPUT:
+                ThroughputShapingThreadGroup throughputConfig = params.getThroughputShapingThreadGroup();
+                System.out.println("- Load Profile: THROUGHPUT (throttled)");
+                if (throughputConfig == null || throughputConfig.totalDurationSeconds() <= 0) {
+                    System.out.println("  - No segments defined, running with 1 user for 1 second.");
+                    return scn.injectOpen(atOnceUsers(1));
                 }
-                return scn.injectOpen(injectionSteps.toArray(new OpenInjectionStep[0]));
+                // One request per test of the batch and iteration, no pauses between them
+                int throughputUsers = GatlingRunnerUtils.throughputUsers(throughputConfig, batchItems.size(), 0);
+                System.out.println("  - Expected Response Time: " + throughputConfig.getExpectedResponseMs() + "ms");
+                System.out.println("  - Users: " + throughputUsers + (throughputConfig.getMaxUsers() > 0 ? "" : " (sized automatically)"));
+                String throughputWarning = GatlingRunnerUtils.throughputWarning(throughputConfig, batchItems.size(), 0);
+                if (throughputWarning != null) {
+                    System.err.println("[WARN] " + throughputWarning);
+                }
+
+                // Each segment starts at its start rate and ramps to (or holds) its end rate
+                List<ThrottleStep> throttleSteps = new ArrayList<>();
+                int currentRps = -1;
+                for (ThroughputSegment segment : throughputConfig.getSegments()) {
+                    if (segment.getDuration() <= 0) {
+                        continue;
+                    }
+                    int startRps = Math.max(0, segment.getStartRps());
+                    int endRps = Math.max(0, segment.getEndRps());
+                    System.out.println(String.format("  - Segment: %d -> %d RPS over %ds", startRps, endRps, segment.getDuration()));
+                    if (startRps != currentRps) {
+                        throttleSteps.add(jumpToRps(startRps));
+                    }
+                    throttleSteps.add(endRps != startRps
+                            ? reachRps(endRps).in(Duration.ofSeconds(segment.getDuration()))
+                            : holdFor(Duration.ofSeconds(segment.getDuration())));
+                    currentRps = endRps;
+                }
+                long poolRampSec = Math.max(1, Math.min(5, throughputConfig.totalDurationSeconds()));
+                return scn.injectOpen(rampUsers(throughputUsers).during(Duration.ofSeconds(poolRampSec)))
+                        .throttle(throttleSteps.toArray(new ThrottleStep[0]));
 
 
             case STANDARD:
@@ -302,12 +370,18 @@ public class GatlingTestSimulation extends Simulation {
             standardConfig = params.getStandardThreadGroup();
         }
 
-        if (standardConfig != null && !standardConfig.isScheduler() && standardConfig.getLoops() > 0) {
-            return scenario(scenarioName).repeat(standardConfig.getLoops()).on(
-                exec(chain)
-            );
+        // 每个虚拟用户拥有独立的变量作用域（saveAs / DIFF / PRE / PST），迭代开始时重置迭代级数据
+        ChainBuilder iteration = exec(TestRunContext::beginIteration).exec(chain);
+
+        if (params.getType() == ThreadGroupType.THROUGHPUT) {
+            // the throttle paces the users, which keep iterating until maxDuration
+            return scenario(scenarioName).exec(TestRunContext::initScope).forever().on(iteration);
+        } else if (standardConfig != null && !standardConfig.isScheduler() && standardConfig.getLoops() > 0) {
+            return scenario(scenarioName).exec(TestRunContext::initScope).repeat(standardConfig.getLoops()).on(
+                iteration
+            ).exec(TestRunContext::publishScope);
         } else {
-            return scenario(scenarioName).exec(chain);
+            return scenario(scenarioName).exec(TestRunContext::initScope).exec(iteration).exec(TestRunContext::publishScope);
         }
     }
 
@@ -329,47 +403,18 @@ public class GatlingTestSimulation extends Simulation {
         GatlingTest test = item.test;
         Endpoint endpoint = item.endpoint;
 
-        // ===================== NEW: Re-resolve endpoint for SETUP / TEARDOWN =====================
-        if (item.getTestMode() == com.qa.app.model.reports.TestMode.SETUP ||
-            item.getTestMode() == com.qa.app.model.reports.TestMode.TEARDOWN) {
-            try {
-                // Re-fetch by name & current environment to ensure we get the correct URL template
-                if (test.getEndpointName() != null && !test.getEndpointName().isBlank()) {
-                    Integer envId = com.qa.app.service.EnvironmentContext.getCurrentEnvironmentId();
-                    EndpointDaoImpl epDao = new EndpointDaoImpl();
-                    Endpoint resolvedEp = epDao.getEndpointByNameAndEnv(test.getEndpointName(), envId);
-                    if (resolvedEp != null) {
-                        endpoint = resolvedEp;
-                    }
-                }
-            } catch (Exception e) {
-                System.err.println("[WARN] Failed to resolve endpoint for SETUP/TEARDOWN: " + e.getMessage());
-            }
-        }
-        // =========================================================================================
-
-        // Build composite key to ensure uniqueness across different origins.
-        // For SETUP and TEARDOWN steps that may be shared by multiple main TCIDs,
-        // include the origin TCID in the key: origin|tcid|mode. This prevents collisions
-        // where the same setup/teardown test is executed for multiple parents and
-        // guarantees the reports are attributed to the correct origin.
-        String reportKey;
+        // The endpoint of SETUP / TEARDOWN items was resolved by name in the run's environment by the parent
+
+        // Attribute the reports to the correct origin. SETUP and TEARDOWN steps may be shared by multiple
+        // main TCIDs, so they use the origin TCID of their batch item; all other modes are their own origin.
+        String origin;
         if (item.getTestMode() == com.qa.app.model.reports.TestMode.SETUP ||
             item.getTestMode() == com.qa.app.model.reports.TestMode.TEARDOWN) {
-            String origin = (item.origin != null && !item.origin.isBlank()) ? item.origin : test.getTcid();
-            reportKey = origin + "|" + test.getTcid() + "|" + item.getTestMode().name();
+            origin = (item.origin != null && !item.origin.isBlank()) ? item.origin : test.getTcid();
         } else {
-            // Original behaviour for MAIN and other modes
-            reportKey = test.getTcid() + "|" + item.getTestMode().name();
+            origin = test.getTcid();
         }
-
-        // Ensure a CaseReport container exists for this key
-        caseReports.computeIfAbsent(reportKey, k -> {
-            CaseReport cr = new CaseReport();
-            cr.setTcid(test.getTcid());
-            cr.setItems(Collections.synchronizedList(new ArrayList<>()));
-            return cr;
-        });
+        final RequestReportSink.Case reportCase = reportSink.open(origin, test.getTcid(), item.getTestMode().name());
 
         // Use simple TCID as request name (no suffix)
         final String requestName = test.getTcid();
@@ -405,252 +450,187 @@ public class GatlingTestSimulation extends Simulation {
         Map<String, String> headerTemplates = parseHeaders(test.getHeaders());
         for (Map.Entry<String, String> headerEntry : headerTemplates.entrySet()) {
             request = request.header(headerEntry.getKey(), session ->
-                    RuntimeTemplateProcessor.render(headerEntry.getValue(), test.getHeadersDynamicVariables()));
+                    RuntimeTemplateProcessor.render(test.getTcid(), session, headerEntry.getValue(), test.getHeadersDynamicVariables()));
         }
 
         // Dynamically process body for each request using a session function
         if (test.getBody() != null && !test.getBody().trim().isEmpty()) {
             request = request.body(StringBody(session ->
-                    RuntimeTemplateProcessor.render(test.getBody(), test.getBodyDynamicVariables())));
+                    RuntimeTemplateProcessor.render(test.getTcid(), session, test.getBody(), test.getBodyDynamicVariables())));
         }
 
         List<CheckBuilder> checkBuilders = new ArrayList<>();
         List<ChainBuilder> loggingActions = new ArrayList<>();
         boolean statusCheckExists = false;
         // Collect DIFF checks for special processing (before/after reference)
-        List<ResponseCheck> diffChecks = new ArrayList<>();
+        List<CheckPlan.Check> diffChecks = new ArrayList<>();
         // Collect PRE_CHECK and PST_CHECK checks for special processing
-        List<ResponseCheck> preChecks = new ArrayList<>();
-        List<ResponseCheck> pstChecks = new ArrayList<>();
+        List<CheckPlan.Check> preChecks = new ArrayList<>();
+        List<CheckPlan.Check> pstChecks = new ArrayList<>();
+
+        // Checks are parsed and prepared once here; the session functions below only execute the plan
+        final CheckPlan plan = CheckPlan.compile(test.getTcid(), test.getResponseChecks(), this::resolveDbConnection);
+        if (!plan.isEmpty()) {
+            // Initialize check reports list in session for the first check
+            loggingActions.add(exec(session -> session.set(CHECK_REPORTS_KEY, new ArrayList<CheckReport>())));
+
+            // Dynamic variables used to render DB check SQL
+            final Map<String, String> allDynamicVars = new HashMap<>();
+            if (test.getEndpointDynamicVariables() != null) allDynamicVars.putAll(test.getEndpointDynamicVariables());
+            if (test.getHeadersDynamicVariables() != null) allDynamicVars.putAll(test.getHeadersDynamicVariables());
+            if (test.getBodyDynamicVariables() != null) allDynamicVars.putAll(test.getBodyDynamicVariables());
+
+            for (CheckPlan.Check currentCheck : plan.getChecks()) {
+                switch (currentCheck.getType()) {
+                    case STATUS: {
+                        statusCheckExists = true;
+                        // Status check in Gatling is special, it doesn't use a regular extractor.
+                        // We save the status and check it in a subsequent action.
+                        String statusSaveKey = "response_status_" + currentCheck.getIndex();
+                        checkBuilders.add(status().saveAs(statusSaveKey));
+
+                        loggingActions.add(exec(HotPathProbes.timed(test.getTcid(), HotPathProbes.Stage.CHECKS, session -> {
+                            String actualStatus;
+                            if (session.contains(statusSaveKey)) {
+                                // Gatling 3.7+ saves status as Integer
+                                actualStatus = String.valueOf((Object) session.get(statusSaveKey));
+                            } else {
+                                actualStatus = "<STATUS NOT FOUND>";
+                            }
 
-        String checksJson = test.getResponseChecks();
-        if (checksJson != null && !checksJson.isEmpty()) {
-            try {
-                List<ResponseCheck> checks = new ObjectMapper().readValue(checksJson, new TypeReference<>() {});
-
-                // Initialize check reports list in session for the first check
-                loggingActions.add(exec(session -> session.set(CHECK_REPORTS_KEY, new ArrayList<CheckReport>())));
-
-                for (ResponseCheck responseCheck : checks) {
-                    // This is a deep copy. Critical for concurrent runs.
-                    final ResponseCheck currentCheck = new ResponseCheck(responseCheck);
-
-                    switch (currentCheck.getType()) {
-                        case STATUS: {
-                            statusCheckExists = true;
-                            // Status check in Gatling is special, it doesn't use a regular extractor.
-                            // We save the status and check it in a subsequent action.
-                            String statusSaveKey = "response_status_" + currentCheck.hashCode();
-                            checkBuilders.add(status().saveAs(statusSaveKey));
-
-                            loggingActions.add(exec(session -> {
-                                CheckReport checkReport = new CheckReport();
-                                checkReport.setType(currentCheck.getType());
-                                checkReport.setOperator(currentCheck.getOperator());
-                                checkReport.setExpect(currentCheck.getExpect());
-
-                                try {
-                                    String actualStatus;
-                                    if (session.contains(statusSaveKey)) {
-                                        // Gatling 3.7+ saves status as Integer
-                                        Object statusObj = session.get(statusSaveKey);
-                                        actualStatus = String.valueOf(statusObj);
-                                    } else {
-                                        actualStatus = "<STATUS NOT FOUND>";
-                                    }
-                                    
-                                    checkReport.setActual(actualStatus);
-
-                                    boolean checkPassed = evaluateOperator(currentCheck.getOperator(), actualStatus, currentCheck.getExpect());
-                                    checkReport.setPassed(checkPassed);
-
-                                    if (!checkPassed) {
-                                        System.out.println(String.format("CHECK_FAIL|%s|%s|%s|expected:%s|actual:%s",
-                                                test.getTcid(), "STATUS", currentCheck.getOperator().toString(), currentCheck.getExpect(), actualStatus));
-                                    } else {
-                                         System.out.println(String.format("CHECK_PASS|%s|%s|%s|expected:%s|actual:%s",
-                                                test.getTcid(), "STATUS", currentCheck.getOperator().toString(), currentCheck.getExpect(), actualStatus));
-                                    }
-
-                                    // Add to session for reporting
-                                    session.getList(CHECK_REPORTS_KEY).add(checkReport);
-                                    return session.remove(statusSaveKey);
-                                } catch (Exception e) {
-                                    System.err.println("[ERROR] Exception in STATUS check: " + e.getMessage());
-                                    checkReport.setActual("ERROR: " + e.getMessage());
-                                    checkReport.setPassed(false);
-                                    session.getList(CHECK_REPORTS_KEY).add(checkReport);
-                                    return session;
-                                }
-                            }));
-                            break;
-                        }
-                        case JSON_PATH:
-                        case XPATH:
-                        case REGEX: {
-                            String saveAsKey = (currentCheck.getSaveAs() != null && !currentCheck.getSaveAs().isBlank())
-                                ? currentCheck.getSaveAs() : "temp_check_var_" + currentCheck.hashCode();
-
-                            CheckBuilder extractor = switch (currentCheck.getType()) {
-                                case JSON_PATH: yield jsonPath(currentCheck.getExpression()).saveAs(saveAsKey);
-                                case XPATH: yield xpath(currentCheck.getExpression()).saveAs(saveAsKey);
-                                case REGEX: yield regex(currentCheck.getExpression()).saveAs(saveAsKey);
-                                default: throw new IllegalStateException("Unexpected value: " + currentCheck.getType());
-                            };
-                            checkBuilders.add(extractor);
-
-                            loggingActions.add(exec(session -> {
-                                CheckReport checkReport = new CheckReport();
-                                checkReport.setType(currentCheck.getType());
-                                checkReport.setExpression(currentCheck.getExpression());
-                                checkReport.setOperator(currentCheck.getOperator());
-                                checkReport.setExpect(currentCheck.getExpect());
-
-                                String actualValue;
-                                if (session.contains(saveAsKey)) {
-                                    actualValue = convertToString(session.get(saveAsKey));
-                                } else {
-                                    actualValue = "Path not found";
-                                }
-                                checkReport.setActual(actualValue);
-                                
-                                boolean checkPassed = evaluateOperator(currentCheck.getOperator(), actualValue, currentCheck.getExpect());
-                                checkReport.setPassed(checkPassed);
+                            CheckReport checkReport = currentCheck.report(actualStatus);
+                            checkReport.setExpression(null);
+                            boolean checkPassed = checkReport.isPassed();
 
-                                if (!checkPassed) {
-                                    System.out.println(String.format("CHECK_FAIL|%s|%s|%s|expected:%s|actual:%s",
-                                            test.getTcid(), currentCheck.getExpression(), currentCheck.getOperator().toString(), currentCheck.getExpect(), actualValue));
-                                } else {
-                                    System.out.println(String.format("CHECK_PASS|%s|%s|%s|expected:%s|actual:%s",
+                            logCheck(test.getTcid(), currentCheck.getType(), "STATUS", currentCheck.getOperator().toString(),
+                                    currentCheck.getExpect(), actualStatus, checkPassed,
+                                    String.format("%s|%s|%s|%s|expected:%s|actual:%s", checkPassed ? "CHECK_PASS" : "CHECK_FAIL",
+                                            test.getTcid(), "STATUS", currentCheck.getOperator().toString(), currentCheck.getExpect(), actualStatus));
+
+                            // Add to session for reporting
+                            session.getList(CHECK_REPORTS_KEY).add(checkReport);
+                            return session.remove(statusSaveKey);
+                        })));
+                        break;
+                    }
+                    case JSON_PATH:
+                    case XPATH:
+                    case REGEX: {
+                        String saveAsKey = currentCheck.getSaveAs() != null
+                            ? currentCheck.getSaveAs() : "temp_check_var_" + currentCheck.getIndex();
+
+                        CheckBuilder extractor = switch (currentCheck.getType()) {
+                            case JSON_PATH: yield jsonPath(currentCheck.getExpression()).saveAs(saveAsKey);
+                            case XPATH: yield xpath(currentCheck.getExpression()).saveAs(saveAsKey);
+                            case REGEX: yield regex(currentCheck.getExpression()).saveAs(saveAsKey);
+                            default: throw new IllegalStateException("Unexpected value: " + currentCheck.getType());
+                        };
+                        checkBuilders.add(extractor);
+
+                        loggingActions.add(exec(HotPathProbes.timed(test.getTcid(), HotPathProbes.Stage.CHECKS, session -> {
+                            String actualValue;
+                            if (session.contains(saveAsKey)) {
+                                actualValue = convertToString(session.get(saveAsKey));
+                            } else {
+                                actualValue = "Path not found";
+                            }
+
+                            CheckReport checkReport = currentCheck.report(actualValue);
+                            boolean checkPassed = checkReport.isPassed();
+
+                            logCheck(test.getTcid(), currentCheck.getType(), currentCheck.getExpression(), currentCheck.getOperator().toString(),
+                                    currentCheck.getExpect(), actualValue, checkPassed,
+                                    String.format("%s|%s|%s|%s|expected:%s|actual:%s", checkPassed ? "CHECK_PASS" : "CHECK_FAIL",
                                             test.getTcid(), currentCheck.getExpression(), currentCheck.getOperator().toString(), currentCheck.getExpect(), actualValue));
-                                }
 
-                                // Add to session for reporting
-                                session.getList(CHECK_REPORTS_KEY).add(checkReport);
+                            // Add to session for reporting
+                            session.getList(CHECK_REPORTS_KEY).add(checkReport);
 
-                                // 如果设置了saveAs，则将值保存到TestRunContext中
-                                if (currentCheck.getSaveAs() != null && !currentCheck.getSaveAs().isBlank()) {
-                                    TestRunContext.saveVariable(test.getTcid(), currentCheck.getSaveAs(), actualValue);
+                            // 如果设置了saveAs，则将值保存到TestRunContext中
+                            if (currentCheck.getSaveAs() != null) {
+                                TestRunContext.saveVariable(session, test.getTcid(), currentCheck.getSaveAs(), actualValue);
+                                return session;
+                            }
+                            return session.remove(saveAsKey);
+                        })));
+                        break;
+                    }
+                    case DIFF: {
+                        // Defer DIFF processing until after reference requests
+                        diffChecks.add(currentCheck);
+                        break;
+                    }
+                    case PRE_CHECK: {
+                        // Defer PRE_CHECK processing until after reference requests
+                        preChecks.add(currentCheck);
+                        break;
+                    }
+                    case PST_CHECK: {
+                        // Defer PST_CHECK processing until after reference requests
+                        pstChecks.add(currentCheck);
+                        break;
+                    }
+                    case DB: {
+                        // Handle database check: the query runs on the DB check executor, the virtual user waits
+                        // for it with non-blocking pauses (see DbCheckExecutor)
+                        final String futureKey = "db_check_" + currentCheck.getIndex();
+                        final String sqlKey = "db_check_sql_" + currentCheck.getIndex();
+                        loggingActions.add(exec(HotPathProbes.timed(test.getTcid(), HotPathProbes.Stage.DB_CHECK, session -> {
+                            try {
+                                if (currentCheck.getDbConnection() == null) {
+                                    throw new RuntimeException("DB Connection alias not found: " + currentCheck.getDbAlias());
                                 }
 
-                                if (saveAsKey.startsWith("temp_check_var_")) {
-                                    return session.remove(saveAsKey);
-                                }
-                                return session;
-                            }));
-                            break;
-                        }
-                        case DIFF: {
-                            // Defer DIFF processing until after reference requests
-                            diffChecks.add(currentCheck);
-                            break;
-                        }
-                        case PRE_CHECK: {
-                            // Defer PRE_CHECK processing until after reference requests
-                            preChecks.add(currentCheck);
-                            break;
-                        }
-                        case PST_CHECK: {
-                            // Defer PST_CHECK processing until after reference requests
-                            pstChecks.add(currentCheck);
-                            break;
-                        }
-                        case DB: {
-                            // Handle database check
-                            loggingActions.add(exec(session -> {
-                                CheckReport checkReport = new CheckReport();
-                                checkReport.setType(currentCheck.getType());
-                                checkReport.setOperator(currentCheck.getOperator());
-                                checkReport.setExpect(currentCheck.getExpect());
-                                
-                                String actualValue = null;
-                                boolean checkPassed = false;
-                                
-                                try {
-                                    String alias, sql, column;
-
-                                    // Prioritize new dedicated fields, but fall back to parsing the old expression field
-                                    if (currentCheck.getDbAlias() != null && !currentCheck.getDbAlias().isBlank()) {
-                                        alias = currentCheck.getDbAlias();
-                                        sql = currentCheck.getDbSql();
-                                        column = currentCheck.getDbColumn();
-                                    } else {
-                                        // Backward compatibility for old format stored in the expression field
-                                        GatlingScenarioSimulation.DbCheckInfo checkInfo = new ObjectMapper().readValue(currentCheck.getExpression(), GatlingScenarioSimulation.DbCheckInfo.class);
-                                        alias = checkInfo.getAlias();
-                                        sql = checkInfo.getSql();
-                                        column = checkInfo.getColumn();
-                                    }
-
-                                    // For reporting purposes, create a unified JSON expression from the DB details.
-                                    Map<String, String> dbInfoForReport = new HashMap<>();
-                                    dbInfoForReport.put("alias", alias);
-                                    dbInfoForReport.put("sql", sql);
-                                    dbInfoForReport.put("column", column);
-                                    checkReport.setExpression(new ObjectMapper().writeValueAsString(dbInfoForReport));
-
-                                    Integer envIdForConn = com.qa.app.service.EnvironmentContext.getCurrentEnvironmentId();
-                                    DbConnection connConfig = dbConnectionService.findByAliasAndEnv(alias, envIdForConn);
-                                    if (connConfig == null) { // Fallback to env-agnostic for backward compatibility
-                                        connConfig = dbConnectionService.findByAlias(alias);
-                                    }
-                                    if (connConfig == null) {
-                                        throw new RuntimeException("DB Connection alias not found: " + alias);
-                                    }
-
-                                    // Process variables in SQL
-                                    String processedSql = TestRunContext.processVariableReferences(sql);
-                                    Map<String, String> allDynamicVars = new HashMap<>();
-                                    if (test.getEndpointDynamicVariables() != null) allDynamicVars.putAll(test.getEndpointDynamicVariables());
-                                    if (test.getHeadersDynamicVariables() != null) allDynamicVars.putAll(test.getHeadersDynamicVariables());
-                                    if (test.getBodyDynamicVariables() != null) allDynamicVars.putAll(test.getBodyDynamicVariables());
-                                    String finalSql = RuntimeTemplateProcessor.render(processedSql, allDynamicVars);
-
-                                    DataSource ds = DataSourceRegistry.get(connConfig);
-
-                                    try (Connection conn = ds.getConnection();
-                                         PreparedStatement ps = conn.prepareStatement(finalSql)) {
-                                        ResultSet rs = ps.executeQuery();
-                                        if (rs.next()) {
-                                            actualValue = rs.getString(column);
-                                        }
-                                    }
-
-                                    checkPassed = evaluateOperator(currentCheck.getOperator(), actualValue, currentCheck.getExpect());
-                                    
-                                    if (!checkPassed) {
-                                        if (!currentCheck.isOptional()) {
-                                             System.out.println(String.format("CHECK_FAIL|%s|DB|%s|expected:%s|actual:%s",
-                                                test.getTcid(), finalSql, currentCheck.getExpect(), actualValue));
-                                        }
-                                    } else {
-                                        System.out.println(String.format("CHECK_PASS|%s|DB|%s|expected:%s|actual:%s",
+                                // Process variables in SQL
+                                String processedSql = TestRunContext.processVariableReferences(session, currentCheck.getDbSql());
+                                String finalSql = RuntimeTemplateProcessor.render(test.getTcid(), session, processedSql, allDynamicVars);
+                                return session.set(futureKey, DbCheckExecutor.submit(currentCheck.getDbConnection(), finalSql, currentCheck.getDbColumn()))
+                                        .set(sqlKey, finalSql);
+                            } catch (Exception e) {
+                                return session.set(futureKey, CompletableFuture.failedFuture(e));
+                            }
+                        })));
+                        loggingActions.add(DbCheckExecutor.await(futureKey));
+                        loggingActions.add(exec(HotPathProbes.timed(test.getTcid(), HotPathProbes.Stage.DB_CHECK, session -> {
+                            DbCheckExecutor.Result result = DbCheckExecutor.take(session, futureKey);
+                            String actualValue = result.value();
+                            String finalSql = session.contains(sqlKey) ? session.getString(sqlKey) : null;
+
+                            if (result.failed()) {
+                                Throwable e = result.error();
+                                System.err.println("[ERROR] Exception in DB check: " + e.getMessage());
+                                actualValue = "ERROR: " + e.getMessage();
+                                finalSql = null;
+                            } else if (currentCheck.getSaveAs() != null) {
+                                // Save result if specified
+                                TestRunContext.saveVariable(session, test.getTcid(), currentCheck.getSaveAs(), actualValue);
+                            }
+
+                            CheckReport checkReport = currentCheck.report(actualValue);
+                            if (finalSql == null) {
+                                checkReport.setPassed(false);
+                            }
+                            if (result.queueWaitMs() >= 0) {
+                                checkReport.setQueueWaitMs(result.queueWaitMs());
+                                checkReport.setExecutionMs(result.executionMs());
+                            }
+                            boolean checkPassed = checkReport.isPassed();
+                            if (finalSql != null && (checkPassed || !currentCheck.isOptional())) {
+                                logCheck(test.getTcid(), CheckType.DB, finalSql, currentCheck.getOperator().toString(),
+                                        currentCheck.getExpect(), actualValue, checkPassed,
+                                        String.format("%s|%s|DB|%s|expected:%s|actual:%s", checkPassed ? "CHECK_PASS" : "CHECK_FAIL",
                                                 test.getTcid(), finalSql, currentCheck.getExpect(), actualValue));
-                                    }
-                                    
-                                    // Save result if specified
-                                    if (currentCheck.getSaveAs() != null && !currentCheck.getSaveAs().isBlank()) {
-                                        TestRunContext.saveVariable(test.getTcid(), currentCheck.getSaveAs(), actualValue);
-                                    }
-                                } catch (Exception e) {
-                                    System.err.println("[ERROR] Exception in DB check: " + e.getMessage());
-                                    actualValue = "ERROR: " + e.getMessage();
-                                    checkPassed = false;
-                                }
+                            }
 
-                                checkReport.setActual(actualValue);
-                                checkReport.setPassed(checkPassed);
-                                
-                                // Add to session for reporting
-                                session.getList(CHECK_REPORTS_KEY).add(checkReport);
-                                return session;
-                            }));
-                            break;
-                        }
+                            // Add to session for reporting
+                            session.getList(CHECK_REPORTS_KEY).add(checkReport);
+                            return session.remove(futureKey).remove(sqlKey);
+                        })));
+                        break;
                     }
+                    default:
+                        break;
                 }
-            } catch (Exception e) {
-                System.err.println("Failed to parse responseChecks: " + e.getMessage());
             }
         }
 
@@ -664,22 +644,19 @@ public class GatlingTestSimulation extends Simulation {
             request = request.check(status().is(200));
         }
 
-        // Add checks to save response metadata for reporting
+        // Add checks to save response metadata for reporting; body and headers follow the capture policy
         request = request.check(
-            bodyString().saveAs("responseBody"),
             responseTimeInMillis().saveAs("latencyMs"),
             bodyLength().saveAs("sizeBytes")
         );
+        final ResponseCapturePolicy capture = ResponseCapturePolicy.resolve(
+                test.getResponseCapture(), params.getResponseCapture(), defaultCapture);
 
-        // Capture selected response headers
-        for (String headerName : RESPONSE_HEADERS_TO_CAPTURE) {
-            String sessionKey = "respHeader_" + headerName.replace("-", "_");
-            request = request.check(header(headerName).optional().saveAs(sessionKey));
-        }
+        final boolean hasEvalChecks = !diffChecks.isEmpty() || !preChecks.isEmpty() || !pstChecks.isEmpty();
 
         // ** REPORTING LOGIC **
         // This chain is executed AFTER the request is complete.
-        ChainBuilder reportingChain = exec(session -> {
+        ChainBuilder reportingChain = exec(HotPathProbes.timed(test.getTcid(), HotPathProbes.Stage.REPORT, session -> {
             RequestReport report = new RequestReport();
             report.setRequestName(requestName);
 
@@ -689,12 +666,12 @@ public class GatlingTestSimulation extends Simulation {
             requestInfo.setUrl(resolvedUrl);
 
             // Re-process templates to get the resolved values for the report
-            String finalHeaders = RuntimeTemplateProcessor.render(test.getHeaders(), test.getHeadersDynamicVariables());
+            String finalHeaders = RuntimeTemplateProcessor.render(test.getTcid(), session, test.getHeaders(), test.getHeadersDynamicVariables());
             Map<String, String> finalHeadersMap = parseHeaders(finalHeaders);
             requestInfo.setHeaders(finalHeadersMap);
 
             if (test.getBody() != null && !test.getBody().trim().isEmpty()) {
-                String finalBody = RuntimeTemplateProcessor.render(test.getBody(), test.getBodyDynamicVariables());
+                String finalBody = RuntimeTemplateProcessor.render(test.getTcid(), session, test.getBody(), test.getBodyDynamicVariables());
                 requestInfo.setBody(finalBody);
             }
             report.setRequest(requestInfo);
@@ -754,8 +731,14 @@ public class GatlingTestSimulation extends Simulation {
             report.setStatus(String.valueOf(responseInfo.getStatus()));
 
 
-            // 5. Add the completed report to the main case report
-            caseReports.get(reportKey).getItems().add(report);
+            // 5. Add the completed report to the main case report. With DIFF / PRE / PST checks the report is
+            // completed by the evaluation chain, so it is parked in the session until then.
+            if (hasEvalChecks) {
+                session = session.set(MAIN_REPORT_KEY, report);
+            } else {
+                reportCase.add(report);
+            }
+            RunEventChannel.requestCompleted(requestName, responseInfo.getLatencyMs(), allChecksPassed);
 
             // Clear the check reports for the next request in the chain
             io.gatling.javaapi.core.Session cleaned = session.remove(CHECK_REPORTS_KEY)
@@ -766,10 +749,10 @@ public class GatlingTestSimulation extends Simulation {
                 cleaned = cleaned.remove("respHeader_" + headerName.replace("-", "_"));
             }
             return cleaned;
-        });
+        }));
 
         // Main request chain
-        ChainBuilder mainChain = exec(request).exec(loggingActions).exec(reportingChain);
+        ChainBuilder mainChain = execCapturing(request, capture).exec(loggingActions).exec(reportingChain);
 
         // If no DIFF checks, return main chain directly
         if (diffChecks.isEmpty() && preChecks.isEmpty() && pstChecks.isEmpty()) {
@@ -782,16 +765,16 @@ public class GatlingTestSimulation extends Simulation {
         ChainBuilder beforeChain = exec(session -> session); // no-op starter
 
         // Group diff checks by reference TCID to avoid duplicate BEFORE requests
-        java.util.Map<String, java.util.List<ResponseCheck>> diffGroupsBefore = diffChecks.stream()
+        java.util.Map<String, java.util.List<CheckPlan.Check>> diffGroupsBefore = diffChecks.stream()
                 .filter(dc -> dc.getExpression() != null && dc.getExpression().contains("."))
                 .collect(Collectors.groupingBy(
                         dc -> dc.getExpression().substring(0, dc.getExpression().indexOf('.')),
                         java.util.LinkedHashMap::new,
                         Collectors.toList()));
 
-        for (java.util.Map.Entry<String, java.util.List<ResponseCheck>> entry : diffGroupsBefore.entrySet()) {
+        for (java.util.Map.Entry<String, java.util.List<CheckPlan.Check>> entry : diffGroupsBefore.entrySet()) {
             String refTcid = entry.getKey();
-            java.util.List<ResponseCheck> dcList = entry.getValue();
+            java.util.List<CheckPlan.Check> dcList = entry.getValue();
 
             // Locate reference endpoint (try batch first, then DB)
             Endpoint refEndpoint = null;
@@ -802,9 +785,6 @@ public class GatlingTestSimulation extends Simulation {
                 }
             }
             final GatlingTest refTest = findRefTestByTcid(refTcid);
-            if (refTest != null) {
-                enrichRefTestTemplates(refTest);
-            }
             if (refTest != null) {
                 refEndpoint = findEndpointForTest(refTest, endpoint);
             }
@@ -832,86 +812,54 @@ public class GatlingTestSimulation extends Simulation {
                 java.util.Map<String, String> headersMapBefore = parseHeaders(refTest.getHeaders());
                 for (java.util.Map.Entry<String, String> headerEntry : headersMapBefore.entrySet()) {
                     refReq = refReq.header(headerEntry.getKey(), session ->
-                            RuntimeTemplateProcessor.render(headerEntry.getValue(), refTest.getHeadersDynamicVariables()));
+                            RuntimeTemplateProcessor.render(test.getTcid(), session, headerEntry.getValue(), refTest.getHeadersDynamicVariables()));
                 }
                 if (refTest.getBody() != null && !refTest.getBody().trim().isEmpty()) {
                     refReq = refReq.body(StringBody(session ->
-                            RuntimeTemplateProcessor.render(refTest.getBody(), refTest.getBodyDynamicVariables())));
+                            RuntimeTemplateProcessor.render(test.getTcid(), session, refTest.getBody(), refTest.getBodyDynamicVariables())));
                 }
             }
 
             // Add jsonPath checks for each diff check in this group
-            for (ResponseCheck dc : dcList) {
+            for (CheckPlan.Check dc : dcList) {
                 String path = dc.getExpression().substring(dc.getExpression().indexOf('.') + 1);
-                String saveAsKey = "diff_" + dc.hashCode() + "_PRE";
+                String saveAsKey = "diff_" + dc.getIndex() + "_PRE";
                 refReq = refReq.check(jsonPath(path).saveAs(saveAsKey));
             }
 
-            // Add original checks from reference test
-            final java.util.List<CheckReport> refBeforeChecks = new java.util.ArrayList<>();
-            if (refTest != null && refTest.getResponseChecks() != null && !refTest.getResponseChecks().isBlank()) {
-                try {
-                    java.util.List<ResponseCheck> origChecks = new com.fasterxml.jackson.databind.ObjectMapper()
-                            .readValue(refTest.getResponseChecks(), 
-                                    new com.fasterxml.jackson.core.type.TypeReference<java.util.List<ResponseCheck>>() {});
-                    
-                    for (ResponseCheck rc : origChecks) {
-                        final String saveKey = "ref_check_" + rc.hashCode();
-                        switch (rc.getType()) {
-                            case STATUS:
-                                refReq = refReq.check(status().saveAs(saveKey));
-                                break;
-                            case JSON_PATH:
-                                refReq = refReq.check(jsonPath(rc.getExpression()).saveAs(saveKey));
-                                break;
-                            case XPATH:
-                                refReq = refReq.check(xpath(rc.getExpression()).saveAs(saveKey));
-                                break;
-                            case REGEX:
-                                refReq = refReq.check(regex(rc.getExpression()).saveAs(saveKey));
-                                break;
-                            default:
-                                continue;
-                        }
-                        
-                        // Create a check report with all data except actual value (filled later)
-                        CheckReport cr = new CheckReport();
-                        cr.setType(rc.getType());
-                        cr.setExpression(rc.getExpression());
-                        cr.setOperator(rc.getOperator());
-                        cr.setExpect(rc.getExpect());
-                        // Store the session key with the report so we can get the actual value later
-                        cr.setActual(saveKey); // Temporarily store the key here
-                        refBeforeChecks.add(cr);
-                    }
-                } catch (Exception ignored) {}
+            // Add original checks from reference test; compiled once, a report is built per execution
+            final java.util.List<CheckPlan.Check> refBeforeChecks = refTest != null
+                    ? CheckPlan.compile(refTcid, refTest.getResponseChecks(), null).getResponseChecks()
+                    : java.util.Collections.emptyList();
+            for (CheckPlan.Check rc : refBeforeChecks) {
+                final String saveKey = "ref_check_" + refTcid + "_" + rc.getIndex();
+                switch (rc.getType()) {
+                    case STATUS:
+                        refReq = refReq.check(status().saveAs(saveKey));
+                        break;
+                    case JSON_PATH:
+                        refReq = refReq.check(jsonPath(rc.getExpression()).saveAs(saveKey));
+                        break;
+                    case XPATH:
+                        refReq = refReq.check(xpath(rc.getExpression()).saveAs(saveKey));
+                        break;
+                    case REGEX:
+                        refReq = refReq.check(regex(rc.getExpression()).saveAs(saveKey));
+                        break;
+                }
             }
 
             // Always capture status and basic metrics once per request
             refReq = refReq.check(
                     status().is(200),
-                    bodyString().saveAs("responseBody"),
                     responseTimeInMillis().saveAs("latencyMs"),
                     bodyLength().saveAs("sizeBytes")
             );
-            for (String headerName : RESPONSE_HEADERS_TO_CAPTURE) {
-                String sessionKey = "respHeader_" + headerName.replace("-", "_");
-                refReq = refReq.check(header(headerName).optional().saveAs(sessionKey));
-            }
 
             // Reporting & variable saving
-            ChainBuilder refReporting = exec(s -> {
-                String mainTcid = test.getTcid();
-                String refRequestReportKey = mainTcid + "|" + refTcid + "|DIFF_PRE";
-
-                // Create a new CaseReport for this reference request
-                CaseReport refCaseReport = caseReports.computeIfAbsent(refRequestReportKey, k -> {
-                    CaseReport cr = new CaseReport();
-                    cr.setTcid(refTcid);
-                    cr.setItems(Collections.synchronizedList(new ArrayList<>()));
-                    return cr;
-                });
-
+            // Case report for this reference request, attributed to the main test
+            final RequestReportSink.Case refCase = reportSink.open(test.getTcid(), refTcid, "DIFF_PRE");
+            ChainBuilder refReporting = exec(HotPathProbes.timed(test.getTcid(), HotPathProbes.Stage.REPORT, s -> {
                 RequestReport rpt = new RequestReport();
                 rpt.setRequestName(refName);
 
@@ -920,12 +868,12 @@ public class GatlingTestSimulation extends Simulation {
                 reqInfo.setUrl(refUrl);
                 java.util.Map<String, String> finalHeadersMap = new java.util.HashMap<>();
                 if (refTest != null && refTest.getHeaders() != null && !refTest.getHeaders().isEmpty()) {
-                    String finalHeaders = RuntimeTemplateProcessor.render(refTest.getHeaders(), refTest.getHeadersDynamicVariables());
+                    String finalHeaders = RuntimeTemplateProcessor.render(test.getTcid(), s, refTest.getHeaders(), refTest.getHeadersDynamicVariables());
                     finalHeadersMap = parseHeaders(finalHeaders);
                 }
                 reqInfo.setHeaders(finalHeadersMap);
                 if (refTest != null && refTest.getBody() != null && !refTest.getBody().trim().isEmpty()) {
-                    String finalBody = RuntimeTemplateProcessor.render(refTest.getBody(), refTest.getBodyDynamicVariables());
+                    String finalBody = RuntimeTemplateProcessor.render(test.getTcid(), s, refTest.getBody(), refTest.getBodyDynamicVariables());
                     reqInfo.setBody(finalBody);
                 } else {
                     reqInfo.setBody("{}");
@@ -955,32 +903,28 @@ public class GatlingTestSimulation extends Simulation {
                 
                 // Process the check reports and fill in actual values
                 java.util.List<CheckReport> finalChecks = new java.util.ArrayList<>();
-                for (CheckReport cr : refBeforeChecks) {
-                    String saveKey = cr.getActual(); // The key was stored in the actual field
+                for (CheckPlan.Check rc : refBeforeChecks) {
+                    String saveKey = "ref_check_" + refTcid + "_" + rc.getIndex();
                     String actualValue = "<NOT FOUND>";
                     if (s.contains(saveKey)) {
                         actualValue = convertToString(s.get(saveKey));
                         // Remove the key from session
                         s = s.remove(saveKey);
                     }
-                    
-                    cr.setActual(actualValue);
-                    boolean passed = evaluateOperator(cr.getOperator(), actualValue, cr.getExpect());
-                    cr.setPassed(passed);
-                    finalChecks.add(cr);
+                    finalChecks.add(rc.report(actualValue));
                 }
                 
                 rpt.setChecks(finalChecks);
                 rpt.setPassed(true);
                 rpt.setStatus("200");
-                refCaseReport.getItems().add(rpt);
+                refCase.add(rpt);
 
                 // Save extracted values to TestRunContext
-                for (ResponseCheck dcInner : dcList) {
-                    String key = "diff_" + dcInner.hashCode() + "_PRE";
+                for (CheckPlan.Check dcInner : dcList) {
+                    String key = "diff_" + dcInner.getIndex() + "_PRE";
                     if (s.contains(key)) {
                         Object val = s.get(key);
-                        TestRunContext.saveBefore(dcInner.getExpression(), String.valueOf(val));
+                        TestRunContext.saveBefore(s, dcInner.getExpression(), String.valueOf(val));
                         s = s.remove(key);
                     }
                 }
@@ -992,25 +936,25 @@ public class GatlingTestSimulation extends Simulation {
                 }
 
                 return s;
-            });
+            }));
 
-            beforeChain = beforeChain.exec(refReq).exec(refReporting);
+            beforeChain = beforeChain.exec(execCapturing(refReq, capture)).exec(refReporting);
         }
 
         // =====================
         // Build PRE_CHECK reference request(s)
         // =====================
         // Group PRE_CHECK checks by reference TCID to avoid duplicate reference requests
-        java.util.Map<String, java.util.List<ResponseCheck>> preCheckGroups = preChecks.stream()
+        java.util.Map<String, java.util.List<CheckPlan.Check>> preCheckGroups = preChecks.stream()
                 .filter(pc -> pc.getExpression() != null && pc.getExpression().contains("."))
                 .collect(Collectors.groupingBy(
                         pc -> pc.getExpression().substring(0, pc.getExpression().indexOf('.')),
                         java.util.LinkedHashMap::new,
                         Collectors.toList()));
 
-        for (java.util.Map.Entry<String, java.util.List<ResponseCheck>> entry : preCheckGroups.entrySet()) {
+        for (java.util.Map.Entry<String, java.util.List<CheckPlan.Check>> entry : preCheckGroups.entrySet()) {
             String refTcid = entry.getKey();
-            java.util.List<ResponseCheck> pcList = entry.getValue();
+            java.util.List<CheckPlan.Check> pcList = entry.getValue();
 
             // Locate reference endpoint (try batch first, then DB)
             Endpoint refEndpoint = null;
@@ -1021,9 +965,6 @@ public class GatlingTestSimulation extends Simulation {
                 }
             }
             final GatlingTest refTest = findRefTestByTcid(refTcid);
-            if (refTest != null) {
-                enrichRefTestTemplates(refTest);
-            }
             if (refTest != null) {
                 refEndpoint = findEndpointForTest(refTest, endpoint);
             }
@@ -1051,84 +992,54 @@ public class GatlingTestSimulation extends Simulation {
                 java.util.Map<String, String> headersMap = parseHeaders(refTest.getHeaders());
                 for (java.util.Map.Entry<String, String> headerEntry : headersMap.entrySet()) {
                     refReq = refReq.header(headerEntry.getKey(), session ->
-                            RuntimeTemplateProcessor.render(headerEntry.getValue(), refTest.getHeadersDynamicVariables()));
+                            RuntimeTemplateProcessor.render(test.getTcid(), session, headerEntry.getValue(), refTest.getHeadersDynamicVariables()));
                 }
                 if (refTest.getBody() != null && !refTest.getBody().trim().isEmpty()) {
                     refReq = refReq.body(StringBody(session ->
-                            RuntimeTemplateProcessor.render(refTest.getBody(), refTest.getBodyDynamicVariables())));
+                            RuntimeTemplateProcessor.render(test.getTcid(), session, refTest.getBody(), refTest.getBodyDynamicVariables())));
                 }
             }
 
             // Add jsonPath checks for each PRE_CHECK in this group
-            for (ResponseCheck pc : pcList) {
+            for (CheckPlan.Check pc : pcList) {
                 String path = pc.getExpression().substring(pc.getExpression().indexOf('.') + 1);
-                String saveAsKey = "pre_check_" + pc.hashCode();
+                String saveAsKey = "pre_check_" + pc.getIndex();
                 refReq = refReq.check(jsonPath(path).saveAs(saveAsKey));
             }
 
-            // Add original checks from reference test
-            final java.util.List<CheckReport> refPreChecks = new java.util.ArrayList<>();
-            if (refTest != null && refTest.getResponseChecks() != null && !refTest.getResponseChecks().isBlank()) {
-                try {
-                    java.util.List<ResponseCheck> origChecks = new com.fasterxml.jackson.databind.ObjectMapper()
-                            .readValue(refTest.getResponseChecks(),
-                                    new com.fasterxml.jackson.core.type.TypeReference<java.util.List<ResponseCheck>>() {});
-
-                    for (ResponseCheck rc : origChecks) {
-                        final String saveKey = "ref_pre_check_orig_" + rc.hashCode();
-                        switch (rc.getType()) {
-                            case STATUS:
-                                refReq = refReq.check(status().saveAs(saveKey));
-                                break;
-                            case JSON_PATH:
-                                refReq = refReq.check(jsonPath(rc.getExpression()).saveAs(saveKey));
-                                break;
-                            case XPATH:
-                                refReq = refReq.check(xpath(rc.getExpression()).saveAs(saveKey));
-                                break;
-                            case REGEX:
-                                refReq = refReq.check(regex(rc.getExpression()).saveAs(saveKey));
-                                break;
-                            default:
-                                continue;
-                        }
-
-                        CheckReport cr = new CheckReport();
-                        cr.setType(rc.getType());
-                        cr.setExpression(rc.getExpression());
-                        cr.setOperator(rc.getOperator());
-                        cr.setExpect(rc.getExpect());
-                        cr.setActual(saveKey); // Temporarily store the key
-                        refPreChecks.add(cr);
-                    }
-                } catch (Exception ignored) {}
+            // Add original checks from reference test; compiled once, a report is built per execution
+            final java.util.List<CheckPlan.Check> refPreChecks = refTest != null
+                    ? CheckPlan.compile(refTcid, refTest.getResponseChecks(), null).getResponseChecks()
+                    : java.util.Collections.emptyList();
+            for (CheckPlan.Check rc : refPreChecks) {
+                final String saveKey = "ref_pre_check_orig_" + refTcid + "_" + rc.getIndex();
+                switch (rc.getType()) {
+                    case STATUS:
+                        refReq = refReq.check(status().saveAs(saveKey));
+                        break;
+                    case JSON_PATH:
+                        refReq = refReq.check(jsonPath(rc.getExpression()).saveAs(saveKey));
+                        break;
+                    case XPATH:
+                        refReq = refReq.check(xpath(rc.getExpression()).saveAs(saveKey));
+                        break;
+                    case REGEX:
+                        refReq = refReq.check(regex(rc.getExpression()).saveAs(saveKey));
+                        break;
+                }
             }
 
             // Always capture status and basic metrics
             refReq = refReq.check(
                     status().is(200),
-                    bodyString().saveAs("responseBody"),
                     responseTimeInMillis().saveAs("latencyMs"),
                     bodyLength().saveAs("sizeBytes")
             );
-            for (String headerName : RESPONSE_HEADERS_TO_CAPTURE) {
-                String sessionKey = "respHeader_" + headerName.replace("-", "_");
-                refReq = refReq.check(header(headerName).optional().saveAs(sessionKey));
-            }
 
             // Reporting & variable saving
-            ChainBuilder refReporting = exec(s -> {
-                String mainTcid = test.getTcid();
-                String refRequestReportKey = mainTcid + "|" + refTcid + "|PRE_CHECK";
-
-                // Create a new CaseReport for this reference request
-                CaseReport refCaseReport = caseReports.computeIfAbsent(refRequestReportKey, k -> {
-                    CaseReport cr = new CaseReport();
-                    cr.setTcid(refTcid);
-                    cr.setItems(Collections.synchronizedList(new ArrayList<>()));
-                    return cr;
-                });
-                
+            // Case report for this reference request, attributed to the main test
+            final RequestReportSink.Case refCase = reportSink.open(test.getTcid(), refTcid, "PRE_CHECK");
+            ChainBuilder refReporting = exec(HotPathProbes.timed(test.getTcid(), HotPathProbes.Stage.REPORT, s -> {
                 RequestReport rpt = new RequestReport();
                 rpt.setRequestName(refName);
 
@@ -1137,12 +1048,12 @@ public class GatlingTestSimulation extends Simulation {
                 reqInfo.setUrl(refUrl);
                 java.util.Map<String, String> finalHeadersMap = new java.util.HashMap<>();
                 if (refTest != null && refTest.getHeaders() != null && !refTest.getHeaders().isEmpty()) {
-                    String finalHeaders = RuntimeTemplateProcessor.render(refTest.getHeaders(), refTest.getHeadersDynamicVariables());
+                    String finalHeaders = RuntimeTemplateProcessor.render(test.getTcid(), s, refTest.getHeaders(), refTest.getHeadersDynamicVariables());
                     finalHeadersMap = parseHeaders(finalHeaders);
                 }
                 reqInfo.setHeaders(finalHeadersMap);
                 if (refTest != null && refTest.getBody() != null && !refTest.getBody().trim().isEmpty()) {
-                    String finalBody = RuntimeTemplateProcessor.render(refTest.getBody(), refTest.getBodyDynamicVariables());
+                    String finalBody = RuntimeTemplateProcessor.render(test.getTcid(), s, refTest.getBody(), refTest.getBodyDynamicVariables());
                     reqInfo.setBody(finalBody);
                 } else {
                     reqInfo.setBody("{}");
@@ -1172,18 +1083,14 @@ public class GatlingTestSimulation extends Simulation {
 
                 // Process the check reports and fill in actual values
                 java.util.List<CheckReport> finalChecks = new java.util.ArrayList<>();
-                for (CheckReport cr : refPreChecks) {
-                    String saveKey = cr.getActual(); // The key was stored in the actual field
+                for (CheckPlan.Check rc : refPreChecks) {
+                    String saveKey = "ref_pre_check_orig_" + refTcid + "_" + rc.getIndex();
                     String actualValue = "<NOT FOUND>";
                     if (s.contains(saveKey)) {
                         actualValue = convertToString(s.get(saveKey));
                         s = s.remove(saveKey);
                     }
-
-                    cr.setActual(actualValue);
-                    boolean passed = evaluateOperator(cr.getOperator(), actualValue, cr.getExpect());
-                    cr.setPassed(passed);
-                    finalChecks.add(cr);
+                    finalChecks.add(rc.report(actualValue));
                 }
                 rpt.setChecks(finalChecks);
 
@@ -1203,15 +1110,15 @@ public class GatlingTestSimulation extends Simulation {
                         });
                 if (rpt.getStatus() == null) rpt.setStatus(String.valueOf(respInfo.getStatus()));
 
-                refCaseReport.getItems().add(rpt);
+                refCase.add(rpt);
 
                 // Save extracted values to TestRunContext for PRE_CHECK
-                for (ResponseCheck pcInner : pcList) {
-                    String key = "pre_check_" + pcInner.hashCode();
+                for (CheckPlan.Check pcInner : pcList) {
+                    String key = "pre_check_" + pcInner.getIndex();
                     if (s.contains(key)) {
                         Object val = s.get(key);
                         String stringVal = String.valueOf(val);
-                        TestRunContext.savePreCheck(pcInner.getExpression(), stringVal);
+                        TestRunContext.savePreCheck(s, pcInner.getExpression(), stringVal);
                         s = s.remove(key);
                     }
                 }
@@ -1223,9 +1130,9 @@ public class GatlingTestSimulation extends Simulation {
                 }
 
                 return s;
-            });
+            }));
 
-            beforeChain = beforeChain.exec(refReq).exec(refReporting);
+            beforeChain = beforeChain.exec(execCapturing(refReq, capture)).exec(refReporting);
         }
 
         // =====================
@@ -1233,19 +1140,16 @@ public class GatlingTestSimulation extends Simulation {
         // =====================
         ChainBuilder afterChain = exec(session -> session);
 
-        java.util.Map<String, java.util.List<ResponseCheck>> diffGroupsAfter = diffGroupsBefore; // same grouping
-        for (java.util.Map.Entry<String, java.util.List<ResponseCheck>> entry : diffGroupsAfter.entrySet()) {
+        java.util.Map<String, java.util.List<CheckPlan.Check>> diffGroupsAfter = diffGroupsBefore; // same grouping
+        for (java.util.Map.Entry<String, java.util.List<CheckPlan.Check>> entry : diffGroupsAfter.entrySet()) {
             String refTcid = entry.getKey();
-            java.util.List<ResponseCheck> dcList = entry.getValue();
+            java.util.List<CheckPlan.Check> dcList = entry.getValue();
 
             Endpoint refEndpoint = null;
             for (BatchItem bi : batchItems) {
                 if (bi.test != null && refTcid.equals(bi.test.getTcid())) { refEndpoint = bi.endpoint; break; }
             }
             final GatlingTest refTestAfter = findRefTestByTcid(refTcid);
-            if (refTestAfter != null) {
-                enrichRefTestTemplates(refTestAfter);
-            }
             if (refTestAfter != null) {
                 refEndpoint = findEndpointForTest(refTestAfter, endpoint);
             }
@@ -1273,84 +1177,52 @@ public class GatlingTestSimulation extends Simulation {
                 java.util.Map<String, String> headersMapAfter = parseHeaders(refTestAfter.getHeaders());
                 for (java.util.Map.Entry<String, String> headerEntry : headersMapAfter.entrySet()) {
                     refReq = refReq.header(headerEntry.getKey(), session ->
-                            RuntimeTemplateProcessor.render(headerEntry.getValue(), refTestAfter.getHeadersDynamicVariables()));
+                            RuntimeTemplateProcessor.render(test.getTcid(), session, headerEntry.getValue(), refTestAfter.getHeadersDynamicVariables()));
                 }
                 if (refTestAfter.getBody() != null && !refTestAfter.getBody().trim().isEmpty()) {
                     refReq = refReq.body(StringBody(session ->
-                            RuntimeTemplateProcessor.render(refTestAfter.getBody(), refTestAfter.getBodyDynamicVariables())));
+                            RuntimeTemplateProcessor.render(test.getTcid(), session, refTestAfter.getBody(), refTestAfter.getBodyDynamicVariables())));
                 }
             }
 
             // jsonPath checks for each diff check
-            for (ResponseCheck dc : dcList) {
+            for (CheckPlan.Check dc : dcList) {
                 String path = dc.getExpression().substring(dc.getExpression().indexOf('.') + 1);
-                String saveAsKey = "diff_" + dc.hashCode() + "_PST";
+                String saveAsKey = "diff_" + dc.getIndex() + "_PST";
                 refReq = refReq.check(jsonPath(path).saveAs(saveAsKey));
             }
 
-            // Add original checks from reference test
-            final java.util.List<CheckReport> refAfterChecks = new java.util.ArrayList<>();
-            if (refTestAfter != null && refTestAfter.getResponseChecks() != null && !refTestAfter.getResponseChecks().isBlank()) {
-                try {
-                    java.util.List<ResponseCheck> origChecks = new com.fasterxml.jackson.databind.ObjectMapper()
-                            .readValue(refTestAfter.getResponseChecks(), 
-                                    new com.fasterxml.jackson.core.type.TypeReference<java.util.List<ResponseCheck>>() {});
-                    
-                    for (ResponseCheck rc : origChecks) {
-                        final String saveKey = "ref_check_" + rc.hashCode();
-                        switch (rc.getType()) {
-                            case STATUS:
-                                refReq = refReq.check(status().saveAs(saveKey));
-                                break;
-                            case JSON_PATH:
-                                refReq = refReq.check(jsonPath(rc.getExpression()).saveAs(saveKey));
-                                break;
-                            case XPATH:
-                                refReq = refReq.check(xpath(rc.getExpression()).saveAs(saveKey));
-                                break;
-                            case REGEX:
-                                refReq = refReq.check(regex(rc.getExpression()).saveAs(saveKey));
-                                break;
-                            default:
-                                continue;
-                        }
-                        
-                        // Create a check report with all data except actual value (filled later)
-                        CheckReport cr = new CheckReport();
-                        cr.setType(rc.getType());
-                        cr.setExpression(rc.getExpression());
-                        cr.setOperator(rc.getOperator());
-                        cr.setExpect(rc.getExpect());
-                        // Store the session key with the report so we can get the actual value later
-                        cr.setActual(saveKey); // Temporarily store the key here
-                        refAfterChecks.add(cr);
-                    }
-                } catch (Exception ignored) {}
+            // Add original checks from reference test; compiled once, a report is built per execution
+            final java.util.List<CheckPlan.Check> refAfterChecks = refTestAfter != null
+                    ? CheckPlan.compile(refTcid, refTestAfter.getResponseChecks(), null).getResponseChecks()
+                    : java.util.Collections.emptyList();
+            for (CheckPlan.Check rc : refAfterChecks) {
+                final String saveKey = "ref_check_" + refTcid + "_" + rc.getIndex();
+                switch (rc.getType()) {
+                    case STATUS:
+                        refReq = refReq.check(status().saveAs(saveKey));
+                        break;
+                    case JSON_PATH:
+                        refReq = refReq.check(jsonPath(rc.getExpression()).saveAs(saveKey));
+                        break;
+                    case XPATH:
+                        refReq = refReq.check(xpath(rc.getExpression()).saveAs(saveKey));
+                        break;
+                    case REGEX:
+                        refReq = refReq.check(regex(rc.getExpression()).saveAs(saveKey));
+                        break;
+                }
             }
 
             refReq = refReq.check(
                     status().is(200),
-                    bodyString().saveAs("responseBody"),
                     responseTimeInMillis().saveAs("latencyMs"),
                     bodyLength().saveAs("sizeBytes")
             );
-            for (String headerName : RESPONSE_HEADERS_TO_CAPTURE) {
-                String sessionKey = "respHeader_" + headerName.replace("-", "_");
-                refReq = refReq.check(header(headerName).optional().saveAs(sessionKey));
-            }
-
-            ChainBuilder refReporting = exec(s -> {
-                String mainTcid = test.getTcid();
-                String refRequestReportKey = mainTcid + "|" + refTcid + "|DIFF_PST";
-
-                // Create a new CaseReport for this reference request
-                CaseReport refCaseReport = caseReports.computeIfAbsent(refRequestReportKey, k -> {
-                    CaseReport cr = new CaseReport();
-                    cr.setTcid(refTcid);
-                    cr.setItems(Collections.synchronizedList(new ArrayList<>()));
-                    return cr;
-                });
 
+            // Case report for this reference request, attributed to the main test
+            final RequestReportSink.Case refCase = reportSink.open(test.getTcid(), refTcid, "DIFF_PST");
+            ChainBuilder refReporting = exec(HotPathProbes.timed(test.getTcid(), HotPathProbes.Stage.REPORT, s -> {
                 RequestReport rpt = new RequestReport();
                 rpt.setRequestName(refName);
 
@@ -1359,12 +1231,12 @@ public class GatlingTestSimulation extends Simulation {
                 reqInfo.setUrl(refUrl);
                 java.util.Map<String, String> finalHeadersMap = new java.util.HashMap<>();
                 if (refTestAfter != null && refTestAfter.getHeaders() != null && !refTestAfter.getHeaders().isEmpty()) {
-                    String finalHeaders = RuntimeTemplateProcessor.render(refTestAfter.getHeaders(), refTestAfter.getHeadersDynamicVariables());
+                    String finalHeaders = RuntimeTemplateProcessor.render(test.getTcid(), s, refTestAfter.getHeaders(), refTestAfter.getHeadersDynamicVariables());
                     finalHeadersMap = parseHeaders(finalHeaders);
                 }
                 reqInfo.setHeaders(finalHeadersMap);
                 if (refTestAfter != null && refTestAfter.getBody() != null && !refTestAfter.getBody().trim().isEmpty()) {
-                    String finalBody = RuntimeTemplateProcessor.render(refTestAfter.getBody(), refTestAfter.getBodyDynamicVariables());
+                    String finalBody = RuntimeTemplateProcessor.render(test.getTcid(), s, refTestAfter.getBody(), refTestAfter.getBodyDynamicVariables());
                     reqInfo.setBody(finalBody);
                 } else {
                     reqInfo.setBody("{}");
@@ -1394,32 +1266,28 @@ public class GatlingTestSimulation extends Simulation {
                 
                 // Process the check reports and fill in actual values
                 java.util.List<CheckReport> finalChecksAfter = new java.util.ArrayList<>();
-                for (CheckReport cr : refAfterChecks) {
-                    String saveKey = cr.getActual(); // The key was stored in the actual field
+                for (CheckPlan.Check rc : refAfterChecks) {
+                    String saveKey = "ref_check_" + refTcid + "_" + rc.getIndex();
                     String actualValue = "<NOT FOUND>";
                     if (s.contains(saveKey)) {
                         actualValue = convertToString(s.get(saveKey));
                         // Remove the key from session
                         s = s.remove(saveKey);
                     }
-                    
-                    cr.setActual(actualValue);
-                    boolean passed = evaluateOperator(cr.getOperator(), actualValue, cr.getExpect());
-                    cr.setPassed(passed);
-                    finalChecksAfter.add(cr);
+                    finalChecksAfter.add(rc.report(actualValue));
                 }
                 
                 rpt.setChecks(finalChecksAfter);
                 rpt.setPassed(true);
                 rpt.setStatus("200");
-                refCaseReport.getItems().add(rpt);
+                refCase.add(rpt);
 
                 // Save extracted values
-                for (ResponseCheck dcInner : dcList) {
-                    String key = "diff_" + dcInner.hashCode() + "_PST";
+                for (CheckPlan.Check dcInner : dcList) {
+                    String key = "diff_" + dcInner.getIndex() + "_PST";
                     if (s.contains(key)) {
                         Object val = s.get(key);
-                        TestRunContext.saveAfter(dcInner.getExpression(), String.valueOf(val));
+                        TestRunContext.saveAfter(s, dcInner.getExpression(), String.valueOf(val));
                         s = s.remove(key);
                     }
                 }
@@ -1431,25 +1299,25 @@ public class GatlingTestSimulation extends Simulation {
                 }
 
                 return s;
-            });
+            }));
 
-            afterChain = afterChain.exec(refReq).exec(refReporting);
+            afterChain = afterChain.exec(execCapturing(refReq, capture)).exec(refReporting);
         }
 
         // =====================
         // Build PST_CHECK reference request(s)
         // =====================
         // Group PST_CHECK checks by reference TCID to avoid duplicate reference requests
-        java.util.Map<String, java.util.List<ResponseCheck>> pstCheckGroups = pstChecks.stream()
+        java.util.Map<String, java.util.List<CheckPlan.Check>> pstCheckGroups = pstChecks.stream()
                 .filter(pc -> pc.getExpression() != null && pc.getExpression().contains("."))
                 .collect(Collectors.groupingBy(
                         pc -> pc.getExpression().substring(0, pc.getExpression().indexOf('.')),
                         java.util.LinkedHashMap::new,
                         Collectors.toList()));
 
-        for (java.util.Map.Entry<String, java.util.List<ResponseCheck>> entry : pstCheckGroups.entrySet()) {
+        for (java.util.Map.Entry<String, java.util.List<CheckPlan.Check>> entry : pstCheckGroups.entrySet()) {
             String refTcid = entry.getKey();
-            java.util.List<ResponseCheck> pcList = entry.getValue();
+            java.util.List<CheckPlan.Check> pcList = entry.getValue();
 
             // Locate reference endpoint (try batch first, then DB)
             Endpoint refEndpoint = null;
@@ -1460,9 +1328,6 @@ public class GatlingTestSimulation extends Simulation {
                 }
             }
             final GatlingTest refTest = findRefTestByTcid(refTcid);
-            if (refTest != null) {
-                enrichRefTestTemplates(refTest);
-            }
             if (refTest != null) {
                 refEndpoint = findEndpointForTest(refTest, endpoint);
             }
@@ -1490,84 +1355,54 @@ public class GatlingTestSimulation extends Simulation {
                 java.util.Map<String, String> headersMap = parseHeaders(refTest.getHeaders());
                 for (java.util.Map.Entry<String, String> headerEntry : headersMap.entrySet()) {
                     refReq = refReq.header(headerEntry.getKey(), session ->
-                            RuntimeTemplateProcessor.render(headerEntry.getValue(), refTest.getHeadersDynamicVariables()));
+                            RuntimeTemplateProcessor.render(test.getTcid(), session, headerEntry.getValue(), refTest.getHeadersDynamicVariables()));
                 }
                 if (refTest.getBody() != null && !refTest.getBody().trim().isEmpty()) {
                     refReq = refReq.body(StringBody(session ->
-                            RuntimeTemplateProcessor.render(refTest.getBody(), refTest.getBodyDynamicVariables())));
+                            RuntimeTemplateProcessor.render(test.getTcid(), session, refTest.getBody(), refTest.getBodyDynamicVariables())));
                 }
             }
 
             // Add jsonPath checks for each PST_CHECK in this group
-            for (ResponseCheck pc : pcList) {
+            for (CheckPlan.Check pc : pcList) {
                 String path = pc.getExpression().substring(pc.getExpression().indexOf('.') + 1);
-                String saveAsKey = "pst_check_" + pc.hashCode();
+                String saveAsKey = "pst_check_" + pc.getIndex();
                 refReq = refReq.check(jsonPath(path).saveAs(saveAsKey));
             }
 
-            // Add original checks from reference test
-            final java.util.List<CheckReport> refPstChecks = new java.util.ArrayList<>();
-            if (refTest != null && refTest.getResponseChecks() != null && !refTest.getResponseChecks().isBlank()) {
-                try {
-                    java.util.List<ResponseCheck> origChecks = new com.fasterxml.jackson.databind.ObjectMapper()
-                            .readValue(refTest.getResponseChecks(),
-                                    new com.fasterxml.jackson.core.type.TypeReference<java.util.List<ResponseCheck>>() {});
-
-                    for (ResponseCheck rc : origChecks) {
-                        final String saveKey = "ref_pst_check_orig_" + rc.hashCode();
-                        switch (rc.getType()) {
-                            case STATUS:
-                                refReq = refReq.check(status().saveAs(saveKey));
-                                break;
-                            case JSON_PATH:
-                                refReq = refReq.check(jsonPath(rc.getExpression()).saveAs(saveKey));
-                                break;
-                            case XPATH:
-                                refReq = refReq.check(xpath(rc.getExpression()).saveAs(saveKey));
-                                break;
-                            case REGEX:
-                                refReq = refReq.check(regex(rc.getExpression()).saveAs(saveKey));
-                                break;
-                            default:
-                                continue;
-                        }
-
-                        CheckReport cr = new CheckReport();
-                        cr.setType(rc.getType());
-                        cr.setExpression(rc.getExpression());
-                        cr.setOperator(rc.getOperator());
-                        cr.setExpect(rc.getExpect());
-                        cr.setActual(saveKey); // Temporarily store the key
-                        refPstChecks.add(cr);
-                    }
-                } catch (Exception ignored) {}
+            // Add original checks from reference test; compiled once, a report is built per execution
+            final java.util.List<CheckPlan.Check> refPstChecks = refTest != null
+                    ? CheckPlan.compile(refTcid, refTest.getResponseChecks(), null).getResponseChecks()
+                    : java.util.Collections.emptyList();
+            for (CheckPlan.Check rc : refPstChecks) {
+                final String saveKey = "ref_pst_check_orig_" + refTcid + "_" + rc.getIndex();
+                switch (rc.getType()) {
+                    case STATUS:
+                        refReq = refReq.check(status().saveAs(saveKey));
+                        break;
+                    case JSON_PATH:
+                        refReq = refReq.check(jsonPath(rc.getExpression()).saveAs(saveKey));
+                        break;
+                    case XPATH:
+                        refReq = refReq.check(xpath(rc.getExpression()).saveAs(saveKey));
+                        break;
+                    case REGEX:
+                        refReq = refReq.check(regex(rc.getExpression()).saveAs(saveKey));
+                        break;
+                }
             }
 
             // Always capture status and basic metrics
             refReq = refReq.check(
                     status().is(200),
-                    bodyString().saveAs("responseBody"),
                     responseTimeInMillis().saveAs("latencyMs"),
                     bodyLength().saveAs("sizeBytes")
             );
-            for (String headerName : RESPONSE_HEADERS_TO_CAPTURE) {
-                String sessionKey = "respHeader_" + headerName.replace("-", "_");
-                refReq = refReq.check(header(headerName).optional().saveAs(sessionKey));
-            }
 
             // Reporting & variable saving
-            ChainBuilder refReporting = exec(s -> {
-                String mainTcid = test.getTcid();
-                String refRequestReportKey = mainTcid + "|" + refTcid + "|PST_CHECK";
-
-                // Create a new CaseReport for this reference request
-                CaseReport refCaseReport = caseReports.computeIfAbsent(refRequestReportKey, k -> {
-                    CaseReport cr = new CaseReport();
-                    cr.setTcid(refTcid);
-                    cr.setItems(Collections.synchronizedList(new ArrayList<>()));
-                    return cr;
-                });
-
+            // Case report for this reference request, attributed to the main test
+            final RequestReportSink.Case refCase = reportSink.open(test.getTcid(), refTcid, "PST_CHECK");
+            ChainBuilder refReporting = exec(HotPathProbes.timed(test.getTcid(), HotPathProbes.Stage.REPORT, s -> {
                 RequestReport rpt = new RequestReport();
                 rpt.setRequestName(refName);
 
@@ -1576,12 +1411,12 @@ public class GatlingTestSimulation extends Simulation {
                 reqInfo.setUrl(refUrl);
                 java.util.Map<String, String> finalHeadersMap = new java.util.HashMap<>();
                 if (refTest != null && refTest.getHeaders() != null && !refTest.getHeaders().isEmpty()) {
-                    String finalHeaders = RuntimeTemplateProcessor.render(refTest.getHeaders(), refTest.getHeadersDynamicVariables());
+                    String finalHeaders = RuntimeTemplateProcessor.render(test.getTcid(), s, refTest.getHeaders(), refTest.getHeadersDynamicVariables());
                     finalHeadersMap = parseHeaders(finalHeaders);
                 }
                 reqInfo.setHeaders(finalHeadersMap);
                 if (refTest != null && refTest.getBody() != null && !refTest.getBody().trim().isEmpty()) {
-                    String finalBody = RuntimeTemplateProcessor.render(refTest.getBody(), refTest.getBodyDynamicVariables());
+                    String finalBody = RuntimeTemplateProcessor.render(test.getTcid(), s, refTest.getBody(), refTest.getBodyDynamicVariables());
                     reqInfo.setBody(finalBody);
                 } else {
                     reqInfo.setBody("{}");
@@ -1611,18 +1446,14 @@ public class GatlingTestSimulation extends Simulation {
 
                 // Process the check reports and fill in actual values
                 java.util.List<CheckReport> finalChecks = new java.util.ArrayList<>();
-                for (CheckReport cr : refPstChecks) {
-                    String saveKey = cr.getActual(); // The key was stored in the actual field
+                for (CheckPlan.Check rc : refPstChecks) {
+                    String saveKey = "ref_pst_check_orig_" + refTcid + "_" + rc.getIndex();
                     String actualValue = "<NOT FOUND>";
                     if (s.contains(saveKey)) {
                         actualValue = convertToString(s.get(saveKey));
                         s = s.remove(saveKey);
                     }
-
-                    cr.setActual(actualValue);
-                    boolean passed = evaluateOperator(cr.getOperator(), actualValue, cr.getExpect());
-                    cr.setPassed(passed);
-                    finalChecks.add(cr);
+                    finalChecks.add(rc.report(actualValue));
                 }
                 rpt.setChecks(finalChecks);
 
@@ -1642,15 +1473,15 @@ public class GatlingTestSimulation extends Simulation {
                         });
                 if (rpt.getStatus() == null) rpt.setStatus(String.valueOf(respInfo.getStatus()));
 
-                refCaseReport.getItems().add(rpt);
+                refCase.add(rpt);
 
                 // Save extracted values to TestRunContext
-                for (ResponseCheck pcInner : pcList) {
-                    String key = "pst_check_" + pcInner.hashCode();
+                for (CheckPlan.Check pcInner : pcList) {
+                    String key = "pst_check_" + pcInner.getIndex();
                     if (s.contains(key)) {
                         Object val = s.get(key);
                         String stringVal = String.valueOf(val);
-                        TestRunContext.savePstCheck(pcInner.getExpression(), stringVal);
+                        TestRunContext.savePstCheck(s, pcInner.getExpression(), stringVal);
                         s = s.remove(key);
                     }
                 }
@@ -1662,47 +1493,34 @@ public class GatlingTestSimulation extends Simulation {
                 }
 
                 return s;
-            });
+            }));
 
-            afterChain = afterChain.exec(refReq).exec(refReporting);
+            afterChain = afterChain.exec(execCapturing(refReq, capture)).exec(refReporting);
         }
 
         // =====================
         // Evaluation chain for DIFF, PRE_CHECK and PST_CHECK
         // =====================
-        ChainBuilder evalChain = exec(s -> {
-            RequestReport mainRpt = null;
-            List<RequestReport> items = caseReports.get(reportKey).getItems();
-            for (RequestReport rr : items) {
-                if (rr.getRequestName().equals(requestName)) {
-                    mainRpt = rr; break;
-                }
-            }
-            if (mainRpt == null) return s;
+        ChainBuilder evalChain = exec(HotPathProbes.timed(test.getTcid(), HotPathProbes.Stage.CHECKS, s -> {
+            if (!s.contains(MAIN_REPORT_KEY)) return s;
+            RequestReport mainRpt = s.get(MAIN_REPORT_KEY);
+            s = s.remove(MAIN_REPORT_KEY);
 
             if (mainRpt.getChecks() == null) {
                 mainRpt.setChecks(new java.util.ArrayList<>());
             }
 
             // Process DIFF checks
-            for (ResponseCheck dc : diffChecks) {
+            for (CheckPlan.Check dc : diffChecks) {
                 String expr = dc.getExpression();
-                Double diffVal = TestRunContext.calcDiff(expr);
+                Double diffVal = TestRunContext.calcDiff(s, expr);
                 CheckReport cr = new CheckReport();
                 cr.setType(CheckType.DIFF);
                 cr.setExpression(expr);
                 cr.setOperator(dc.getOperator());
                 
-                // Format expected value with +/- sign if it's numeric
+                // Expected value was normalized to a +/- signed number when the plan was compiled
                 String expectValue = dc.getExpect();
-                try {
-                    // Parse as number regardless of existing sign
-                    double expectNum = Double.parseDouble(expectValue.replaceFirst("^\\+", ""));
-                    // Format with correct sign
-                    expectValue = (expectNum >= 0 ? "+" : "-") + Math.abs(expectNum);
-                } catch (NumberFormatException ignored) {
-                    // Keep original if not numeric
-                }
                 cr.setExpect(expectValue);
                 
                 // Format actual value with +/- sign
@@ -1712,20 +1530,21 @@ public class GatlingTestSimulation extends Simulation {
                 
                 boolean passed = false;
                 if (diffVal != null) {
-                    passed = evaluateOperator(dc.getOperator(), actualValue, expectValue);
+                    passed = dc.matches(actualValue);
                 }
                 cr.setPassed(passed);
 
-                System.out.println(String.format("%s|%s|%s|expected:%s|actual:%s",
-                        test.getTcid(), expr, dc.getOperator().toString(), expectValue, actualValue));
+                logCheck(test.getTcid(), CheckType.DIFF, expr, dc.getOperator().toString(), expectValue, actualValue, passed,
+                        String.format("%s|%s|%s|expected:%s|actual:%s",
+                                test.getTcid(), expr, dc.getOperator().toString(), expectValue, actualValue));
 
                 mainRpt.getChecks().add(cr);
             }
             
             // Process PRE_CHECK checks
-            for (ResponseCheck pc : preChecks) {
+            for (CheckPlan.Check pc : preChecks) {
                 String expr = pc.getExpression();
-                String preValue = TestRunContext.getPreCheckValue(expr);
+                String preValue = TestRunContext.getPreCheckValue(s, expr);
                 CheckReport cr = new CheckReport();
                 cr.setType(CheckType.PRE_CHECK);
                 cr.setExpression(expr);
@@ -1737,20 +1556,21 @@ public class GatlingTestSimulation extends Simulation {
                 
                 boolean passed = false;
                 if (preValue != null) {
-                    passed = evaluateOperator(pc.getOperator(), actualValue, pc.getExpect());
+                    passed = pc.matches(actualValue);
                 }
                 cr.setPassed(passed);
 
-                System.out.println(String.format("PRE_CHECK|%s|%s|%s|expected:%s|actual:%s",
-                        test.getTcid(), expr, pc.getOperator().toString(), pc.getExpect(), actualValue));
+                logCheck(test.getTcid(), CheckType.PRE_CHECK, expr, pc.getOperator().toString(), pc.getExpect(), actualValue, passed,
+                        String.format("PRE_CHECK|%s|%s|%s|expected:%s|actual:%s",
+                                test.getTcid(), expr, pc.getOperator().toString(), pc.getExpect(), actualValue));
 
                 mainRpt.getChecks().add(cr);
             }
             
             // Process PST_CHECK checks
-            for (ResponseCheck pc : pstChecks) {
+            for (CheckPlan.Check pc : pstChecks) {
                 String expr = pc.getExpression();
-                String pstValue = TestRunContext.getPstCheckValue(expr);
+                String pstValue = TestRunContext.getPstCheckValue(s, expr);
                 CheckReport cr = new CheckReport();
                 cr.setType(CheckType.PST_CHECK);
                 cr.setExpression(expr);
@@ -1762,12 +1582,13 @@ public class GatlingTestSimulation extends Simulation {
                 
                 boolean passed = false;
                 if (pstValue != null) {
-                    passed = evaluateOperator(pc.getOperator(), actualValue, pc.getExpect());
+                    passed = pc.matches(actualValue);
                 }
                 cr.setPassed(passed);
 
-                System.out.println(String.format("PST_CHECK|%s|%s|%s|expected:%s|actual:%s",
-                        test.getTcid(), expr, pc.getOperator().toString(), pc.getExpect(), actualValue));
+                logCheck(test.getTcid(), CheckType.PST_CHECK, expr, pc.getOperator().toString(), pc.getExpect(), actualValue, passed,
+                        String.format("PST_CHECK|%s|%s|%s|expected:%s|actual:%s",
+                                test.getTcid(), expr, pc.getOperator().toString(), pc.getExpect(), actualValue));
 
                 mainRpt.getChecks().add(cr);
             }
@@ -1775,13 +1596,72 @@ public class GatlingTestSimulation extends Simulation {
             // Recompute pass status
             boolean allOk = mainRpt.getChecks().isEmpty() || mainRpt.getChecks().stream().allMatch(CheckReport::isPassed);
             mainRpt.setPassed(allOk);
+            reportCase.add(mainRpt);
             return s;
-        });
+        }));
 
         // Final combined chain
         return exec(beforeChain).exec(mainChain).exec(afterChain).exec(evalChain);
     }
 
+    /**
+     * Functional runs capture every response; load runs default to {@code response.capture.load.default}
+     * ({@code none}), so no response body is copied into the session unless asked for.
+     */
+    private static ResponseCapturePolicy resolveDefaultCapture(GatlingLoadParameters params) {
+        if (!RequestReportSink.isLoadRun(params)) {
+            return ResponseCapturePolicy.FULL;
+        }
+        return ResponseCapturePolicy.resolve(null,
+                AppConfig.getProperty("response.capture.load.default", "none"), ResponseCapturePolicy.NONE);
+    }
+
+    /**
+     * Executes {@code request} with the body / header capture checks of {@code capture}. The captured values are
+     * saved as {@code responseBody} and {@code respHeader_*} for the reporting chains.
+     */
+    private ChainBuilder execCapturing(HttpRequestActionBuilder request, ResponseCapturePolicy capture) {
+        List<CheckBuilder> captureChecks = new ArrayList<>();
+        switch (capture.getMode()) {
+            case NONE:
+                return exec(request);
+            case FIRST_BYTES:
+                // Stream over the response chunks: only the first N bytes are ever copied
+                int limit = capture.getLimit();
+                captureChecks.add(bodyStream().transform(in -> readPrefix(in, limit)).saveAs("responseBody"));
+                break;
+            default:
+                captureChecks.add(bodyString().saveAs("responseBody"));
+                break;
+        }
+        for (String headerName : RESPONSE_HEADERS_TO_CAPTURE) {
+            String sessionKey = "respHeader_" + headerName.replace("-", "_");
+            captureChecks.add(header(headerName).optional().saveAs(sessionKey));
+        }
+        CheckBuilder[] checks = captureChecks.toArray(new CheckBuilder[0]);
+
+        switch (capture.getMode()) {
+            case ON_FAILURE:
+                return exec(request.checkIf((response, session) -> response.status().code() >= 400).then(checks));
+            case SAMPLED:
+                // Decide once per request, before it is sent; the condition is evaluated for every check
+                AtomicLong counter = new AtomicLong();
+                long every = capture.getLimit();
+                return exec(session -> session.set(CAPTURE_SAMPLE_KEY, counter.getAndIncrement() % every == 0))
+                        .exec(request.checkIf(session -> session.getBoolean(CAPTURE_SAMPLE_KEY)).then(checks));
+            default:
+                return exec(request.check(checks));
+        }
+    }
+
+    private static String readPrefix(java.io.InputStream in, int limit) {
+        try (in) {
+            return new String(in.readNBytes(limit), java.nio.charset.StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return "<body not readable: " + e.getMessage() + ">";
+        }
+    }
+
     private Map<String, String> parseHeaders(String headersString) {
         if (headersString == null || headersString.trim().isEmpty()) {
             return Collections.emptyMap();
@@ -1811,148 +1691,117 @@ public class GatlingTestSimulation extends Simulation {
         }
     }
 
+    @Override
+    public void before() {
+        // Size and open the DB check pools before the first user arrives
+        if (!plan.getDbConnections().isEmpty()) {
+            // Batch items run back to back without pauses, as in the throughput sizing of the injection
+            DataSourceRegistry.prepare(plan.getDbConnections().values(),
+                    GatlingRunnerUtils.peakUsers(params, batchItems.size(), 0));
+        }
+    }
+
     @Override
     public void after() {
         try {
-            // 输出测试变量信息
-            System.out.println(VARIABLES_PREFIX + new ObjectMapper().writeValueAsString(TestRunContext.getAllVariables()));
-
-            ObjectMapper mapper = new ObjectMapper();
-
-            // Prepare writer for NDJSON streaming if file path is provided
-            String reportFilePath = System.getProperty("gatling.report.file");
-            java.io.BufferedWriter ndjsonWriter = null;
-            if (reportFilePath != null && !reportFilePath.isBlank()) {
-                try {
-                    ndjsonWriter = new java.io.BufferedWriter(new java.io.FileWriter(reportFilePath, true));
-                } catch (Exception e) {
-                    System.err.println("[WARN] Unable to open report file for writing: " + e.getMessage());
-                }
-            }
-
-            for (Map.Entry<String, CaseReport> entry : caseReports.entrySet()) {
-                String reportKey = entry.getKey();
-                CaseReport report = entry.getValue();
-
-                String[] keyParts = reportKey.split("\\|");
-                String originTcid;
-                String reportTcid;
-                String mode;
-
-                if (keyParts.length == 2) { // Format: tcid|mode
-                    reportTcid = keyParts[0];
-                    mode = keyParts[1];
-
-                    // For SETUP and TEARDOWN, use BatchItem.origin when available
-                    if (mode.equals("SETUP") || mode.equals("TEARDOWN")) {
-                        String mappedOrigin = batchItems.stream()
-                                .filter(bi -> bi.test != null && reportTcid.equals(bi.test.getTcid()))
-                                .map(bi -> (bi.origin != null && !bi.origin.isBlank()) ? bi.origin : bi.test.getTcid())
-                                .findFirst().orElse(reportTcid);
-                        originTcid = mappedOrigin;
-                    } else {
-                        // MAIN keeps itself as origin
-                        originTcid = reportTcid;
-                    }
-                } else if (keyParts.length == 3) { // originTcid|reportTcid|mode
-                    originTcid = keyParts[0];
-                    reportTcid = keyParts[1];
-                    mode = keyParts[2];
-                } else {
-                    continue; // malformed key
-                }
-
-                // Finalize the case report's overall status
-                boolean allPassed = report.getItems().stream()
-                        .allMatch(RequestReport::isPassed);
-                report.setPassed(allPassed);
-
-                    Map<String, Object> summaryEntry = new HashMap<>();
-                summaryEntry.put("origin", originTcid);
-                summaryEntry.put("tcid", reportTcid);
-                summaryEntry.put("mode", mode);
-                    summaryEntry.put("report", report);
-
-                    // Stream this entry immediately to file if possible
-                    if (ndjsonWriter != null) {
-                        try {
-                            ndjsonWriter.write(mapper.writeValueAsString(summaryEntry));
-                            ndjsonWriter.newLine();
-                            ndjsonWriter.flush();
-                        } catch (Exception we) {
-                            System.err.println("[WARN] Failed to write report entry: " + we.getMessage());
-                        }
-                    }
+            // 输出测试变量信息（有事件通道时走通道；没有通道或无法送达时输出到 stdout）
+            Map<String, String> variables = TestRunContext.getAllVariables();
+            if (!RunEventChannel.variables(variables)) {
+                System.out.println(VARIABLES_PREFIX + new ObjectMapper().writeValueAsString(variables));
             }
 
-            // Close writer if opened
-            if (ndjsonWriter != null) {
-                try { ndjsonWriter.close(); } catch (Exception ignored) {}
+            // Flush pending report entries and append run-wide metrics as the trailing NDJSON entry
+            // (no origin, consumed by GatlingTestRunner)
+            Map<String, Object> metricsEntry = new HashMap<>();
+            metricsEntry.put(RUN_METRICS_KEY, buildRunMetrics());
+            metricsEntry.put(LATENCY_KEY, reportSink.snapshotLatency());
+            reportSink.finish(metricsEntry);
+            // Caches, generator overhead and pools travel in the run metrics; the DB check line goes to the run log
+            Map<String, String> stats = Map.of("DB checks", DbCheckExecutor.stats());
+            if (!RunEventChannel.runStats(stats)) {
+                stats.forEach((name, value) -> System.out.println("Run stats | " + name + ": " + value));
             }
 
         } catch (Exception ex) {
             System.err.println("Failed to output response check results: " + ex.getMessage());
             ex.printStackTrace();
+        } finally {
+            HotPathProbes.reset();
+            DbCheckExecutor.shutdown();
+            DataSourceRegistry.shutdown();
+            RunEventChannel.close();
+        }
+    }
+
+    private RunMetrics buildRunMetrics() {
+        RunMetrics metrics = new RunMetrics();
+        metrics.setTemplateCaches(RuntimeTemplateProcessor.getCacheStats());
+        metrics.setReportMode(reportSink.getMode().name());
+        metrics.setRequestAggregates(reportSink.snapshotAggregates());
+        metrics.setReportLinesDropped(reportSink.getDroppedLines());
+        // Generator time per TCID next to the response time of the requests it issued (its own and its references')
+        Map<String, GeneratorOverhead> overhead = HotPathProbes.snapshot();
+        for (RequestAggregate aggregate : metrics.getRequestAggregates().values()) {
+            GeneratorOverhead o = overhead.get(aggregate.getOrigin());
+            if (o != null) {
+                o.setHttpTotalMs((o.getHttpTotalMs() != null ? o.getHttpTotalMs() : 0L) + aggregate.getTotalLatencyMs());
+            }
         }
+        metrics.setGeneratorOverhead(overhead);
+        metrics.setDbPools(DataSourceRegistry.snapshotMetrics());
+        return metrics;
     }
 
     /**
-     * Fallback lookup: use DAO to fetch GatlingTest & its endpoint when the reference TCID is not present in the batch.
-     * Limits search to same project / environment as originEndpoint when possible.
+     * Reference test of a DIFF / PRE_CHECK / PST_CHECK check from the run plan (templates already applied).
      */
     private GatlingTest findRefTestByTcid(String tcid) {
-        try {
-            GatlingTestDaoImpl testDao = new GatlingTestDaoImpl();
-            return testDao.getTestByTcid(tcid);
-        } catch (Exception ex) {
-            System.err.println("[WARN] Failed to lookup test for TCID " + tcid + ": " + ex.getMessage());
-            return null;
-        }
+        return plan.referenceTest(tcid);
+    }
+
+    /**
+     * Connection of a DB check alias, resolved by the parent in the run's environment.
+     */
+    private DbConnection resolveDbConnection(String alias) {
+        return plan.dbConnection(alias);
     }
 
+    /**
+     * Endpoint of a reference test in the run's environment; {@code null} when it is unknown or belongs to another
+     * environment / project than the endpoint of the origin test.
+     */
     private Endpoint findEndpointForTest(GatlingTest refTest, Endpoint originEndpoint) {
-        try {
-            EndpointDaoImpl epDao = new EndpointDaoImpl();
-            Endpoint ep = null;
-            if (refTest.getEndpointName() != null) {
-                Integer envId = com.qa.app.service.EnvironmentContext.getCurrentEnvironmentId();
-                ep = epDao.getEndpointByNameAndEnv(refTest.getEndpointName(), envId);
-            }
+        Endpoint ep = plan.endpoint(refTest.getEndpointName());
 
-            // Ensure environment / project matches when both sides have a value
-            if (ep != null && originEndpoint != null) {
-                if (originEndpoint.getEnvironmentId() != null && ep.getEnvironmentId() != null
-                        && !originEndpoint.getEnvironmentId().equals(ep.getEnvironmentId())) {
-                    return null; // env mismatch
-                }
-                if (originEndpoint.getProjectId() != null && ep.getProjectId() != null
-                        && !originEndpoint.getProjectId().equals(ep.getProjectId())) {
-                    return null; // project mismatch
-                }
+        // Ensure environment / project matches when both sides have a value
+        if (ep != null && originEndpoint != null) {
+            if (originEndpoint.getEnvironmentId() != null && ep.getEnvironmentId() != null
+                    && !originEndpoint.getEnvironmentId().equals(ep.getEnvironmentId())) {
+                return null; // env mismatch
+            }
+            if (originEndpoint.getProjectId() != null && ep.getProjectId() != null
+                    && !originEndpoint.getProjectId().equals(ep.getProjectId())) {
+                return null; // project mismatch
             }
-            return ep;
-        } catch (Exception ex) {
-            System.err.println("[WARN] Failed to lookup endpoint for test: " + ex.getMessage());
-            return null;
         }
+        return ep;
     }
 
-    // ============= Helper to enrich templates for reference tests ==================
-    private void enrichRefTestTemplates(GatlingTest t) {
-        if (t == null) return;
-        try {
-            if ((t.getBody() == null || t.getBody().isEmpty()) && t.getBodyTemplateId() > 0) {
-                BodyTemplate bt = new BodyTemplateServiceImpl().findBodyTemplateById(t.getBodyTemplateId());
-                if (bt != null) t.setBody(bt.getContent());
-            }
-        } catch (Exception ignored) {}
-
-        try {
-            if ((t.getHeaders() == null || t.getHeaders().isEmpty()) && t.getHeadersTemplateId() > 0) {
-                HeadersTemplate ht = new HeadersTemplateServiceImpl().getHeadersTemplateById(t.getHeadersTemplateId());
-                if (ht != null) t.setHeaders(ht.getContent());
+    /**
+     * Reports a check result to the parent runner; falls back to the legacy stdout line when no event channel is open.
+     * Load runs send no event per check: they would crowd the bounded event queue, and the check outcomes are in the
+     * report file.
+     */
+    private void logCheck(String tcid, CheckType type, String expression, String operator,
+                          String expect, String actual, boolean passed, String legacyLine) {
+        if (RunEventChannel.isConnected()) {
+            if (loadRun) {
+                return;
             }
-        } catch (Exception ignored) {}
+            RunEventChannel.checkResult(tcid, type != null ? type.name() : null, expression, operator, expect, actual, passed);
+        } else {
+            System.out.println(legacyLine);
+        }
     }
 
     private static String convertToString(Object rawValue) {
@@ -1966,19 +1815,4 @@ public class GatlingTestSimulation extends Simulation {
             return String.valueOf(rawValue);
         }
     }
-
-    private static boolean evaluateOperator(Operator op, String actual, String expect) {
-        return switch (op) {
-            case CONTAINS -> actual.contains(expect);
-            case MATCHES -> {
-                try {
-                    yield actual.matches(expect);
-                } catch (Exception e) {
-                    yield false;
-                }
-            }
-            case IS -> actual.equals(expect);
-            default -> false;
-        };
-    }
 } 
\ No newline at end of file
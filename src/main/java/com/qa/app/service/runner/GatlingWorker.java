@@ -0,0 +1,268 @@
+package com.qa.app.service.runner;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Long-lived JVM that executes Gatling runs for {@link GatlingWorkerPool}, so a run does not pay JVM startup.
+ * <p>
+ * The worker listens on a loopback port and announces it on stdout ({@value #READY_PREFIX}port). Each connection
+ * carries one job (a JSON line with the simulation class, system properties and results path); the run's console
+ * output is streamed back over the connection, followed by {@value #EXIT_PREFIX}exitCode. The worker exits after
+ * {@value #MAX_RUNS_PROPERTY} runs, or as soon as the parent closes its stdin.
+ * <p>
+ * Class loading is split in two. Third-party libraries (Scala, Netty, Jackson, Groovy, ...) live in one shared loader
+ * for the whole life of the worker, so they stay loaded and JIT-compiled between runs. Every run gets a fresh child
+ * loader over the application classes and Gatling's own jars, so the static state of the simulation (TestRunContext,
+ * RunEventChannel, connection pools, ...) never leaks from one run into the next. Gatling stays in the per-run loader
+ * because it resolves the simulation class by name; a shared copy would cache the first run's class. A fat jar has no
+ * separate library entries and simply falls back to a full per-run loader.
+ * <p>
+ * {@code System.out}/{@code System.err} are replaced once by a router: while a job runs its output goes to the job's
+ * connection, otherwise (including stray threads of a finished run) to the worker's own stdout/stderr.
+ */
+public final class GatlingWorker {
+
+    static final String READY_PREFIX = "WORKER_READY:";
+    static final String UNSUPPORTED_PREFIX = "WORKER_UNSUPPORTED:";
+    static final String EXIT_PREFIX = "WORKER_EXIT:";
+
+    static final String TOKEN_PROPERTY = "gatling.worker.token";
+    static final String MAX_RUNS_PROPERTY = "gatling.worker.max.runs";
+
+    private static final String GATLING_MAIN = "io.gatling.app.Gatling";
+
+    private GatlingWorker() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final PrintStream stdout = System.out;
+        final PrintStream stderr = System.err;
+        JobOutput outRouter = new JobOutput(stdout);
+        JobOutput errRouter = new JobOutput(stderr);
+        System.setOut(new PrintStream(outRouter, true, StandardCharsets.UTF_8));
+        System.setErr(new PrintStream(errRouter, true, StandardCharsets.UTF_8));
+        String token = System.getProperty(TOKEN_PROPERTY, "");
+        int maxRuns = Integer.getInteger(MAX_RUNS_PROPERTY, 20);
+
+        // Gatling.main() ends with System.exit, an in-process run needs the entry point returning the exit code
+        try {
+            Class.forName(GATLING_MAIN).getMethod("fromArgs", String[].class);
+        } catch (ReflectiveOperationException e) {
+            stdout.println(UNSUPPORTED_PREFIX + e);
+            stdout.flush();
+            System.exit(2);
+        }
+
+        // The parent keeps our stdin open for as long as it wants us; EOF means it is gone or retires us
+        Thread watchdog = new Thread(() -> {
+            try {
+                while (System.in.read() != -1) {
+                    // ignore input
+                }
+            } catch (Exception ignored) {
+                // treated as EOF
+            }
+            Runtime.getRuntime().halt(0);
+        }, "worker-stdin-watchdog");
+        watchdog.setDaemon(true);
+        watchdog.start();
+
+        List<URL> libraryUrls = new ArrayList<>();
+        List<URL> runUrls = new ArrayList<>();
+        splitClasspath(libraryUrls, runUrls);
+        // logback sits in the shared loader, which cannot see the application's resources
+        URL logbackConfig = GatlingWorker.class.getClassLoader().getResource("logback.xml");
+        if (logbackConfig != null && System.getProperty("logback.configurationFile") == null) {
+            System.setProperty("logback.configurationFile", logbackConfig.toString());
+        }
+        URLClassLoader libraries = new URLClassLoader("gatling-libs", libraryUrls.toArray(new URL[0]),
+                ClassLoader.getPlatformClassLoader());
+        URL[] classpath = runUrls.toArray(new URL[0]);
+        ObjectMapper mapper = new ObjectMapper();
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            stdout.println(READY_PREFIX + server.getLocalPort());
+            stdout.flush();
+
+            int runs = 0;
+            while (runs < maxRuns) {
+                try (Socket socket = server.accept()) {
+                    BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                    String jobLine = in.readLine();
+                    if (jobLine == null) {
+                        continue;
+                    }
+                    Map<String, Object> job = mapper.readValue(jobLine, new TypeReference<Map<String, Object>>() {});
+                    if (!token.equals(job.get("token"))) {
+                        stderr.println("[WARN] Worker rejected a job with an invalid token");
+                        continue;
+                    }
+                    runs++;
+                    OutputStream out = socket.getOutputStream();
+                    PrintStream jobOut = new PrintStream(out, true, StandardCharsets.UTF_8);
+                    int exitCode = 1;
+                    try {
+                        outRouter.attach(jobOut);
+                        errRouter.attach(jobOut);
+                        exitCode = runJob(job, classpath, libraries, runs);
+                    } catch (Throwable t) {
+                        t.printStackTrace(jobOut);
+                    } finally {
+                        outRouter.detach();
+                        errRouter.detach();
+                        jobOut.println(EXIT_PREFIX + exitCode);
+                        jobOut.flush();
+                    }
+                } catch (Exception e) {
+                    stderr.println("[WARN] Worker job failed: " + e.getMessage());
+                }
+            }
+        }
+        // Recycled: the parent notices the exit and starts a fresh worker
+        System.exit(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int runJob(Map<String, Object> job, URL[] classpath, ClassLoader libraries, int runNumber)
+            throws Exception {
+        String simulation = (String) job.get("simulation");
+        String resultsPath = (String) job.get("resultsPath");
+        Map<String, String> sysProps = job.get("sysProps") instanceof Map
+                ? (Map<String, String>) job.get("sysProps") : Map.of();
+
+        // Job properties are set for the duration of the run only
+        Map<String, String> previous = new HashMap<>();
+        for (Map.Entry<String, String> entry : sysProps.entrySet()) {
+            previous.put(entry.getKey(), System.getProperty(entry.getKey()));
+            System.setProperty(entry.getKey(), entry.getValue());
+        }
+        Thread current = Thread.currentThread();
+        ClassLoader previousContext = current.getContextClassLoader();
+        URLClassLoader loader = new URLClassLoader("gatling-run-" + runNumber, classpath, libraries);
+        try {
+            current.setContextClassLoader(loader);
+            Method fromArgs = Class.forName(GATLING_MAIN, true, loader).getMethod("fromArgs", String[].class);
+            String[] args = {"-s", simulation, "-rf", resultsPath};
+            try {
+                Object result = fromArgs.invoke(null, (Object) args);
+                return result instanceof Integer ? (Integer) result : 0;
+            } catch (InvocationTargetException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        } finally {
+            // Pools opened by the run belong to its class loader and would otherwise outlive it
+            for (String registry : new String[]{DataSourceRegistry.class.getName(), "com.qa.app.dao.util.DBUtil"}) {
+                try {
+                    Class.forName(registry, false, loader).getMethod("shutdown").invoke(null);
+                } catch (Throwable ignored) {
+                    // the run never touched that database
+                }
+            }
+            // Jackson's shared type cache would otherwise pin the run's classes (and loader) in the library loader
+            try {
+                Class<?> typeFactory = Class.forName("com.fasterxml.jackson.databind.type.TypeFactory", false, libraries);
+                Object instance = typeFactory.getMethod("defaultInstance").invoke(null);
+                typeFactory.getMethod("clearCache").invoke(instance);
+            } catch (Throwable ignored) {
+                // Jackson is part of the per-run loader (fat jar)
+            }
+            current.setContextClassLoader(previousContext);
+            loader.close();
+            for (Map.Entry<String, String> entry : previous.entrySet()) {
+                if (entry.getValue() == null) {
+                    System.clearProperty(entry.getKey());
+                } else {
+                    System.setProperty(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Directories (compiled application classes/resources), the jar holding this class and Gatling's own jars are
+     * loaded per run; every other entry is a third-party library shared by all runs.
+     */
+    private static void splitClasspath(List<URL> libraryUrls, List<URL> runUrls) throws Exception {
+        File self = null;
+        if (GatlingWorker.class.getProtectionDomain().getCodeSource() != null) {
+            self = new File(GatlingWorker.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        }
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            File file = new File(entry);
+            boolean perRun = file.isDirectory()
+                    || file.getName().startsWith("gatling-")
+                    || (self != null && file.getAbsoluteFile().equals(self.getAbsoluteFile()));
+            (perRun ? runUrls : libraryUrls).add(file.toURI().toURL());
+        }
+    }
+
+    /**
+     * Stream behind {@code System.out}/{@code System.err}: writes go to the attached job sink, or to the worker's
+     * original stream when no job is running.
+     */
+    private static final class JobOutput extends OutputStream {
+        private final OutputStream fallback;
+        private volatile OutputStream sink;
+
+        JobOutput(OutputStream fallback) {
+            this.fallback = fallback;
+        }
+
+        void attach(OutputStream jobSink) {
+            this.sink = jobSink;
+        }
+
+        void detach() {
+            OutputStream previous = sink;
+            sink = null;
+            if (previous != null) {
+                try {
+                    previous.flush();
+                } catch (Exception ignored) {
+                    // the job connection is already gone
+                }
+            }
+        }
+
+        private OutputStream target() {
+            OutputStream current = sink;
+            return current != null ? current : fallback;
+        }
+
+        @Override
+        public void write(int b) throws java.io.IOException {
+            target().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws java.io.IOException {
+            target().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws java.io.IOException {
+            target().flush();
+        }
+    }
+}
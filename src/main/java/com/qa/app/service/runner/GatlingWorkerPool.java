@@ -0,0 +1,385 @@
+package com.qa.app.service.runner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qa.app.util.AppConfig;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Small pool of warm {@link GatlingWorker} JVMs that execute Gatling runs instead of a fresh process per run.
+ * <p>
+ * {@link #start} hands a run to an idle worker and returns a {@link Process} view of it, so callers read the run's
+ * output and exit code exactly as they would from a spawned process. When every worker is busy, or the pool is
+ * disabled or unusable, {@code start} returns {@code null} and the caller spawns a process as before. A worker is
+ * recycled after {@code worker.pool.max.runs} runs and replaced in the background, so the next run again finds a
+ * warm JVM.
+ * <p>
+ * Configuration (application.properties):
+ * <ul>
+ *     <li>{@code worker.pool.enabled} – default {@code true}</li>
+ *     <li>{@code worker.pool.size} – number of warm workers, default 1</li>
+ *     <li>{@code worker.pool.max.runs} – runs per worker before it is recycled, default 20</li>
+ *     <li>{@code worker.pool.start.timeout.sec} – how long to wait for a new worker, default 60</li>
+ * </ul>
+ */
+public final class GatlingWorkerPool {
+
+    private static final BlockingQueue<Worker> idle = new LinkedBlockingQueue<>();
+    private static final AtomicInteger live = new AtomicInteger();
+    private static final ObjectMapper mapper = new ObjectMapper();
+    // set when a worker reports that the Gatling version cannot run in-process
+    private static volatile boolean unsupported;
+    private static volatile boolean shutdown;
+
+    private GatlingWorkerPool() {
+    }
+
+    public static boolean isEnabled() {
+        return !unsupported && !shutdown
+                && Boolean.parseBoolean(AppConfig.getProperty("worker.pool.enabled", "true").trim());
+    }
+
+    /**
+     * Starts the configured number of workers in the background; called at application start.
+     */
+    public static void warmUp() {
+        if (isEnabled()) {
+            Thread t = new Thread(GatlingWorkerPool::replenish, "worker-pool-warmup");
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+
+    /**
+     * Runs a simulation on an idle worker.
+     *
+     * @return the run as a process (output merged into {@link Process#getInputStream()}), or {@code null} when no
+     * warm worker is available and the caller should spawn a process itself
+     */
+    public static Process start(String simulationClass, Map<String, String> sysProps, String resultsPath) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Worker worker;
+        while ((worker = idle.poll()) != null) {
+            if (worker.process.isAlive()) {
+                break;
+            }
+            retire(worker);
+        }
+        if (worker == null && live.get() == 0) {
+            // Cold pool (first run, or warm-up failed): start one worker and wait for it
+            worker = spawn();
+        }
+        if (worker == null) {
+            return null;
+        }
+        try {
+            WorkerRun run = new WorkerRun(worker, simulationClass, sysProps, resultsPath);
+            // A replacement warms up while this run executes
+            startReplenish();
+            return run;
+        } catch (IOException e) {
+            System.err.println("[WARN] Gatling worker unavailable, starting a new process: " + e.getMessage());
+            retire(worker);
+            startReplenish();
+            return null;
+        }
+    }
+
+    /**
+     * Stops all idle workers; busy workers exit when their run completes.
+     */
+    public static void shutdown() {
+        shutdown = true;
+        Worker worker;
+        while ((worker = idle.poll()) != null) {
+            retire(worker);
+        }
+    }
+
+    private static void startReplenish() {
+        Thread t = new Thread(GatlingWorkerPool::replenish, "worker-pool-replenish");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private static synchronized void replenish() {
+        int size = intProperty("worker.pool.size", 1);
+        while (isEnabled() && live.get() < size) {
+            Worker worker = spawn();
+            if (worker == null) {
+                return;
+            }
+            idle.offer(worker);
+        }
+    }
+
+    private static Worker spawn() {
+        if (live.incrementAndGet() > Math.max(1, intProperty("worker.pool.size", 1))) {
+            live.decrementAndGet();
+            return null;
+        }
+        Process process = null;
+        try {
+            String token = UUID.randomUUID().toString();
+            Map<String, String> sysProps = new HashMap<>();
+            sysProps.put(GatlingWorker.TOKEN_PROPERTY, token);
+            sysProps.put(GatlingWorker.MAX_RUNS_PROPERTY, String.valueOf(intProperty("worker.pool.max.runs", 20)));
+            List<String> command = GatlingRunnerUtils.buildJavaCommand(GatlingWorker.class.getName(), sysProps);
+            process = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+            Integer port = awaitReady(reader, intProperty("worker.pool.start.timeout.sec", 60));
+            if (port == null) {
+                throw new IOException("worker did not become ready");
+            }
+            Worker worker = new Worker(process, port, token);
+            // Output outside of runs (e.g. JVM warnings) goes to our console
+            Thread pump = new Thread(() -> {
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        System.out.println("[worker] " + line);
+                    }
+                } catch (IOException ignored) {
+                    // worker exited
+                }
+            }, "worker-output");
+            pump.setDaemon(true);
+            pump.start();
+            return worker;
+        } catch (Exception e) {
+            live.decrementAndGet();
+            if (process != null) {
+                process.destroyForcibly();
+            }
+            if (!unsupported) {
+                System.err.println("[WARN] Failed to start Gatling worker: " + e.getMessage());
+            }
+            return null;
+        }
+    }
+
+    private static Integer awaitReady(BufferedReader reader, int timeoutSec) throws InterruptedException {
+        Integer[] port = new Integer[1];
+        CountDownLatch ready = new CountDownLatch(1);
+        Thread t = new Thread(() -> {
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith(GatlingWorker.READY_PREFIX)) {
+                        port[0] = Integer.parseInt(line.substring(GatlingWorker.READY_PREFIX.length()).trim());
+                        break;
+                    }
+                    if (line.startsWith(GatlingWorker.UNSUPPORTED_PREFIX)) {
+                        unsupported = true;
+                        System.err.println("[WARN] Gatling runs cannot be executed in a worker JVM, using a new process per run: "
+                                + line.substring(GatlingWorker.UNSUPPORTED_PREFIX.length()));
+                        break;
+                    }
+                    System.out.println("[worker] " + line);
+                }
+            } catch (IOException | NumberFormatException ignored) {
+                // not ready
+            } finally {
+                ready.countDown();
+            }
+        }, "worker-startup");
+        t.setDaemon(true);
+        t.start();
+        ready.await(timeoutSec, TimeUnit.SECONDS);
+        return port[0];
+    }
+
+    private static void release(Worker worker) {
+        if (!shutdown && worker.process.isAlive() && worker.runs < intProperty("worker.pool.max.runs", 20)) {
+            idle.offer(worker);
+        } else {
+            retire(worker);
+            startReplenish();
+        }
+    }
+
+    private static void retire(Worker worker) {
+        if (worker.retired) {
+            return;
+        }
+        worker.retired = true;
+        live.decrementAndGet();
+        try {
+            // Closing stdin makes the worker exit on its own
+            worker.process.getOutputStream().close();
+        } catch (IOException ignored) {
+            // already gone
+        }
+        if (!worker.process.isAlive()) {
+            return;
+        }
+        worker.process.onExit().orTimeout(10, TimeUnit.SECONDS)
+                .exceptionally(e -> {
+                    worker.process.destroyForcibly();
+                    return null;
+                });
+    }
+
+    private static int intProperty(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(AppConfig.getProperty(key, String.valueOf(defaultValue)).trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static final class Worker {
+        private final Process process;
+        private final int port;
+        private final String token;
+        private int runs;
+        private volatile boolean retired;
+
+        private Worker(Process process, int port, String token) {
+            this.process = process;
+            this.port = port;
+            this.token = token;
+        }
+    }
+
+    /**
+     * One run on a worker, seen as a {@link Process}: output and exit code come from the job connection.
+     */
+    private static final class WorkerRun extends Process {
+        private final Worker worker;
+        private final Socket socket;
+        private final PipedInputStream output = new PipedInputStream(64 * 1024);
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile int exitCode = -1;
+
+        private WorkerRun(Worker worker, String simulationClass, Map<String, String> sysProps, String resultsPath)
+                throws IOException {
+            this.worker = worker;
+            worker.runs++;
+            this.socket = new Socket(InetAddress.getLoopbackAddress(), worker.port);
+            Map<String, Object> job = new HashMap<>();
+            job.put("token", worker.token);
+            job.put("simulation", simulationClass);
+            job.put("resultsPath", resultsPath);
+            job.put("sysProps", sysProps);
+            // not closed: closing the writer would close the socket
+            Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            writer.write(mapper.writeValueAsString(job));
+            writer.write('\n');
+            writer.flush();
+
+            PipedOutputStream sink = new PipedOutputStream(output);
+            Thread pump = new Thread(() -> pump(sink), "worker-run-output");
+            pump.setDaemon(true);
+            pump.start();
+        }
+
+        private void pump(PipedOutputStream sink) {
+            boolean exited = false;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith(GatlingWorker.EXIT_PREFIX)) {
+                        exitCode = Integer.parseInt(line.substring(GatlingWorker.EXIT_PREFIX.length()).trim());
+                        exited = true;
+                        break;
+                    }
+                    sink.write((line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+                }
+            } catch (IOException | NumberFormatException e) {
+                System.err.println("[WARN] Lost connection to Gatling worker: " + e.getMessage());
+            } finally {
+                try {
+                    sink.close();
+                } catch (IOException ignored) {
+                    // reader gone
+                }
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                    // already closed
+                }
+                if (exited) {
+                    release(worker);
+                } else {
+                    // The worker died mid-run
+                    exitCode = 1;
+                    retire(worker);
+                    worker.process.destroyForcibly();
+                    startReplenish();
+                }
+                done.countDown();
+            }
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return OutputStream.nullOutputStream();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return output;
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return InputStream.nullInputStream();
+        }
+
+        @Override
+        public int waitFor() throws InterruptedException {
+            done.await();
+            return exitCode;
+        }
+
+        @Override
+        public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+            return done.await(timeout, unit);
+        }
+
+        @Override
+        public int exitValue() {
+            if (done.getCount() > 0) {
+                throw new IllegalThreadStateException("run has not exited");
+            }
+            return exitCode;
+        }
+
+        @Override
+        public boolean isAlive() {
+            return done.getCount() > 0;
+        }
+
+        /**
+         * A run cannot be interrupted inside the worker JVM, so the worker itself is stopped.
+         */
+        @Override
+        public void destroy() {
+            worker.process.destroyForcibly();
+        }
+    }
+}
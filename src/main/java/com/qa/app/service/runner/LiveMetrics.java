@@ -0,0 +1,85 @@
+package com.qa.app.service.runner;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per request name latency histograms of the running simulation, cut into windows by {@link RunEventChannel}.
+ * <p>
+ * Gatling threads only call {@link #record}: an HdrHistogram {@link Recorder} records without locks or allocation,
+ * so the cost on the load generator is a map lookup and a counter increment per request. Once per second the event
+ * writer thread swaps the interval histograms ({@link #snapshot}) and derives RPS, errors and p50/p95/p99 of the
+ * window.
+ */
+public final class LiveMetrics {
+
+    /** Latencies above one hour are recorded as one hour. */
+    private static final long HIGHEST_TRACKABLE_MS = 3_600_000L;
+    /** Two significant digits: percentiles are exact to 1%, and a histogram stays a few KB. */
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    /**
+     * Metrics of one request name over one window.
+     *
+     * @param second      epoch second at which the window was closed
+     * @param requests    requests completed in the window (RPS for a one second window)
+     * @param errors      failed requests of the window
+     */
+    public record Window(long second, String requestName, long requests, long errors,
+                         long p50Ms, long p95Ms, long p99Ms) {
+    }
+
+    private static final class Series {
+        private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MS, SIGNIFICANT_DIGITS);
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        // only touched by the snapshot thread
+        private Histogram interval;
+    }
+
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+
+    /**
+     * Records one completed request. {@code latencyMs < 0} (no response, e.g. connection refused) counts the
+     * request but not its latency.
+     */
+    void record(String requestName, long latencyMs, boolean ok) {
+        Series s = series.computeIfAbsent(requestName == null ? "" : requestName, k -> new Series());
+        s.requests.increment();
+        if (!ok) {
+            s.errors.increment();
+        }
+        if (latencyMs >= 0) {
+            s.recorder.recordValue(Math.min(latencyMs, HIGHEST_TRACKABLE_MS));
+        }
+    }
+
+    /**
+     * Closes the current window: returns the metrics of every request name seen since the previous call and starts
+     * a new window. Must be called from a single thread.
+     */
+    List<Window> snapshot() {
+        long second = System.currentTimeMillis() / 1000;
+        List<Window> windows = new ArrayList<>();
+        for (Map.Entry<String, Series> entry : series.entrySet()) {
+            Series s = entry.getValue();
+            long requests = s.requests.sumThenReset();
+            long errors = s.errors.sumThenReset();
+            // the previous interval histogram is recycled, so steady state does not allocate
+            s.interval = s.recorder.getIntervalHistogram(s.interval);
+            if (requests == 0 && s.interval.getTotalCount() == 0) {
+                continue;
+            }
+            Histogram h = s.interval;
+            windows.add(new Window(second, entry.getKey(), requests, errors,
+                    h.getValueAtPercentile(50), h.getValueAtPercentile(95), h.getValueAtPercentile(99)));
+        }
+        return windows;
+    }
+}
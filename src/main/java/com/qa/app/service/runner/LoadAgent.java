@@ -0,0 +1,250 @@
+package com.qa.app.service.runner;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Load generator agent of a distributed run, see {@link DistributedLoadCoordinator}.
+ * <p>
+ * Start one per load machine:
+ * <pre>
+ * java -cp &lt;app classpath&gt; -Dload.agent.port=7790 -Dload.agent.token=secret
+ *      -Dload.agent.tls.keystore=agent.p12 -Dload.agent.tls.keystore.password=... com.qa.app.service.runner.LoadAgent
+ * </pre>
+ * The agent accepts one job per connection: the serialized run plan, its partition and the coordinated start time.
+ * It runs {@link GatlingScenarioSimulation} in a new Gatling process (without HTML reports), streams the console
+ * output back (plus a heartbeat while the run is quiet) and finally sends the exit code and the run's
+ * {@code simulation.log}. Jobs run one at a time; a job arriving while another runs is refused. A peer that does not
+ * send its job within {@code load.agent.handshake.timeout.sec} (default 30) is dropped, and the Gatling process is
+ * stopped when the coordinator goes away.
+ * <p>
+ * Port, bind address and token are read from system properties first, then from application.properties
+ * ({@code load.agent.port}, default 7790; {@code load.agent.bind}, default all interfaces; {@code load.agent.token},
+ * required). Transport security is described in {@link AgentTransport}.
+ */
+public final class LoadAgent {
+
+    static final String READY_PREFIX = "AGENT_READY:";
+
+    static final byte FRAME_OUTPUT = 1;
+    static final byte FRAME_RESULT = 2;
+    static final byte FRAME_HEARTBEAT = 3;
+
+    private static final int MAX_PLAN_BYTES = 64 * 1024 * 1024;
+
+    private static final Semaphore BUSY = new Semaphore(1);
+
+    private LoadAgent() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = AgentTransport.intSetting("load.agent.port", 7790);
+        String bind = AgentTransport.setting("load.agent.bind", "");
+        String token = AgentTransport.setting("load.agent.token", "");
+        if (token.isBlank()) {
+            System.err.println("load.agent.token is not set; refusing to accept runs from anyone");
+            System.exit(2);
+        }
+        if (Boolean.getBoolean("load.agent.local")) {
+            // Local agent started by the coordinator: exit together with it
+            Thread watchdog = new Thread(() -> {
+                try {
+                    while (System.in.read() != -1) {
+                        // ignore input
+                    }
+                } catch (IOException ignored) {
+                    // treated as EOF
+                }
+                Runtime.getRuntime().halt(0);
+            }, "agent-stdin-watchdog");
+            watchdog.setDaemon(true);
+            watchdog.start();
+        }
+
+        int handshakeTimeoutMs = (int) TimeUnit.SECONDS.toMillis(AgentTransport.intSetting("load.agent.handshake.timeout.sec", 30));
+        long heartbeatMs = TimeUnit.SECONDS.toMillis(AgentTransport.intSetting("load.agent.heartbeat.sec", 5));
+        try (ServerSocket server = AgentTransport.serverSocket(bind, port)) {
+            System.out.println(READY_PREFIX + server.getLocalPort());
+            System.out.flush();
+            int connections = 0;
+            while (true) {
+                Socket socket = server.accept();
+                // Every connection gets its own thread, so a silent peer cannot block the accept loop
+                Thread handler = new Thread(() -> {
+                    try (socket) {
+                        socket.setSoTimeout(handshakeTimeoutMs);
+                        socket.setKeepAlive(true);
+                        serve(socket, token, heartbeatMs);
+                    } catch (Exception e) {
+                        System.err.println("[WARN] Load agent job from " + socket.getRemoteSocketAddress() + " failed: " + e.getMessage());
+                    }
+                }, "load-agent-connection-" + (++connections));
+                handler.setDaemon(true);
+                handler.start();
+            }
+        }
+    }
+
+    private static void serve(Socket socket, String token, long heartbeatMs) throws Exception {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024));
+        if (!AgentTransport.tokenMatches(token, in.readUTF())) {
+            System.err.println("[WARN] Load agent rejected a job from " + socket.getRemoteSocketAddress() + ": invalid token");
+            return;
+        }
+        String runId = in.readUTF();
+        int partitionIndex = in.readInt();
+        int partitionCount = in.readInt();
+        long startAt = in.readLong();
+        int planLength = in.readInt();
+        if (planLength < 0 || planLength > MAX_PLAN_BYTES) {
+            throw new IOException("Invalid run plan length: " + planLength);
+        }
+        byte[] plan = new byte[planLength];
+        in.readFully(plan);
+        // From here on the agent only writes; a dead coordinator shows up as a failed write
+        socket.setSoTimeout(0);
+
+        if (!BUSY.tryAcquire()) {
+            out.writeByte(FRAME_OUTPUT);
+            writeString(out, "Load agent is busy with another run");
+            out.writeByte(FRAME_RESULT);
+            out.writeInt(1);
+            out.writeLong(-1);
+            out.flush();
+            System.err.println("[WARN] Load agent refused run " + runId + ": another run is in progress");
+            return;
+        }
+        System.out.println("Run " + runId + ": partition " + (partitionIndex + 1) + "/" + partitionCount);
+
+        Path workDir = null;
+        Process process = null;
+        ScheduledExecutorService heartbeat = null;
+        try {
+            // created owner-only on POSIX file systems, the plan holds credentials
+            workDir = Files.createTempDirectory("gatling-agent-");
+            Path planFile = workDir.resolve("plan.json");
+            Files.write(planFile, plan);
+            Path resultsDir = Files.createDirectories(workDir.resolve("results"));
+
+            Map<String, String> sysProps = new HashMap<>();
+            sysProps.put(RunPlan.FILE_PROPERTY, planFile.toString());
+            sysProps.put(DistributedLoadCoordinator.PARTITION_INDEX_PROPERTY, String.valueOf(partitionIndex));
+            sysProps.put(DistributedLoadCoordinator.PARTITION_COUNT_PROPERTY, String.valueOf(partitionCount));
+            sysProps.put(DistributedLoadCoordinator.START_AT_PROPERTY, String.valueOf(startAt));
+            List<String> command = GatlingRunnerUtils.buildGatlingCommand(GatlingScenarioSimulation.class.getName(),
+                    sysProps, resultsDir.toString());
+            // Reports are generated by the coordinator from the collected logs
+            command.add("-nr");
+
+            process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "load-agent-heartbeat");
+                t.setDaemon(true);
+                return t;
+            });
+            heartbeat.scheduleAtFixedRate(() -> {
+                try {
+                    synchronized (out) {
+                        out.writeByte(FRAME_HEARTBEAT);
+                        out.flush();
+                    }
+                } catch (IOException ignored) {
+                    // reported by the output pump on its next write
+                }
+            }, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    synchronized (out) {
+                        out.writeByte(FRAME_OUTPUT);
+                        writeString(out, line);
+                        out.flush();
+                    }
+                }
+            }
+            int exitCode = process.waitFor();
+            heartbeat.shutdownNow();
+            heartbeat.awaitTermination(5, TimeUnit.SECONDS);
+
+            out.writeByte(FRAME_RESULT);
+            out.writeInt(exitCode);
+            Optional<Path> log = findSimulationLog(resultsDir);
+            if (log.isPresent()) {
+                out.writeLong(Files.size(log.get()));
+                try (InputStream logIn = Files.newInputStream(log.get())) {
+                    logIn.transferTo(out);
+                }
+            } else {
+                out.writeLong(-1);
+            }
+            out.flush();
+            System.out.println("Run " + runId + " finished, exit code: " + exitCode);
+        } finally {
+            if (heartbeat != null) {
+                heartbeat.shutdownNow();
+            }
+            if (process != null && process.isAlive()) {
+                // The coordinator is gone: do not keep generating load nobody collects
+                System.err.println("[WARN] Run " + runId + ": coordinator connection lost, stopping the Gatling process");
+                process.destroyForcibly();
+                process.waitFor(10, TimeUnit.SECONDS);
+            }
+            BUSY.release();
+            if (workDir != null) {
+                deleteRecursively(workDir);
+            }
+        }
+    }
+
+    /** The {@code simulation.log} of the most recent run directory. */
+    private static Optional<Path> findSimulationLog(Path resultsDir) throws IOException {
+        try (Stream<Path> runs = Files.list(resultsDir)) {
+            return runs.map(dir -> dir.resolve("simulation.log"))
+                    .filter(Files::isRegularFile)
+                    .max(Comparator.comparingLong(p -> p.toFile().lastModified()));
+        }
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (IOException e) {
+            System.err.println("[WARN] Failed to clean up " + dir + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package com.qa.app.service.runner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qa.app.model.GatlingLoadParameters;
+import com.qa.app.model.reports.CaseReport;
+import com.qa.app.model.reports.LatencyHistogram;
+import com.qa.app.model.reports.RequestAggregate;
+import com.qa.app.model.reports.RequestInfo;
+import com.qa.app.model.reports.RequestReport;
+import com.qa.app.model.reports.ResponseInfo;
+import com.qa.app.model.threadgroups.StandardThreadGroup;
+import com.qa.app.model.threadgroups.ThreadGroupType;
+import com.qa.app.service.reports.LatencyHistograms;
+import com.qa.app.util.AppConfig;
+import org.HdrHistogram.ConcurrentHistogram;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the {@link RequestReport}s of a simulation and writes them to the NDJSON report file
+ * ({@code gatling.report.file}).
+ * <p>
+ * Modes (property {@code report.mode}: {@code auto} (default), {@code full} or {@code streaming}):
+ * <ul>
+ *     <li>{@code FULL} – every report is kept in memory and written once per case when the run ends. Used for
+ *     functional runs (one user, one iteration).</li>
+ *     <li>{@code STREAMING} – only a fixed-size {@link RequestAggregate} per case stays in memory (counts,
+ *     pass/fail, latency). Only a sample of the reports is kept in detail: the first {@code report.stream.sample.size}
+ *     (default 50) passed and the first as many failed reports of every case. They are serialized on the calling
+ *     thread and appended to the NDJSON file by a background writer as single-item case lines; when the writer
+ *     is behind, the line is dropped and counted instead of blocking the Gatling thread. At the end a summary line
+ *     per case carries its overall pass/fail. {@link StreamingReportAggregator} merges these lines back into one
+ *     case, so the file and the merge stay bounded however long the run. Used for load runs.</li>
+ * </ul>
+ * In both modes request bodies and response bodies are only retained while the payload budget
+ * ({@code report.payload.budget.mb}, default 64, measured in UTF-8 bytes) lasts; later reports keep their metadata
+ * and checks only.
+ * <p>
+ * Every case also records its latencies into a fixed-size HdrHistogram ({@link #snapshotLatency}), which gives the
+ * report percentiles without keeping the samples.
+ */
+class RequestReportSink {
+
+    enum Mode { FULL, STREAMING }
+
+    static final String PAYLOAD_DROPPED = "[payload dropped: report payload budget exhausted]";
+
+    private static final String END_OF_STREAM = new String("<end>");
+
+    /**
+     * One case of the report: the requests of one TCID in one mode, attributed to one origin.
+     */
+    final class Case {
+        private final String origin;
+        private final String tcid;
+        private final String mode;
+        // FULL mode only
+        private final CaseReport report;
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder totalLatency = new LongAdder();
+        private final AtomicLong minLatency = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong maxLatency = new AtomicLong();
+        private final LongAdder payloadsRetained = new LongAdder();
+        private final LongAdder payloadsDropped = new LongAdder();
+        // STREAMING mode only: sample slots taken and sampled reports written / dropped
+        private final AtomicInteger passedSamples = new AtomicInteger();
+        private final AtomicInteger failedSamples = new AtomicInteger();
+        private final LongAdder itemsSampled = new LongAdder();
+        private final LongAdder itemsDropped = new LongAdder();
+        private final ConcurrentHistogram latency = LatencyHistograms.newConcurrent();
+
+        private Case(String origin, String tcid, String mode) {
+            this.origin = origin;
+            this.tcid = tcid;
+            this.mode = mode;
+            if (RequestReportSink.this.mode == Mode.FULL) {
+                report = new CaseReport();
+                report.setTcid(tcid);
+                report.setItems(Collections.synchronizedList(new ArrayList<>()));
+            } else {
+                report = null;
+            }
+        }
+
+        /**
+         * Records a completed report. The report must not be modified afterwards.
+         */
+        void add(RequestReport rpt) {
+            count.increment();
+            if (!rpt.isPassed()) {
+                failed.increment();
+            }
+            if (rpt.getResponse() != null) {
+                long latency = rpt.getResponse().getLatencyMs();
+                totalLatency.add(latency);
+                minLatency.accumulateAndGet(latency, Math::min);
+                maxLatency.accumulateAndGet(latency, Math::max);
+                LatencyHistograms.record(this.latency, latency);
+            }
+            if (report == null && (queue == null || !takeSample(rpt.isPassed()))) {
+                // STREAMING: outside the sample only the aggregates above are kept
+                return;
+            }
+            if (retainPayload(rpt)) {
+                payloadsRetained.increment();
+            } else {
+                payloadsDropped.increment();
+            }
+
+            if (report != null) {
+                report.getItems().add(rpt);
+            } else {
+                CaseReport single = new CaseReport();
+                single.setTcid(tcid);
+                single.setItems(Collections.singletonList(rpt));
+                single.setPassed(rpt.isPassed());
+                if (enqueue(toLine(origin, tcid, mode, single))) {
+                    itemsSampled.increment();
+                } else {
+                    itemsDropped.increment();
+                }
+            }
+        }
+
+        private boolean takeSample(boolean passed) {
+            AtomicInteger slots = passed ? passedSamples : failedSamples;
+            // the counter may overshoot the cap, it is only compared with it
+            return slots.get() < sampleSize && slots.getAndIncrement() < sampleSize;
+        }
+
+        private RequestAggregate snapshot() {
+            RequestAggregate agg = new RequestAggregate();
+            agg.setOrigin(origin);
+            agg.setTcid(tcid);
+            agg.setMode(mode);
+            agg.setCount(count.sum());
+            agg.setFailed(failed.sum());
+            agg.setTotalLatencyMs(totalLatency.sum());
+            agg.setMinLatencyMs(agg.getCount() == 0 ? 0 : minLatency.get());
+            agg.setMaxLatencyMs(maxLatency.get());
+            agg.setPayloadsRetained(payloadsRetained.sum());
+            agg.setPayloadsDropped(payloadsDropped.sum());
+            agg.setItemsSampled(itemsSampled.sum());
+            agg.setItemsDropped(itemsDropped.sum());
+            return agg;
+        }
+    }
+
+    private final Mode mode;
+    private final String reportFilePath;
+    private final ObjectMapper mapper = new ObjectMapper();
+    // origin|tcid|mode -> case, in registration order
+    private final Map<String, Case> cases = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final AtomicLong payloadBudget;
+    private final int sampleSize = sampleSize();
+    private final LongAdder droppedLines = new LongAdder();
+
+    // STREAMING mode only
+    private final BlockingQueue<String> queue;
+    private final Thread writerThread;
+    private BufferedWriter writer;
+
+    RequestReportSink(Mode mode, String reportFilePath) {
+        this.mode = mode;
+        this.reportFilePath = reportFilePath != null && !reportFilePath.isBlank() ? reportFilePath : null;
+        long budgetMb = 64;
+        try {
+            budgetMb = Long.parseLong(AppConfig.getProperty("report.payload.budget.mb", "64").trim());
+        } catch (NumberFormatException e) {
+            System.err.println("[WARN] Invalid report.payload.budget.mb, using 64: " + e.getMessage());
+        }
+        this.payloadBudget = new AtomicLong(Math.max(0, budgetMb) * 1024 * 1024);
+
+        if (mode == Mode.STREAMING && this.reportFilePath != null && openWriter()) {
+            int capacity = 4096;
+            try {
+                capacity = Math.max(16, Integer.parseInt(AppConfig.getProperty("report.stream.queue.size", "4096").trim()));
+            } catch (NumberFormatException ignored) {
+            }
+            queue = new ArrayBlockingQueue<>(capacity);
+            writerThread = new Thread(this::drain, "report-writer");
+            writerThread.setDaemon(true);
+            writerThread.start();
+        } else {
+            queue = null;
+            writerThread = null;
+        }
+    }
+
+    /**
+     * Chooses the report mode for a run: {@code report.mode} when set, otherwise STREAMING for anything that runs
+     * more than one user or more than one iteration.
+     */
+    static Mode resolveMode(GatlingLoadParameters params) {
+        String configured = AppConfig.getProperty("report.mode", "auto").trim();
+        if ("full".equalsIgnoreCase(configured)) {
+            return Mode.FULL;
+        }
+        if ("streaming".equalsIgnoreCase(configured)) {
+            return Mode.STREAMING;
+        }
+        return isLoadRun(params) ? Mode.STREAMING : Mode.FULL;
+    }
+
+    static boolean isLoadRun(GatlingLoadParameters params) {
+        if (params == null || params.getType() == null) {
+            return false;
+        }
+        if (params.getType() != ThreadGroupType.STANDARD) {
+            return true;
+        }
+        StandardThreadGroup standard = params.getStandardThreadGroup();
+        return standard != null
+                && (standard.getNumThreads() > 1 || standard.isScheduler() || standard.getLoops() > 1);
+    }
+
+    /**
+     * Passed (and, separately, failed) reports per case written in detail in STREAMING mode
+     * ({@code report.stream.sample.size}, default 50).
+     */
+    static int sampleSize() {
+        try {
+            return Math.max(0, Integer.parseInt(AppConfig.getProperty("report.stream.sample.size", "50").trim()));
+        } catch (NumberFormatException e) {
+            System.err.println("[WARN] Invalid report.stream.sample.size, using 50: " + e.getMessage());
+            return 50;
+        }
+    }
+
+    Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Report lines dropped because the writer queue was full (STREAMING mode).
+     */
+    long getDroppedLines() {
+        return droppedLines.sum();
+    }
+
+    Case open(String origin, String tcid, String mode) {
+        return cases.computeIfAbsent(origin + "|" + tcid + "|" + mode, k -> new Case(origin, tcid, mode));
+    }
+
+    private boolean retainPayload(RequestReport rpt) {
+        RequestInfo request = rpt.getRequest();
+        ResponseInfo response = rpt.getResponse();
+        long size = 0;
+        if (request != null && request.getBody() != null) {
+            size += utf8Length(request.getBody());
+        }
+        if (response != null && response.getBodySample() != null) {
+            size += utf8Length(response.getBodySample());
+        }
+        if (size == 0) {
+            return true;
+        }
+        // Only debit the budget when the whole payload fits
+        long remaining;
+        do {
+            remaining = payloadBudget.get();
+            if (remaining < size) {
+                if (request != null && request.getBody() != null) {
+                    request.setBody(PAYLOAD_DROPPED);
+                }
+                if (response != null && response.getBodySample() != null) {
+                    response.setBodySample(PAYLOAD_DROPPED);
+                }
+                return false;
+            }
+        } while (!payloadBudget.compareAndSet(remaining, remaining - size));
+        return true;
+    }
+
+    /**
+     * Encoded size of {@code s} in UTF-8, without encoding it.
+     */
+    static long utf8Length(String s) {
+        long bytes = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    Map<String, RequestAggregate> snapshotAggregates() {
+        Map<String, RequestAggregate> result = new LinkedHashMap<>();
+        synchronized (cases) {
+            for (Map.Entry<String, Case> entry : cases.entrySet()) {
+                result.put(entry.getKey(), entry.getValue().snapshot());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Latency histograms of all cases, grouped by origin; cases without a response are left out.
+     */
+    Map<String, List<LatencyHistogram>> snapshotLatency() {
+        Map<String, List<LatencyHistogram>> result = new LinkedHashMap<>();
+        synchronized (cases) {
+            for (Case c : cases.values()) {
+                if (c.latency.getTotalCount() > 0) {
+                    result.computeIfAbsent(c.origin, k -> new ArrayList<>())
+                            .add(LatencyHistograms.summarize(c.tcid, c.mode, c.latency));
+                }
+            }
+        }
+        return result;
+    }
+
+    // ============================ NDJSON output ============================
+
+    private String toLine(String origin, String tcid, String mode, CaseReport report) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("origin", origin);
+        entry.put("tcid", tcid);
+        entry.put("mode", mode);
+        entry.put("report", report);
+        try {
+            return mapper.writeValueAsString(entry);
+        } catch (IOException e) {
+            System.err.println("[WARN] Failed to serialize report entry for " + tcid + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Hands {@code line} to the writer thread; never blocks the calling (Gatling) thread.
+     *
+     * @return {@code false} when the line was dropped because the writer is behind
+     */
+    private boolean enqueue(String line) {
+        if (line == null) {
+            return false;
+        }
+        if (!queue.offer(line)) {
+            droppedLines.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                String line = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (line == null) {
+                    flush();
+                    continue;
+                }
+                if (line == END_OF_STREAM) {
+                    break;
+                }
+                writeLine(line);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean openWriter() {
+        try {
+            writer = new BufferedWriter(new FileWriter(reportFilePath, true));
+            return true;
+        } catch (IOException e) {
+            System.err.println("[WARN] Unable to open report file for writing: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private synchronized void writeLine(String line) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.write(line);
+            writer.newLine();
+        } catch (IOException e) {
+            System.err.println("[WARN] Failed to write report entry: " + e.getMessage());
+        }
+    }
+
+    private synchronized void flush() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            System.err.println("[WARN] Failed to flush report file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes everything still pending, then {@code trailer} (run-wide entry) as the last line, and closes the file.
+     */
+    void finish(Map<String, Object> trailer) {
+        if (mode == Mode.STREAMING && writerThread != null) {
+            try {
+                queue.put(END_OF_STREAM);
+                writerThread.join(30_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // Anything the writer did not get to (timeout) is written here
+            String pending;
+            while ((pending = queue.poll()) != null) {
+                if (pending != END_OF_STREAM) {
+                    writeLine(pending);
+                }
+            }
+            // One summary line per case: its overall result does not depend on which reports were sampled, and
+            // cases that never completed a request still show up in the report, as in FULL mode
+            synchronized (cases) {
+                for (Case c : cases.values()) {
+                    CaseReport summary = new CaseReport();
+                    summary.setTcid(c.tcid);
+                    summary.setItems(Collections.emptyList());
+                    summary.setPassed(c.failed.sum() == 0);
+                    writeLine(toLine(c.origin, c.tcid, c.mode, summary));
+                }
+            }
+            if (droppedLines.sum() > 0) {
+                System.err.println("[WARN] " + droppedLines.sum() + " sampled report line(s) dropped, the report writer was behind");
+            }
+        } else if (mode == Mode.FULL && reportFilePath != null && openWriter()) {
+            synchronized (cases) {
+                for (Case c : cases.values()) {
+                    // Finalize the case report's overall status
+                    c.report.setPassed(c.report.getItems().stream().allMatch(RequestReport::isPassed));
+                    writeLine(toLine(c.origin, c.tcid, c.mode, c.report));
+                }
+            }
+        }
+        if (trailer != null) {
+            try {
+                writeLine(mapper.writeValueAsString(trailer));
+            } catch (IOException e) {
+                System.err.println("[WARN] Failed to write run metrics: " + e.getMessage());
+            }
+        }
+        synchronized (this) {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException ignored) {
+                }
+                writer = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,529 @@
+package com.qa.app.service.runner;
+
+import com.qa.app.util.AppConfig;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Typed event channel from the Gatling child process to the parent runner.
+ * <p>
+ * The parent opens a {@link Server} (Unix-domain socket, loopback TCP as fallback) and passes its address to the
+ * child via the {@value #ADDRESS_PROPERTY} system property. The child publishes events through the static
+ * methods below; they are encoded as length-prefixed binary frames and written by a background thread, so
+ * Gatling threads never block on the parent. When the queue is full events are dropped (and counted) instead of
+ * stalling the simulation; only the end-of-run frames ({@link #variables}, {@link #runStats}) wait for room, and
+ * report whether they were queued so the caller can fall back to stdout. Without the property every publish method
+ * is a no-op and callers keep their stdout output.
+ * <p>
+ * Saved variables travel in the final {@code VARIABLES} snapshot and request results in the report file, so there
+ * is no event per save or per request; requests only feed the counters below.
+ * <p>
+ * Besides the events, the writer thread publishes every second the request count so far ({@code PROGRESS}) and
+ * the {@link LiveMetrics} windows of the last second per request name ({@code METRICS}).
+ */
+public final class RunEventChannel {
+
+    public static final String ADDRESS_PROPERTY = "gatling.events.address";
+
+    // 1 and 3 were the per-save and per-request events
+    private static final byte CHECK_RESULT = 2;
+    private static final byte PROGRESS = 4;
+    private static final byte VARIABLES = 5;
+    private static final byte METRICS = 6;
+    private static final byte RUN_STATS = 7;
+
+    private static final long PROGRESS_INTERVAL_MS = 1000;
+    // How long an end-of-run frame waits for room in a full queue
+    private static final long TERMINAL_OFFER_TIMEOUT_MS = 5000;
+
+    /**
+     * Receives decoded events on the parent side (called from the reader thread).
+     */
+    public interface Listener {
+        default void onCheckResult(String tcid, String type, String expression, String operator,
+                                   String expect, String actual, boolean passed) {}
+
+        default void onProgress(long requests, long failedRequests, long droppedEvents) {}
+
+        default void onVariables(Map<String, String> variables) {}
+
+        /** Live metrics of the last second, one window per request name that completed requests. */
+        default void onMetrics(List<LiveMetrics.Window> windows) {}
+
+        /** End-of-run statistics of the child (template caches, DB checks, pools), one line per name. */
+        default void onRunStats(Map<String, String> stats) {}
+    }
+
+    private RunEventChannel() {
+    }
+
+    // ------------------------------------------------------------------------
+    // Child side
+    // ------------------------------------------------------------------------
+
+    private static volatile Client client;
+    private static volatile boolean initialized;
+
+    private static Client client() {
+        if (!initialized) {
+            synchronized (RunEventChannel.class) {
+                if (!initialized) {
+                    String address = System.getProperty(ADDRESS_PROPERTY);
+                    if (address != null && !address.isBlank()) {
+                        try {
+                            client = new Client(connect(address));
+                        } catch (IOException e) {
+                            System.err.println("[WARN] Unable to connect run event channel (" + address + "): " + e.getMessage());
+                        }
+                    }
+                    initialized = true;
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * @return true if events are delivered to a parent runner; callers fall back to stdout otherwise
+     */
+    public static boolean isConnected() {
+        return client() != null;
+    }
+
+    public static void checkResult(String tcid, String type, String expression, String operator,
+                                   String expect, String actual, boolean passed) {
+        Client c = client();
+        if (c != null) {
+            c.publish(CHECK_RESULT, out -> {
+                writeString(out, tcid);
+                writeString(out, type);
+                writeString(out, expression);
+                writeString(out, operator);
+                writeString(out, expect);
+                writeString(out, actual);
+                out.writeBoolean(passed);
+            });
+        }
+    }
+
+    /**
+     * Counts a completed request for the progress and live metrics.
+     *
+     * @param latencyMs response time, negative when there was no response
+     */
+    public static void requestCompleted(String requestName, long latencyMs, boolean passed) {
+        Client c = client();
+        if (c != null) {
+            c.count(requestName, latencyMs, passed);
+        }
+    }
+
+    /**
+     * Publishes the final variables snapshot, waiting for room when the queue is full.
+     *
+     * @return false when the snapshot could not be queued (no channel, channel broken or still full); the caller
+     * then prints the stdout line instead
+     */
+    public static boolean variables(Map<String, String> variables) {
+        Client c = client();
+        return c != null && c.publishTerminal(VARIABLES, out -> writeStringMap(out, variables));
+    }
+
+    /**
+     * Publishes end-of-run statistics for the parent's run log, waiting for room when the queue is full.
+     *
+     * @return false when they could not be queued; the caller then prints them itself
+     */
+    public static boolean runStats(Map<String, String> stats) {
+        Client c = client();
+        return c != null && c.publishTerminal(RUN_STATS, out -> writeStringMap(out, stats));
+    }
+
+    /**
+     * Flushes pending events and closes the connection; call at the end of the simulation.
+     */
+    public static void close() {
+        Client c = client;
+        if (c != null) {
+            c.close();
+        }
+    }
+
+    private static SocketChannel connect(String address) throws IOException {
+        if (address.startsWith("unix:")) {
+            return SocketChannel.open(UnixDomainSocketAddress.of(address.substring("unix:".length())));
+        }
+        if (address.startsWith("tcp:")) {
+            int port = Integer.parseInt(address.substring("tcp:".length()));
+            return SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        }
+        throw new IOException("Unsupported event channel address: " + address);
+    }
+
+    @FunctionalInterface
+    private interface FrameBody {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static final class Client {
+        private static final byte[] POISON = new byte[0];
+
+        private final SocketChannel channel;
+        private final BlockingQueue<byte[]> queue;
+        private final Thread writer;
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder failedRequests = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LiveMetrics metrics = new LiveMetrics();
+        private volatile boolean closed;
+
+        private Client(SocketChannel channel) {
+            this.channel = channel;
+            int capacity = 8192;
+            try {
+                capacity = Math.max(64, Integer.parseInt(AppConfig.getProperty("run.events.queue.size", "8192").trim()));
+            } catch (NumberFormatException ignored) {
+                // keep default
+            }
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.writer = new Thread(this::drain, "run-events-writer");
+            this.writer.setDaemon(true);
+            this.writer.start();
+        }
+
+        private void count(String requestName, long latencyMs, boolean passed) {
+            requests.increment();
+            if (!passed) {
+                failedRequests.increment();
+            }
+            metrics.record(requestName, latencyMs, passed);
+        }
+
+        private void publish(byte type, FrameBody body) {
+            if (closed) {
+                return;
+            }
+            try {
+                if (!queue.offer(encode(type, body))) {
+                    dropped.increment();
+                }
+            } catch (IOException e) {
+                dropped.increment();
+            }
+        }
+
+        /**
+         * Queues an end-of-run frame, waiting up to TERMINAL_OFFER_TIMEOUT_MS for room.
+         */
+        private boolean publishTerminal(byte type, FrameBody body) {
+            if (closed) {
+                return false;
+            }
+            try {
+                if (queue.offer(encode(type, body), TERMINAL_OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            } catch (IOException e) {
+                // counted below
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            dropped.increment();
+            return false;
+        }
+
+        private void drain() {
+            try (OutputStream raw = Channels.newOutputStream(channel);
+                 DataOutputStream out = new DataOutputStream(new java.io.BufferedOutputStream(raw, 64 * 1024))) {
+                long nextProgress = System.currentTimeMillis() + PROGRESS_INTERVAL_MS;
+                while (true) {
+                    byte[] frame = queue.poll(PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                    if (frame == POISON) {
+                        break;
+                    }
+                    if (frame != null) {
+                        writeFrame(out, frame);
+                    }
+                    long now = System.currentTimeMillis();
+                    if (now >= nextProgress || queue.isEmpty()) {
+                        if (now >= nextProgress) {
+                            writeFrame(out, metricsFrame());
+                            writeFrame(out, progressFrame());
+                            nextProgress = now + PROGRESS_INTERVAL_MS;
+                        }
+                        out.flush();
+                    }
+                }
+                // drain whatever is left after the poison pill
+                byte[] frame;
+                while ((frame = queue.poll()) != null) {
+                    if (frame != POISON) {
+                        writeFrame(out, frame);
+                    }
+                }
+                writeFrame(out, metricsFrame());
+                writeFrame(out, progressFrame());
+                out.flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                System.err.println("[WARN] Run event channel closed: " + e.getMessage());
+                closed = true;
+            }
+        }
+
+        private byte[] progressFrame() throws IOException {
+            return encode(PROGRESS, out -> {
+                out.writeLong(requests.sum());
+                out.writeLong(failedRequests.sum());
+                out.writeLong(dropped.sum());
+            });
+        }
+
+        private byte[] metricsFrame() throws IOException {
+            List<LiveMetrics.Window> windows = metrics.snapshot();
+            return encode(METRICS, out -> {
+                out.writeInt(windows.size());
+                for (LiveMetrics.Window w : windows) {
+                    out.writeLong(w.second());
+                    writeString(out, w.requestName());
+                    out.writeLong(w.requests());
+                    out.writeLong(w.errors());
+                    out.writeLong(w.p50Ms());
+                    out.writeLong(w.p95Ms());
+                    out.writeLong(w.p99Ms());
+                }
+            });
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                queue.put(POISON);
+                writer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // already closed
+            }
+        }
+    }
+
+    private static byte[] encode(byte type, FrameBody body) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeByte(type);
+        body.write(out);
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    private static void writeFrame(DataOutputStream out, byte[] frame) throws IOException {
+        out.writeInt(frame.length);
+        out.write(frame);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeStringMap(DataOutputStream out, Map<String, String> map) throws IOException {
+        out.writeInt(map.size());
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+    }
+
+    private static Map<String, String> readStringMap(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put(readString(in), readString(in));
+        }
+        return map;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ------------------------------------------------------------------------
+    // Parent side
+    // ------------------------------------------------------------------------
+
+    /**
+     * Accepts the child's connection and dispatches decoded events to a {@link Listener} on a reader thread.
+     */
+    public static final class Server implements Closeable {
+        private final ServerSocketChannel serverChannel;
+        private final String address;
+        private final Path socketPath;
+        private final Listener listener;
+        private final Thread reader;
+        private volatile boolean connected;
+
+        private Server(ServerSocketChannel serverChannel, String address, Path socketPath, Listener listener) {
+            this.serverChannel = serverChannel;
+            this.address = address;
+            this.socketPath = socketPath;
+            this.listener = listener;
+            this.reader = new Thread(this::acceptAndRead, "run-events-reader");
+            this.reader.setDaemon(true);
+            this.reader.start();
+        }
+
+        public static Server open(Listener listener) throws IOException {
+            Path socketPath = Paths.get(System.getProperty("java.io.tmpdir"),
+                    "gatling-events-" + UUID.randomUUID().toString().substring(0, 8) + ".sock");
+            try {
+                ServerSocketChannel unix = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+                unix.bind(UnixDomainSocketAddress.of(socketPath));
+                return new Server(unix, "unix:" + socketPath, socketPath, listener);
+            } catch (IOException | UnsupportedOperationException e) {
+                // e.g. path too long or platform without AF_UNIX support
+                ServerSocketChannel tcp = ServerSocketChannel.open();
+                SocketAddress bindAddress = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+                tcp.bind(bindAddress);
+                int port = ((InetSocketAddress) tcp.getLocalAddress()).getPort();
+                return new Server(tcp, "tcp:" + port, null, listener);
+            }
+        }
+
+        /**
+         * Value for the {@value RunEventChannel#ADDRESS_PROPERTY} system property of the child.
+         */
+        public String getAddress() {
+            return address;
+        }
+
+        private void acceptAndRead() {
+            try (SocketChannel channel = serverChannel.accept();
+                 InputStream raw = Channels.newInputStream(channel);
+                 DataInputStream in = new DataInputStream(new java.io.BufferedInputStream(raw, 64 * 1024))) {
+                connected = true;
+                while (true) {
+                    int length;
+                    try {
+                        length = in.readInt();
+                    } catch (EOFException eof) {
+                        break;
+                    }
+                    byte[] frame = new byte[length];
+                    in.readFully(frame);
+                    dispatch(frame);
+                }
+            } catch (IOException e) {
+                if (serverChannel.isOpen()) {
+                    System.err.println("[WARN] Run event channel read failed: " + e.getMessage());
+                }
+            }
+        }
+
+        private void dispatch(byte[] frame) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame));
+            byte type = in.readByte();
+            try {
+                switch (type) {
+                    case CHECK_RESULT -> listener.onCheckResult(readString(in), readString(in), readString(in),
+                            readString(in), readString(in), readString(in), in.readBoolean());
+                    case PROGRESS -> listener.onProgress(in.readLong(), in.readLong(), in.readLong());
+                    case VARIABLES -> listener.onVariables(readStringMap(in));
+                    case RUN_STATS -> listener.onRunStats(readStringMap(in));
+                    case METRICS -> {
+                        int size = in.readInt();
+                        List<LiveMetrics.Window> windows = new ArrayList<>(size);
+                        for (int i = 0; i < size; i++) {
+                            windows.add(new LiveMetrics.Window(in.readLong(), readString(in), in.readLong(),
+                                    in.readLong(), in.readLong(), in.readLong(), in.readLong()));
+                        }
+                        listener.onMetrics(windows);
+                    }
+                    default -> System.err.println("[WARN] Unknown run event type: " + type);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("[WARN] Run event listener failed: " + e.getMessage());
+            }
+        }
+
+        /**
+         * Waits until the child has closed its end and every event has been dispatched.
+         */
+        public void awaitCompletion(long timeoutMs) {
+            try {
+                if (!connected) {
+                    // a child that exited without connecting leaves the reader blocked in accept()
+                    reader.join(Math.min(200, timeoutMs));
+                }
+                if (connected) {
+                    reader.join(timeoutMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                serverChannel.close();
+            } catch (IOException ignored) {
+                // nothing to do
+            }
+            if (socketPath != null) {
+                try {
+                    Files.deleteIfExists(socketPath);
+                } catch (IOException ignored) {
+                    // temp file, best effort
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.qa.app.service.runner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qa.app.model.DbConnection;
+import com.qa.app.model.Endpoint;
+import com.qa.app.model.GatlingLoadParameters;
+import com.qa.app.model.GatlingTest;
+import com.qa.app.model.ScenarioRunItem;
+import com.qa.app.service.util.GroovyScriptEngine;
+import com.qa.app.service.util.VariableGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything a Gatling child process needs to execute a run, resolved by the parent before the process starts.
+ * <p>
+ * Besides the execution list (the batch items of a test run or the scenarios of a scenario run) the plan carries
+ * the closure of what the simulations used to query on the fly: the DIFF / PRE_CHECK / PST_CHECK reference tests
+ * with their templates applied, the endpoints of those tests in the run's environment, the DB connections of the DB
+ * checks and the custom variables. {@link GatlingTestSimulation} and {@link GatlingScenarioSimulation} execute
+ * from this file only and never open the application database, so a run is reproducible from its plan and load
+ * agents need no database at all.
+ * <p>
+ * The file ({@value #FILE_PROPERTY}) is versioned: a child refuses a plan of another {@link #VERSION}. It contains
+ * the DB connection credentials of the run and is therefore created readable by the owner only, when the run starts,
+ * and deleted as soon as the run process has exited.
+ */
+public class RunPlan {
+
+    /** Format version of the plan file; increase it on incompatible changes. */
+    public static final int VERSION = 1;
+    /** System property of the child process holding the path of the plan file. */
+    public static final String FILE_PROPERTY = "gatling.runplan.file";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** A custom (Groovy) variable, see {@link GroovyScriptEngine}. */
+    public static class CustomVariable {
+        public String name;
+        public String format;
+        public String description;
+        public String groovyScript;
+    }
+
+    private int version = VERSION;
+    private long createdAt = System.currentTimeMillis();
+    private Integer environmentId;
+    private String environmentName;
+
+    // Test runs (GatlingTestSimulation): each item has "test", "endpoint", "origin" and "mode"
+    private GatlingLoadParameters params;
+    private List<Map<String, Object>> items;
+
+    // Scenario runs (GatlingScenarioSimulation)
+    private List<ScenarioRunItem> scenarios;
+
+    // Catalog closure
+    private Map<String, GatlingTest> referenceTests = new LinkedHashMap<>();
+    private Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+    private Map<String, DbConnection> dbConnections = new LinkedHashMap<>();
+    private List<CustomVariable> customVariables = new ArrayList<>();
+
+    /**
+     * Writes the plan to a new temporary file readable and writable by the owner only and returns it. The caller
+     * writes it when the run starts and removes it with {@link #delete(File)} once the run is over.
+     */
+    public File write() throws IOException {
+        Path path;
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            path = Files.createTempFile("gatling_runplan_", ".json",
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            path = Files.createTempFile("gatling_runplan_", ".json");
+            File file = path.toFile();
+            // Best effort outside POSIX: drop everybody's access, then grant the owner's
+            file.setReadable(false, false);
+            file.setWritable(false, false);
+            file.setReadable(true, true);
+            file.setWritable(true, true);
+        }
+        try {
+            MAPPER.writeValue(path.toFile(), this);
+        } catch (IOException e) {
+            delete(path.toFile());
+            throw e;
+        }
+        return path.toFile();
+    }
+
+    /**
+     * Deletes a plan file written by {@link #write()}; {@code null} is ignored.
+     */
+    public static void delete(File file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            System.err.println("[WARN] Failed to delete run plan " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a plan written by {@link #write()}.
+     *
+     * @throws IOException when the file cannot be read or was written with another {@link #VERSION}
+     */
+    public static RunPlan read(File file) throws IOException {
+        RunPlan plan = MAPPER.readValue(file, RunPlan.class);
+        if (plan.getVersion() != VERSION) {
+            throw new IOException("Unsupported run plan version " + plan.getVersion() + " (expected " + VERSION + "): " + file);
+        }
+        return plan;
+    }
+
+    /**
+     * Reads the plan named by the {@value #FILE_PROPERTY} system property of the child process.
+     */
+    public static RunPlan fromSystemProperty() throws IOException {
+        String path = System.getProperty(FILE_PROPERTY);
+        if (path == null || path.isBlank()) {
+            throw new IllegalStateException(FILE_PROPERTY + " system property not set");
+        }
+        return read(new File(path));
+    }
+
+    /**
+     * Makes the custom variables of the plan the ones resolved by {@link VariableGenerator} in this process.
+     */
+    public void installCustomVariables() {
+        List<GroovyScriptEngine> engines = new ArrayList<>();
+        if (customVariables != null) {
+            for (CustomVariable v : customVariables) {
+                engines.add(new GroovyScriptEngine(v.name, v.format != null ? v.format : "", v.description, v.groovyScript));
+            }
+        }
+        VariableGenerator.getInstance().setCustomVariables(engines);
+    }
+
+    /** Reference test of a DIFF / PRE_CHECK / PST_CHECK check, {@code null} when it does not exist. */
+    public GatlingTest referenceTest(String tcid) {
+        return referenceTests != null ? referenceTests.get(tcid) : null;
+    }
+
+    /** Endpoint of the given name in the run's environment, {@code null} when it does not exist. */
+    public Endpoint endpoint(String name) {
+        return endpoints != null && name != null ? endpoints.get(name) : null;
+    }
+
+    /** Connection of a DB check alias, {@code null} when the alias is unknown. */
+    public DbConnection dbConnection(String alias) {
+        return dbConnections != null && alias != null ? dbConnections.get(alias) : null;
+    }
+
+    // Getters and Setters
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Integer getEnvironmentId() {
+        return environmentId;
+    }
+
+    public void setEnvironmentId(Integer environmentId) {
+        this.environmentId = environmentId;
+    }
+
+    public String getEnvironmentName() {
+        return environmentName;
+    }
+
+    public void setEnvironmentName(String environmentName) {
+        this.environmentName = environmentName;
+    }
+
+    public GatlingLoadParameters getParams() {
+        return params;
+    }
+
+    public void setParams(GatlingLoadParameters params) {
+        this.params = params;
+    }
+
+    public List<Map<String, Object>> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Map<String, Object>> items) {
+        this.items = items;
+    }
+
+    public List<ScenarioRunItem> getScenarios() {
+        return scenarios;
+    }
+
+    public void setScenarios(List<ScenarioRunItem> scenarios) {
+        this.scenarios = scenarios;
+    }
+
+    public Map<String, GatlingTest> getReferenceTests() {
+        return referenceTests;
+    }
+
+    public void setReferenceTests(Map<String, GatlingTest> referenceTests) {
+        this.referenceTests = referenceTests;
+    }
+
+    public Map<String, Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(Map<String, Endpoint> endpoints) {
+        this.endpoints = endpoints;
+    }
+
+    public Map<String, DbConnection> getDbConnections() {
+        return dbConnections;
+    }
+
+    public void setDbConnections(Map<String, DbConnection> dbConnections) {
+        this.dbConnections = dbConnections;
+    }
+
+    public List<CustomVariable> getCustomVariables() {
+        return customVariables;
+    }
+
+    public void setCustomVariables(List<CustomVariable> customVariables) {
+        this.customVariables = customVariables;
+    }
+}
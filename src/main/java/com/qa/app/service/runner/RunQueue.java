@@ -0,0 +1,331 @@
+package com.qa.app.service.runner;
+
+import com.qa.app.model.GatlingLoadParameters;
+import com.qa.app.util.AppConfig;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission queue in front of every Gatling run started from the application.
+ * <p>
+ * Test and scenario runs used to start their runner thread and Gatling JVM immediately, so two load tests started at
+ * the same time shared the generator host and skewed each other's latencies. Runs are now {@link #submit submitted}
+ * with a {@link Priority} and a {@link Cost} estimated from their {@link GatlingLoadParameters}; the queue starts them
+ * in priority order (FIFO within a priority, no overtaking) when the host can take them:
+ * <ul>
+ *     <li>a load run (more than {@code run.queue.light.users}, default 1, peak users) only starts on an idle generator
+ *     and nothing else starts while it runs, unless {@code run.queue.allow.shared=true}</li>
+ *     <li>at most {@code run.queue.max.concurrent} (default 2) runs are active</li>
+ *     <li>an additional run needs the system CPU load below {@code run.queue.max.cpu.load} (default 0.75) and
+ *     the estimated memory of the run free ({@code run.queue.jvm.mb}, default 512, plus
+ *     {@code run.queue.user.kb}, default 256, per peak user)</li>
+ * </ul>
+ * A run on an idle generator always starts, so an oversized run is not queued forever. Runs on remote load agents
+ * load the agents, not this host, and are submitted as light runs; {@code load.agents=local:N} runs start N agent
+ * JVMs on this host and are estimated as such. Queued and running runs can be {@link Run#cancel()
+ * cancelled}; a running one is stopped by destroying the process attached to it.
+ */
+public final class RunQueue {
+
+    public enum Priority {
+        HIGH, NORMAL, LOW
+    }
+
+    public enum State {
+        QUEUED, RUNNING, DONE, CANCELLED
+    }
+
+    /**
+     * Estimated load of a run on the generator host.
+     */
+    public record Cost(int peakUsers, long memoryBytes, boolean exclusive) {
+        /** A run that barely loads the host, e.g. one executed by remote agents. */
+        public static Cost light() {
+            return new Cost(1, 0, false);
+        }
+    }
+
+    /**
+     * Body of a run, executed on its own thread once admitted.
+     */
+    @FunctionalInterface
+    public interface Task {
+        void run(Run run) throws Exception;
+    }
+
+    /**
+     * A submitted run.
+     */
+    public static final class Run {
+        private final long id;
+        private final String name;
+        private final Priority priority;
+        private final Cost cost;
+        private final Task task;
+        private final String threadName;
+        private final Runnable onCancelled;
+        private volatile State state = State.QUEUED;
+        private volatile Process process;
+
+        private Run(long id, String name, Priority priority, Cost cost, Task task, String threadName, Runnable onCancelled) {
+            this.id = id;
+            this.name = name;
+            this.priority = priority;
+            this.cost = cost;
+            this.task = task;
+            this.threadName = threadName;
+            this.onCancelled = onCancelled;
+        }
+
+        public long getId() { return id; }
+        public String getName() { return name; }
+        public Priority getPriority() { return priority; }
+        public Cost getCost() { return cost; }
+        public State getState() { return state; }
+
+        public boolean isCancelled() {
+            return state == State.CANCELLED;
+        }
+
+        /**
+         * Registers the Gatling process of the run, so {@link #cancel()} can stop it.
+         */
+        public void attach(Process process) {
+            this.process = process;
+            if (isCancelled()) {
+                destroy(process);
+            }
+        }
+
+        /**
+         * Removes a queued run (its {@code onCancelled} callback runs) or stops a running one.
+         *
+         * @return {@code false} when the run had already finished
+         */
+        public boolean cancel() {
+            return RunQueue.cancel(this);
+        }
+
+        @Override
+        public String toString() {
+            return name + " [" + priority + ", " + state + (cost.exclusive() ? ", " + cost.peakUsers() + " users" : "") + "]";
+        }
+    }
+
+    private static final long MB = 1024L * 1024L;
+
+    private static final AtomicLong ids = new AtomicLong();
+    private static final PriorityQueue<Run> queued = new PriorityQueue<>(
+            Comparator.comparing(Run::getPriority).thenComparingLong(Run::getId));
+    private static final List<Run> running = new ArrayList<>();
+    // Re-checks admission while runs wait for CPU or memory
+    private static ScheduledExecutorService monitor;
+
+    private RunQueue() {
+        // utility class – hide constructor
+    }
+
+    private static int intProperty(String key, int defaultValue) {
+        try {
+            return Math.max(1, Integer.parseInt(AppConfig.getProperty(key, String.valueOf(defaultValue)).trim()));
+        } catch (NumberFormatException e) {
+            System.err.println("[WARN] Invalid " + key + ", using " + defaultValue + ": " + e.getMessage());
+            return defaultValue;
+        }
+    }
+
+    private static double maxCpuLoad() {
+        try {
+            return Double.parseDouble(AppConfig.getProperty("run.queue.max.cpu.load", "0.75").trim());
+        } catch (NumberFormatException e) {
+            System.err.println("[WARN] Invalid run.queue.max.cpu.load, using 0.75: " + e.getMessage());
+            return 0.75;
+        }
+    }
+
+    /**
+     * Estimated cost of a local run with {@code params} whose iteration sends {@code requestsPerIteration} requests
+     * back to back.
+     */
+    public static Cost estimate(GatlingLoadParameters params, int requestsPerIteration) {
+        return estimate(GatlingRunnerUtils.peakUsers(params, requestsPerIteration, 0));
+    }
+
+    /**
+     * Estimated cost of a local Gatling JVM running {@code users} virtual users at its peak.
+     */
+    public static Cost estimate(int peakUsers) {
+        return estimate(peakUsers, 1);
+    }
+
+    /**
+     * Estimated cost of {@code jvms} local Gatling JVMs sharing {@code peakUsers} virtual users, e.g. the
+     * {@code local:N} agents of a distributed run: every JVM adds its base footprint.
+     */
+    public static Cost estimate(int peakUsers, int jvms) {
+        int users = Math.max(1, peakUsers);
+        long memory = Math.max(1, jvms) * intProperty("run.queue.jvm.mb", 512) * MB
+                + users * intProperty("run.queue.user.kb", 256) * 1024L;
+        return new Cost(users, memory, users > intProperty("run.queue.light.users", 1));
+    }
+
+    /**
+     * Queues a run; {@code task} runs on a new thread named {@code threadName} once it is admitted.
+     *
+     * @param onCancelled called instead of the task when the run is cancelled while queued, e.g. to re-enable the
+     *                    run button; may be {@code null}
+     */
+    public static Run submit(String name, Priority priority, Cost cost, String threadName, Task task, Runnable onCancelled) {
+        Run run = new Run(ids.incrementAndGet(), name, priority, cost, task, threadName, onCancelled);
+        synchronized (RunQueue.class) {
+            queued.add(run);
+        }
+        dispatch();
+        if (run.state == State.QUEUED) {
+            com.qa.app.ui.vm.MainViewModel.showGlobalStatus("Queued: " + name + " (" + waitReason() + ")",
+                    com.qa.app.ui.vm.MainViewModel.StatusType.INFO);
+        }
+        return run;
+    }
+
+    /**
+     * Queued and running runs, running first.
+     */
+    public static synchronized List<Run> snapshot() {
+        List<Run> runs = new ArrayList<>(running);
+        List<Run> waiting = new ArrayList<>(queued);
+        waiting.sort(queued.comparator());
+        runs.addAll(waiting);
+        return runs;
+    }
+
+    private static boolean cancel(Run run) {
+        boolean wasQueued;
+        synchronized (RunQueue.class) {
+            if (run.state == State.DONE || run.state == State.CANCELLED) {
+                return false;
+            }
+            wasQueued = queued.remove(run);
+            run.state = State.CANCELLED;
+        }
+        if (wasQueued) {
+            System.out.println("Cancelled queued run: " + run.name);
+            if (run.onCancelled != null) {
+                run.onCancelled.run();
+            }
+            dispatch();
+        } else {
+            System.out.println("Cancelling run: " + run.name);
+            Process process = run.process;
+            if (process != null) {
+                destroy(process);
+            }
+        }
+        return true;
+    }
+
+    private static void destroy(Process process) {
+        try {
+            process.descendants().forEach(ProcessHandle::destroy);
+        } catch (UnsupportedOperationException ignored) {
+            // a warm worker run is not a real process; destroy() stops the worker
+        }
+        process.destroy();
+    }
+
+    /**
+     * Starts queued runs while the head of the queue can be admitted.
+     */
+    private static void dispatch() {
+        List<Run> admitted = new ArrayList<>();
+        synchronized (RunQueue.class) {
+            Run head;
+            while ((head = queued.peek()) != null && admissible(head)) {
+                queued.poll();
+                head.state = State.RUNNING;
+                running.add(head);
+                admitted.add(head);
+            }
+            if (!queued.isEmpty()) {
+                startMonitor();
+            } else if (monitor != null) {
+                monitor.shutdown();
+                monitor = null;
+            }
+        }
+        for (Run run : admitted) {
+            Thread t = new Thread(() -> execute(run), run.threadName);
+            t.start();
+        }
+    }
+
+    private static boolean admissible(Run run) {
+        if (running.isEmpty()) {
+            return true;
+        }
+        boolean allowShared = Boolean.parseBoolean(AppConfig.getProperty("run.queue.allow.shared", "false").trim());
+        if (!allowShared && (run.cost.exclusive() || running.stream().anyMatch(r -> r.cost.exclusive()))) {
+            return false;
+        }
+        if (running.size() >= intProperty("run.queue.max.concurrent", 2)) {
+            return false;
+        }
+        com.sun.management.OperatingSystemMXBean os = osBean();
+        if (os == null) {
+            return true;
+        }
+        double cpuLoad = os.getCpuLoad();
+        return (cpuLoad < 0 || cpuLoad < maxCpuLoad()) && os.getFreeMemorySize() >= run.cost.memoryBytes();
+    }
+
+    private static String waitReason() {
+        synchronized (RunQueue.class) {
+            if (running.stream().anyMatch(r -> r.cost.exclusive())) {
+                return "a load test is running";
+            }
+            return running.size() + " run(s) active, waiting for a free slot, CPU or memory";
+        }
+    }
+
+    private static com.sun.management.OperatingSystemMXBean osBean() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return os;
+        }
+        return null;
+    }
+
+    private static void startMonitor() {
+        if (monitor == null) {
+            monitor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "run-queue-monitor");
+                t.setDaemon(true);
+                return t;
+            });
+            monitor.scheduleWithFixedDelay(RunQueue::dispatch, 2, 2, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void execute(Run run) {
+        try {
+            run.task.run(run);
+        } catch (Exception e) {
+            System.err.println("Run '" + run.name + "' failed: " + e.getMessage());
+        } finally {
+            synchronized (RunQueue.class) {
+                running.remove(run);
+                if (run.state == State.RUNNING) {
+                    run.state = State.DONE;
+                }
+            }
+            dispatch();
+        }
+    }
+}
@@ -2,19 +2,26 @@ package com.qa.app.service.runner;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qa.app.service.util.BoundedCache;
+import com.qa.app.service.util.HotPathProbes;
 import com.qa.app.service.util.VariableGenerator;
+import com.qa.app.util.AppConfig;
 
 import freemarker.core.JSONOutputFormat;
 import freemarker.template.Configuration;
 import freemarker.template.Template;
 import freemarker.template.Version;
+import io.gatling.javaapi.core.Session;
 
+import java.io.IOException;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class RuntimeTemplateProcessor {
@@ -23,6 +30,32 @@ public class RuntimeTemplateProcessor {
     private static final Pattern AT_PLACEHOLDER = Pattern.compile("@\\{([^}]+)\\}");
     private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
 
+    /**
+     * Compiled FreeMarker templates keyed by the raw template content. ${TCID.var} references are compiled into
+     * model variables ({@value #REFERENCE_PREFIX}0, 1, ...) and bound per render, so per-user values do not
+     * create cache entries. Size is configurable through {@code template.cache.size} in application.properties.
+     */
+    private static final BoundedCache<String, CompiledTemplate> TEMPLATE_CACHE =
+            new BoundedCache<>("templates", parseCacheSize(AppConfig.getProperty("template.cache.size"), 512));
+
+    /**
+     * Model values for dynamic variables that contain no generator placeholders, i.e. whose value does
+     * not change between requests. Variables producing fresh values (UUID, timestamps, Groovy) are never cached.
+     */
+    private static final BoundedCache<String, Object> STATIC_MODEL_CACHE =
+            new BoundedCache<>("staticModelValues", parseCacheSize(AppConfig.getProperty("template.cache.size"), 512));
+
+    private static final String REFERENCE_PREFIX = "__tcidRef";
+
+    /**
+     * Compiled template with the ${TCID.var} keys bound to {@value #REFERENCE_PREFIX}&lt;index&gt;.
+     */
+    private record CompiledTemplate(Template template, List<String> references) {
+    }
+
+    /** Marker stored for static values that convert to {@code null}. */
+    private static final Object NULL_MODEL_VALUE = new Object();
+
     static {
         FREEMARKER_CFG = new Configuration(new Version("2.3.32"));
         FREEMARKER_CFG.setDefaultEncoding("UTF-8");
@@ -80,28 +113,117 @@ public class RuntimeTemplateProcessor {
         return AT_PLACEHOLDER.matcher(content).replaceAll("[=$1]");
     }
 
+    private static int parseCacheSize(String raw, int defaultSize) {
+        if (raw == null || raw.isBlank()) return defaultSize;
+        try {
+            return Math.max(1, Integer.parseInt(raw.trim()));
+        } catch (NumberFormatException e) {
+            return defaultSize;
+        }
+    }
+
+    private static CompiledTemplate compile(String rawTemplate) {
+        // ${TCID.var} -> [=__tcidRefN]; the value is inserted as is, like the former textual substitution
+        Map<String, Integer> references = new LinkedHashMap<>();
+        Matcher matcher = TestRunContext.VARIABLE_REFERENCE_PATTERN.matcher(rawTemplate);
+        StringBuilder source = new StringBuilder();
+        while (matcher.find()) {
+            String key = matcher.group(1) + "." + matcher.group(2);
+            int index = references.computeIfAbsent(key, k -> references.size());
+            matcher.appendReplacement(source, Matcher.quoteReplacement("[=" + REFERENCE_PREFIX + index + "]"));
+        }
+        matcher.appendTail(source);
+        try {
+            Template template = new Template("rtTemplate", preprocessForFreeMarker(source.toString()), FREEMARKER_CFG);
+            return new CompiledTemplate(template, new ArrayList<>(references.keySet()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Object resolveModelValue(String rawValue) {
+        String processedValue = TestRunContext.processVariableReferences(rawValue);
+        if (processedValue == null) {
+            return null;
+        }
+        // Values with ${TCID.var} references differ per virtual user and are never cached
+        boolean cacheable = processedValue.equals(rawValue);
+        Object cached = cacheable ? STATIC_MODEL_CACHE.getIfPresent(processedValue) : null;
+        if (cached != null) {
+            return cached == NULL_MODEL_VALUE ? null : cached;
+        }
+        String value = VariableGenerator.getInstance().resolveVariables(processedValue);
+        Object modelValue = convertToModelValue(value);
+        if (cacheable && processedValue.equals(value) && !containsPlaceholder(value)) {
+            // Nothing was generated – the converted value is identical for every request.
+            STATIC_MODEL_CACHE.put(processedValue, modelValue == null ? NULL_MODEL_VALUE : modelValue);
+        }
+        return modelValue;
+    }
+
+    private static boolean containsPlaceholder(String value) {
+        return value.contains("__") || value.contains("@{") || value.contains("${");
+    }
+
+    /**
+     * Hit / miss / eviction counters of the template caches, keyed by cache name.
+     */
+    public static Map<String, Map<String, Long>> getCacheStats() {
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+        stats.put(TEMPLATE_CACHE.getName(), TEMPLATE_CACHE.stats());
+        stats.put(STATIC_MODEL_CACHE.getName(), STATIC_MODEL_CACHE.stats());
+        stats.put("variableSegments", VariableGenerator.getInstance().getSegmentCacheStats());
+        return stats;
+    }
+
+    public static void clearCaches() {
+        TEMPLATE_CACHE.clear();
+        STATIC_MODEL_CACHE.clear();
+    }
+
+    /**
+     * Renders with the virtual user's {@link VariableScope} bound, so ${TCID.var} references resolve per user.
+     */
+    public static String render(Session session, String templateStr, Map<String, String> variableExpressionMap) {
+        return TestRunContext.withScope(session, () -> render(templateStr, variableExpressionMap));
+    }
+
+    /**
+     * Renders for {@code tcid}, timing the work in its {@link HotPathProbes.Stage#TEMPLATE} stage.
+     */
+    public static String render(String tcid, Session session, String templateStr, Map<String, String> variableExpressionMap) {
+        long probe = HotPathProbes.start(tcid);
+        try {
+            return render(session, templateStr, variableExpressionMap);
+        } finally {
+            HotPathProbes.stop(HotPathProbes.Stage.TEMPLATE, probe);
+        }
+    }
+
     public static String render(String templateStr, Map<String, String> variableExpressionMap) {
         if (templateStr == null || templateStr.isBlank()) {
             return templateStr;
         }
-        
-        String processedTemplate = TestRunContext.processVariableReferences(templateStr);
-        String fmTemplateStr = preprocessForFreeMarker(processedTemplate);
 
         Map<String, Object> dataModel = new HashMap<>();
         if (variableExpressionMap != null) {
             for (Map.Entry<String, String> entry : variableExpressionMap.entrySet()) {
-                String processedValue = TestRunContext.processVariableReferences(entry.getValue());
-                String value = VariableGenerator.getInstance().resolveVariables(processedValue);
-                dataModel.put(entry.getKey(), convertToModelValue(value));
+                dataModel.put(entry.getKey(), resolveModelValue(entry.getValue()));
             }
         }
 
         try {
-            Template template = new Template("rtTemplate", fmTemplateStr, FREEMARKER_CFG);
+            CompiledTemplate compiled = TEMPLATE_CACHE.get(templateStr, RuntimeTemplateProcessor::compile);
+            List<String> references = compiled.references();
+            for (int i = 0; i < references.size(); i++) {
+                dataModel.put(REFERENCE_PREFIX + i, TestRunContext.resolveVariableReference(references.get(i)));
+            }
             StringWriter out = new StringWriter();
-            template.process(dataModel, out);
+            compiled.template().process(dataModel, out);
             return out.toString();
+        } catch (UncheckedIOException e) {
+            System.err.println("[ERROR] Template rendering failed: " + e.getCause().getMessage());
+            return "TEMPLATE_RUNTIME_ERROR: " + e.getCause().getMessage();
         } catch (Exception e) {
             System.err.println("[ERROR] Template rendering failed: " + e.getMessage());
             return "TEMPLATE_RUNTIME_ERROR: " + e.getMessage();
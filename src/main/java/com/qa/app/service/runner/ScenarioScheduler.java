@@ -0,0 +1,363 @@
+package com.qa.app.service.runner;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qa.app.model.Scenario;
+import com.qa.app.model.ScenarioSchedule;
+import com.qa.app.service.ServiceException;
+import com.qa.app.service.api.IGatlingScenarioService;
+import com.qa.app.service.impl.GatlingScenarioServiceImpl;
+import com.qa.app.service.util.CronExpression;
+import com.qa.app.util.AppConfig;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fires the runs of enabled {@link ScenarioSchedule}s.
+ * <p>
+ * A single timer thread checks the schedules every second and reloads them from the database every
+ * {@code scheduler.reload.seconds} (default 30) or right after a schedule is saved ({@link #reload()}). A schedule
+ * with a cron expression fires at each match of {@link CronExpression}, not before the {@code startDateTime} of the
+ * scenario; a schedule without one ("Once") fires at {@code startDateTime} and is then disabled. The next fire time
+ * is stored in {@code next_run_at}, so a run that was due while the application was down is recognised at start:
+ * it is a misfire when it is more than {@code scheduler.misfire.grace.seconds} (default 60) late, and the
+ * schedule's {@link MisfirePolicy} decides whether it still runs once or is skipped. Fire times follow the wall clock
+ * of the system time zone across daylight saving changes, see {@link CronExpression#nextAfter(java.time.ZonedDateTime)}.
+ * <p>
+ * A scenario never runs twice at the same time: a fire while the previous scheduled run of the same scenario is still
+ * active is skipped. At most {@code scheduler.max.concurrent.runs} (default 1) scheduled runs are active; a due
+ * run beyond that waits for a free slot, with at most one waiting run per schedule. Runs use the environment that is
+ * current in the application when they start.
+ */
+public final class ScenarioScheduler {
+
+    /**
+     * What to do with a fire time that passed while the scheduler could not run it (application down or busy).
+     */
+    public enum MisfirePolicy {
+        /** Run once now, however many fire times were missed. */
+        FIRE_ONCE,
+        /** Drop the missed fire times and wait for the next one. */
+        SKIP;
+
+        static MisfirePolicy of(String value) {
+            if (value != null && !value.isBlank()) {
+                try {
+                    return valueOf(value.trim().toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    System.err.println("[WARN] Unknown misfire policy '" + value + "', using FIRE_ONCE");
+                }
+            }
+            return FIRE_ONCE;
+        }
+    }
+
+    /**
+     * State of one enabled schedule; only touched on the timer thread.
+     */
+    private static final class Entry {
+        final int scenarioId;
+        final String cronExpr;
+        final CronExpression cron;      // null: runs once at notBefore
+        final LocalDateTime notBefore;
+        final MisfirePolicy misfirePolicy;
+        ZonedDateTime next;
+
+        Entry(int scenarioId, String cronExpr, CronExpression cron, LocalDateTime notBefore, MisfirePolicy misfirePolicy) {
+            this.scenarioId = scenarioId;
+            this.cronExpr = cronExpr;
+            this.cron = cron;
+            this.notBefore = notBefore;
+            this.misfirePolicy = misfirePolicy;
+        }
+
+        boolean sameDefinition(Entry other) {
+            return Objects.equals(cronExpr, other.cronExpr) && Objects.equals(notBefore, other.notBefore)
+                    && misfirePolicy == other.misfirePolicy;
+        }
+    }
+
+    private static final IGatlingScenarioService scenarioService = new GatlingScenarioServiceImpl();
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    // Timer-thread state
+    private static final Map<Integer, Entry> entries = new HashMap<>();
+    private static final Set<Integer> running = new HashSet<>();
+    private static final Set<Integer> waiting = new LinkedHashSet<>();
+    private static ZonedDateTime lastReload;
+
+    private static ScheduledExecutorService timer;
+    private static volatile boolean reloadRequested;
+
+    private ScenarioScheduler() {
+        // utility class – hide constructor
+    }
+
+    private static int intProperty(String key, int defaultValue) {
+        try {
+            return Math.max(1, Integer.parseInt(AppConfig.getProperty(key, String.valueOf(defaultValue)).trim()));
+        } catch (NumberFormatException e) {
+            System.err.println("[WARN] Invalid " + key + ", using " + defaultValue + ": " + e.getMessage());
+            return defaultValue;
+        }
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(AppConfig.getProperty("scheduler.enabled", "true").trim());
+    }
+
+    /**
+     * Starts the timer thread; called at application start.
+     */
+    public static synchronized void start() {
+        if (timer != null || !isEnabled()) {
+            return;
+        }
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "scenario-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        reloadRequested = true;
+        timer.scheduleWithFixedDelay(ScenarioScheduler::tick, 0, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Reads the schedules again on the next tick, e.g. after one was saved.
+     */
+    public static void reload() {
+        reloadRequested = true;
+    }
+
+    /**
+     * Stops the timer; runs already started are not affected.
+     */
+    public static synchronized void shutdown() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+    }
+
+    private static void tick() {
+        try {
+            // Zoned, so a fire time in a daylight saving gap is not taken for a misfire an hour late
+            ZonedDateTime now = ZonedDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+            if (reloadRequested || lastReload == null
+                    || Duration.between(lastReload, now).getSeconds() >= intProperty("scheduler.reload.seconds", 30)) {
+                reloadRequested = false;
+                lastReload = now;
+                loadSchedules(now);
+            }
+            for (Entry entry : List.copyOf(entries.values())) {
+                if (entry.next != null && !entry.next.isAfter(now)) {
+                    due(entry, now);
+                }
+            }
+        } catch (Exception e) {
+            // never let an exception cancel the periodic task
+            System.err.println("[WARN] Scenario scheduler tick failed: " + e.getMessage());
+        }
+    }
+
+    private static void loadSchedules(ZonedDateTime now) throws ServiceException {
+        Map<Integer, Entry> loaded = new HashMap<>();
+        for (ScenarioSchedule schedule : scenarioService.findEnabledSchedules()) {
+            Entry entry = toEntry(schedule);
+            if (entry == null) {
+                continue;
+            }
+            Entry known = entries.get(entry.scenarioId);
+            if (known != null && known.sameDefinition(entry) && schedule.getNextRunAt() != null) {
+                entry.next = known.next;
+            } else if (known == null && schedule.getNextRunAt() != null) {
+                // Fire time planned before the application was (re)started; may be a misfire
+                LocalDateTime planned = parseTime(schedule.getNextRunAt());
+                entry.next = planned != null ? planned.atZone(now.getZone()) : null;
+            }
+            if (entry.next == null) {
+                entry.next = firstFireTime(entry, now);
+                if (entry.next == null) {
+                    persist(entry, null, false);
+                    continue;
+                }
+                persist(entry, null, true);
+            }
+            loaded.put(entry.scenarioId, entry);
+        }
+        entries.clear();
+        entries.putAll(loaded);
+        waiting.retainAll(loaded.keySet());
+    }
+
+    /**
+     * The in-memory form of {@code schedule}, or {@code null} when it cannot fire (logged).
+     */
+    private static Entry toEntry(ScenarioSchedule schedule) throws ServiceException {
+        Scenario scenario = scenarioService.findScenarioById(schedule.getScenarioId());
+        if (scenario == null) {
+            return null;
+        }
+        LocalDateTime startDateTime = null;
+        String frequency = null;
+        try {
+            if (scenario.getScheduleJson() != null && !scenario.getScheduleJson().isBlank()) {
+                JsonNode node = mapper.readTree(scenario.getScheduleJson());
+                startDateTime = parseTime(node.path("startDateTime").asText(null));
+                frequency = node.path("frequency").asText(null);
+            }
+        } catch (Exception e) {
+            System.err.println("[WARN] Invalid schedule of scenario '" + scenario.getName() + "': " + e.getMessage());
+        }
+        MisfirePolicy policy = MisfirePolicy.of(schedule.getMisfirePolicy());
+        String cronExpr = schedule.getCronExpr();
+        if (cronExpr == null || cronExpr.isBlank()) {
+            // Scenarios saved without choosing a frequency also carry an empty cron; only "Once" is a schedule
+            if (!"Once".equals(frequency) || startDateTime == null) {
+                return null;
+            }
+            return new Entry(scenario.getId(), "", null, startDateTime, policy);
+        }
+        try {
+            return new Entry(scenario.getId(), cronExpr, CronExpression.parse(cronExpr), startDateTime, policy);
+        } catch (IllegalArgumentException e) {
+            System.err.println("[WARN] Schedule of scenario '" + scenario.getName() + "' ignored: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Next fire time of a new or changed schedule; {@code null} when it has none left.
+     */
+    private static ZonedDateTime firstFireTime(Entry entry, ZonedDateTime now) {
+        ZonedDateTime notBefore = entry.notBefore != null ? entry.notBefore.atZone(now.getZone()) : null;
+        if (entry.cron == null) {
+            // A "Once" saved with a start time already past is not a misfire, it simply never runs
+            if (notBefore.isBefore(now.minusSeconds(graceSeconds()))) {
+                System.err.println("[WARN] One-time schedule of scenario " + entry.scenarioId + " starts in the past ("
+                        + entry.notBefore + "), disabled");
+                return null;
+            }
+            return notBefore;
+        }
+        ZonedDateTime from = now;
+        if (notBefore != null && notBefore.isAfter(now)) {
+            from = notBefore.minusSeconds(1);
+        }
+        return entry.cron.nextAfter(from);
+    }
+
+    private static void due(Entry entry, ZonedDateTime now) {
+        long lateSeconds = Duration.between(entry.next, now).getSeconds();
+        boolean misfire = lateSeconds > graceSeconds();
+        if (misfire && entry.misfirePolicy == MisfirePolicy.SKIP) {
+            System.err.println("[WARN] Scheduled run of scenario " + entry.scenarioId + " at " + entry.next.toLocalDateTime()
+                    + " was missed, skipped (misfire policy SKIP)");
+        } else {
+            if (misfire) {
+                System.out.println("Scheduled run of scenario " + entry.scenarioId + " at " + entry.next.toLocalDateTime()
+                        + " was missed, running it now");
+            }
+            fire(entry.scenarioId);
+        }
+        // Several missed fire times collapse into one: the next one is computed from now
+        entry.next = entry.cron != null ? entry.cron.nextAfter(now) : null;
+        persist(entry, now, entry.next != null);
+        if (entry.next == null) {
+            entries.remove(entry.scenarioId);
+        }
+    }
+
+    private static void fire(int scenarioId) {
+        if (running.contains(scenarioId)) {
+            System.err.println("[WARN] Scheduled run of scenario " + scenarioId
+                    + " skipped: the previous run is still active");
+        } else if (running.size() >= intProperty("scheduler.max.concurrent.runs", 1)) {
+            if (waiting.add(scenarioId)) {
+                System.out.println("Scheduled run of scenario " + scenarioId + " waits for a free run slot");
+            }
+        } else {
+            startRun(scenarioId);
+        }
+    }
+
+    private static void startRun(int scenarioId) {
+        Scenario scenario;
+        try {
+            scenario = scenarioService.findScenarioById(scenarioId);
+        } catch (ServiceException e) {
+            System.err.println("[WARN] Scheduled run of scenario " + scenarioId + " failed: " + e.getMessage());
+            return;
+        }
+        if (scenario == null) {
+            return;
+        }
+        running.add(scenarioId);
+        System.out.println("Starting scheduled run of scenario '" + scenario.getName() + "'");
+        try {
+            // Unattended runs queue behind interactive ones; onComplete arrives on the FX thread
+            scenarioService.runScenarios(List.of(scenario), RunQueue.Priority.LOW, () -> onRunFinished(scenarioId));
+        } catch (Exception e) {
+            running.remove(scenarioId);
+            System.err.println("[WARN] Scheduled run of scenario '" + scenario.getName() + "' failed: " + e.getMessage());
+        }
+    }
+
+    private static synchronized void onRunFinished(int scenarioId) {
+        if (timer == null) {
+            return;
+        }
+        timer.execute(() -> {
+            running.remove(scenarioId);
+            Iterator<Integer> it = waiting.iterator();
+            while (it.hasNext() && running.size() < intProperty("scheduler.max.concurrent.runs", 1)) {
+                int next = it.next();
+                it.remove();
+                if (!running.contains(next)) {
+                    startRun(next);
+                }
+            }
+        });
+    }
+
+    private static void persist(Entry entry, ZonedDateTime lastRunAt, boolean enabled) {
+        try {
+            // Stored as local date-times, as the schedule editor shows them
+            scenarioService.updateScheduleRun(entry.scenarioId, entry.next != null ? entry.next.toLocalDateTime().toString() : null,
+                    lastRunAt != null ? lastRunAt.toLocalDateTime().toString() : null, enabled);
+        } catch (ServiceException e) {
+            System.err.println("[WARN] Unable to save schedule state of scenario " + entry.scenarioId + ": " + e.getMessage());
+        }
+    }
+
+    private static long graceSeconds() {
+        return intProperty("scheduler.misfire.grace.seconds", 60);
+    }
+
+    private static LocalDateTime parseTime(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            System.err.println("[WARN] Invalid schedule time '" + value + "': " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.qa.app.service.runner;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qa.app.model.reports.LatencyHistogram;
+import com.qa.app.model.reports.RunMetrics;
+import com.qa.app.model.reports.TestMode;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregates the NDJSON report written by {@link GatlingTestSimulation} into the functional report format
+ * ({@code List<FunctionalTestReport>}) with bounded memory.
+ * <p>
+ * Pass 1 streams the NDJSON with a {@link JsonParser} and only keeps, per case, its origin, mode, passed flag and
+ * the byte range of its {@code report} object. Pass 2 writes the grouped report with a {@link JsonGenerator},
+ * copying each case's JSON from the source file one at a time. Memory therefore grows with the number of cases,
+ * not with their size.
+ * <p>
+ * Entries with the same origin, mode and TCID are merged into a single case; this is how the sampled per-request
+ * entries and the summary line written in streaming report mode ({@link RequestReportSink}) are put back together.
+ * At most {@link #maxEntriesPerCase()} entries of a case are indexed; further entries only count towards its
+ * passed flag, so a file with more entries than the sink writes cannot grow the index without limit.
+ */
+class StreamingReportAggregator {
+
+    /** Display order of the mode groups in a functional report. */
+    static final List<TestMode> DISPLAY_ORDER = Arrays.asList(
+            TestMode.SETUP,
+            TestMode.DIFF_PRE,
+            TestMode.PRE_CHECK,
+            TestMode.MAIN,
+            TestMode.PST_CHECK,
+            TestMode.DIFF_PST,
+            TestMode.TEARDOWN
+    );
+
+    /**
+     * Byte range of one {@code report} object inside the NDJSON file, and of its {@code items} array
+     * ({@code itemsStart < 0} when the report has no items array).
+     */
+    private record CaseRef(long start, long end, long itemsStart, long itemsEnd, boolean passed) {
+    }
+
+    /**
+     * Indexed NDJSON entries of one case (several when the simulation streamed sampled entries).
+     */
+    private static final class CaseIndex {
+        private final List<CaseRef> refs = new ArrayList<>();
+        private boolean passed = true;
+        // entries over maxEntriesPerCase, not copied into the report
+        private long omitted;
+    }
+
+    static final class OriginGroup {
+        private final String originTcid;
+        // mode -> tcid -> indexed entries of that case
+        private final Map<TestMode, Map<String, CaseIndex>> casesByMode = new EnumMap<>(TestMode.class);
+        private boolean passed = true;
+
+        private OriginGroup(String originTcid) {
+            this.originTcid = originTcid;
+        }
+
+        String getOriginTcid() {
+            return originTcid;
+        }
+
+        boolean isPassed() {
+            return passed;
+        }
+    }
+
+    private final File source;
+    private final ObjectMapper mapper;
+    // first-seen order of origins
+    private final Map<String, OriginGroup> groups = new LinkedHashMap<>();
+    private RunMetrics runMetrics;
+    // origin -> latency histograms of its cases, from the run-wide entry
+    private Map<String, List<LatencyHistogram>> latency = Collections.emptyMap();
+    private long caseCount;
+    private final int maxEntriesPerCase = maxEntriesPerCase();
+    // pass 2 read buffer, grown on demand
+    private byte[] buffer = new byte[8192];
+
+    StreamingReportAggregator(File source, ObjectMapper mapper) {
+        this.source = source;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Entries indexed per case: the passed and failed samples of the streaming sink plus its summary line.
+     */
+    static int maxEntriesPerCase() {
+        return 2 * RequestReportSink.sampleSize() + 1;
+    }
+
+    /**
+     * Pass 1: index every case of the NDJSON file.
+     */
+    void scan() throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(source)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                String origin = null;
+                String tcid = null;
+                String mode = null;
+                CaseRef ref = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    JsonToken value = parser.nextToken();
+                    switch (field) {
+                        case "origin" -> origin = value == JsonToken.VALUE_NULL ? null : parser.getText();
+                        case "tcid" -> tcid = value == JsonToken.VALUE_NULL ? null : parser.getText();
+                        case "mode" -> mode = value == JsonToken.VALUE_NULL ? null : parser.getText();
+                        case "report" -> ref = scanReport(parser, value);
+                        case GatlingTestSimulation.RUN_METRICS_KEY -> runMetrics = mapper.readValue(parser, RunMetrics.class);
+                        case GatlingTestSimulation.LATENCY_KEY -> latency = mapper.readValue(parser,
+                                new TypeReference<Map<String, List<LatencyHistogram>>>() {});
+                        default -> parser.skipChildren();
+                    }
+                }
+                // Run-wide metrics are appended by the simulation as an entry without origin
+                if (origin == null || ref == null) {
+                    continue;
+                }
+                TestMode testMode;
+                try {
+                    testMode = TestMode.valueOf(mode != null ? mode : "MAIN");
+                } catch (IllegalArgumentException ex) {
+                    // Treat unknown modes as MAIN
+                    testMode = TestMode.MAIN;
+                }
+                OriginGroup group = groups.computeIfAbsent(origin, OriginGroup::new);
+                CaseIndex index = group.casesByMode.computeIfAbsent(testMode, k -> new LinkedHashMap<>())
+                        .computeIfAbsent(tcid != null ? tcid : "", k -> new CaseIndex());
+                if (index.refs.isEmpty()) {
+                    caseCount++;
+                }
+                if (index.refs.size() < maxEntriesPerCase) {
+                    index.refs.add(ref);
+                } else {
+                    index.omitted++;
+                }
+                index.passed &= ref.passed;
+                group.passed &= ref.passed;
+            }
+        }
+    }
+
+    /**
+     * Reads the top-level {@code passed} flag and the position of the {@code items} array of a CaseReport object,
+     * skipping everything else.
+     */
+    private static CaseRef scanReport(JsonParser parser, JsonToken start) throws IOException {
+        long startOffset = parser.getTokenLocation().getByteOffset();
+        if (start != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return new CaseRef(startOffset, parser.getTokenLocation().getByteOffset() + 1, -1, -1, false);
+        }
+        boolean passed = false;
+        long itemsStart = -1;
+        long itemsEnd = -1;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("passed".equals(field) && value.isBoolean()) {
+                passed = parser.getBooleanValue();
+            } else if ("items".equals(field) && value == JsonToken.START_ARRAY) {
+                itemsStart = parser.getTokenLocation().getByteOffset();
+                parser.skipChildren();
+                itemsEnd = parser.getTokenLocation().getByteOffset() + 1;
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new CaseRef(startOffset, parser.getTokenLocation().getByteOffset() + 1, itemsStart, itemsEnd, passed);
+    }
+
+    /**
+     * Origins ordered by their position in {@code executionOrder}; unknown origins keep first-seen order at the end.
+     */
+    List<OriginGroup> getGroups(List<String> executionOrder) {
+        List<OriginGroup> ordered = new ArrayList<>(groups.values());
+        if (executionOrder != null && !executionOrder.isEmpty()) {
+            Map<String, Integer> index = new java.util.HashMap<>();
+            for (int i = 0; i < executionOrder.size(); i++) {
+                index.putIfAbsent(executionOrder.get(i), i);
+            }
+            ordered.sort(Comparator.comparingInt(g -> index.getOrDefault(g.originTcid, Integer.MAX_VALUE)));
+        }
+        return Collections.unmodifiableList(ordered);
+    }
+
+    boolean isEmpty() {
+        return groups.isEmpty();
+    }
+
+    long getCaseCount() {
+        return caseCount;
+    }
+
+    /**
+     * Pass 2: writes the aggregated report (a JSON array of FunctionalTestReport) to {@code target}.
+     */
+    void write(File target, List<OriginGroup> ordered, String executedAt) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(source, "r");
+             JsonGenerator gen = mapper.getFactory().createGenerator(target, JsonEncoding.UTF8)) {
+            gen.useDefaultPrettyPrinter();
+            gen.writeStartArray();
+            for (OriginGroup group : ordered) {
+                gen.writeStartObject();
+                gen.writeStringField("originTcid", group.originTcid);
+                gen.writeNullField("suite");
+                gen.writeStringField("executedAt", executedAt);
+                gen.writeArrayFieldStart("groups");
+                for (TestMode mode : DISPLAY_ORDER) {
+                    Map<String, CaseIndex> cases = group.casesByMode.get(mode);
+                    if (cases == null) {
+                        continue;
+                    }
+                    gen.writeStartObject();
+                    gen.writeStringField("mode", mode.name());
+                    gen.writeArrayFieldStart("cases");
+                    for (Map.Entry<String, CaseIndex> entry : cases.entrySet()) {
+                        CaseIndex index = entry.getValue();
+                        if (index.refs.size() == 1 && index.omitted == 0) {
+                            copyRange(in, index.refs.get(0).start, index.refs.get(0).end, gen, false);
+                            continue;
+                        }
+                        // Merge the items of all indexed entries of this case
+                        gen.writeStartObject();
+                        gen.writeStringField("tcid", entry.getKey());
+                        gen.writeArrayFieldStart("items");
+                        for (CaseRef ref : index.refs) {
+                            if (ref.itemsStart >= 0) {
+                                copyRange(in, ref.itemsStart, ref.itemsEnd, gen, true);
+                            }
+                        }
+                        gen.writeEndArray();
+                        gen.writeBooleanField("passed", index.passed);
+                        gen.writeEndObject();
+                    }
+                    gen.writeEndArray();
+                    gen.writeEndObject();
+                }
+                gen.writeEndArray();
+                gen.writeBooleanField("passed", group.passed);
+                gen.writeFieldName("runMetrics");
+                mapper.writeValue(gen, runMetrics);
+                gen.writeFieldName("latencyHistograms");
+                mapper.writeValue(gen, latency.getOrDefault(group.originTcid, Collections.emptyList()));
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    /**
+     * Copies the JSON value stored at {@code [start, end)} of the source file to {@code gen}. With
+     * {@code elementsOnly} the value must be an array and only its elements are copied.
+     */
+    private void copyRange(RandomAccessFile in, long start, long end, JsonGenerator gen, boolean elementsOnly)
+            throws IOException {
+        int length = (int) (end - start);
+        if (buffer.length < length) {
+            buffer = new byte[Math.max(length, buffer.length * 2)];
+        }
+        in.seek(start);
+        in.readFully(buffer, 0, length);
+        try (JsonParser parser = mapper.getFactory().createParser(buffer, 0, length)) {
+            JsonToken token = parser.nextToken();
+            if (!elementsOnly) {
+                gen.copyCurrentStructure(parser);
+                return;
+            }
+            if (token != JsonToken.START_ARRAY) {
+                return;
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                gen.copyCurrentStructure(parser);
+            }
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.qa.app.service.runner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qa.app.dao.api.IBodyTemplateDao;
+import com.qa.app.dao.api.IEndpointDao;
+import com.qa.app.dao.api.IGatlingTestDao;
+import com.qa.app.dao.api.IHeadersTemplateDao;
+import com.qa.app.dao.impl.BodyTemplateDaoImpl;
+import com.qa.app.dao.impl.EndpointDaoImpl;
+import com.qa.app.dao.impl.GatlingTestDaoImpl;
+import com.qa.app.dao.impl.HeadersTemplateDaoImpl;
+import com.qa.app.dao.util.DBUtil;
+import com.qa.app.model.BodyTemplate;
+import com.qa.app.model.DbConnection;
+import com.qa.app.model.Endpoint;
+import com.qa.app.model.GatlingTest;
+import com.qa.app.model.HeadersTemplate;
+import com.qa.app.model.ScenarioStep;
+import com.qa.app.service.EnvironmentContext;
+import com.qa.app.service.ServiceException;
+import com.qa.app.service.api.IDbConnectionService;
+import com.qa.app.service.impl.DbConnectionServiceImpl;
+import com.qa.app.service.util.GroovyScriptEngine;
+import com.qa.app.service.util.VariableGenerator;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Expands the tests of a run with their Setup / Teardown dependencies and resolves their endpoints and templates in
+ * bulk.
+ * <p>
+ * Instead of one query per TCID, endpoint and template, the resolver collects the keys of all tests and fetches them
+ * with {@code IN (...)} queries, all on one pooled connection in one read transaction (a consistent snapshot of the
+ * catalog): about five queries for a run, whatever the number of tests. Everything fetched is memoized, so a Setup
+ * shared by many tests, or by several scenarios resolved with the same instance, is read once. An instance works in
+ * the environment that was current when it was created and is meant for one run; it is not thread-safe.
+ * <p>
+ * {@link #snapshotCatalog} completes the {@link RunPlan} of the run with the remaining catalog data the simulation
+ * needs, so the Gatling process does not query the database.
+ */
+public final class TestBatchResolver {
+
+    /**
+     * One entry of the execution list.
+     *
+     * @param origin TCID of the main test the entry belongs to
+     * @param mode   SETUP, MAIN or TEARDOWN
+     */
+    public record Item(GatlingTest test, Endpoint endpoint, String origin, String mode) {
+    }
+
+    private final IGatlingTestDao testDao = new GatlingTestDaoImpl();
+    private final IEndpointDao endpointDao = new EndpointDaoImpl();
+    private final IBodyTemplateDao bodyTemplateDao = new BodyTemplateDaoImpl();
+    private final IHeadersTemplateDao headersTemplateDao = new HeadersTemplateDaoImpl();
+    private final IDbConnectionService dbConnectionService = new DbConnectionServiceImpl();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Integer environmentId;
+
+    // Memoized lookups; a key is in fetchedX once queried, even when nothing was found
+    private final Map<String, GatlingTest> tests = new HashMap<>();
+    private final Map<String, Endpoint> endpoints = new HashMap<>();
+    private final Map<Integer, String> bodyTemplates = new HashMap<>();
+    private final Map<Integer, String> headersTemplates = new HashMap<>();
+    private final Set<String> fetchedTcids = new HashSet<>();
+    private final Set<String> fetchedEndpointNames = new HashSet<>();
+    private final Set<Integer> fetchedBodyTemplateIds = new HashSet<>();
+    private final Set<Integer> fetchedHeadersTemplateIds = new HashSet<>();
+
+    public TestBatchResolver() {
+        this(EnvironmentContext.getCurrentEnvironmentId());
+    }
+
+    public TestBatchResolver(Integer environmentId) {
+        this.environmentId = environmentId;
+    }
+
+    /**
+     * Execution list of the selected tests: for each one its Setup tests, the test itself and its Teardown tests.
+     */
+    public List<Item> resolveTests(List<GatlingTest> selected) throws ServiceException {
+        return resolve(null, selected);
+    }
+
+    /**
+     * Execution list of the steps of a scenario, as {@link #resolveTests} but the main tests are looked up by the
+     * TCID of each step and get the step's wait time.
+     */
+    public List<Item> resolveSteps(List<ScenarioStep> steps) throws ServiceException {
+        return resolve(steps, null);
+    }
+
+    private List<Item> resolve(List<ScenarioStep> steps, List<GatlingTest> selected) throws ServiceException {
+        List<GatlingTest> mains = new ArrayList<>();
+        List<Item> items = new ArrayList<>();
+        try (Connection conn = DBUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // ① Main tests
+                if (steps != null) {
+                    fetchTests(conn, steps.stream().map(ScenarioStep::getTestTcid).toList());
+                    for (ScenarioStep step : steps) {
+                        GatlingTest test = tests.get(step.getTestTcid());
+                        if (test == null) {
+                            throw new ServiceException("Test not found for tcid: " + step.getTestTcid());
+                        }
+                        // The memoized test may be used by other steps or as a Setup: the step gets its own copy
+                        GatlingTest main = objectMapper.convertValue(test, GatlingTest.class);
+                        main.setWaitTime(step.getWaitTime());
+                        mains.add(main);
+                    }
+                } else {
+                    mains.addAll(selected);
+                }
+
+                // ② Setup / Teardown dependencies of all main tests at once
+                List<Map<String, List<String>>> conditions = new ArrayList<>();
+                Set<String> dependencies = new LinkedHashSet<>();
+                for (GatlingTest main : mains) {
+                    Map<String, List<String>> condMap = parseConditionString(main.getConditions());
+                    conditions.add(condMap);
+                    dependencies.addAll(condMap.getOrDefault("Setup", Collections.emptyList()));
+                    dependencies.addAll(condMap.getOrDefault("Teardown", Collections.emptyList()));
+                }
+                fetchTests(conn, dependencies);
+
+                for (int i = 0; i < mains.size(); i++) {
+                    GatlingTest main = mains.get(i);
+                    Map<String, List<String>> condMap = conditions.get(i);
+                    for (String tcid : condMap.getOrDefault("Setup", Collections.emptyList())) {
+                        items.add(new Item(dependency(tcid, "Setup", main), null, main.getTcid(), "SETUP"));
+                    }
+                    items.add(new Item(main, null, main.getTcid(), "MAIN"));
+                    for (String tcid : condMap.getOrDefault("Teardown", Collections.emptyList())) {
+                        items.add(new Item(dependency(tcid, "Teardown", main), null, main.getTcid(), "TEARDOWN"));
+                    }
+                }
+
+                // ③ Endpoints and templates of the whole execution list
+                Set<String> endpointNames = new LinkedHashSet<>();
+                Set<Integer> bodyTemplateIds = new LinkedHashSet<>();
+                Set<Integer> headersTemplateIds = new LinkedHashSet<>();
+                for (Item item : items) {
+                    GatlingTest test = item.test();
+                    if (test.getEndpointName() != null) {
+                        endpointNames.add(test.getEndpointName());
+                    }
+                    if (needsBodyTemplate(test)) {
+                        bodyTemplateIds.add(test.getBodyTemplateId());
+                    }
+                    if (needsHeadersTemplate(test)) {
+                        headersTemplateIds.add(test.getHeadersTemplateId());
+                    }
+                }
+                fetchEndpoints(conn, endpointNames);
+                fetchTemplates(conn, bodyTemplateIds, headersTemplateIds);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new ServiceException("Database error while resolving the tests of the run: " + e.getMessage(), e);
+        }
+
+        List<Item> resolved = new ArrayList<>(items.size());
+        for (Item item : items) {
+            GatlingTest test = item.test();
+            enrichTemplates(test);
+            Endpoint endpoint = test.getEndpointName() == null ? null : endpoints.get(test.getEndpointName());
+            if (endpoint == null) {
+                throw new ServiceException("Endpoint '" + test.getEndpointName() + "' not found in current environment for test: " + test.getTcid());
+            }
+            resolved.add(new Item(test, endpoint, item.origin(), item.mode()));
+        }
+        return resolved;
+    }
+
+    /**
+     * Adds to {@code plan} the closure of catalog data the simulation needs besides the execution list: the reference
+     * tests of the DIFF / PRE_CHECK / PST_CHECK checks of {@code executed} (templates applied) with their endpoints,
+     * the DB connections of their DB checks and the custom variables. Unknown references are left out; the
+     * simulation skips them as it did when it looked them up itself.
+     */
+    public void snapshotCatalog(RunPlan plan, Collection<GatlingTest> executed) throws ServiceException {
+        Set<String> referenceTcids = new LinkedHashSet<>();
+        Set<String> dbAliases = new LinkedHashSet<>();
+        for (GatlingTest test : executed) {
+            CheckPlan checks = CheckPlan.compile(test.getTcid(), test.getResponseChecks(), null);
+            referenceTcids.addAll(checks.getReferenceTcids());
+            dbAliases.addAll(checks.getDbAliases());
+        }
+
+        List<GatlingTest> references = new ArrayList<>();
+        try (Connection conn = DBUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                fetchTests(conn, referenceTcids);
+                Set<String> endpointNames = new LinkedHashSet<>();
+                Set<Integer> bodyTemplateIds = new LinkedHashSet<>();
+                Set<Integer> headersTemplateIds = new LinkedHashSet<>();
+                for (String tcid : referenceTcids) {
+                    GatlingTest test = tests.get(tcid);
+                    if (test == null) {
+                        continue;
+                    }
+                    references.add(test);
+                    if (test.getEndpointName() != null) {
+                        endpointNames.add(test.getEndpointName());
+                    }
+                    if (needsBodyTemplate(test)) {
+                        bodyTemplateIds.add(test.getBodyTemplateId());
+                    }
+                    if (needsHeadersTemplate(test)) {
+                        headersTemplateIds.add(test.getHeadersTemplateId());
+                    }
+                }
+                fetchEndpoints(conn, endpointNames);
+                fetchTemplates(conn, bodyTemplateIds, headersTemplateIds);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new ServiceException("Database error while resolving the reference tests of the run: " + e.getMessage(), e);
+        }
+
+        plan.setEnvironmentId(environmentId);
+        plan.setEnvironmentName(EnvironmentContext.getCurrentEnvironmentName());
+        for (GatlingTest test : references) {
+            enrichTemplates(test);
+            plan.getReferenceTests().put(test.getTcid(), test);
+            Endpoint endpoint = test.getEndpointName() != null ? endpoints.get(test.getEndpointName()) : null;
+            if (endpoint != null) {
+                plan.getEndpoints().put(endpoint.getName(), endpoint);
+            }
+        }
+
+        for (String alias : dbAliases) {
+            // The connection of the run's environment, falling back to an environment-agnostic alias
+            DbConnection connection = dbConnectionService.findByAliasAndEnv(alias, environmentId);
+            if (connection == null) {
+                connection = dbConnectionService.findByAlias(alias);
+            }
+            if (connection != null) {
+                plan.getDbConnections().put(alias, connection);
+            }
+        }
+
+        for (GroovyScriptEngine engine : VariableGenerator.getInstance().getCustomVariables()) {
+            RunPlan.CustomVariable variable = new RunPlan.CustomVariable();
+            variable.name = engine.getName();
+            variable.format = engine.getFormat();
+            variable.description = engine.getDescription();
+            variable.groovyScript = engine.getGroovyScript();
+            plan.getCustomVariables().add(variable);
+        }
+    }
+
+    private GatlingTest dependency(String tcid, String kind, GatlingTest main) throws ServiceException {
+        GatlingTest test = tests.get(tcid);
+        if (test == null) {
+            throw new ServiceException(kind + " test not found: " + tcid + " (required by " + main.getTcid() + ")");
+        }
+        return test;
+    }
+
+    private void fetchTests(Connection conn, Collection<String> tcids) throws SQLException {
+        List<String> missing = new ArrayList<>();
+        for (String tcid : tcids) {
+            if (tcid != null && fetchedTcids.add(tcid)) {
+                missing.add(tcid);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        // ordered by id: the first test of a (duplicated) TCID wins, as with getTestByTcid
+        for (GatlingTest test : testDao.getTestsByTcids(conn, missing)) {
+            tests.putIfAbsent(test.getTcid(), test);
+        }
+    }
+
+    private void fetchEndpoints(Connection conn, Collection<String> names) throws SQLException {
+        List<String> missing = names.stream().filter(fetchedEndpointNames::add).toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        for (Endpoint endpoint : endpointDao.getEndpointsByNamesAndEnv(conn, missing, environmentId)) {
+            endpoints.putIfAbsent(endpoint.getName(), endpoint);
+        }
+    }
+
+    private void fetchTemplates(Connection conn, Collection<Integer> bodyIds, Collection<Integer> headersIds) throws SQLException {
+        List<Integer> missingBody = bodyIds.stream().filter(fetchedBodyTemplateIds::add).toList();
+        if (!missingBody.isEmpty()) {
+            for (BodyTemplate bt : bodyTemplateDao.getBodyTemplatesByIds(conn, missingBody)) {
+                bodyTemplates.put(bt.getId(), bt.getContent());
+            }
+        }
+        List<Integer> missingHeaders = headersIds.stream().filter(fetchedHeadersTemplateIds::add).toList();
+        if (!missingHeaders.isEmpty()) {
+            for (HeadersTemplate ht : headersTemplateDao.getHeadersTemplatesByIds(conn, missingHeaders)) {
+                headersTemplates.put(ht.getId(), ht.getContent());
+            }
+        }
+    }
+
+    private static boolean needsBodyTemplate(GatlingTest test) {
+        return (test.getBody() == null || test.getBody().isEmpty()) && test.getBodyTemplateId() > 0;
+    }
+
+    private static boolean needsHeadersTemplate(GatlingTest test) {
+        return (test.getHeaders() == null || test.getHeaders().isEmpty()) && test.getHeadersTemplateId() > 0;
+    }
+
+    /**
+     * Fills an empty body / headers from the test's templates; a missing template leaves it empty.
+     */
+    private void enrichTemplates(GatlingTest test) {
+        if (needsBodyTemplate(test)) {
+            String body = bodyTemplates.get(test.getBodyTemplateId());
+            if (body != null) test.setBody(body);
+        }
+        if (needsHeadersTemplate(test)) {
+            String headers = headersTemplates.get(test.getHeadersTemplateId());
+            if (headers != null) test.setHeaders(headers);
+        }
+    }
+
+    /**
+     * Parse the Condition string, e.g. "[Setup]TC001,TC002;[Teardown]TC003" -> Map
+     */
+    static Map<String, List<String>> parseConditionString(String cond) {
+        Map<String, List<String>> map = new HashMap<>();
+        if (cond == null || cond.isBlank()) return map;
+        java.util.regex.Pattern p = java.util.regex.Pattern.compile("\\[(\\w+)\\]([^\\[]*)");
+        java.util.regex.Matcher m = p.matcher(cond);
+        while (m.find()) {
+            String prefix = m.group(1);
+            String body = m.group(2).trim().replace(";", ""); // remove stray semicolons
+            if (body.isBlank()) continue;
+            List<String> tcids = java.util.Arrays.stream(body.split(","))
+                    .map(String::trim)
+                    .filter(s -> !s.isBlank())
+                    .toList();
+            map.put(prefix, tcids);
+        }
+        return map;
+    }
+}
@@ -1,20 +1,33 @@
 package com.qa.app.service.runner;
 
+import io.gatling.javaapi.core.Session;
+
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Test run context for managing variables during test execution.
  * Variables are stored in the format "TCID.variableName" and can be referenced using ${TCID.variableName} in subsequent tests.
+ * <p>
+ * Inside a simulation every virtual user carries its own {@link VariableScope} in the Gatling session
+ * (see {@link #initScope(Session)}). Values saved by a user go to its scope and are read back from it first;
+ * the static maps below are the run-level scope shared by all users and used when no session is available.
  */
 public class TestRunContext {
+    /** Session attribute holding the {@link VariableScope} of the virtual user. */
+    public static final String SCOPE_KEY = "__variableScope";
+
+    // Scope bound to the current thread while a session function runs (see withScope)
+    private static final ThreadLocal<VariableScope> CURRENT_SCOPE = new ThreadLocal<>();
+
     // Map to store all test variables, key is "TCID.variableName", value is the variable value
     private static final Map<String, String> testVariables = new ConcurrentHashMap<>();
     
     // Regular expression to match ${TCID.variableName} format
-    private static final Pattern VARIABLE_REFERENCE_PATTERN = Pattern.compile("\\$\\{([\\w.-]+)\\.([\\w.-]+)\\}");
+    static final Pattern VARIABLE_REFERENCE_PATTERN = Pattern.compile("\\$\\{([\\w.-]+)\\.([\\w.-]+)\\}");
     
     // Stores reference values for DIFF checks
     private static final Map<String, Double> diffBeforeValues = new ConcurrentHashMap<>();
@@ -42,12 +55,30 @@ public class TestRunContext {
      * @param value Variable value
      */
     public static void saveVariable(String tcid, String variableName, String value) {
+        saveVariable(CURRENT_SCOPE.get(), tcid, variableName, value);
+    }
+
+    /**
+     * Save test variable into the scope of the virtual user owning {@code session}.
+     */
+    public static void saveVariable(Session session, String tcid, String variableName, String value) {
+        saveVariable(scopeOf(session), tcid, variableName, value);
+    }
+
+    private static void saveVariable(VariableScope scope, String tcid, String variableName, String value) {
         if (tcid == null || tcid.isBlank() || variableName == null || variableName.isBlank()) {
             return;
         }
         String key = tcid + "." + variableName;
-        testVariables.put(key, value);
-        System.out.println("VARIABLE_SAVED|" + key + "|" + value);
+        if (scope != null) {
+            scope.putVariable(key, value);
+        } else {
+            testVariables.put(key, value);
+        }
+        // With an event channel the variables reach the parent in the end-of-run snapshot
+        if (!RunEventChannel.isConnected()) {
+            System.out.println("VARIABLE_SAVED|" + key + "|" + value);
+        }
     }
     
     /**
@@ -56,6 +87,29 @@ public class TestRunContext {
      * @return Variable value, or null if not found
      */
     public static String getVariable(String key) {
+        return lookup(CURRENT_SCOPE.get(), key);
+    }
+
+    /**
+     * Value of the ${TCID.variableName} reference {@code key}, or the "NOT FOUND" marker that
+     * {@link #processVariableReferences(String)} substitutes for a missing variable.
+     */
+    static String resolveVariableReference(String key) {
+        String value = lookup(CURRENT_SCOPE.get(), key);
+        return value != null ? value : notFound(key);
+    }
+
+    private static String notFound(String key) {
+        return "${" + key + " - NOT FOUND}";
+    }
+
+    private static String lookup(VariableScope scope, String key) {
+        if (scope != null) {
+            String value = scope.getVariable(key);
+            if (value != null) {
+                return value;
+            }
+        }
         return testVariables.get(key);
     }
     
@@ -65,6 +119,17 @@ public class TestRunContext {
      * @return String with variable references replaced
      */
     public static String processVariableReferences(String input) {
+        return processVariableReferences(CURRENT_SCOPE.get(), input);
+    }
+
+    /**
+     * Same as {@link #processVariableReferences(String)}, resolving against the virtual user's scope first.
+     */
+    public static String processVariableReferences(Session session, String input) {
+        return processVariableReferences(scopeOf(session), input);
+    }
+
+    private static String processVariableReferences(VariableScope scope, String input) {
         if (input == null || input.isEmpty() || !input.contains("${")) {
             return input;
         }
@@ -74,7 +139,10 @@ public class TestRunContext {
         
         while (matcher.find()) {
             String fullKey = matcher.group(1) + "." + matcher.group(2);
-            String value = testVariables.getOrDefault(fullKey, "${" + fullKey + " - NOT FOUND}");
+            String value = lookup(scope, fullKey);
+            if (value == null) {
+                value = notFound(fullKey);
+            }
             matcher.appendReplacement(result, Matcher.quoteReplacement(value));
         }
         matcher.appendTail(result);
@@ -96,9 +164,17 @@ public class TestRunContext {
      * @param value  numeric value captured before operation
      */
     public static void saveBefore(String refKey, String value) {
+        saveBefore(CURRENT_SCOPE.get(), refKey, value);
+    }
+
+    public static void saveBefore(Session session, String refKey, String value) {
+        saveBefore(scopeOf(session), refKey, value);
+    }
+
+    private static void saveBefore(VariableScope scope, String refKey, String value) {
         if (refKey == null || refKey.isBlank()) return;
         try {
-            diffBeforeValues.put(refKey, Double.parseDouble(value));
+            (scope != null ? scope.getDiffBeforeValues() : diffBeforeValues).put(refKey, Double.parseDouble(value));
         } catch (NumberFormatException ignored) {
             // Non-numeric value – skip storing to avoid NumberFormatException later
         }
@@ -110,9 +186,17 @@ public class TestRunContext {
      * @param value  numeric value captured after operation
      */
     public static void saveAfter(String refKey, String value) {
+        saveAfter(CURRENT_SCOPE.get(), refKey, value);
+    }
+
+    public static void saveAfter(Session session, String refKey, String value) {
+        saveAfter(scopeOf(session), refKey, value);
+    }
+
+    private static void saveAfter(VariableScope scope, String refKey, String value) {
         if (refKey == null || refKey.isBlank()) return;
         try {
-            diffAfterValues.put(refKey, Double.parseDouble(value));
+            (scope != null ? scope.getDiffAfterValues() : diffAfterValues).put(refKey, Double.parseDouble(value));
         } catch (NumberFormatException ignored) {
             // Non-numeric value – skip storing
         }
@@ -124,10 +208,22 @@ public class TestRunContext {
      * @return calculated difference, or null if missing either value
      */
     public static Double calcDiff(String refKey) {
-        if (!diffBeforeValues.containsKey(refKey) || !diffAfterValues.containsKey(refKey)) {
+        return calcDiff(CURRENT_SCOPE.get(), refKey);
+    }
+
+    public static Double calcDiff(Session session, String refKey) {
+        return calcDiff(scopeOf(session), refKey);
+    }
+
+    private static Double calcDiff(VariableScope scope, String refKey) {
+        Map<String, Double> before = scope != null ? scope.getDiffBeforeValues() : diffBeforeValues;
+        Map<String, Double> after = scope != null ? scope.getDiffAfterValues() : diffAfterValues;
+        Double beforeValue = before.get(refKey);
+        Double afterValue = after.get(refKey);
+        if (beforeValue == null || afterValue == null) {
             return null;
         }
-        return diffAfterValues.get(refKey) - diffBeforeValues.get(refKey);
+        return afterValue - beforeValue;
     }
     
     /**
@@ -136,8 +232,16 @@ public class TestRunContext {
      * @param value value from reference API (can be any string value)
      */
     public static void savePreCheck(String refKey, String value) {
+        savePreCheck(CURRENT_SCOPE.get(), refKey, value);
+    }
+
+    public static void savePreCheck(Session session, String refKey, String value) {
+        savePreCheck(scopeOf(session), refKey, value);
+    }
+
+    private static void savePreCheck(VariableScope scope, String refKey, String value) {
         if (refKey == null || refKey.isBlank() || value == null) return;
-        preCheckValues.put(refKey, value);
+        (scope != null ? scope.getPreCheckValues() : preCheckValues).put(refKey, value);
     }
     
     /**
@@ -146,8 +250,16 @@ public class TestRunContext {
      * @param value value from reference API (can be any string value)
      */
     public static void savePstCheck(String refKey, String value) {
+        savePstCheck(CURRENT_SCOPE.get(), refKey, value);
+    }
+
+    public static void savePstCheck(Session session, String refKey, String value) {
+        savePstCheck(scopeOf(session), refKey, value);
+    }
+
+    private static void savePstCheck(VariableScope scope, String refKey, String value) {
         if (refKey == null || refKey.isBlank() || value == null) return;
-        pstCheckValues.put(refKey, value);
+        (scope != null ? scope.getPstCheckValues() : pstCheckValues).put(refKey, value);
     }
     
     /**
@@ -156,7 +268,15 @@ public class TestRunContext {
      * @return stored value, or null if not found
      */
     public static String getPreCheckValue(String refKey) {
-        return preCheckValues.get(refKey);
+        return getPreCheckValue(CURRENT_SCOPE.get(), refKey);
+    }
+
+    public static String getPreCheckValue(Session session, String refKey) {
+        return getPreCheckValue(scopeOf(session), refKey);
+    }
+
+    private static String getPreCheckValue(VariableScope scope, String refKey) {
+        return (scope != null ? scope.getPreCheckValues() : preCheckValues).get(refKey);
     }
     
     /**
@@ -165,6 +285,86 @@ public class TestRunContext {
      * @return stored value, or null if not found
      */
     public static String getPstCheckValue(String refKey) {
-        return pstCheckValues.get(refKey);
+        return getPstCheckValue(CURRENT_SCOPE.get(), refKey);
+    }
+
+    public static String getPstCheckValue(Session session, String refKey) {
+        return getPstCheckValue(scopeOf(session), refKey);
+    }
+
+    private static String getPstCheckValue(VariableScope scope, String refKey) {
+        return (scope != null ? scope.getPstCheckValues() : pstCheckValues).get(refKey);
+    }
+
+    // ------------------------------------------------------------------------
+    // Per-virtual-user scope
+    // ------------------------------------------------------------------------
+
+    /**
+     * Attaches a fresh {@link VariableScope} to the session; use as the first action of a scenario.
+     */
+    public static Session initScope(Session session) {
+        if (session.contains(SCOPE_KEY)) {
+            return session;
+        }
+        return session.set(SCOPE_KEY, new VariableScope());
+    }
+
+    /**
+     * Starts a new loop iteration: publishes the user's variables to the run scope and resets the
+     * iteration-level values (DIFF / PRE_CHECK / PST_CHECK).
+     */
+    public static Session beginIteration(Session session) {
+        VariableScope scope = scopeOf(session);
+        if (scope != null) {
+            publish(scope);
+            scope.resetIteration();
+        }
+        return session;
+    }
+
+    /**
+     * Publishes the user's variables to the run scope; use as the last action of a scenario.
+     */
+    public static Session publishScope(Session session) {
+        VariableScope scope = scopeOf(session);
+        if (scope != null) {
+            publish(scope);
+        }
+        return session;
+    }
+
+    private static void publish(VariableScope scope) {
+        // last writer wins, same as the former direct writes
+        testVariables.putAll(scope.getVariables());
+    }
+
+    public static VariableScope scopeOf(Session session) {
+        if (session == null || !session.contains(SCOPE_KEY)) {
+            return null;
+        }
+        return session.get(SCOPE_KEY);
+    }
+
+    /**
+     * Runs {@code action} with the session's scope bound to the current thread, so that calls without a session
+     * (e.g. template rendering) resolve against the virtual user first.
+     */
+    public static <T> T withScope(Session session, Supplier<T> action) {
+        VariableScope scope = scopeOf(session);
+        if (scope == null) {
+            return action.get();
+        }
+        VariableScope previous = CURRENT_SCOPE.get();
+        CURRENT_SCOPE.set(scope);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT_SCOPE.remove();
+            } else {
+                CURRENT_SCOPE.set(previous);
+            }
+        }
     }
 } 
\ No newline at end of file
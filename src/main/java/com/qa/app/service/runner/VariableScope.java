@@ -0,0 +1,70 @@
+package com.qa.app.service.runner;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Variables owned by a single Gatling virtual user.
+ * <p>
+ * Levels:
+ * <ul>
+ *     <li>user – {@code saveAs} values ("TCID.variableName"), kept for the whole life of the user</li>
+ *     <li>iteration – DIFF before/after values and PRE_CHECK / PST_CHECK values, reset at the start of every
+ *     loop iteration</li>
+ * </ul>
+ * The run level (values shared by all users) stays in {@link TestRunContext}. A scope is only ever touched by
+ * the actions of its own user, which Gatling runs one after the other; when consecutive actions run on different
+ * event-loop threads, Gatling's hand-off of the session orders them. The maps therefore are plain {@link HashMap}s
+ * and must not be shared with other threads (publish copies them into the run level).
+ */
+public class VariableScope {
+
+    private final Map<String, String> userVariables = new HashMap<>();
+
+    private final Map<String, Double> diffBeforeValues = new HashMap<>();
+    private final Map<String, Double> diffAfterValues = new HashMap<>();
+    private final Map<String, String> preCheckValues = new HashMap<>();
+    private final Map<String, String> pstCheckValues = new HashMap<>();
+
+    public void putVariable(String key, String value) {
+        if (value == null) {
+            userVariables.remove(key);
+        } else {
+            userVariables.put(key, value);
+        }
+    }
+
+    public String getVariable(String key) {
+        return userVariables.get(key);
+    }
+
+    public Map<String, String> getVariables() {
+        return userVariables;
+    }
+
+    /**
+     * Drops all iteration-level values; user-level variables are kept.
+     */
+    public void resetIteration() {
+        diffBeforeValues.clear();
+        diffAfterValues.clear();
+        preCheckValues.clear();
+        pstCheckValues.clear();
+    }
+
+    Map<String, Double> getDiffBeforeValues() {
+        return diffBeforeValues;
+    }
+
+    Map<String, Double> getDiffAfterValues() {
+        return diffAfterValues;
+    }
+
+    Map<String, String> getPreCheckValues() {
+        return preCheckValues;
+    }
+
+    Map<String, String> getPstCheckValues() {
+        return pstCheckValues;
+    }
+}
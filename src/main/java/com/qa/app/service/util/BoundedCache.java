@@ -0,0 +1,133 @@
+package com.qa.app.service.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Small concurrent cache with a fixed upper bound and FIFO eviction.
+ * <p>
+ * Lookups are lock-free (backed by {@link ConcurrentHashMap}); once the number of entries exceeds
+ * {@code maxSize} the oldest inserted keys are evicted. Hit / miss / eviction counters are kept in
+ * {@link LongAdder}s so they can be read cheaply for run reports.
+ *
+ * @param <K> key type
+ * @param <V> value type (must not be null)
+ */
+public class BoundedCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final Map<K, V> entries = new ConcurrentHashMap<>();
+    private final Queue<K> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public BoundedCache(String name, int maxSize) {
+        this.name = name;
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    /**
+     * Returns the cached value for {@code key}, computing and storing it with {@code loader} on a miss.
+     * Exceptions thrown by the loader are propagated and nothing is cached.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = entries.get(key);
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+        misses.increment();
+        V computed = loader.apply(key);
+        if (computed == null) {
+            return null;
+        }
+        V existing = entries.putIfAbsent(key, computed);
+        if (existing != null) {
+            return existing;
+        }
+        insertionOrder.offer(key);
+        evictIfNeeded();
+        return computed;
+    }
+
+    /**
+     * Returns the cached value or {@code null}, counting the lookup as a hit or a miss.
+     */
+    public V getIfPresent(K key) {
+        V value = entries.get(key);
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        if (value == null) {
+            return;
+        }
+        if (entries.put(key, value) == null) {
+            insertionOrder.offer(key);
+            evictIfNeeded();
+        }
+    }
+
+    private void evictIfNeeded() {
+        while (entries.size() > maxSize) {
+            K eldest = insertionOrder.poll();
+            if (eldest == null) {
+                return;
+            }
+            if (entries.remove(eldest) != null) {
+                evictions.increment();
+            }
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+        insertionOrder.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Snapshot of the counters, suitable for serialising into a report.
+     */
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("size", (long) entries.size());
+        stats.put("maxSize", (long) maxSize);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,230 @@
+package com.qa.app.service.util;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.zone.ZoneOffsetTransition;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Cron expression as written by the scenario schedule editor, evaluated in local time.
+ * <p>
+ * Accepts the Unix form {@code minute hour day-of-month month day-of-week} and the Quartz form with a leading
+ * seconds field ({@code "0 30 2 * * ?"}). Each field supports {@code *}, lists ({@code 1,15}), ranges
+ * ({@code 9-17}), steps ({@code *}{@code /15}, {@code 5/10}) and, for months and weekdays, names ({@code JAN},
+ * {@code MON-FRI}); {@code ?} is a synonym of {@code *} in the day fields. Numeric weekdays follow the form: 0-7 with
+ * Sunday as 0 or 7 in the Unix form, 1-7 with Sunday as 1 in the Quartz form. As in Unix cron, a time matches when
+ * either day field matches if both are restricted. Quartz extensions ({@code L}, {@code W}, {@code #}) and the year
+ * field are not supported.
+ * <p>
+ * Across daylight saving changes ({@link #nextAfter(ZonedDateTime)}) the expression follows the wall clock like Unix
+ * cron: matches in the skipped hour fire once when the clock lands after the gap, and a time that occurs twice fires
+ * at its first occurrence only.
+ */
+public final class CronExpression {
+
+    private static final List<String> MONTHS = List.of("JAN", "FEB", "MAR", "APR", "MAY", "JUN",
+            "JUL", "AUG", "SEP", "OCT", "NOV", "DEC");
+    private static final List<String> DAYS = List.of("SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT");
+    // nextAfter gives up when nothing matches within this many years, e.g. "0 0 30 2 *"
+    private static final int MAX_YEARS_AHEAD = 5;
+
+    private final String expression;
+    private final BitSet seconds;
+    private final BitSet minutes;
+    private final BitSet hours;
+    private final BitSet daysOfMonth;
+    private final BitSet months;
+    // 0 = Sunday … 6 = Saturday
+    private final BitSet daysOfWeek;
+    private final boolean dayOfMonthRestricted;
+    private final boolean dayOfWeekRestricted;
+
+    private CronExpression(String expression, String[] fields) {
+        this.expression = expression;
+        boolean quartz = fields.length == 6;
+        int i = 0;
+        this.seconds = quartz ? parseField(fields[i++], 0, 59, null, "second") : single(0);
+        this.minutes = parseField(fields[i++], 0, 59, null, "minute");
+        this.hours = parseField(fields[i++], 0, 23, null, "hour");
+        String dom = fields[i++];
+        this.daysOfMonth = parseField(dom, 1, 31, null, "day-of-month");
+        this.months = parseField(fields[i++], 1, 12, MONTHS, "month");
+        String dow = fields[i];
+        this.daysOfWeek = parseDaysOfWeek(dow, quartz);
+        this.dayOfMonthRestricted = !isWildcard(dom);
+        this.dayOfWeekRestricted = !isWildcard(dow);
+    }
+
+    /**
+     * Parses {@code expression}.
+     *
+     * @throws IllegalArgumentException when the expression is blank or invalid
+     */
+    public static CronExpression parse(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("Cron expression is empty");
+        }
+        String[] fields = expression.trim().toUpperCase(Locale.ROOT).split("\\s+");
+        if (fields.length != 5 && fields.length != 6) {
+            throw new IllegalArgumentException("Cron expression '" + expression + "' must have 5 or 6 fields");
+        }
+        try {
+            return new CronExpression(expression.trim(), fields);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cron expression '" + expression + "': " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * First matching time strictly after {@code after}, or {@code null} when there is none in the next few years.
+     */
+    public LocalDateTime nextAfter(LocalDateTime after) {
+        LocalDateTime t = after.truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+        int lastYear = after.getYear() + MAX_YEARS_AHEAD;
+        while (t.getYear() <= lastYear) {
+            if (!months.get(t.getMonthValue())) {
+                t = t.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS).plusMonths(1);
+            } else if (!dayMatches(t)) {
+                t = t.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+            } else if (!hours.get(t.getHour())) {
+                t = t.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            } else if (!minutes.get(t.getMinute())) {
+                t = t.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+            } else if (!seconds.get(t.getSecond())) {
+                t = t.plusSeconds(1);
+            } else {
+                return t;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * First matching instant strictly after {@code after}, in the zone of {@code after}, or {@code null} when there is
+     * none in the next few years. A match inside a daylight saving gap fires at the end of the gap (several matches
+     * of the gap collapse into that one); in an overlap only the first occurrence of a local time fires.
+     */
+    public ZonedDateTime nextAfter(ZonedDateTime after) {
+        ZoneId zone = after.getZone();
+        LocalDateTime local = after.toLocalDateTime();
+        while (true) {
+            LocalDateTime next = nextAfter(local);
+            if (next == null) {
+                return null;
+            }
+            ZoneOffsetTransition transition = zone.getRules().getTransition(next);
+            // atZone resolves an overlap to the earlier offset
+            ZonedDateTime candidate = transition != null && transition.isGap()
+                    ? transition.getDateTimeAfter().atZone(zone)
+                    : next.atZone(zone);
+            if (candidate.isAfter(after)) {
+                return candidate;
+            }
+            // already passed: the gap was fired, or this is the second occurrence of an overlapping time
+            local = next;
+        }
+    }
+
+    private boolean dayMatches(LocalDateTime t) {
+        boolean dom = daysOfMonth.get(t.getDayOfMonth());
+        boolean dow = daysOfWeek.get(t.getDayOfWeek().getValue() % 7);
+        if (dayOfMonthRestricted && dayOfWeekRestricted) {
+            return dom || dow;
+        }
+        return dom && dow;
+    }
+
+    private static boolean isWildcard(String field) {
+        return "*".equals(field) || "?".equals(field);
+    }
+
+    private static BitSet single(int value) {
+        BitSet bits = new BitSet();
+        bits.set(value);
+        return bits;
+    }
+
+    private static BitSet parseDaysOfWeek(String field, boolean quartz) {
+        // Quartz numbers weekdays 1 (Sunday) to 7, Unix 0 (Sunday) to 7 (Sunday again)
+        BitSet raw = quartz ? parseField(field, 1, 7, DAYS, "day-of-week", 1) : parseField(field, 0, 7, DAYS, "day-of-week", 0);
+        BitSet days = new BitSet(7);
+        for (int v = raw.nextSetBit(0); v >= 0; v = raw.nextSetBit(v + 1)) {
+            days.set(quartz ? v - 1 : v % 7);
+        }
+        return days;
+    }
+
+    private static BitSet parseField(String field, int min, int max, List<String> names, String label) {
+        return parseField(field, min, max, names, label, min);
+    }
+
+    /**
+     * @param nameBase value of the first of {@code names}
+     */
+    private static BitSet parseField(String field, int min, int max, List<String> names, String label, int nameBase) {
+        BitSet bits = new BitSet(max + 1);
+        for (String part : field.split(",")) {
+            int step = 1;
+            String range = part;
+            int slash = part.indexOf('/');
+            if (slash >= 0) {
+                step = parseValue(part.substring(slash + 1), 1, max, null, 0, label + " step");
+                range = part.substring(0, slash);
+            }
+            int from;
+            int to;
+            if (isWildcard(range)) {
+                if ("?".equals(range) && !label.startsWith("day")) {
+                    throw new IllegalArgumentException("'?' is only allowed in the day fields");
+                }
+                from = min;
+                to = max;
+            } else {
+                int dash = range.indexOf('-');
+                if (dash > 0) {
+                    from = parseValue(range.substring(0, dash), min, max, names, nameBase, label);
+                    to = parseValue(range.substring(dash + 1), min, max, names, nameBase, label);
+                    if (to < from) {
+                        throw new IllegalArgumentException(label + " range '" + range + "' is reversed");
+                    }
+                } else {
+                    from = parseValue(range, min, max, names, nameBase, label);
+                    // "5/10" runs from 5 to the end of the field
+                    to = slash >= 0 ? max : from;
+                }
+            }
+            for (int v = from; v <= to; v += step) {
+                bits.set(v);
+            }
+        }
+        return bits;
+    }
+
+    private static int parseValue(String token, int min, int max, List<String> names, int nameBase, String label) {
+        if (names != null) {
+            int idx = names.indexOf(token);
+            if (idx >= 0) {
+                return idx + nameBase;
+            }
+        }
+        int value;
+        try {
+            value = Integer.parseInt(token);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("'" + token + "' is not a valid " + label);
+        }
+        if (value < min || value > max) {
+            throw new IllegalArgumentException(label + " " + value + " is outside " + min + "-" + max);
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
@@ -20,10 +20,12 @@ public class GroovyScriptEngine {
     private final String groovyScript;
     private final Pattern pattern;
     private final int expectedArgCount;
+    private final String variableName;
 
     private static final GroovyClassLoader GLOBAL_GROOVY_CLASS_LOADER = new GroovyClassLoader();
 
-    private Class<? extends Script> compiledScriptClass;
+    // 预编译后的脚本执行器（按线程复用脚本实例）；编译失败时为 null
+    private final GroovyScriptRunner scriptRunner;
 
     @JsonCreator
     public GroovyScriptEngine(
@@ -44,17 +46,10 @@ public class GroovyScriptEngine {
             }
         }
         this.expectedArgCount = (int) count;
-        this.pattern = buildPatternFromFormat(format, this.expectedArgCount);
+        this.variableName = extractVariableName(format);
+        this.pattern = buildPatternFromFormat(this.variableName, this.expectedArgCount);
 
-        // 预编译脚本，若失败仍可在 generate 时退回原脚本字符串
-        try {
-            @SuppressWarnings("unchecked")
-            Class<? extends Script> cls = (Class<? extends Script>) GLOBAL_GROOVY_CLASS_LOADER.parseClass(groovyScript).asSubclass(Script.class);
-            this.compiledScriptClass = cls;
-        } catch (Exception e) {
-            System.err.println("[GroovyScriptEngine] 脚本预编译失败: " + e.getMessage());
-            this.compiledScriptClass = null;
-        }
+        this.scriptRunner = compileRunner(name, groovyScript);
     }
 
     public GroovyScriptEngine(Integer id, String name, String format, String description, String groovyScript) {
@@ -72,32 +67,36 @@ public class GroovyScriptEngine {
             }
         }
         this.expectedArgCount = (int) count;
-        this.pattern = buildPatternFromFormat(format, this.expectedArgCount);
+        this.variableName = extractVariableName(format);
+        this.pattern = buildPatternFromFormat(this.variableName, this.expectedArgCount);
+
+        this.scriptRunner = compileRunner(name, groovyScript);
+    }
 
+    private static GroovyScriptRunner compileRunner(String name, String groovyScript) {
         // 预编译脚本，若失败仍可在 generate 时退回原脚本字符串
         try {
-            @SuppressWarnings("unchecked")
-            Class<? extends Script> cls = (Class<? extends Script>) GLOBAL_GROOVY_CLASS_LOADER.parseClass(groovyScript).asSubclass(Script.class);
-            this.compiledScriptClass = cls;
+            return GroovyScriptRunner.compile(GLOBAL_GROOVY_CLASS_LOADER, name, groovyScript, "args");
         } catch (Exception e) {
             System.err.println("[GroovyScriptEngine] 脚本预编译失败: " + e.getMessage());
-            this.compiledScriptClass = null;
+            return null;
         }
     }
 
-    private Pattern buildPatternFromFormat(String formatStr, int argCount) {
+    private static String extractVariableName(String formatStr) {
         // Extract the variable name, e.g., "userGreeting" from "@{userGreeting(name)}"
-        String varName;
         int openBrace = formatStr.indexOf('{');
         int openParen = formatStr.indexOf('(');
         int closeBrace = formatStr.lastIndexOf('}');
 
         if (openParen != -1 && openParen < closeBrace) {
-            varName = formatStr.substring(openBrace + 1, openParen);
+            return formatStr.substring(openBrace + 1, openParen);
         } else {
-            varName = formatStr.substring(openBrace + 1, closeBrace);
+            return formatStr.substring(openBrace + 1, closeBrace);
         }
-        
+    }
+
+    private Pattern buildPatternFromFormat(String varName, int argCount) {
         // Start building the regex: @{varName ... }
         String regex = "@\\{" + Pattern.quote(varName);
 
@@ -126,7 +125,7 @@ public class GroovyScriptEngine {
         }
 
         try {
-            if (compiledScriptClass == null) {
+            if (scriptRunner == null) {
                 // 如果预编译失败，则回退到即时解析
                 Binding binding = new Binding();
                 binding.setVariable("args", args);
@@ -140,10 +139,7 @@ public class GroovyScriptEngine {
                 }
                 return format;
             } else {
-                Script scriptInstance = compiledScriptClass.getDeclaredConstructor().newInstance();
-                scriptInstance.setProperty("args", args);
-                Object result = scriptInstance.run();
-                return String.valueOf(result);
+                return String.valueOf(scriptRunner.run((Object) args));
             }
         } catch (Exception e) {
             System.err.println("Error executing Groovy script for variable '" + name + "': " + e.getMessage());
@@ -160,6 +156,17 @@ public class GroovyScriptEngine {
         return pattern;
     }
 
+    /**
+     * Name used inside the placeholder, e.g. "userGreeting" for format "@{userGreeting(name)}".
+     */
+    public String getVariableName() {
+        return variableName;
+    }
+
+    public int getExpectedArgCount() {
+        return expectedArgCount;
+    }
+
     public String getFormat() {
         return format;
     }
@@ -0,0 +1,140 @@
+package com.qa.app.service.util;
+
+import com.qa.app.util.AppConfig;
+import groovy.lang.Binding;
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.Script;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs a compiled Groovy script without reflective instantiation on every call.
+ * <p>
+ * Two modes are supported (property {@code groovy.script.mode}):
+ * <ul>
+ *     <li>{@code pooled} (default) – one script instance per thread, its binding is cleared and refilled
+ *     before each run.</li>
+ *     <li>{@code function} – the script body is compiled into a generated class implementing
+ *     {@code Function<Object[],Object>}; the named parameters become local variables. Scripts that cannot be
+ *     compiled this way (imports, method definitions, ...) fall back to {@code pooled}.</li>
+ * </ul>
+ * Note: in pooled mode fields declared with {@code @Field} keep their value between runs on the same thread.
+ */
+public final class GroovyScriptRunner {
+
+    public static final String MODE_POOLED = "pooled";
+    public static final String MODE_FUNCTION = "function";
+
+    private static final AtomicInteger FUNCTION_SEQ = new AtomicInteger();
+
+    private final String scriptName;
+    private final String[] parameterNames;
+    private final Class<? extends Script> scriptClass;
+    private final Function<Object[], Object> function;
+    private final ThreadLocal<Slot> slots;
+
+    /** Per-thread script instance; {@code busy} guards against re-entrant use of the same instance. */
+    private static final class Slot {
+        private final Script script;
+        private boolean busy;
+
+        private Slot(Script script) {
+            this.script = script;
+        }
+    }
+
+    private GroovyScriptRunner(String scriptName, String[] parameterNames, Class<? extends Script> scriptClass,
+                               Function<Object[], Object> function) {
+        this.scriptName = scriptName;
+        this.parameterNames = parameterNames;
+        this.scriptClass = scriptClass;
+        this.function = function;
+        this.slots = scriptClass == null ? null : ThreadLocal.withInitial(() -> new Slot(newScript()));
+    }
+
+    /**
+     * Compiles {@code source} with the given loader. The mode is taken from {@code groovy.script.mode}.
+     *
+     * @param parameterNames names under which the arguments of {@link #run(Object...)} are exposed to the script
+     */
+    public static GroovyScriptRunner compile(GroovyClassLoader loader, String scriptName, String source,
+                                             String... parameterNames) {
+        String mode = AppConfig.getProperty("groovy.script.mode", MODE_POOLED).trim();
+        if (MODE_FUNCTION.equalsIgnoreCase(mode)) {
+            try {
+                return new GroovyScriptRunner(scriptName, parameterNames, null,
+                        compileFunction(loader, source, parameterNames));
+            } catch (Exception | LinkageError e) {
+                System.err.println("[WARN] Groovy script '" + scriptName
+                        + "' cannot be compiled as a function, using pooled mode: " + e.getMessage());
+            }
+        }
+        Class<? extends Script> cls = loader.parseClass(source).asSubclass(Script.class);
+        return new GroovyScriptRunner(scriptName, parameterNames, cls, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object[], Object> compileFunction(GroovyClassLoader loader, String source,
+                                                             String[] parameterNames) throws ReflectiveOperationException {
+        String className = "GeneratedScriptFunction" + FUNCTION_SEQ.incrementAndGet();
+        StringBuilder sb = new StringBuilder();
+        sb.append("class ").append(className)
+          .append(" implements java.util.function.Function<Object[], Object> {\n")
+          .append("    Object apply(Object[] __params) {\n");
+        for (int i = 0; i < parameterNames.length; i++) {
+            sb.append("        def ").append(parameterNames[i]).append(" = __params[").append(i).append("]\n");
+        }
+        sb.append(source).append('\n')
+          .append("    }\n")
+          .append("}\n");
+        Class<?> cls = loader.parseClass(sb.toString(), className + ".groovy");
+        return (Function<Object[], Object>) cls.getDeclaredConstructor().newInstance();
+    }
+
+    /**
+     * Runs the script; {@code arguments} are bound positionally to the parameter names given at compile time.
+     */
+    public Object run(Object... arguments) {
+        if (function != null) {
+            return function.apply(arguments);
+        }
+        Slot slot = slots.get();
+        if (slot.busy) {
+            // 同一线程内递归调用：使用临时实例，避免覆盖正在执行的 binding
+            return runWith(newScript(), arguments);
+        }
+        slot.busy = true;
+        try {
+            return runWith(slot.script, arguments);
+        } finally {
+            slot.busy = false;
+        }
+    }
+
+    private Object runWith(Script script, Object[] arguments) {
+        Binding binding = script.getBinding();
+        @SuppressWarnings("unchecked")
+        Map<String, Object> variables = binding.getVariables();
+        variables.clear();
+        for (int i = 0; i < parameterNames.length; i++) {
+            variables.put(parameterNames[i], i < arguments.length ? arguments[i] : null);
+        }
+        return script.run();
+    }
+
+    private Script newScript() {
+        try {
+            Script script = scriptClass.getDeclaredConstructor().newInstance();
+            script.setBinding(new Binding());
+            return script;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot instantiate Groovy script '" + scriptName + "'", e);
+        }
+    }
+
+    public boolean isFunctionMode() {
+        return function != null;
+    }
+}
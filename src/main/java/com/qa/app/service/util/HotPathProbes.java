@@ -0,0 +1,241 @@
+package com.qa.app.service.util;
+
+import com.qa.app.model.reports.GeneratorOverhead;
+import com.qa.app.model.reports.StageTiming;
+import com.qa.app.util.AppConfig;
+import org.HdrHistogram.ConcurrentHistogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Timing probes around the work the load generator does in session functions, per TCID and {@link Stage}.
+ * <p>
+ * Session functions run on Gatling's shared threads, so time spent rendering templates, running Groovy variables,
+ * handling DB checks or building reports is time no request is sent. The probes measure it with {@link LongAdder}
+ * counters and an HdrHistogram per stage, cheap enough to stay on during load runs ({@code probes.enabled=false}
+ * turns them off). Probes nest: a stage only counts its self time, e.g. Groovy variables evaluated while rendering a
+ * template count as {@link Stage#GROOVY} and not as {@link Stage#TEMPLATE}. A nested probe without a TCID (such as
+ * the Groovy probe in {@link VariableGenerator}) is attributed to the TCID of the enclosing probe and ignored outside
+ * of one.
+ * <p>
+ * An outermost probe slower than {@code probes.session.budget.ms} (default 5) counts as over budget; the first one
+ * of each TCID is logged as a warning.
+ */
+public final class HotPathProbes {
+
+    /**
+     * Instrumented stages of a session function.
+     */
+    public enum Stage {
+        TEMPLATE, GROOVY, DB_CHECK, CHECKS, REPORT
+    }
+
+    private static final boolean ENABLED = !"false".equalsIgnoreCase(AppConfig.getProperty("probes.enabled", "true").trim());
+    private static final long BUDGET_MS = parseBudget();
+    private static final long BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(BUDGET_MS);
+    // Stage durations in microseconds, up to one minute
+    private static final long HIGHEST_TRACKABLE_US = 60_000_000L;
+
+    private static final ConcurrentMap<String, TcidProbes> BY_TCID = new ConcurrentHashMap<>();
+    private static final Set<String> WARNED = ConcurrentHashMap.newKeySet();
+    private static final ThreadLocal<Frames> FRAMES = ThreadLocal.withInitial(Frames::new);
+
+    private HotPathProbes() {
+        // utility class – hide constructor
+    }
+
+    private static long parseBudget() {
+        try {
+            return Math.max(1, Long.parseLong(AppConfig.getProperty("probes.session.budget.ms", "5").trim()));
+        } catch (NumberFormatException e) {
+            System.err.println("[WARN] Invalid probes.session.budget.ms, using 5: " + e.getMessage());
+            return 5;
+        }
+    }
+
+    private static final class StageProbes {
+        final LongAdder count = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+        final ConcurrentHistogram micros = new ConcurrentHistogram(HIGHEST_TRACKABLE_US, 2);
+
+        void record(long selfNanos) {
+            count.increment();
+            nanos.add(selfNanos);
+            maxNanos.accumulate(selfNanos);
+            micros.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(selfNanos), HIGHEST_TRACKABLE_US));
+        }
+    }
+
+    private static final class TcidProbes {
+        final StageProbes[] stages = new StageProbes[Stage.values().length];
+        final LongAdder sessionFunctions = new LongAdder();
+        final LongAdder overBudget = new LongAdder();
+
+        TcidProbes() {
+            for (int i = 0; i < stages.length; i++) {
+                stages[i] = new StageProbes();
+            }
+        }
+    }
+
+    /**
+     * Open probes of one thread: the TCID of each and the time already taken by its nested probes.
+     */
+    private static final class Frames {
+        String[] tcids = new String[8];
+        long[] childNanos = new long[8];
+        int depth;
+
+        void push(String tcid) {
+            if (depth == tcids.length) {
+                tcids = java.util.Arrays.copyOf(tcids, depth * 2);
+                childNanos = java.util.Arrays.copyOf(childNanos, depth * 2);
+            }
+            tcids[depth] = tcid != null ? tcid : (depth > 0 ? tcids[depth - 1] : null);
+            childNanos[depth] = 0;
+            depth++;
+        }
+    }
+
+    /**
+     * Opens a probe for {@code tcid} ({@code null}: the TCID of the enclosing probe). Must be closed with
+     * {@link #stop(Stage, long)}, in a finally block.
+     */
+    public static long start(String tcid) {
+        if (!ENABLED) {
+            return 0;
+        }
+        FRAMES.get().push(tcid);
+        return System.nanoTime();
+    }
+
+    /**
+     * Closes the innermost probe opened by {@link #start(String)} and records its self time under {@code stage}.
+     */
+    public static void stop(Stage stage, long start) {
+        if (!ENABLED) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        Frames frames = FRAMES.get();
+        if (frames.depth == 0) {
+            return;
+        }
+        int top = --frames.depth;
+        String tcid = frames.tcids[top];
+        frames.tcids[top] = null;
+        long self = Math.max(0, elapsed - frames.childNanos[top]);
+        if (top > 0) {
+            frames.childNanos[top - 1] += elapsed;
+        }
+        if (tcid == null) {
+            return;
+        }
+        TcidProbes probes = BY_TCID.computeIfAbsent(tcid, k -> new TcidProbes());
+        probes.stages[stage.ordinal()].record(self);
+        if (top == 0) {
+            probes.sessionFunctions.increment();
+            if (elapsed > BUDGET_NANOS) {
+                probes.overBudget.increment();
+                if (WARNED.add(tcid)) {
+                    System.err.printf("[WARN] Session function of %s (%s) took %d ms, over the budget of %d ms;"
+                                    + " the load generator may be limiting the run%n",
+                            tcid, stage, TimeUnit.NANOSECONDS.toMillis(elapsed), BUDGET_MS);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@code function} with a probe around each call, e.g. a Gatling session function.
+     */
+    public static <T, R> Function<T, R> timed(String tcid, Stage stage, Function<T, R> function) {
+        if (!ENABLED) {
+            return function;
+        }
+        return input -> {
+            long start = start(tcid);
+            try {
+                return function.apply(input);
+            } finally {
+                stop(stage, start);
+            }
+        };
+    }
+
+    /**
+     * Per-TCID breakdown of everything recorded since the last {@link #reset()}, ordered by TCID.
+     */
+    public static Map<String, GeneratorOverhead> snapshot() {
+        Map<String, GeneratorOverhead> result = new LinkedHashMap<>();
+        for (Map.Entry<String, TcidProbes> entry : new TreeMap<>(BY_TCID).entrySet()) {
+            TcidProbes probes = entry.getValue();
+            GeneratorOverhead overhead = new GeneratorOverhead();
+            overhead.setTcid(entry.getKey());
+            overhead.setSessionFunctions(probes.sessionFunctions.sum());
+            overhead.setOverBudget(probes.overBudget.sum());
+            overhead.setBudgetMs(BUDGET_MS);
+            long totalNanos = 0;
+            for (Stage stage : Stage.values()) {
+                StageProbes sp = probes.stages[stage.ordinal()];
+                long count = sp.count.sum();
+                if (count == 0) {
+                    continue;
+                }
+                long nanos = sp.nanos.sum();
+                totalNanos += nanos;
+                StageTiming timing = new StageTiming();
+                timing.setCount(count);
+                timing.setTotalMs(round(nanos / 1_000_000.0));
+                timing.setMeanUs(round(nanos / 1_000.0 / count));
+                timing.setP99Us(sp.micros.getValueAtPercentile(99));
+                timing.setMaxUs(TimeUnit.NANOSECONDS.toMicros(sp.maxNanos.get()));
+                overhead.getStages().put(stage.name(), timing);
+            }
+            overhead.setTotalMs(round(totalNanos / 1_000_000.0));
+            result.put(entry.getKey(), overhead);
+        }
+        return result;
+    }
+
+    /**
+     * One line per TCID, for the simulation log of runs without a report.
+     */
+    public static String summary() {
+        Map<String, GeneratorOverhead> snapshot = snapshot();
+        if (snapshot.isEmpty()) {
+            return "no instrumented session functions";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (GeneratorOverhead overhead : snapshot.values()) {
+            sb.append(System.lineSeparator()).append(String.format("  %s: %d session functions, %.1f ms, %d over %d ms budget",
+                    overhead.getTcid(), overhead.getSessionFunctions(), overhead.getTotalMs(),
+                    overhead.getOverBudget(), overhead.getBudgetMs()));
+            overhead.getStages().forEach((stage, timing) -> sb.append(String.format(" | %s %.1f ms (p99 %d us)",
+                    stage, timing.getTotalMs(), timing.getP99Us())));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Drops all recorded timings (a warm worker runs several simulations).
+     */
+    public static void reset() {
+        BY_TCID.clear();
+        WARNED.clear();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+}
@@ -4,12 +4,14 @@ import com.qa.app.service.ServiceException;
 import com.qa.app.service.api.IVariableService;
 import com.qa.app.service.impl.VariableServiceImpl;
 import com.qa.app.ui.util.HelpTooltipManager;
+import com.qa.app.util.AppConfig;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -19,14 +21,50 @@ import java.util.regex.Pattern;
 
 public class VariableGenerator {
 
+    private static final Pattern RANDOM_STRING_ARGS = Pattern.compile("(\\d+)(?:,([aulnm]))?");
+    private static final Segment UUID_SEGMENT = (out, ctx) -> out.append(ctx.uuid());
+    private static final Segment TIMESTAMP_SEGMENT = (out, ctx) -> out.append(ctx.timestamp());
+
     private static final VariableGenerator INSTANCE = new VariableGenerator();
 
-    private List<GroovyScriptEngine> customVariables;
+    private volatile List<GroovyScriptEngine> customVariables;
+    // 首次使用时才从数据库加载；Gatling 子进程改用 run plan 中的变量（setCustomVariables），不访问数据库
+    private volatile boolean customLoaded;
+    // 自定义变量按占位符名称索引，保持加载顺序
+    private volatile Map<String, List<GroovyScriptEngine>> customByName = Map.of();
+    // 输入字符串 -> 解析后的片段列表；自定义变量变化时清空
+    private final BoundedCache<String, List<Segment>> segmentCache =
+            new BoundedCache<>("variableSegments", parseCacheSize(AppConfig.getProperty("variable.segment.cache.size"), 1024));
     private final IVariableService variableService;
 
     private VariableGenerator() {
         this.variableService = new VariableServiceImpl();
-        reloadCustomVariables();
+    }
+
+    private void ensureCustomVariables() {
+        if (!customLoaded) {
+            synchronized (this) {
+                if (!customLoaded) {
+                    reloadCustomVariables();
+                }
+            }
+        }
+    }
+
+    private static int parseCacheSize(String raw, int defaultSize) {
+        if (raw == null || raw.isBlank()) return defaultSize;
+        try {
+            return Math.max(1, Integer.parseInt(raw.trim()));
+        } catch (NumberFormatException e) {
+            return defaultSize;
+        }
+    }
+
+    /**
+     * Hit / miss counters of the parsed-segment cache, for run reports.
+     */
+    public Map<String, Long> getSegmentCacheStats() {
+        return segmentCache.stats();
     }
 
     public static String getBuiltInVariablesDocumentation() {
@@ -44,6 +82,17 @@ public class VariableGenerator {
             System.err.println("Failed to load custom variables: " + e.getMessage());
             customVariables = new ArrayList<>();
         }
+        customByName = indexByName(customVariables);
+        segmentCache.clear();
+        customLoaded = true;
+    }
+
+    /**
+     * The custom (Groovy) variables, loaded from the database on first use.
+     */
+    public List<GroovyScriptEngine> getCustomVariables() {
+        ensureCustomVariables();
+        return customVariables;
     }
 
     /**
@@ -93,6 +142,7 @@ public class VariableGenerator {
         definitions.add(Map.of("format", "__RANDOM_STRING(length[,mode])", "description", "Generates a random string, e.g., __RANDOM_STRING(10,a) - modes: a=alphanumeric, u=uppercase, l=lowercase, m=mixed case, n=numeric only"));
 
         // Add custom rules
+        ensureCustomVariables();
         if (customVariables != null) {
             for (GroovyScriptEngine variable : customVariables) {
                 definitions.add(Map.of("format", variable.getFormat(), "description", variable.getDescription()));
@@ -105,118 +155,330 @@ public class VariableGenerator {
         if (value == null) {
             return null;
         }
-        String resolvedValue = value;
+        // 快速路径：不含任何占位符时直接返回
+        if (value.indexOf("@{") < 0 && value.indexOf("__") < 0) {
+            return value;
+        }
 
-        // 优先处理自定义变量
-        if (customVariables != null) {
-            for (GroovyScriptEngine variable : customVariables) {
-                Matcher matcher = variable.getMatcher(resolvedValue);
-                StringBuffer sb = new StringBuffer();
-                while (matcher.find()) {
-                    int groupCount = matcher.groupCount();
-                    String[] args = new String[groupCount];
-                    for (int i = 0; i < groupCount; i++) {
-                        args[i] = matcher.group(i + 1);
-                    }
-                    String replacement = variable.generate((Object[]) args);
-                    matcher.appendReplacement(sb, Matcher.quoteReplacement(replacement));
+        List<Segment> segments = segmentCache.get(value, this::tokenize);
+        if (segments.size() == 1 && segments.get(0) instanceof Literal literal) {
+            return literal.text();
+        }
+
+        // 同一次解析中 __UUID / __TIMESTAMP 共享同一个值（与旧版 replace 行为保持一致）
+        CallContext ctx = new CallContext();
+        StringBuilder sb = new StringBuilder(value.length() + 32);
+        for (Segment segment : segments) {
+            segment.appendTo(sb, ctx);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Splits the input into literal text and generator calls in a single left-to-right pass.
+     * Anything that does not parse as a known placeholder is kept verbatim.
+     */
+    private List<Segment> tokenize(String input) {
+        ensureCustomVariables();
+        Map<String, List<GroovyScriptEngine>> customs = customByName;
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        int n = input.length();
+        while (i < n) {
+            char c = input.charAt(i);
+            int end = -1;
+            if (c == '@' && i + 1 < n && input.charAt(i + 1) == '{') {
+                end = parseAtPlaceholder(input, i, customs, segments, literal);
+            } else if (c == '_' && input.startsWith("__", i)) {
+                end = parseBuiltIn(input, i, segments, literal);
+            }
+            if (end > 0) {
+                i = end;
+            } else {
+                literal.append(c);
+                i++;
+            }
+        }
+        if (literal.length() > 0 || segments.isEmpty()) {
+            segments.add(new Literal(literal.toString()));
+        }
+        return List.copyOf(segments);
+    }
+
+    /**
+     * Parses {@code @{name}} / {@code @{name(args)}} starting at {@code start}. Custom Groovy variables win over
+     * the legacy built-in aliases (randomUUID, timestamp, datetime, randomString).
+     *
+     * @return index just after the placeholder, or -1 if the text is not a known placeholder
+     */
+    private int parseAtPlaceholder(String input, int start, Map<String, List<GroovyScriptEngine>> customs,
+                                   List<Segment> segments, StringBuilder literal) {
+        int n = input.length();
+        int j = start + 2;
+        while (j < n) {
+            char ch = input.charAt(j);
+            if (ch == '(' || ch == ')' || ch == '{' || ch == '}' || Character.isWhitespace(ch)) {
+                break;
+            }
+            j++;
+        }
+        if (j == start + 2) {
+            return -1;
+        }
+        String name = input.substring(start + 2, j);
+        int k = j;
+        while (k < n && Character.isWhitespace(input.charAt(k))) {
+            k++;
+        }
+        String args;
+        int end;
+        if (k < n && input.charAt(k) == '}') {
+            args = null;
+            end = k + 1;
+        } else if (k < n && input.charAt(k) == '(') {
+            int close = input.indexOf(")}", k + 1);
+            if (close < 0) {
+                return -1;
+            }
+            args = input.substring(k + 1, close);
+            end = close + 2;
+        } else {
+            return -1;
+        }
+
+        List<GroovyScriptEngine> engines = customs.get(name);
+        if (engines != null) {
+            for (GroovyScriptEngine engine : engines) {
+                String[] parts = splitArgs(args, engine.getExpectedArgCount());
+                if (parts != null) {
+                    addCall(segments, literal, new CustomCall(engine, parts));
+                    return end;
                 }
-                matcher.appendTail(sb);
-                resolvedValue = sb.toString();
             }
         }
 
-        // 处理内置变量
-        resolvedValue = resolveBuiltInVariables(resolvedValue);
+        Segment legacy = parseLegacy(name, args);
+        if (legacy == null) {
+            return -1;
+        }
+        addCall(segments, literal, legacy);
+        return end;
+    }
 
-        return resolvedValue;
+    /**
+     * Splits raw argument text into exactly {@code argCount} trimmed pieces; the last piece keeps any extra commas.
+     *
+     * @return the pieces, or null if the arity does not match
+     */
+    private static String[] splitArgs(String args, int argCount) {
+        if (argCount == 0) {
+            return args == null ? new String[0] : null;
+        }
+        if (args == null) {
+            return null;
+        }
+        String[] parts = args.split(",", argCount);
+        if (parts.length != argCount) {
+            return null;
+        }
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = parts[i].trim();
+        }
+        return parts;
     }
 
-    private String resolveBuiltInVariables(String value) {
-        String translatedValue = translateLegacySyntax(value);
-        String resolvedValue = translatedValue;
+    private Segment parseLegacy(String name, String args) {
+        for (int i = 0; i < name.length(); i++) {
+            if (!Character.isLetter(name.charAt(i))) {
+                return null;
+            }
+        }
+        switch (name.toLowerCase()) {
+            case "randomuuid":
+                return UUID_SEGMENT;
+            case "timestamp":
+                return TIMESTAMP_SEGMENT;
+            case "datetime":
+                return args == null ? null : parseDateTime("", args, "Error formatting date: ");
+            case "randomstring":
+                if (args == null) {
+                    return new RandomString(10, "a");
+                }
+                String[] parts = args.split(",");
+                return parseRandomString(parts.length > 1 ? parts[0] + "," + parts[1] : args);
+            default:
+                return null;
+        }
+    }
 
-        if (resolvedValue.contains("__UUID")) {
-            resolvedValue = resolvedValue.replace("__UUID", UUID.randomUUID().toString());
+    /**
+     * Parses the {@code __XXX} built-ins starting at {@code start}.
+     *
+     * @return index just after the built-in, or -1 if the text is not a valid built-in
+     */
+    private int parseBuiltIn(String input, int start, List<Segment> segments, StringBuilder literal) {
+        if (input.startsWith("__UUID", start)) {
+            addCall(segments, literal, UUID_SEGMENT);
+            return start + "__UUID".length();
         }
-        if (resolvedValue.contains("__TIMESTAMP")) {
-            resolvedValue = resolvedValue.replace("__TIMESTAMP", String.valueOf(System.currentTimeMillis()));
+        if (input.startsWith("__TIMESTAMP", start)) {
+            addCall(segments, literal, TIMESTAMP_SEGMENT);
+            return start + "__TIMESTAMP".length();
         }
 
-        Pattern datetimePattern = Pattern.compile("__DATETIME\\(([^,)]+)(?:,\\s*([^)]+))?\\)");
-        Matcher datetimeMatcher = datetimePattern.matcher(resolvedValue);
-        StringBuffer sbDatetime = new StringBuffer();
-        while (datetimeMatcher.find()) {
-            String format = datetimeMatcher.group(1).trim();
-            String timezone = (datetimeMatcher.groupCount() > 1 && datetimeMatcher.group(2) != null) ? datetimeMatcher.group(2).trim() : null;
-            try {
-                DateTimeFormatter dtf = DateTimeFormatter.ofPattern(format);
-                String formattedDate;
-                if (timezone != null && !timezone.isBlank()) {
-                    formattedDate = ZonedDateTime.now(ZoneId.of(timezone)).format(dtf);
-                } else {
-                    formattedDate = LocalDateTime.now().format(dtf);
-                }
-                datetimeMatcher.appendReplacement(sbDatetime, Matcher.quoteReplacement(formattedDate));
-            } catch (Exception e) {
-                System.err.println("Error formatting date: " + e.getMessage());
+        String fn;
+        if (input.startsWith("__DATETIME(", start)) {
+            fn = "__DATETIME(";
+        } else if (input.startsWith("__PREFIX_TIMESTAMP(", start)) {
+            fn = "__PREFIX_TIMESTAMP(";
+        } else if (input.startsWith("__PREFIX_DATETIME(", start)) {
+            fn = "__PREFIX_DATETIME(";
+        } else if (input.startsWith("__RANDOM_STRING(", start)) {
+            fn = "__RANDOM_STRING(";
+        } else {
+            return -1;
+        }
+        int argsStart = start + fn.length();
+        int close = input.indexOf(')', argsStart);
+        if (close < 0) {
+            return -1;
+        }
+        String args = input.substring(argsStart, close);
+
+        Segment segment = switch (fn) {
+            case "__DATETIME(" -> parseDateTime("", args, "Error formatting date: ");
+            case "__PREFIX_TIMESTAMP(" -> new PrefixTimestamp(args);
+            case "__PREFIX_DATETIME(" -> {
+                int comma = args.indexOf(',');
+                String prefix = comma > 0 ? args.substring(0, comma).trim() : "";
+                yield prefix.isEmpty() ? null
+                        : parseDateTime(prefix, args.substring(comma + 1), "Error formatting date with prefix: ");
+            }
+            default -> parseRandomString(args);
+        };
+        if (segment == null) {
+            return -1;
+        }
+        addCall(segments, literal, segment);
+        return close + 1;
+    }
+
+    /**
+     * Parses {@code format[, timezone]}; formatter and zone are resolved once here instead of on every call.
+     */
+    private static Segment parseDateTime(String prefix, String args, String errorPrefix) {
+        int comma = args.indexOf(',');
+        String format = (comma >= 0 ? args.substring(0, comma) : args).trim();
+        String timezone = comma >= 0 ? args.substring(comma + 1).trim() : null;
+        if (format.isEmpty()) {
+            return null;
+        }
+        try {
+            DateTimeFormatter dtf = DateTimeFormatter.ofPattern(format);
+            ZoneId zone = (timezone != null && !timezone.isBlank()) ? ZoneId.of(timezone) : null;
+            return new DateTime(prefix, dtf, zone);
+        } catch (Exception e) {
+            System.err.println(errorPrefix + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Segment parseRandomString(String args) {
+        Matcher m = RANDOM_STRING_ARGS.matcher(args);
+        if (!m.matches()) {
+            return null;
+        }
+        try {
+            return new RandomString(Integer.parseInt(m.group(1)), m.group(2) != null ? m.group(2) : "a");
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void addCall(List<Segment> segments, StringBuilder literal, Segment call) {
+        if (literal.length() > 0) {
+            segments.add(new Literal(literal.toString()));
+            literal.setLength(0);
+        }
+        segments.add(call);
+    }
+
+    private static Map<String, List<GroovyScriptEngine>> indexByName(List<GroovyScriptEngine> variables) {
+        Map<String, List<GroovyScriptEngine>> index = new HashMap<>();
+        if (variables != null) {
+            for (GroovyScriptEngine variable : variables) {
+                index.computeIfAbsent(variable.getVariableName(), k -> new ArrayList<>()).add(variable);
             }
         }
-        datetimeMatcher.appendTail(sbDatetime);
-        resolvedValue = sbDatetime.toString();
-
-        Pattern prefixTimestampPattern = Pattern.compile("__PREFIX_TIMESTAMP\\((.*?)\\)");
-        Matcher prefixTimestampMatcher = prefixTimestampPattern.matcher(resolvedValue);
-        StringBuffer sbPrefixTs = new StringBuffer();
-        while (prefixTimestampMatcher.find()) {
-            String prefix = prefixTimestampMatcher.group(1);
-            String timestamp = String.valueOf(System.currentTimeMillis());
-            prefixTimestampMatcher.appendReplacement(sbPrefixTs, Matcher.quoteReplacement(prefix + timestamp));
-        }
-        prefixTimestampMatcher.appendTail(sbPrefixTs);
-        resolvedValue = sbPrefixTs.toString();
-
-        Pattern prefixDatetimePattern = Pattern.compile("__PREFIX_DATETIME\\(([^,)]+),([^,)]+)(?:,\\s*([^)]+))?\\)");
-        Matcher prefixDatetimeMatcher = prefixDatetimePattern.matcher(resolvedValue);
-        StringBuffer sbPrefixDt = new StringBuffer();
-        while (prefixDatetimeMatcher.find()) {
-            String prefix = prefixDatetimeMatcher.group(1).trim();
-            String format = prefixDatetimeMatcher.group(2).trim();
-            String timezone = (prefixDatetimeMatcher.groupCount() > 2 && prefixDatetimeMatcher.group(3) != null) ? prefixDatetimeMatcher.group(3).trim() : null;
+        return index;
+    }
+
+    // ---------------------------------------------------------------------
+    // Parsed segments
+    // ---------------------------------------------------------------------
+
+    private interface Segment {
+        void appendTo(StringBuilder out, CallContext ctx);
+    }
+
+    /** Per-call state shared by all segments of one {@link #resolveVariables(String)} invocation. */
+    private static final class CallContext {
+        private String uuid;
+        private String timestamp;
+
+        String uuid() {
+            if (uuid == null) {
+                uuid = UUID.randomUUID().toString();
+            }
+            return uuid;
+        }
+
+        String timestamp() {
+            if (timestamp == null) {
+                timestamp = String.valueOf(System.currentTimeMillis());
+            }
+            return timestamp;
+        }
+    }
+
+    private record Literal(String text) implements Segment {
+        public void appendTo(StringBuilder out, CallContext ctx) {
+            out.append(text);
+        }
+    }
+
+    private record CustomCall(GroovyScriptEngine engine, String[] args) implements Segment {
+        public void appendTo(StringBuilder out, CallContext ctx) {
+            long probe = HotPathProbes.start(null);
             try {
-                DateTimeFormatter dtf = DateTimeFormatter.ofPattern(format);
-                String formattedDate;
-                if (timezone != null && !timezone.isBlank()) {
-                    formattedDate = ZonedDateTime.now(ZoneId.of(timezone)).format(dtf);
-                } else {
-                    formattedDate = LocalDateTime.now().format(dtf);
-                }
-                prefixDatetimeMatcher.appendReplacement(sbPrefixDt, Matcher.quoteReplacement(prefix + formattedDate));
-            } catch (Exception e) {
-                System.err.println("Error formatting date with prefix: " + e.getMessage());
+                out.append(engine.generate((Object[]) args.clone()));
+            } finally {
+                HotPathProbes.stop(HotPathProbes.Stage.GROOVY, probe);
             }
         }
-        prefixDatetimeMatcher.appendTail(sbPrefixDt);
-        resolvedValue = sbPrefixDt.toString();
+    }
 
-        Pattern randomStringPattern = Pattern.compile("__RANDOM_STRING\\((\\d+)(?:,([aulnm]))?\\)");
-        Matcher randomStringMatcher = randomStringPattern.matcher(resolvedValue);
-        StringBuffer sbRandomString = new StringBuffer();
-        while (randomStringMatcher.find()) {
-            int length = Integer.parseInt(randomStringMatcher.group(1));
-            String mode = randomStringMatcher.groupCount() > 1 && randomStringMatcher.group(2) != null ? 
-                         randomStringMatcher.group(2) : "a";
-            String randomString = generateRandomString(length, mode);
-            randomStringMatcher.appendReplacement(sbRandomString, Matcher.quoteReplacement(randomString));
+    private record DateTime(String prefix, DateTimeFormatter formatter, ZoneId zone) implements Segment {
+        public void appendTo(StringBuilder out, CallContext ctx) {
+            out.append(prefix);
+            out.append(zone != null ? ZonedDateTime.now(zone).format(formatter) : LocalDateTime.now().format(formatter));
         }
-        randomStringMatcher.appendTail(sbRandomString);
-        resolvedValue = sbRandomString.toString();
+    }
 
-        return resolvedValue;
+    private record PrefixTimestamp(String prefix) implements Segment {
+        public void appendTo(StringBuilder out, CallContext ctx) {
+            out.append(prefix).append(System.currentTimeMillis());
+        }
     }
 
+    private record RandomString(int length, String mode) implements Segment {
+        public void appendTo(StringBuilder out, CallContext ctx) {
+            out.append(generateRandomString(length, mode));
+        }
+    }
 
-    private String generateRandomString(int length, String mode) {
+    private static String generateRandomString(int length, String mode) {
         String chars;
         switch (mode) {
             case "u": // uppercase only
@@ -245,39 +507,10 @@ public class VariableGenerator {
         return sb.toString();
     }
 
-    private String translateLegacySyntax(String value) {
-        if (value == null) {
-            return null;
-        }
-        
-        Pattern pattern = Pattern.compile("@\\{([a-zA-Z]+)(?:\\((.*?)\\))?\\}");
-        
-        return pattern.matcher(value).replaceAll(matchResult -> {
-            String functionName = matchResult.group(1).toLowerCase();
-            String args = matchResult.groupCount() > 1 ? matchResult.group(2) : null;
-            
-            return switch (functionName) {
-                case "randomuuid" -> "__UUID";
-                case "timestamp" -> "__TIMESTAMP";
-                case "datetime" -> "__DATETIME(" + (args != null ? args : "") + ")";
-                case "randomstring" -> {
-                    if (args != null) {
-                        String[] parts = args.split(",");
-                        if (parts.length > 1) {
-                            yield "__RANDOM_STRING(" + parts[0] + "," + parts[1] + ")";
-                        } else {
-                            yield "__RANDOM_STRING(" + args + ")";
-                        }
-                    } else {
-                        yield "__RANDOM_STRING(10)";
-                    }
-                }
-                default -> matchResult.group(0); // No change if function is not recognized
-            };
-        });
-    }
-
     public void setCustomVariables(List<GroovyScriptEngine> customVariables) {
         this.customVariables = customVariables;
+        this.customByName = indexByName(customVariables);
+        segmentCache.clear();
+        this.customLoaded = true;
     }
 } 
\ No newline at end of file
@@ -107,7 +107,41 @@ public class GatlingScenarioViewModel implements AppConfigChangeListener {
     @FXML private Button addUltimateStepButton;
     @FXML private Button removeUltimateStepButton;
 
-    private final ObservableList<com.qa.app.model.threadgroups.UltimateThreadGroupStep> ultimateSteps = FXCollections.observableArrayList();
+    @FXML private Label ultimateSummaryLabel;
+    @FXML private javafx.scene.chart.LineChart<Number, Number> ultimatePreviewChart;
+
+    // extractor: the preview follows edits of the step cells as well
+    private final ObservableList<com.qa.app.model.threadgroups.UltimateThreadGroupStep> ultimateSteps = FXCollections.observableArrayList(
+            st -> new javafx.beans.Observable[]{st.startTimeProperty(), st.initialLoadProperty(), st.startupTimeProperty(),
+                    st.holdTimeProperty(), st.shutdownTimeProperty()});
+
+    @FXML private Tab concurrencyTab;
+    @FXML private Spinner<Integer> concurrencyInitialDelaySpinner;
+    @FXML private TableView<com.qa.app.model.threadgroups.ConcurrencyStage> concurrencyStagesTable;
+    @FXML private TableColumn<com.qa.app.model.threadgroups.ConcurrencyStage, Integer> concurrencyTargetUsersCol;
+    @FXML private TableColumn<com.qa.app.model.threadgroups.ConcurrencyStage, Integer> concurrencyRampTimeCol;
+    @FXML private TableColumn<com.qa.app.model.threadgroups.ConcurrencyStage, Integer> concurrencyHoldTimeCol;
+    @FXML private Button addConcurrencyStageButton;
+    @FXML private Button removeConcurrencyStageButton;
+    @FXML private Label concurrencySummaryLabel;
+
+    // extractor: the summary follows edits of the stage cells as well
+    private final ObservableList<com.qa.app.model.threadgroups.ConcurrencyStage> concurrencyStages = FXCollections.observableArrayList(
+            st -> new javafx.beans.Observable[]{st.targetUsersProperty(), st.rampTimeProperty(), st.holdTimeProperty()});
+
+    @FXML private Tab throughputTab;
+    @FXML private Spinner<Integer> throughputResponseMsSpinner;
+    @FXML private Spinner<Integer> throughputMaxUsersSpinner;
+    @FXML private TableView<com.qa.app.model.threadgroups.ThroughputSegment> throughputSegmentsTable;
+    @FXML private TableColumn<com.qa.app.model.threadgroups.ThroughputSegment, Integer> throughputStartRpsCol;
+    @FXML private TableColumn<com.qa.app.model.threadgroups.ThroughputSegment, Integer> throughputEndRpsCol;
+    @FXML private TableColumn<com.qa.app.model.threadgroups.ThroughputSegment, Integer> throughputDurationCol;
+    @FXML private Button addThroughputSegmentButton;
+    @FXML private Button removeThroughputSegmentButton;
+    @FXML private Label throughputSummaryLabel;
+
+    private final ObservableList<com.qa.app.model.threadgroups.ThroughputSegment> throughputSegments = FXCollections.observableArrayList(
+            sg -> new javafx.beans.Observable[]{sg.startRpsProperty(), sg.endRpsProperty(), sg.durationProperty()});
 
     private final java.util.Map<Scenario, javafx.beans.property.BooleanProperty> selectionMap = new java.util.HashMap<>();
     private final javafx.scene.control.CheckBox selectAllCheckBoxSc = new javafx.scene.control.CheckBox();
@@ -231,7 +265,7 @@ public class GatlingScenarioViewModel implements AppConfigChangeListener {
         // init combos
         frequencyCombo.setItems(FXCollections.observableArrayList("Once", "Daily", "Weekly"));
         if (threadGroupCombo != null) {
-            threadGroupCombo.setItems(FXCollections.observableArrayList("Standard", "Stepping", "Ultimate"));
+            threadGroupCombo.setItems(FXCollections.observableArrayList("Standard", "Stepping", "Ultimate", "Concurrency", "Throughput"));
         }
 
         // init time spinners
@@ -519,6 +553,11 @@ public class GatlingScenarioViewModel implements AppConfigChangeListener {
 
         // apply to UI
         populateLoadModelFromParams(def);
+        concurrencyStages.setAll(new com.qa.app.model.threadgroups.ConcurrencyStage());
+        if (concurrencyInitialDelaySpinner != null) concurrencyInitialDelaySpinner.getValueFactory().setValue(0);
+        throughputSegments.setAll(new com.qa.app.model.threadgroups.ThroughputSegment());
+        if (throughputResponseMsSpinner != null) throughputResponseMsSpinner.getValueFactory().setValue(1000);
+        if (throughputMaxUsersSpinner != null) throughputMaxUsersSpinner.getValueFactory().setValue(0);
     }
 
     @FXML private void openLoadDialog(ActionEvent evt) {
@@ -702,18 +741,11 @@ public class GatlingScenarioViewModel implements AppConfigChangeListener {
             return;
         }
 
-        // simple cron mapping
-        String cron = "";
-        switch (freq) {
-            case "Daily": cron = "0 0 0 * * ?"; break;
-            case "Weekly": cron = "0 0 0 ? * MON"; break;
-            case "Once": default: cron = ""; break;
-        }
-
         int h = hourSpinner.getValue();
         int m = minuteSpinner.getValue();
         int s = secondSpinner.getValue();
         java.time.LocalDateTime startDateTime = date.atTime(h, m, s);
+        String cron = toCron(freq, startDateTime.toLocalTime());
 
         try {
             scenarioService.upsertSchedule(sel.getId(), cron, true);
@@ -816,6 +848,60 @@ public class GatlingScenarioViewModel implements AppConfigChangeListener {
                     var sel = ultimateStepsTable.getSelectionModel().getSelectedItem();
                     if (sel != null) ultimateSteps.remove(sel);
                 });
+            ultimateSteps.addListener((javafx.collections.ListChangeListener<com.qa.app.model.threadgroups.UltimateThreadGroupStep>) c -> updateUltimatePreview());
+            updateUltimatePreview();
+        }
+
+        // Concurrency (closed model) table setup
+        if (concurrencyStagesTable != null) {
+            concurrencyStagesTable.setItems(concurrencyStages);
+            concurrencyTargetUsersCol.setCellValueFactory(cd -> cd.getValue().targetUsersProperty().asObject());
+            concurrencyRampTimeCol.setCellValueFactory(cd -> cd.getValue().rampTimeProperty().asObject());
+            concurrencyHoldTimeCol.setCellValueFactory(cd -> cd.getValue().holdTimeProperty().asObject());
+
+            concurrencyTargetUsersCol.setCellFactory(TextFieldTableCell.forTableColumn(new IntegerStringConverter()));
+            concurrencyRampTimeCol.setCellFactory(TextFieldTableCell.forTableColumn(new IntegerStringConverter()));
+            concurrencyHoldTimeCol.setCellFactory(TextFieldTableCell.forTableColumn(new IntegerStringConverter()));
+
+            if (addConcurrencyStageButton != null)
+                addConcurrencyStageButton.setOnAction(e -> concurrencyStages.add(new com.qa.app.model.threadgroups.ConcurrencyStage()));
+            if (removeConcurrencyStageButton != null)
+                removeConcurrencyStageButton.setOnAction(e -> {
+                    var sel = concurrencyStagesTable.getSelectionModel().getSelectedItem();
+                    if (sel != null) concurrencyStages.remove(sel);
+                });
+            concurrencyStages.addListener((javafx.collections.ListChangeListener<com.qa.app.model.threadgroups.ConcurrencyStage>) c -> updateConcurrencySummary());
+            if (concurrencyInitialDelaySpinner != null)
+                concurrencyInitialDelaySpinner.valueProperty().addListener((obs, o, n) -> updateConcurrencySummary());
+            updateConcurrencySummary();
+        }
+
+        // Throughput shaping (RPS) table setup
+        if (throughputSegmentsTable != null) {
+            throughputSegmentsTable.setItems(throughputSegments);
+            throughputStartRpsCol.setCellValueFactory(cd -> cd.getValue().startRpsProperty().asObject());
+            throughputEndRpsCol.setCellValueFactory(cd -> cd.getValue().endRpsProperty().asObject());
+            throughputDurationCol.setCellValueFactory(cd -> cd.getValue().durationProperty().asObject());
+
+            throughputStartRpsCol.setCellFactory(TextFieldTableCell.forTableColumn(new IntegerStringConverter()));
+            throughputEndRpsCol.setCellFactory(TextFieldTableCell.forTableColumn(new IntegerStringConverter()));
+            throughputDurationCol.setCellFactory(TextFieldTableCell.forTableColumn(new IntegerStringConverter()));
+
+            if (addThroughputSegmentButton != null)
+                addThroughputSegmentButton.setOnAction(e -> throughputSegments.add(new com.qa.app.model.threadgroups.ThroughputSegment()));
+            if (removeThroughputSegmentButton != null)
+                removeThroughputSegmentButton.setOnAction(e -> {
+                    var sel = throughputSegmentsTable.getSelectionModel().getSelectedItem();
+                    if (sel != null) throughputSegments.remove(sel);
+                });
+            throughputSegments.addListener((javafx.collections.ListChangeListener<com.qa.app.model.threadgroups.ThroughputSegment>) c -> updateThroughputSummary());
+            // the user pool depends on the requests and pauses of the scenario steps as well
+            steps.addListener((javafx.collections.ListChangeListener<ScenarioStep>) c -> updateThroughputSummary());
+            if (throughputResponseMsSpinner != null)
+                throughputResponseMsSpinner.valueProperty().addListener((obs, o, n) -> updateThroughputSummary());
+            if (throughputMaxUsersSpinner != null)
+                throughputMaxUsersSpinner.valueProperty().addListener((obs, o, n) -> updateThroughputSummary());
+            updateThroughputSummary();
         }
 
         // Standard field bindings
@@ -853,6 +939,12 @@ public class GatlingScenarioViewModel implements AppConfigChangeListener {
             stepCfg.setIncrementTime(steppingIncrementTimeSpinner.getValue());
             stepCfg.setHoldLoad(steppingHoldLoadSpinner.getValue());
             params.setSteppingThreadGroup(stepCfg);
+        } else if ((sel != null && sel == concurrencyTab) || selIndex==3) {
+            params.setType(com.qa.app.model.threadgroups.ThreadGroupType.CONCURRENCY);
+            params.setConcurrencyThreadGroup(buildConcurrencyThreadGroup());
+        } else if ((sel != null && sel == throughputTab) || selIndex==4) {
+            params.setType(com.qa.app.model.threadgroups.ThreadGroupType.THROUGHPUT);
+            params.setThroughputShapingThreadGroup(buildThroughputShapingThreadGroup());
         } else {
             params.setType(com.qa.app.model.threadgroups.ThreadGroupType.ULTIMATE);
             com.qa.app.model.threadgroups.UltimateThreadGroup ultCfg = new com.qa.app.model.threadgroups.UltimateThreadGroup();
@@ -890,9 +982,88 @@ public class GatlingScenarioViewModel implements AppConfigChangeListener {
                 var ut=p.getUltimateThreadGroup(); if(ut==null) return;
                 ultimateSteps.setAll(ut.getSteps());
             }
+            case CONCURRENCY -> {
+                loadModelTabPane.getSelectionModel().select(concurrencyTab);
+                var ct=p.getConcurrencyThreadGroup(); if(ct==null) return;
+                concurrencyInitialDelaySpinner.getValueFactory().setValue(ct.getInitialDelay());
+                concurrencyStages.setAll(ct.getStages());
+            }
+            case THROUGHPUT -> {
+                loadModelTabPane.getSelectionModel().select(throughputTab);
+                var tt=p.getThroughputShapingThreadGroup(); if(tt==null) return;
+                throughputResponseMsSpinner.getValueFactory().setValue(tt.getExpectedResponseMs());
+                throughputMaxUsersSpinner.getValueFactory().setValue(tt.getMaxUsers());
+                throughputSegments.setAll(tt.getSegments());
+            }
+        }
+    }
+
+    private com.qa.app.model.threadgroups.ConcurrencyThreadGroup buildConcurrencyThreadGroup() {
+        com.qa.app.model.threadgroups.ConcurrencyThreadGroup ct = new com.qa.app.model.threadgroups.ConcurrencyThreadGroup();
+        ct.setInitialDelay(concurrencyInitialDelaySpinner != null && concurrencyInitialDelaySpinner.getValue() != null
+                ? concurrencyInitialDelaySpinner.getValue() : 0);
+        ct.setStages(new java.util.ArrayList<>(concurrencyStages));
+        return ct;
+    }
+
+    /**
+     * Shows the length and peak concurrency of the closed workload being edited.
+     */
+    private void updateConcurrencySummary() {
+        if (concurrencySummaryLabel == null) return;
+        var ct = buildConcurrencyThreadGroup();
+        concurrencySummaryLabel.setText(String.format("Estimated duration: %ds, peak %d concurrent users",
+                ct.totalDurationSeconds(), ct.peakUsers()));
+    }
+
+    /**
+     * Plots the concurrent users over time that the Ultimate steps being edited produce.
+     */
+    private void updateUltimatePreview() {
+        com.qa.app.model.threadgroups.UltimateThreadGroup ut = new com.qa.app.model.threadgroups.UltimateThreadGroup();
+        ut.setSteps(new java.util.ArrayList<>(ultimateSteps));
+        if (ultimatePreviewChart != null) {
+            javafx.scene.chart.XYChart.Series<Number, Number> series = new javafx.scene.chart.XYChart.Series<>();
+            series.setName("Concurrent users");
+            for (var point : ut.concurrencyCurve()) {
+                series.getData().add(new javafx.scene.chart.XYChart.Data<>(point.time(), point.users()));
+            }
+            ultimatePreviewChart.getData().setAll(java.util.List.of(series));
+        }
+        if (ultimateSummaryLabel != null) {
+            ultimateSummaryLabel.setText(String.format("Estimated duration: %ds, peak %d concurrent users",
+                    ut.totalDurationSeconds(), ut.peakUsers()));
         }
     }
 
+    private com.qa.app.model.threadgroups.ThroughputShapingThreadGroup buildThroughputShapingThreadGroup() {
+        com.qa.app.model.threadgroups.ThroughputShapingThreadGroup tt = new com.qa.app.model.threadgroups.ThroughputShapingThreadGroup();
+        if (throughputResponseMsSpinner != null && throughputResponseMsSpinner.getValue() != null)
+            tt.setExpectedResponseMs(throughputResponseMsSpinner.getValue());
+        if (throughputMaxUsersSpinner != null && throughputMaxUsersSpinner.getValue() != null)
+            tt.setMaxUsers(throughputMaxUsersSpinner.getValue());
+        tt.setSegments(new java.util.ArrayList<>(throughputSegments));
+        return tt;
+    }
+
+    /**
+     * Shows the length, peak target and user pool of the throughput profile being edited, with a warning when the
+     * pool cannot reach the target.
+     */
+    private void updateThroughputSummary() {
+        if (throughputSummaryLabel == null) return;
+        var tt = buildThroughputShapingThreadGroup();
+        int requests = Math.max(1, steps.size());
+        long pause = steps.stream().mapToLong(st -> Math.max(0, st.getWaitTime())).sum();
+        String warning = com.qa.app.service.runner.GatlingRunnerUtils.throughputWarning(tt, requests, pause);
+        throughputSummaryLabel.setText(String.format("Estimated duration: %ds, peak %d RPS, %d users%s",
+                tt.totalDurationSeconds(), tt.peakRps(),
+                com.qa.app.service.runner.GatlingRunnerUtils.throughputUsers(tt, requests, pause),
+                warning != null ? " – too few users for the peak target" : ""));
+        throughputSummaryLabel.setTooltip(warning != null ? new Tooltip(warning) : null);
+        throughputSummaryLabel.setStyle(warning != null ? "-fx-text-fill: red;" : "");
+    }
+
     private void setCurrentTimeDefaults() {
         java.time.LocalDate today = java.time.LocalDate.now();
         if(startDatePicker!=null) startDatePicker.setValue(today);
@@ -908,15 +1079,23 @@ public class GatlingScenarioViewModel implements AppConfigChangeListener {
             if(date==null) return;
             LocalTime t=LocalTime.of(hourSpinner.getValue(), minuteSpinner.getValue(), secondSpinner.getValue());
             String freq=frequencyCombo.getValue();
-            String cron="";
-            if("Daily".equals(freq)) cron="0 "+t.getMinute()+" "+t.getHour()+" * * ?";
-            else if("Weekly".equals(freq)) cron="0 "+t.getMinute()+" "+t.getHour()+" ? * MON";
-            // Once 无 cron
-            scenarioService.upsertSchedule(scenarioId, cron, true);
+            // 未选择频率则不创建调度，否则每次保存场景都会生成一个启用的调度
+            if(freq==null) return;
+            scenarioService.upsertSchedule(scenarioId, toCron(freq, t), true);
             // update scheduleJson
         }catch(Exception ignore){}
     }
 
+    /**
+     * Cron expression fired by ScenarioScheduler for a frequency at time {@code t}; empty for "Once", which runs at
+     * the start date and time.
+     */
+    private static String toCron(String freq, LocalTime t){
+        if("Daily".equals(freq)) return t.getSecond()+" "+t.getMinute()+" "+t.getHour()+" * * ?";
+        if("Weekly".equals(freq)) return t.getSecond()+" "+t.getMinute()+" "+t.getHour()+" ? * MON";
+        return "";
+    }
+
     private String buildScheduleJson(){
         java.util.Map<String,Object> map=new java.util.HashMap<>();
         if(startDatePicker.getValue()!=null){
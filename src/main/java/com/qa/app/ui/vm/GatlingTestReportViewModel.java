@@ -72,6 +72,8 @@ public class GatlingTestReportViewModel implements Initializable {
     @FXML
     private TableColumn<CheckReport, String> checkResultColumn;
     @FXML
+    private TableColumn<CheckReport, String> checkTimingColumn;
+    @FXML
     private javafx.scene.control.ComboBox<File> recentFilesCombo;
     @FXML
     private WebView summaryWebView;
@@ -268,6 +270,16 @@ public class GatlingTestReportViewModel implements Initializable {
         checkExpectedColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getExpect()));
         checkActualColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().getActual()));
         checkResultColumn.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().isPassed() ? "PASS" : "FAIL"));
+        // DB checks only: queue wait for a connection slot and query execution time
+        checkTimingColumn.setCellValueFactory(cellData -> {
+            CheckReport check = cellData.getValue();
+            if (check.getQueueWaitMs() == null && check.getExecutionMs() == null) {
+                return new SimpleStringProperty("");
+            }
+            return new SimpleStringProperty(String.format("queue %s ms / exec %s ms",
+                    check.getQueueWaitMs() != null ? check.getQueueWaitMs() : "-",
+                    check.getExecutionMs() != null ? check.getExecutionMs() : "-"));
+        });
 
         // Color-code PASS/FAIL in checks table result column
         checkResultColumn.setCellFactory(col -> new javafx.scene.control.TableCell<CheckReport, String>() {
@@ -118,6 +118,8 @@ public class GatlingTestViewModel implements Initializable, AppConfigChangeListe
     @FXML
     private Spinner<Integer> waitTimeSpinner;
     @FXML
+    private ComboBox<String> responseCaptureComboBox;
+    @FXML
     private Button addButton;
     @FXML
     private Button updateButton;
@@ -274,6 +276,7 @@ public class GatlingTestViewModel implements Initializable, AppConfigChangeListe
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         setupWaitTimeSpinner();
+        responseCaptureComboBox.getItems().setAll(ResponseCapturePolicy.COMMON_SPECS);
 
         // testIdField is hidden but used internally
         testIdField.setVisible(false);
@@ -862,6 +865,7 @@ public class GatlingTestViewModel implements Initializable, AppConfigChangeListe
         headersTemplateVariables.clear();
         tagHandler.setTagsFromString("");
         waitTimeSpinner.getValueFactory().setValue(0);
+        responseCaptureComboBox.setValue(null);
         conditionHandler.getConditionRows().clear();
         updateGeneratedBody();
         updateGeneratedHeaders();
@@ -922,6 +926,7 @@ public class GatlingTestViewModel implements Initializable, AppConfigChangeListe
 
             tagHandler.setTagsFromString(test.getTags());
             waitTimeSpinner.getValueFactory().setValue(test.getWaitTime());
+            responseCaptureComboBox.setValue(test.getResponseCapture());
 
             // Load response checks from test.responseChecks JSON list
             responseChecks.clear();
@@ -983,6 +988,18 @@ public class GatlingTestViewModel implements Initializable, AppConfigChangeListe
         }
     }
 
+    private boolean validateResponseCapture() {
+        try {
+            ResponseCapturePolicy.parse(responseCaptureComboBox.getEditor().getText());
+            return true;
+        } catch (IllegalArgumentException e) {
+            if (mainViewModel != null) {
+                mainViewModel.updateStatus("Input Error: " + e.getMessage(), MainViewModel.StatusType.ERROR);
+            }
+            return false;
+        }
+    }
+
     private void populateTestFromFields(GatlingTest test) {
         String suite = suiteComboBox.getEditor().getText().trim();
         String tcid = tcidField.getText().trim();
@@ -1003,6 +1020,8 @@ public class GatlingTestViewModel implements Initializable, AppConfigChangeListe
                 getHeadersTemplateIdByName(headersTemplateComboBox.getSelectionModel().getSelectedItem()));
         test.setTags(getTagsString());
         test.setWaitTime(waitTimeSpinner.getValue());
+        String captureSpec = responseCaptureComboBox.getEditor().getText();
+        test.setResponseCapture(captureSpec == null || captureSpec.isBlank() ? null : captureSpec.trim());
 
         Map<String, String> bodyVars = new HashMap<>();
         bodyTemplateVariables.forEach(dv -> bodyVars.put(dv.getKey(), dv.getValue()));
@@ -1064,6 +1083,9 @@ public class GatlingTestViewModel implements Initializable, AppConfigChangeListe
             }
             return;
         }
+        if (!validateResponseCapture()) {
+            return;
+        }
         GatlingTest newTest = new GatlingTest(suite, tcid, descriptions, endpointName, ProjectContext.getCurrentProjectId());
         populateTestFromFields(newTest);
 
@@ -1113,6 +1135,9 @@ public class GatlingTestViewModel implements Initializable, AppConfigChangeListe
             }
             return;
         }
+        if (!validateResponseCapture()) {
+            return;
+        }
         populateTestFromFields(selectedTest);
 
         try {
@@ -14,10 +14,20 @@ import javafx.scene.paint.Color;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.MenuItem;
+import javafx.scene.control.MenuButton;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.TitledPane;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.XYChart;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
@@ -29,6 +39,8 @@ import com.qa.app.service.ProjectContext;
 import com.qa.app.service.ServiceException;
 import com.qa.app.service.api.IProjectService;
 import com.qa.app.service.impl.ProjectServiceImpl;
+import com.qa.app.service.runner.LiveMetrics;
+import com.qa.app.service.runner.RunQueue;
 import com.qa.app.util.AppConfig;
 
 import javafx.application.Platform;
@@ -54,6 +66,26 @@ public class MainViewModel implements Initializable {
     @FXML
     private Label currentEnvironmentLabel;
 
+    @FXML
+    private MenuButton runQueueButton;
+
+    @FXML
+    private TitledPane liveMetricsPane;
+    @FXML
+    private ComboBox<String> liveMetricsRequestBox;
+    @FXML
+    private LineChart<Number, Number> throughputChart;
+    @FXML
+    private LineChart<Number, Number> latencyChart;
+
+    private static final String ALL_REQUESTS = "All requests";
+    // two minutes of one second windows
+    private static final int LIVE_METRICS_POINTS = 120;
+
+    // Live metrics windows of the current run per request name (and ALL_REQUESTS); FX thread only
+    private final Map<String, Deque<LiveMetrics.Window>> liveWindows = new LinkedHashMap<>();
+    private long liveStartSecond = -1;
+
     private final ObservableList<String> navItems = FXCollections.observableArrayList(
         "Gatling Test Management",
         "Gatling Scenario Management",
@@ -113,6 +145,8 @@ public class MainViewModel implements Initializable {
         loadAndSetCurrentProject();
         updateEnvironmentLabel();
         AppConfig.addChangeListener(this::onConfigChanged);
+        initLiveMetrics();
+        initRunQueueMenu();
         
         // Force refresh the initial tab content
         if (!navItems.isEmpty() && !contentTabPane.getTabs().isEmpty()) {
@@ -537,6 +571,141 @@ public class MainViewModel implements Initializable {
         }
     }
 
+    /**
+     * Clears the live metrics charts; called when a test or scenario run starts.
+     */
+    public static void startLiveMetrics() {
+        if (instance != null) {
+            Platform.runLater(instance::resetLiveMetrics);
+        }
+    }
+
+    /**
+     * Adds the metrics windows of the last second to the live charts; may be called from any thread.
+     */
+    public static void showLiveMetrics(List<LiveMetrics.Window> windows) {
+        if (instance != null && windows != null && !windows.isEmpty()) {
+            Platform.runLater(() -> instance.addLiveMetrics(windows));
+        }
+    }
+
+    /**
+     * The "Runs" menu lists the queued and running Gatling runs; selecting one cancels it.
+     */
+    private void initRunQueueMenu() {
+        if (runQueueButton == null) {
+            return;
+        }
+        runQueueButton.setOnShowing(e -> {
+            runQueueButton.getItems().clear();
+            List<RunQueue.Run> runs = RunQueue.snapshot();
+            if (runs.isEmpty()) {
+                MenuItem none = new MenuItem("No queued or running runs");
+                none.setDisable(true);
+                runQueueButton.getItems().add(none);
+                return;
+            }
+            for (RunQueue.Run run : runs) {
+                MenuItem item = new MenuItem("Cancel " + run);
+                item.setOnAction(ev -> {
+                    if (run.cancel()) {
+                        updateStatus("Cancelled: " + run.getName(), StatusType.WARNING);
+                    }
+                });
+                runQueueButton.getItems().add(item);
+            }
+        });
+    }
+
+    private void initLiveMetrics() {
+        if (liveMetricsRequestBox == null) {
+            return;
+        }
+        liveMetricsRequestBox.valueProperty().addListener((obs, oldValue, newValue) -> renderLiveMetrics());
+        resetLiveMetrics();
+    }
+
+    private void resetLiveMetrics() {
+        if (liveMetricsRequestBox == null) {
+            return;
+        }
+        liveWindows.clear();
+        liveStartSecond = -1;
+        liveMetricsRequestBox.getItems().setAll(ALL_REQUESTS);
+        liveMetricsRequestBox.setValue(ALL_REQUESTS);
+        renderLiveMetrics();
+    }
+
+    private void addLiveMetrics(List<LiveMetrics.Window> windows) {
+        if (liveMetricsRequestBox == null) {
+            return;
+        }
+        long second = windows.get(0).second();
+        if (liveStartSecond < 0) {
+            liveStartSecond = second - 1;
+            // first metrics of a run: show the charts
+            liveMetricsPane.setExpanded(true);
+        }
+        // "All requests": total throughput and errors, the worst percentile of any request name
+        long requests = 0, errors = 0, p50 = 0, p95 = 0, p99 = 0;
+        for (LiveMetrics.Window w : windows) {
+            appendLiveWindow(w.requestName(), w);
+            if (!liveMetricsRequestBox.getItems().contains(w.requestName())) {
+                liveMetricsRequestBox.getItems().add(w.requestName());
+            }
+            requests += w.requests();
+            errors += w.errors();
+            p50 = Math.max(p50, w.p50Ms());
+            p95 = Math.max(p95, w.p95Ms());
+            p99 = Math.max(p99, w.p99Ms());
+        }
+        appendLiveWindow(ALL_REQUESTS, new LiveMetrics.Window(second, ALL_REQUESTS, requests, errors, p50, p95, p99));
+        renderLiveMetrics();
+    }
+
+    private void appendLiveWindow(String requestName, LiveMetrics.Window window) {
+        Deque<LiveMetrics.Window> deque = liveWindows.computeIfAbsent(requestName, k -> new ArrayDeque<>());
+        deque.addLast(window);
+        while (deque.size() > LIVE_METRICS_POINTS) {
+            deque.removeFirst();
+        }
+    }
+
+    private void renderLiveMetrics() {
+        String selected = liveMetricsRequestBox.getValue() != null ? liveMetricsRequestBox.getValue() : ALL_REQUESTS;
+        Deque<LiveMetrics.Window> windows = liveWindows.getOrDefault(selected, new ArrayDeque<>());
+        List<XYChart.Data<Number, Number>> rps = new ArrayList<>();
+        List<XYChart.Data<Number, Number>> err = new ArrayList<>();
+        List<XYChart.Data<Number, Number>> p50 = new ArrayList<>();
+        List<XYChart.Data<Number, Number>> p95 = new ArrayList<>();
+        List<XYChart.Data<Number, Number>> p99 = new ArrayList<>();
+        for (LiveMetrics.Window w : windows) {
+            long t = w.second() - liveStartSecond;
+            rps.add(new XYChart.Data<>(t, w.requests()));
+            err.add(new XYChart.Data<>(t, w.errors()));
+            p50.add(new XYChart.Data<>(t, w.p50Ms()));
+            p95.add(new XYChart.Data<>(t, w.p95Ms()));
+            p99.add(new XYChart.Data<>(t, w.p99Ms()));
+        }
+        setChartSeries(throughputChart, new String[]{"Requests/s", "Errors/s"}, List.of(rps, err));
+        setChartSeries(latencyChart, new String[]{"p50", "p95", "p99"}, List.of(p50, p95, p99));
+    }
+
+    private void setChartSeries(LineChart<Number, Number> chart, String[] names,
+                                List<List<XYChart.Data<Number, Number>>> data) {
+        if (chart.getData().size() != names.length) {
+            chart.getData().clear();
+            for (String name : names) {
+                XYChart.Series<Number, Number> series = new XYChart.Series<>();
+                series.setName(name);
+                chart.getData().add(series);
+            }
+        }
+        for (int i = 0; i < names.length; i++) {
+            chart.getData().get(i).getData().setAll(data.get(i));
+        }
+    }
+
     // Adds context menu to a tab with Close and Close Left Tabs actions
     private void attachContextMenu(Tab tab) {
         ContextMenu contextMenu = new ContextMenu();
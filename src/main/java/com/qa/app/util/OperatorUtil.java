@@ -9,6 +9,16 @@ import java.util.regex.Pattern;
 public class OperatorUtil {
 
     public static boolean compare(String actual, Operator operator, String expected) {
+        return compare(actual, operator, expected, null, null);
+    }
+
+    /**
+     * Same as {@link #compare(String, Operator, String)}, with the regular expression (MATCHES / NOT_MATCHES) and the
+     * number (GREATER_THAN / LESS_THAN) of {@code expected} already compiled. A {@code null} pattern or number is
+     * derived from {@code expected} on each call.
+     */
+    public static boolean compare(String actual, Operator operator, String expected,
+                                  Pattern expectedPattern, BigDecimal expectedNumber) {
         if (operator == Operator.IS_NULL) {
             return actual == null;
         }
@@ -32,20 +42,25 @@ public class OperatorUtil {
                 return expected == null || !actual.contains(expected);
             case GREATER_THAN:
             case LESS_THAN:
-                return compareNumerically(actual, operator, expected);
+                return compareNumerically(actual, operator, expected, expectedNumber);
             case MATCHES:
-                return expected != null && Pattern.matches(expected, actual);
+                return expected != null && pattern(expected, expectedPattern).matcher(actual).matches();
             case NOT_MATCHES:
-                return expected == null || !Pattern.matches(expected, actual);
+                return expected == null || !pattern(expected, expectedPattern).matcher(actual).matches();
             default:
                 throw new UnsupportedOperationException("Unsupported operator: " + operator);
         }
     }
 
-    private static boolean compareNumerically(String actualStr, Operator operator, String expectedStr) {
+    private static Pattern pattern(String expected, Pattern compiled) {
+        return compiled != null ? compiled : Pattern.compile(expected);
+    }
+
+    private static boolean compareNumerically(String actualStr, Operator operator, String expectedStr,
+                                              BigDecimal expectedNumber) {
         try {
             BigDecimal actualNum = new BigDecimal(actualStr);
-            BigDecimal expectedNum = new BigDecimal(expectedStr);
+            BigDecimal expectedNum = expectedNumber != null ? expectedNumber : new BigDecimal(expectedStr);
             int comparisonResult = actualNum.compareTo(expectedNum);
 
             if (operator == Operator.GREATER_THAN) {
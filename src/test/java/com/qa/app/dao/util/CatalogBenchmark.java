@@ -0,0 +1,201 @@
+package com.qa.app.dao.util;
+
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteDataSource;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Measures the catalog lookups of the DAOs on a generated database, before and after the index migration.
+ * <p>
+ * A developer tool kept with the test sources, it is not a unit test and is not part of the application. After
+ * {@code mvn test-compile}, run it from the IDE or with the test classpath:
+ * <pre>
+ * java -cp target/test-classes:target/classes:&lt;dependencies&gt; com.qa.app.dao.util.CatalogBenchmark [tests] [endpoints]
+ * </pre>
+ * Defaults to 50000 tests and 5000 endpoints. The database is a temporary file; the application database is not
+ * touched. Timings are single-threaded averages on the local disk and only meaningful as a before/after comparison
+ * on the same machine.
+ */
+public final class CatalogBenchmark {
+
+    private static final int PROJECTS = 50;
+    private static final int ENVIRONMENTS = 5;
+    private static final int SCENARIOS = 1000;
+    private static final int STEPS_PER_SCENARIO = 20;
+    private static final int DB_CONNECTIONS = 500;
+    private static final int LOOKUPS = 2000;
+
+    // The statements of the DAOs, see com.qa.app.dao.impl
+    private static final Map<String, String> QUERIES = new LinkedHashMap<>();
+
+    static {
+        QUERIES.put("getTestByTcid", "SELECT * FROM gatling_tests WHERE tcid = ?");
+        QUERIES.put("getTestsByProjectId", "SELECT * FROM gatling_tests WHERE project_id = ? ORDER BY display_order");
+        QUERIES.put("getEndpointByNameAndEnv", "SELECT * FROM endpoints WHERE name = ? AND environment_id = ?");
+        QUERIES.put("getByAliasAndEnv", "SELECT * FROM db_connections WHERE alias = ? AND environment_id = ?");
+        QUERIES.put("getStepsByScenarioId", "SELECT order_index, test_tcid, wait_time, tags FROM scenario_step WHERE scenario_id=? ORDER BY order_index ASC");
+    }
+
+    private CatalogBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int tests = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int endpoints = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+
+        File dbFile = Files.createTempFile("catalog-benchmark-", ".db").toFile();
+        try {
+            SQLiteConfig config = new SQLiteConfig();
+            config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+            config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+            SQLiteDataSource ds = new SQLiteDataSource(config);
+            ds.setUrl("jdbc:sqlite:" + dbFile.getAbsolutePath());
+
+            try (Connection conn = ds.getConnection()) {
+                // Schema as it was before the index migration
+                SchemaMigrations.migrate(conn, 2);
+                populate(conn, tests, endpoints);
+                System.out.printf("Catalog: %d tests, %d endpoints, %d scenario steps, %d DB connections%n",
+                        tests, endpoints, SCENARIOS * STEPS_PER_SCENARIO, DB_CONNECTIONS);
+
+                Map<String, Double> before = measure(conn, tests, endpoints);
+                SchemaMigrations.migrate(conn);
+                Map<String, Double> after = measure(conn, tests, endpoints);
+
+                System.out.printf("%-26s %14s %14s%n", "Lookup", "before (us)", "after (us)");
+                for (String name : QUERIES.keySet()) {
+                    System.out.printf("%-26s %14.1f %14.1f%n", name, before.get(name), after.get(name));
+                }
+            }
+        } finally {
+            for (String suffix : new String[]{"", "-wal", "-shm"}) {
+                new File(dbFile.getAbsolutePath() + suffix).delete();
+            }
+        }
+    }
+
+    private static void populate(Connection conn, int tests, int endpoints) throws SQLException {
+        conn.setAutoCommit(false);
+        try (PreparedStatement project = conn.prepareStatement("INSERT INTO project(name) VALUES(?)");
+             PreparedStatement env = conn.prepareStatement("INSERT INTO environments(name, project_id) VALUES(?,?)")) {
+            for (int p = 1; p <= PROJECTS; p++) {
+                project.setString(1, "project-" + p);
+                project.addBatch();
+            }
+            project.executeBatch();
+            for (int e = 1; e <= ENVIRONMENTS; e++) {
+                env.setString(1, "env-" + e);
+                env.setInt(2, 1);
+                env.addBatch();
+            }
+            env.executeBatch();
+        }
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO gatling_tests(is_enabled, suite, tcid, endpoint_name,"
+                + " response_checks, project_id, display_order) VALUES(1,?,?,?,?,?,?)")) {
+            for (int i = 0; i < tests; i++) {
+                ps.setString(1, "suite-" + (i % 200));
+                ps.setString(2, "TC" + i);
+                ps.setString(3, "endpoint-" + (i % Math.max(1, endpoints / ENVIRONMENTS)));
+                ps.setString(4, "[{\"type\":\"STATUS\",\"expression\":\"status\",\"operator\":\"IS\",\"expect\":\"200\"}]");
+                ps.setInt(5, 1 + i % PROJECTS);
+                ps.setInt(6, i);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO endpoints(name, method, url, environment_id,"
+                + " project_id, display_order) VALUES(?,?,?,?,?,?)")) {
+            for (int i = 0; i < endpoints; i++) {
+                ps.setString(1, "endpoint-" + (i / ENVIRONMENTS));
+                ps.setString(2, "GET");
+                ps.setString(3, "http://localhost/api/" + i);
+                ps.setInt(4, 1 + i % ENVIRONMENTS);
+                ps.setInt(5, 1 + i % PROJECTS);
+                ps.setInt(6, i);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        try (PreparedStatement scenario = conn.prepareStatement("INSERT INTO scenario(name, project_id, display_order) VALUES(?,?,?)");
+             PreparedStatement step = conn.prepareStatement("INSERT INTO scenario_step(scenario_id, order_index, test_tcid) VALUES(?,?,?)")) {
+            for (int s = 1; s <= SCENARIOS; s++) {
+                scenario.setString(1, "scenario-" + s);
+                scenario.setInt(2, 1 + s % PROJECTS);
+                scenario.setInt(3, s);
+                scenario.addBatch();
+                for (int o = 0; o < STEPS_PER_SCENARIO; o++) {
+                    step.setInt(1, s);
+                    step.setInt(2, o);
+                    step.setString(3, "TC" + ((s * STEPS_PER_SCENARIO + o) % Math.max(1, tests)));
+                    step.addBatch();
+                }
+            }
+            scenario.executeBatch();
+            step.executeBatch();
+        }
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO db_connections(alias, db_type, project_id, environment_id) VALUES(?,?,?,?)")) {
+            for (int i = 0; i < DB_CONNECTIONS; i++) {
+                ps.setString(1, "db-" + (i / ENVIRONMENTS));
+                ps.setString(2, "POSTGRESQL");
+                ps.setInt(3, 1 + i % PROJECTS);
+                ps.setInt(4, 1 + i % ENVIRONMENTS);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+    }
+
+    /**
+     * Average time of one lookup per query, in microseconds (result rows are read, as the DAOs do).
+     */
+    private static Map<String, Double> measure(Connection conn, int tests, int endpoints) throws SQLException {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (Map.Entry<String, String> query : QUERIES.entrySet()) {
+            Random random = new Random(42);
+            try (PreparedStatement ps = conn.prepareStatement(query.getValue())) {
+                // warm-up, then measure
+                run(ps, query.getKey(), random, tests, endpoints, LOOKUPS / 10);
+                long start = System.nanoTime();
+                run(ps, query.getKey(), random, tests, endpoints, LOOKUPS);
+                result.put(query.getKey(), (System.nanoTime() - start) / 1000.0 / LOOKUPS);
+            }
+        }
+        return result;
+    }
+
+    private static void run(PreparedStatement ps, String name, Random random, int tests, int endpoints, int count)
+            throws SQLException {
+        for (int i = 0; i < count; i++) {
+            switch (name) {
+                case "getTestByTcid" -> ps.setString(1, "TC" + random.nextInt(Math.max(1, tests)));
+                case "getTestsByProjectId" -> ps.setInt(1, 1 + random.nextInt(PROJECTS));
+                case "getEndpointByNameAndEnv" -> {
+                    ps.setString(1, "endpoint-" + random.nextInt(Math.max(1, endpoints / ENVIRONMENTS)));
+                    ps.setInt(2, 1 + random.nextInt(ENVIRONMENTS));
+                }
+                case "getByAliasAndEnv" -> {
+                    ps.setString(1, "db-" + random.nextInt(DB_CONNECTIONS / ENVIRONMENTS));
+                    ps.setInt(2, 1 + random.nextInt(ENVIRONMENTS));
+                }
+                case "getStepsByScenarioId" -> ps.setInt(1, 1 + random.nextInt(SCENARIOS));
+                default -> throw new IllegalArgumentException(name);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rs.getString(1);
+                }
+            }
+        }
+    }
+}
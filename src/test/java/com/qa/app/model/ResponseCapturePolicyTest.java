@@ -0,0 +1,72 @@
+package com.qa.app.model;
+
+import com.qa.app.model.ResponseCapturePolicy.Mode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseCapturePolicyTest {
+
+    @Test
+    void parsesEverySpec() {
+        assertSame(ResponseCapturePolicy.FULL, ResponseCapturePolicy.parse("full"));
+        assertSame(ResponseCapturePolicy.NONE, ResponseCapturePolicy.parse(" NONE "));
+        assertEquals(Mode.ON_FAILURE, ResponseCapturePolicy.parse("on_failure").getMode());
+        assertEquals(Mode.ON_FAILURE, ResponseCapturePolicy.parse("onFailure").getMode());
+
+        ResponseCapturePolicy first = ResponseCapturePolicy.parse("first: 4096");
+        assertEquals(Mode.FIRST_BYTES, first.getMode());
+        assertEquals(4096, first.getLimit());
+
+        ResponseCapturePolicy sample = ResponseCapturePolicy.parse("Sample:100");
+        assertEquals(Mode.SAMPLED, sample.getMode());
+        assertEquals(100, sample.getLimit());
+    }
+
+    @Test
+    void blankSpecIsNotSet() {
+        assertNull(ResponseCapturePolicy.parse(null));
+        assertNull(ResponseCapturePolicy.parse(""));
+        assertNull(ResponseCapturePolicy.parse("   "));
+    }
+
+    @Test
+    void invalidSpecsAreRejected() {
+        for (String spec : new String[]{"bodies", "first", "first:", "first:0", "sample:-1", "sample:ten"}) {
+            assertThrows(IllegalArgumentException.class, () -> ResponseCapturePolicy.parse(spec), spec);
+        }
+    }
+
+    @Test
+    void testSpecWinsOverRunSpecOverModeDefault() {
+        assertEquals("none", ResponseCapturePolicy.resolve("none", "sample:10", ResponseCapturePolicy.FULL).toString());
+        assertEquals("sample:10", ResponseCapturePolicy.resolve(" ", "sample:10", ResponseCapturePolicy.FULL).toString());
+        assertSame(ResponseCapturePolicy.FULL, ResponseCapturePolicy.resolve(null, null, ResponseCapturePolicy.FULL));
+    }
+
+    @Test
+    void invalidSpecFallsBackToTheNextOne() {
+        assertSame(ResponseCapturePolicy.NONE, ResponseCapturePolicy.resolve("first:x", "none", ResponseCapturePolicy.FULL));
+        assertSame(ResponseCapturePolicy.FULL, ResponseCapturePolicy.resolve("bogus", "sample:0", ResponseCapturePolicy.FULL));
+    }
+
+    @Test
+    void toStringIsTheCanonicalSpec() {
+        for (String spec : ResponseCapturePolicy.COMMON_SPECS) {
+            assertEquals(spec, ResponseCapturePolicy.parse(spec).toString());
+        }
+        assertEquals("on_failure", ResponseCapturePolicy.parse("onfailure").toString());
+    }
+
+    @Test
+    void onlyNoneSkipsTheBody() {
+        assertFalse(ResponseCapturePolicy.NONE.capturesBody());
+        assertTrue(ResponseCapturePolicy.parse("on_failure").capturesBody());
+        assertTrue(ResponseCapturePolicy.parse("first:10").capturesBody());
+    }
+}
@@ -0,0 +1,64 @@
+package com.qa.app.model.threadgroups;
+
+import com.qa.app.model.threadgroups.UltimateThreadGroup.CurvePoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UltimateThreadGroupTest {
+
+    private static UltimateThreadGroup group(UltimateThreadGroupStep... steps) {
+        UltimateThreadGroup group = new UltimateThreadGroup();
+        group.setSteps(List.of(steps));
+        return group;
+    }
+
+    @Test
+    void overlappingStepsAddUp() {
+        // 10 users: ramp 0-10s, hold until 30s, ramp down until 40s
+        // 20 users: at once at 15s, hold until 25s, ramp down until 30s
+        UltimateThreadGroup group = group(new UltimateThreadGroupStep(0, 10, 10, 20, 10),
+                new UltimateThreadGroupStep(15, 20, 0, 10, 5));
+        assertEquals(List.of(new CurvePoint(0, 0), new CurvePoint(10, 10), new CurvePoint(15, 10),
+                new CurvePoint(15, 30), new CurvePoint(25, 30), new CurvePoint(30, 10), new CurvePoint(40, 0)),
+                group.concurrencyCurve());
+        assertEquals(30, group.peakUsers());
+        assertEquals(40, group.totalDurationSeconds());
+    }
+
+    @Test
+    void stepWithoutRampsChangesTheLevelAtOnce() {
+        UltimateThreadGroup group = group(new UltimateThreadGroupStep(0, 5, 0, 10, 0));
+        assertEquals(List.of(new CurvePoint(0, 5), new CurvePoint(10, 5), new CurvePoint(10, 0)),
+                group.concurrencyCurve());
+        assertEquals(5, group.peakUsers());
+    }
+
+    @Test
+    void peakIsTheSumOfTheOverlapNotOfAllSteps() {
+        // The second step starts after the first one ended
+        UltimateThreadGroup group = group(new UltimateThreadGroupStep(0, 10, 0, 10, 0),
+                new UltimateThreadGroupStep(20, 15, 5, 10, 5));
+        assertEquals(15, group.peakUsers());
+        assertEquals(40, group.totalDurationSeconds());
+    }
+
+    @Test
+    void negativeTimesCountAsZero() {
+        UltimateThreadGroup group = group(new UltimateThreadGroupStep(-5, 8, -1, 10, -3));
+        assertEquals(List.of(new CurvePoint(0, 8), new CurvePoint(10, 8), new CurvePoint(10, 0)),
+                group.concurrencyCurve());
+        assertEquals(10, group.totalDurationSeconds());
+    }
+
+    @Test
+    void noStepsNoCurve() {
+        UltimateThreadGroup group = new UltimateThreadGroup();
+        assertTrue(group.concurrencyCurve().isEmpty());
+        assertEquals(0, group.peakUsers());
+        assertEquals(0, group.totalDurationSeconds());
+    }
+}
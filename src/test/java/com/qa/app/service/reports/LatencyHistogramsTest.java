@@ -0,0 +1,75 @@
+package com.qa.app.service.reports;
+
+import com.qa.app.model.reports.LatencyHistogram;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LatencyHistogramsTest {
+
+    private static void assertSameSummary(LatencyHistogram expected, LatencyHistogram actual) {
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getP50Ms(), actual.getP50Ms());
+        assertEquals(expected.getP90Ms(), actual.getP90Ms());
+        assertEquals(expected.getP99Ms(), actual.getP99Ms());
+        assertEquals(expected.getMaxMs(), actual.getMaxMs());
+        assertEquals(expected.getMeanMs(), actual.getMeanMs(), 0.0);
+    }
+
+    @Test
+    void decodedHistogramHasTheRecordedDistribution() {
+        ConcurrentHistogram recorded = LatencyHistograms.newConcurrent();
+        for (long ms = 1; ms <= 500; ms++) {
+            LatencyHistograms.record(recorded, ms);
+        }
+        LatencyHistogram summary = LatencyHistograms.summarize("T1", "MAIN", recorded);
+        Histogram decoded = LatencyHistograms.decode(summary);
+        assertEquals(500, decoded.getTotalCount());
+        assertEquals(recorded.getValueAtPercentile(99), decoded.getValueAtPercentile(99));
+        assertEquals(recorded.getMaxValue(), decoded.getMaxValue());
+    }
+
+    @Test
+    void mergedRunsMatchOneHistogramOfAllValues() {
+        ConcurrentHistogram fast = LatencyHistograms.newConcurrent();
+        ConcurrentHistogram slow = LatencyHistograms.newConcurrent();
+        ConcurrentHistogram all = LatencyHistograms.newConcurrent();
+        for (long ms = 1; ms <= 2000; ms++) {
+            long latency = ms % 10 == 0 ? ms * 7 : ms;
+            LatencyHistograms.record(ms % 3 == 0 ? slow : fast, latency);
+            LatencyHistograms.record(all, latency);
+        }
+        // Above the trackable range: counted as one hour in every histogram
+        LatencyHistograms.record(slow, 10_000_000L);
+        LatencyHistograms.record(all, 10_000_000L);
+
+        LatencyHistogram merged = LatencyHistograms.merge("T1", "MAIN", List.of(
+                LatencyHistograms.summarize("T1", "MAIN", fast), LatencyHistograms.summarize("T1", "MAIN", slow)));
+        assertSameSummary(LatencyHistograms.summarize("T1", "MAIN", all), merged);
+        assertEquals(2001, merged.getCount());
+        assertEquals("T1", merged.getTcid());
+        assertEquals("MAIN", merged.getMode());
+        // The merged summary carries its own encoding, so it merges again
+        assertEquals(2001, LatencyHistograms.decode(merged).getTotalCount());
+    }
+
+    @Test
+    void summaryWithoutDistributionDecodesEmpty() {
+        assertEquals(0, LatencyHistograms.decode(null).getTotalCount());
+        assertEquals(0, LatencyHistograms.decode(new LatencyHistogram()).getTotalCount());
+        assertEquals(0, LatencyHistograms.merge("T1", "MAIN", List.of()).getCount());
+    }
+
+    @Test
+    void invalidEncodingIsRejected() {
+        LatencyHistogram broken = new LatencyHistogram();
+        broken.setTcid("T1");
+        broken.setHistogram("not a histogram!");
+        assertThrows(IllegalArgumentException.class, () -> LatencyHistograms.decode(broken));
+    }
+}
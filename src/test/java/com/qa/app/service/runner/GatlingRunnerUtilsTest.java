@@ -0,0 +1,110 @@
+package com.qa.app.service.runner;
+
+import com.qa.app.model.GatlingLoadParameters;
+import com.qa.app.model.GatlingTest;
+import com.qa.app.model.threadgroups.ThreadGroupType;
+import com.qa.app.model.threadgroups.ThroughputSegment;
+import com.qa.app.model.threadgroups.ThroughputShapingThreadGroup;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GatlingRunnerUtilsTest {
+
+    // Ramp to 100 RPS, hold it; every request takes 200 ms, so one user sends 5 RPS without pauses
+    private static ThroughputShapingThreadGroup throughput(int maxUsers) {
+        ThroughputShapingThreadGroup tg = new ThroughputShapingThreadGroup();
+        tg.setSegments(List.of(new ThroughputSegment(0, 100, 60), new ThroughputSegment(100, 100, 300)));
+        tg.setExpectedResponseMs(200);
+        tg.setMaxUsers(maxUsers);
+        return tg;
+    }
+
+    private static GatlingTest test(int waitTime) {
+        GatlingTest test = new GatlingTest();
+        test.setWaitTime(waitTime);
+        return test;
+    }
+
+    @Test
+    void throughputUsersFollowLittlesLawWithHeadroom() {
+        // 100 RPS / 5 RPS per user = 20 users, + 20%
+        assertEquals(24, GatlingRunnerUtils.throughputUsers(throughput(0), 1, 0));
+        // Several requests per iteration keep the per-user rate when there are no pauses
+        assertEquals(24, GatlingRunnerUtils.throughputUsers(throughput(0), 4, 0));
+    }
+
+    @Test
+    void pausesOfTheIterationNeedMoreUsers() {
+        // 5 requests of 200 ms + 4 s of wait time: 1 RPS per user
+        assertEquals(120, GatlingRunnerUtils.throughputUsers(throughput(0), 5, 4));
+    }
+
+    @Test
+    void maxUsersOverridesTheSizing() {
+        assertEquals(50, GatlingRunnerUtils.throughputUsers(throughput(50), 5, 4));
+        assertEquals(120, GatlingRunnerUtils.requiredThroughputUsers(throughput(50), 5, 4));
+    }
+
+    @Test
+    void warnsOnlyWhenThePoolCannotReachThePeak() {
+        assertNull(GatlingRunnerUtils.throughputWarning(throughput(0), 5, 4));
+        assertNull(GatlingRunnerUtils.throughputWarning(throughput(20), 1, 0));
+        String warning = GatlingRunnerUtils.throughputWarning(throughput(50), 5, 4);
+        assertTrue(warning != null && warning.startsWith("50 users reach about 50 RPS"), warning);
+        assertTrue(warning.contains("(120 users)"), warning);
+    }
+
+    @Test
+    void peakUsersOfAThroughputProfileIsItsPool() {
+        GatlingLoadParameters params = new GatlingLoadParameters();
+        params.setType(ThreadGroupType.THROUGHPUT);
+        params.setThroughputShapingThreadGroup(throughput(0));
+        assertEquals(120, GatlingRunnerUtils.peakUsers(params, 5, 4));
+        assertEquals(1, GatlingRunnerUtils.peakUsers(null, 5, 4));
+    }
+
+    @Test
+    void iterationPauseAddsTheWaitTimesOfTheTests() {
+        List<Map<String, Object>> items = List.of(Map.of("test", test(2)), Map.of("test", test(0)),
+                Map.of("test", Map.of("waitTime", 3)), Map.of("other", "x"));
+        assertEquals(5, GatlingRunnerUtils.iterationPauseSeconds(items));
+        assertEquals(0, GatlingRunnerUtils.iterationPauseSeconds(null));
+    }
+
+    @Test
+    void partitionSharesAddUpToTheUsers() {
+        for (int step = 0; step < 5; step++) {
+            int total = 0;
+            for (int agent = 0; agent < 3; agent++) {
+                int share = GatlingRunnerUtils.partitionShare(10, step, agent, 3);
+                assertTrue(share == 3 || share == 4, "share " + share);
+                total += share;
+            }
+            assertEquals(10, total);
+        }
+    }
+
+    @Test
+    void partitionRemainderMovesToAnotherAgentOnEveryStep() {
+        // 1 user per step over 3 agents: agent 0, 1, 2, 0, ...
+        for (int step = 0; step < 6; step++) {
+            for (int agent = 0; agent < 3; agent++) {
+                assertEquals(agent == step % 3 ? 1 : 0, GatlingRunnerUtils.partitionShare(1, step, agent, 3),
+                        "step " + step + ", agent " + agent);
+            }
+        }
+    }
+
+    @Test
+    void withoutPartitioningOneAgentRunsAllUsers() {
+        assertEquals(7, GatlingRunnerUtils.partitionShare(7, 3, 0, 1));
+        assertEquals(7, GatlingRunnerUtils.partitionShare(7, 3, 0, 0));
+        assertEquals(0, GatlingRunnerUtils.partitionShare(0, 0, 1, 2));
+    }
+}
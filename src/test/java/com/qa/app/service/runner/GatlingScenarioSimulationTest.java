@@ -0,0 +1,49 @@
+package com.qa.app.service.runner;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GatlingScenarioSimulationTest {
+
+    /**
+     * Runs the requests of one virtual user the way the live metrics chain does: the flag is cleared before each
+     * request, Gatling sets it when the request fails, the request is counted and the user's flag restored.
+     *
+     * @return the user's failed flag after the last request
+     */
+    private static boolean runUser(LiveMetrics metrics, boolean... requestFails) {
+        boolean flag = false;
+        for (boolean fails : requestFails) {
+            boolean failedBefore = flag;
+            flag = fails;
+            metrics.record("login", 10, !flag);
+            flag = GatlingScenarioSimulation.userFailed(failedBefore, flag);
+        }
+        return flag;
+    }
+
+    @Test
+    void requestsAfterAFailureAreJudgedOnTheirOwn() {
+        LiveMetrics metrics = new LiveMetrics();
+        boolean userFailed = runUser(metrics, true, false, false);
+        List<LiveMetrics.Window> windows = metrics.snapshot();
+        assertEquals(1, windows.size());
+        assertEquals(3, windows.get(0).requests());
+        assertEquals(1, windows.get(0).errors());
+        // Gatling still sees the user as failed (exitHereIfFailed, user status)
+        assertTrue(userFailed);
+    }
+
+    @Test
+    void userFlagFollowsGatling() {
+        assertFalse(GatlingScenarioSimulation.userFailed(false, false));
+        assertTrue(GatlingScenarioSimulation.userFailed(false, true));
+        assertTrue(GatlingScenarioSimulation.userFailed(true, false));
+        assertTrue(GatlingScenarioSimulation.userFailed(true, true));
+    }
+}
@@ -0,0 +1,146 @@
+package com.qa.app.service.runner;
+
+import com.qa.app.service.runner.RunQueue.Cost;
+import com.qa.app.service.runner.RunQueue.Priority;
+import com.qa.app.service.runner.RunQueue.Run;
+import com.qa.app.service.runner.RunQueue.State;
+import com.qa.app.util.AppConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RunQueueTest {
+
+    private static final long MB = 1024L * 1024L;
+    private static final String[] SETTINGS = {"run.queue.light.users", "run.queue.jvm.mb", "run.queue.user.kb",
+            "run.queue.allow.shared", "run.queue.max.concurrent"};
+
+    private final List<String> started = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void defaults() throws InterruptedException {
+        for (String key : SETTINGS) {
+            AppConfig.removeProperty(key);
+        }
+        // The queue is static: wait for runs of a previous test to leave it
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!RunQueue.snapshot().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(RunQueue.snapshot().isEmpty(), "queue is idle");
+    }
+
+    @AfterEach
+    void reloadSettings() {
+        AppConfig.reload();
+    }
+
+    private Run submit(String name, Priority priority, Cost cost, CountDownLatch done) {
+        return RunQueue.submit(name, priority, cost, "run-queue-test-" + name, run -> {
+            started.add(name);
+            done.countDown();
+        }, null);
+    }
+
+    /** An exclusive run that holds the generator until {@code release} is opened. */
+    private static Run blocker(CountDownLatch release) {
+        return RunQueue.submit("blocker", Priority.LOW, new Cost(5, 0, true), "run-queue-test-blocker",
+                run -> release.await(10, TimeUnit.SECONDS), null);
+    }
+
+    private static List<String> names(List<Run> runs) {
+        List<String> names = new ArrayList<>();
+        for (Run run : runs) {
+            names.add(run.getName());
+        }
+        return names;
+    }
+
+    @Test
+    void estimateAddsTheBaseFootprintOfEveryJvm() {
+        Cost single = RunQueue.estimate(1);
+        assertEquals(1, single.peakUsers());
+        assertEquals(512 * MB + 256 * 1024L, single.memoryBytes());
+        assertFalse(single.exclusive());
+
+        Cost agents = RunQueue.estimate(100, 3);
+        assertEquals(100, agents.peakUsers());
+        assertEquals(3 * 512 * MB + 100 * 256 * 1024L, agents.memoryBytes());
+        assertTrue(agents.exclusive());
+    }
+
+    @Test
+    void lightUsersThresholdDecidesWhatIsALoadRun() {
+        AppConfig.setProperty("run.queue.light.users", "10");
+        assertFalse(RunQueue.estimate(10).exclusive());
+        assertTrue(RunQueue.estimate(11).exclusive());
+        // At least one user, at least one JVM
+        assertEquals(1, RunQueue.estimate(0, 0).peakUsers());
+        assertEquals(512 * MB + 256 * 1024L, RunQueue.estimate(0, 0).memoryBytes());
+    }
+
+    @Test
+    void runsStartInPriorityOrderFifoWithinAPriority() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(4);
+        Run blocker = blocker(release);
+        assertEquals(State.RUNNING, blocker.getState());
+
+        Cost load = new Cost(5, 0, true);
+        submit("low", Priority.LOW, load, done);
+        submit("normal-1", Priority.NORMAL, load, done);
+        submit("high", Priority.HIGH, load, done);
+        submit("normal-2", Priority.NORMAL, load, done);
+        assertEquals(List.of("blocker", "high", "normal-1", "normal-2", "low"), names(RunQueue.snapshot()));
+        assertTrue(started.isEmpty());
+
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS), "all runs started");
+        assertEquals(List.of("high", "normal-1", "normal-2", "low"), started);
+    }
+
+    @Test
+    void lightRunWaitsForARunningLoadRun() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        blocker(release);
+
+        Run light = submit("light", Priority.HIGH, Cost.light(), done);
+        assertEquals(State.QUEUED, light.getState());
+
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS), "light run started");
+        assertEquals(List.of("light"), started);
+    }
+
+    @Test
+    void cancellingAQueuedRunSkipsItsTask() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        blocker(release);
+
+        Run skipped = RunQueue.submit("skipped", Priority.HIGH, new Cost(5, 0, true), "run-queue-test-skipped",
+                run -> started.add("skipped"), () -> cancelled.set(true));
+        submit("next", Priority.NORMAL, new Cost(5, 0, true), done);
+        assertTrue(skipped.cancel());
+        assertTrue(cancelled.get());
+        assertEquals(State.CANCELLED, skipped.getState());
+        assertFalse(skipped.cancel(), "already cancelled");
+
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS), "next run started");
+        assertEquals(List.of("next"), started);
+    }
+}
@@ -0,0 +1,74 @@
+package com.qa.app.service.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BoundedCacheTest {
+
+    @Test
+    void evictsTheOldestInsertedKeys() {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", 2);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        // A hit does not make "a" younger: eviction is FIFO, not LRU
+        assertEquals("A", cache.getIfPresent("a"));
+        cache.put("c", "C");
+        assertEquals(2, cache.size());
+        assertNull(cache.getIfPresent("a"));
+        assertEquals("B", cache.getIfPresent("b"));
+        assertEquals("C", cache.getIfPresent("c"));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void replacingAValueKeepsItsPlace() {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", 2);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("a", "A2");
+        cache.put("c", "C");
+        assertNull(cache.getIfPresent("a"));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void loaderRunsOnlyOnAMiss() {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", 10);
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals("ABC", cache.get("abc", k -> { loads.incrementAndGet(); return k.toUpperCase(); }));
+        assertEquals("ABC", cache.get("abc", k -> { loads.incrementAndGet(); return "other"; }));
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void nullAndFailedLoadsAreNotCached() {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", 10);
+        assertNull(cache.get("a", k -> null));
+        assertThrows(IllegalStateException.class, () -> cache.get("a", k -> { throw new IllegalStateException(); }));
+        assertEquals(0, cache.size());
+        assertEquals("A", cache.get("a", k -> "A"));
+        assertEquals(3, cache.getMisses());
+        cache.put("b", null);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void statsReportTheCounters() {
+        BoundedCache<String, String> cache = new BoundedCache<>("test", 1);
+        cache.get("a", k -> "A");
+        cache.get("a", k -> "A");
+        cache.get("b", k -> "B");
+        assertEquals("{size=1, maxSize=1, hits=1, misses=2, evictions=1}", cache.stats().toString());
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getEvictions());
+    }
+}
@@ -0,0 +1,114 @@
+package com.qa.app.service.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CronExpressionTest {
+
+    // Europe/Berlin in 2026: 02:00 -> 03:00 on March 29, 03:00 -> 02:00 on October 25
+    private static final ZoneId BERLIN = ZoneId.of("Europe/Berlin");
+
+    private static LocalDateTime next(String expression, String after) {
+        return CronExpression.parse(expression).nextAfter(LocalDateTime.parse(after));
+    }
+
+    private static ZonedDateTime berlin(String localDateTime, int offsetHours) {
+        return ZonedDateTime.ofLocal(LocalDateTime.parse(localDateTime), BERLIN,
+                ZoneOffset.ofHours(offsetHours));
+    }
+
+    @Test
+    void unixFormFiresAtTheNextMatchingMinute() {
+        assertEquals(LocalDateTime.parse("2026-01-10T02:30"), next("30 2 * * *", "2026-01-10T01:00"));
+        assertEquals(LocalDateTime.parse("2026-01-11T02:30"), next("30 2 * * *", "2026-01-10T02:30"));
+        assertEquals(LocalDateTime.parse("2026-01-10T09:45"), next("*/15 9-17 * * *", "2026-01-10T09:31:10"));
+        assertEquals(LocalDateTime.parse("2026-01-10T10:05"), next("5/10 * * * *", "2026-01-10T09:55"));
+    }
+
+    @Test
+    void quartzFormHasASecondsField() {
+        assertEquals(LocalDateTime.parse("2026-01-10T10:00:15"), next("0/15 * * * * ?", "2026-01-10T10:00:07"));
+        assertEquals(LocalDateTime.parse("2026-01-11T02:30"), next("0 30 2 * * ?", "2026-01-10T03:00"));
+    }
+
+    @Test
+    void weekdaysFollowTheNumberingOfTheForm() {
+        // 2026-01-10 is a Saturday
+        assertEquals(LocalDateTime.parse("2026-01-12T09:00"), next("0 9 * * MON-FRI", "2026-01-10T12:00"));
+        assertEquals(LocalDateTime.parse("2026-01-12T09:00"), next("0 9 * * 1", "2026-01-10T12:00"));
+        assertEquals(LocalDateTime.parse("2026-01-12T09:00"), next("0 0 9 ? * 2", "2026-01-10T12:00"));
+        // Sunday is 0 or 7 in the Unix form, 1 in the Quartz form
+        assertEquals(LocalDateTime.parse("2026-01-11T09:00"), next("0 9 * * 0", "2026-01-10T12:00"));
+        assertEquals(LocalDateTime.parse("2026-01-11T09:00"), next("0 9 * * 7", "2026-01-10T12:00"));
+        assertEquals(LocalDateTime.parse("2026-01-11T09:00"), next("0 0 9 ? * 1", "2026-01-10T12:00"));
+    }
+
+    @Test
+    void restrictedDayOfMonthAndDayOfWeekMatchEitherDay() {
+        // 2026-03-01 is a Sunday; the first Friday (6th) comes before the 13th
+        assertEquals(LocalDateTime.parse("2026-03-06T00:00"), next("0 0 13 * FRI", "2026-03-01T00:00"));
+        assertEquals(LocalDateTime.parse("2026-03-13T00:00"), next("0 0 13 * FRI", "2026-03-06T00:00"));
+        assertEquals(LocalDateTime.parse("2026-03-02T00:00"), next("0 0 1 * MON", "2026-03-01T00:00"));
+        // With one day field unrestricted only the other one counts
+        assertEquals(LocalDateTime.parse("2026-03-13T00:00"), next("0 0 13 * *", "2026-03-01T00:00"));
+        assertEquals(LocalDateTime.parse("2026-03-13T00:00"), next("0 0 0 13 * ?", "2026-03-01T00:00"));
+        assertEquals(LocalDateTime.parse("2026-03-06T00:00"), next("0 0 * * FRI", "2026-03-01T00:00"));
+    }
+
+    @Test
+    void monthNamesAndImpossibleDates() {
+        assertEquals(LocalDateTime.parse("2026-06-01T00:00"), next("0 0 1 JUN,DEC *", "2026-01-10T00:00"));
+        assertEquals(LocalDateTime.parse("2028-02-29T00:00"), next("0 0 29 2 *", "2026-01-10T00:00"));
+        assertNull(next("0 0 30 2 *", "2026-01-10T00:00"));
+    }
+
+    @Test
+    void invalidExpressionsAreRejected() {
+        for (String expression : new String[]{"", "* * *", "61 * * * *", "* 24 * * *", "0 0 0 * *", "? * * * *",
+                "10-5 * * * *", "* * * FOO *", "*/0 * * * *"}) {
+            assertThrows(IllegalArgumentException.class, () -> CronExpression.parse(expression), expression);
+        }
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse(null));
+    }
+
+    @Test
+    void matchInADaylightSavingGapFiresWhenTheClockLands() {
+        CronExpression cron = CronExpression.parse("30 2 * * *");
+        ZonedDateTime fire = cron.nextAfter(berlin("2026-03-29T01:00", 1));
+        assertEquals(berlin("2026-03-29T03:00", 2), fire);
+        assertEquals(berlin("2026-03-30T02:30", 2), cron.nextAfter(fire));
+    }
+
+    @Test
+    void matchesInADaylightSavingGapCollapseIntoOneFire() {
+        CronExpression cron = CronExpression.parse("*/15 * * * *");
+        ZonedDateTime fire = cron.nextAfter(berlin("2026-03-29T01:50", 1));
+        assertEquals(berlin("2026-03-29T03:00", 2), fire);
+        assertEquals(berlin("2026-03-29T03:15", 2), cron.nextAfter(fire));
+    }
+
+    @Test
+    void repeatedTimeInADaylightSavingOverlapFiresOnce() {
+        CronExpression cron = CronExpression.parse("30 2 * * *");
+        ZonedDateTime fire = cron.nextAfter(berlin("2026-10-25T00:00", 2));
+        assertEquals(berlin("2026-10-25T02:30", 2), fire);
+        assertEquals(berlin("2026-10-26T02:30", 1), cron.nextAfter(fire));
+        // Started during the repeated hour, after the first 02:30 already passed
+        assertEquals(berlin("2026-10-26T02:30", 1), cron.nextAfter(berlin("2026-10-25T02:10", 1)));
+    }
+
+    @Test
+    void zonedNextAfterMatchesLocalNextAfterAwayFromTransitions() {
+        CronExpression cron = CronExpression.parse("0 9 * * MON-FRI");
+        ZonedDateTime after = berlin("2026-07-10T12:00", 2);
+        assertEquals(cron.nextAfter(after.toLocalDateTime()), cron.nextAfter(after).toLocalDateTime());
+    }
+}